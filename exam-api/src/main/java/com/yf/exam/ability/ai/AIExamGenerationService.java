@@ -2,7 +2,10 @@ package com.yf.exam.ability.ai;
 
 import com.alibaba.fastjson2.JSONArray;
 import com.alibaba.fastjson2.JSONObject;
+import com.yf.exam.ability.ai.breaker.LlmCircuitBreaker;
+import com.yf.exam.ability.ai.config.AIConfig;
 import com.yf.exam.ability.ai.dto.LightweightQuestionDTO;
+import com.yf.exam.ability.ai.utils.TokenEstimator;
 import com.yf.exam.config.PromptConfig;
 import com.yf.exam.modules.ai.service.AIProcessingService;
 import com.yf.exam.modules.qu.entity.Qu;
@@ -31,6 +34,18 @@ public class AIExamGenerationService {
     @Autowired
     private QuService quService;
 
+    @Autowired
+    private QuestionPreRanker questionPreRanker;
+
+    @Autowired
+    private LocalPaperAssembler localPaperAssembler;
+
+    @Autowired
+    private AIConfig aiConfig;
+
+    @Autowired
+    private LlmCircuitBreaker circuitBreaker;
+
     /**
      * AI智能选择题目 - 优化版本（仅使用知识点和题干）
      * 支持所有5种题型：单选题、多选题、判断题、简答题、填空题
@@ -114,13 +129,22 @@ public class AIExamGenerationService {
                 return selectQuestionsWithDifficultyRatio(allQuestions, size, quType, selectedKnowledgePoints, scheme);
             }
             
-            // 3. 不强制难度比例时，使用轻量级AI选择（向后兼容）
+            // 3. AI服务熔断中，不再等待超时，直接从已查出的题目中随机选择
+            if (!circuitBreaker.isCallPermitted()) {
+                System.out.println("⚡ AI服务熔断中，直接随机选题");
+                return randomPick(allQuestions, size);
+            }
+
+            // 4. 不强制难度比例时，使用轻量级AI选择（向后兼容）
             try {
                 return lightweightIntelligentSelection(allQuestions, size, quType, selectedKnowledgePoints);
             } catch (Exception lightweightError) {
                 System.err.println("轻量级AI选题失败，尝试传统方法: " + lightweightError.getMessage());
+                if (!circuitBreaker.isCallPermitted()) {
+                    return randomPick(allQuestions, size);
+                }
                 
-                // 4. 回退到传统AI选择
+                // 5. 回退到传统AI选择
                 String questionList = buildQuestionSelectionPrompt(allQuestions, size, quType);
                 String selectedIds = callLLMService(questionList, size, selectedKnowledgePoints);
                 return parseAndReturnQuestions(selectedIds, allQuestions);
@@ -133,135 +157,122 @@ public class AIExamGenerationService {
         }
     }
 
+    /**
+     * 随机选择指定数量的题目（AI不可用时的降级）
+     * @param allQuestions 候选题目
+     * @param size 数量
+     * @return 随机选中的题目
+     */
+    private List<Qu> randomPick(List<Qu> allQuestions, Integer size) {
+        List<Qu> shuffled = new ArrayList<>(allQuestions);
+        Collections.shuffle(shuffled);
+        return new ArrayList<>(shuffled.subList(0, Math.min(size, shuffled.size())));
+    }
+
     /**
      * 🎯 按难度比例强制分配题目 - 核心实现方法
      * 严格按照 PromptConfig.DifficultyRatio 中定义的比例分配题目
+     * 由本地组卷优化器完成；开启 conf.ai.assembly.llm-rerank 时再由LLM在本地结果的各难度档内保留或替换题目
      * @param allQuestions 所有可选题目
      * @param totalSize 总题目数量
      * @param quType 题目类型
      * @return 按难度比例分配的题目列表
      */
     private List<Qu> selectQuestionsWithDifficultyRatio(List<Qu> allQuestions, Integer totalSize, Integer quType, List<String> selectedKnowledgePoints, PromptConfig.DifficultyRatio.DifficultyScheme scheme) {
-        System.out.println("🎯 开始按难度比例强制分配题目 - 方案: " + scheme.getName());
-        
-        // 1. 计算各难度级别需要的题目数量
-        int[] difficultyCount = PromptConfig.DifficultyRatio.calculateQuestionCounts(totalSize, scheme);
-        int easyCount = difficultyCount[0];
-        int mediumCount = difficultyCount[1]; 
-        int hardCount = difficultyCount[2];
-        int superHardCount = difficultyCount.length > 3 ? difficultyCount[3] : 0;
-        
-        System.out.println("📊 难度分配计划: 简单题(" + easyCount + ") + 普通题(" + mediumCount + ") + 难题(" + hardCount + ") + 超难题(" + superHardCount + ") = " + totalSize);
-        
-        // 2. 按难度分组题目
-        Map<Integer, List<Qu>> questionsByDifficulty = allQuestions.stream()
-            .collect(Collectors.groupingBy(Qu::getLevel));
-            
-        // 确保所有难度级别都有对应的列表
-        questionsByDifficulty.putIfAbsent(PromptConfig.DifficultyRatio.EASY_LEVEL, new ArrayList<>());
-        questionsByDifficulty.putIfAbsent(PromptConfig.DifficultyRatio.MEDIUM_LEVEL, new ArrayList<>());
-        questionsByDifficulty.putIfAbsent(PromptConfig.DifficultyRatio.HARD_LEVEL, new ArrayList<>());
-        
-        System.out.println("📈 题目难度分布统计:");
-        questionsByDifficulty.forEach((level, questions) -> 
-            System.out.println("  Level " + level + ": " + questions.size() + " 道题目"));
-        
-        // 3. 分别从各难度级别选择题目
+        // 各档题数和知识点约束都是数值化的，本地优化即可毫秒级完成
+        if (!aiConfig.getAssembly().isLlmRerank() || !circuitBreaker.isCallPermitted()) {
+            System.out.println("🧮 使用本地组卷优化器 - 方案: " + scheme.getName());
+            return localPaperAssembler.assemble(allQuestions, totalSize, selectedKnowledgePoints, scheme);
+        }
+
+        // 本地组卷结果作为基础，LLM只在各难度档内保留或替换，各档题数保持不变
+        List<Qu> assembled = localPaperAssembler.assemble(allQuestions, totalSize, selectedKnowledgePoints, scheme);
+        System.out.println("🎯 本地组卷完成，开始LLM逐档重排 - 方案: " + scheme.getName() + ", 题数: " + assembled.size());
+
+        Map<Integer, List<Qu>> poolByLevel = allQuestions.stream()
+            .collect(Collectors.groupingBy(this::levelOf));
+        Map<Integer, List<Qu>> assembledByLevel = assembled.stream()
+            .collect(Collectors.groupingBy(this::levelOf, TreeMap::new, Collectors.toList()));
+
         List<Qu> selectedQuestions = new ArrayList<>();
-        
-        try {
-            // 选择简单题
-            List<Qu> selectedEasy = selectQuestionsFromDifficultyGroup(
-                questionsByDifficulty.get(PromptConfig.DifficultyRatio.EASY_LEVEL), 
-                easyCount, "简单题", quType, selectedKnowledgePoints);
-            selectedQuestions.addAll(selectedEasy);
-            
-            // 选择中等题
-            List<Qu> selectedMedium = selectQuestionsFromDifficultyGroup(
-                questionsByDifficulty.get(PromptConfig.DifficultyRatio.MEDIUM_LEVEL), 
-                mediumCount, "中等题", quType, selectedKnowledgePoints);
-            selectedQuestions.addAll(selectedMedium);
-            
-            // 选择困难题
-            List<Qu> selectedHard = selectQuestionsFromDifficultyGroup(
-                questionsByDifficulty.get(PromptConfig.DifficultyRatio.HARD_LEVEL), 
-                hardCount, "难题", quType, selectedKnowledgePoints);
-            selectedQuestions.addAll(selectedHard);
-            
-            // 选择超难题
-            List<Qu> selectedSuperHard = new ArrayList<>();
-            if (superHardCount > 0) {
-                selectedSuperHard = selectQuestionsFromDifficultyGroup(
-                    questionsByDifficulty.get(PromptConfig.DifficultyRatio.SUPER_HARD_LEVEL), 
-                    superHardCount, "超难题", quType, selectedKnowledgePoints);
-                selectedQuestions.addAll(selectedSuperHard);
-            }
-            
-            System.out.println("✅ 难度比例分配完成！实际选择: " + selectedQuestions.size() + " 道题目");
-            System.out.println("📊 最终分布: 简单(" + selectedEasy.size() + ") + 普通(" + selectedMedium.size() + ") + 难题(" + selectedHard.size() + ") + 超难(" + selectedSuperHard.size() + ")");
-            
-            return selectedQuestions;
-            
-        } catch (Exception e) {
-            System.err.println("❌ 难度比例分配失败: " + e.getMessage());
-            // 回退到轻量级AI选择
-            return lightweightIntelligentSelection(allQuestions, totalSize, quType, selectedKnowledgePoints);
+        for (Map.Entry<Integer, List<Qu>> band : assembledByLevel.entrySet()) {
+            List<Qu> pool = poolByLevel.getOrDefault(band.getKey(), Collections.emptyList());
+            selectedQuestions.addAll(rerankBand(band.getValue(), pool, quType, selectedKnowledgePoints));
         }
+
+        System.out.println("✅ LLM重排完成！实际选择: " + selectedQuestions.size() + " 道题目");
+        return selectedQuestions;
     }
-    
+
     /**
-     * 从特定难度组中选择指定数量的题目
-     * @param questionsInGroup 该难度组的所有题目
-     * @param requiredCount 需要选择的数量
-     * @param difficultyName 难度名称（用于日志）
+     * LLM在一个难度档内重排：候选为本地选中的题目加同档预排序靠前的备选题，
+     * 选出同样数量的题目；LLM失败或返回不足时用本地选中的题目补齐
+     * @param assembledBand 本地组卷在该档选中的题目
+     * @param pool 该难度档的全部题目
      * @param quType 题目类型
-     * @return 选中的题目列表
+     * @param selectedKnowledgePoints 选定知识点（可为null）
+     * @return 该档最终题目，数量与本地结果一致
      */
-    private List<Qu> selectQuestionsFromDifficultyGroup(List<Qu> questionsInGroup, int requiredCount, 
-                                                       String difficultyName, Integer quType, List<String> selectedKnowledgePoints) {
-        if (requiredCount <= 0) {
-            System.out.println("⏭️ " + difficultyName + " 需要数量为0，跳过");
-            return new ArrayList<>();
+    private List<Qu> rerankBand(List<Qu> assembledBand, List<Qu> pool, Integer quType, List<String> selectedKnowledgePoints) {
+        int requiredCount = assembledBand.size();
+        Set<String> assembledIds = assembledBand.stream().map(Qu::getId).collect(Collectors.toSet());
+        List<Qu> alternatives = pool.stream()
+            .filter(qu -> !assembledIds.contains(qu.getId()))
+            .collect(Collectors.toList());
+        if (alternatives.isEmpty() || !circuitBreaker.isCallPermitted()) {
+            return assembledBand;
         }
-        
-        if (CollectionUtils.isEmpty(questionsInGroup)) {
-            System.out.println("⚠️ " + difficultyName + " 题库为空，无法选择");
-            return new ArrayList<>();
-        }
-        
-        // 如果题目数量不足，返回所有可用题目
-        if (questionsInGroup.size() <= requiredCount) {
-            System.out.println("⚠️ " + difficultyName + " 题目不足，返回所有 " + questionsInGroup.size() + " 道");
-            return new ArrayList<>(questionsInGroup);
-        }
-        
+
+        // 本地选中的题目排在前面，备选题按预排序截取
+        List<Qu> candidates = new ArrayList<>(assembledBand);
+        candidates.addAll(questionPreRanker.shortlist(alternatives, requiredCount, selectedKnowledgePoints, null));
+        Map<String, Qu> candidateMap = candidates.stream()
+            .collect(Collectors.toMap(Qu::getId, qu -> qu, (a, b) -> a, LinkedHashMap::new));
+
+        Set<String> chosen = new LinkedHashSet<>();
         try {
-            // 使用AI从该难度组中选择最优题目
-            System.out.println("🤖 使用AI从 " + questionsInGroup.size() + " 道" + difficultyName + "中选择 " + requiredCount + " 道");
-            return lightweightIntelligentSelection(questionsInGroup, requiredCount, quType, selectedKnowledgePoints);
-            
+            String questionList = "前" + requiredCount + "道为本地组卷结果，可保留或替换为后面的同难度题目\n"
+                    + buildLightweightQuestionList(candidates, requiredCount, quType, selectedKnowledgePoints);
+            String selectedIds = callLightweightLLMService(questionList, requiredCount, selectedKnowledgePoints);
+            for (String id : selectedIds.trim().split("[,，\\s]+")) {
+                if (candidateMap.containsKey(id.trim()) && chosen.size() < requiredCount) {
+                    chosen.add(id.trim());
+                }
+            }
         } catch (Exception e) {
-            System.err.println("❌ AI选择" + difficultyName + "失败，使用随机选择: " + e.getMessage());
-            // 回退到随机选择
-            Collections.shuffle(questionsInGroup);
-            return questionsInGroup.subList(0, requiredCount);
+            System.err.println("❌ LLM重排难度档失败，保留本地结果: " + e.getMessage());
         }
+        for (Qu qu : assembledBand) {
+            if (chosen.size() >= requiredCount) {
+                break;
+            }
+            chosen.add(qu.getId());
+        }
+        return chosen.stream().map(candidateMap::get).collect(Collectors.toList());
+    }
+
+    private Integer levelOf(Qu qu) {
+        return qu.getLevel() != null ? qu.getLevel() : PromptConfig.DifficultyRatio.EASY_LEVEL;
     }
 
     /**
      * 轻量级AI智能选题方法
      * 只发送题目ID、题干和知识点给LLM，节省token和时间
+     * 发送前先本地预排序，只保留有限数量的候选题
      */
     public List<Qu> lightweightIntelligentSelection(List<Qu> allQuestions, Integer size, Integer quType, List<String> selectedKnowledgePoints) {
         try {
-            // 1. 构建轻量级题目信息
-            String lightweightQuestions = buildLightweightQuestionList(allQuestions, size, quType);
+            // 1. 本地预排序，截取候选题
+            List<Qu> candidates = questionPreRanker.shortlist(allQuestions, size, selectedKnowledgePoints, null);
+
+            // 2. 构建轻量级题目信息（受提示词token预算约束）
+            String lightweightQuestions = buildLightweightQuestionList(candidates, size, quType, selectedKnowledgePoints);
             
-            // 2. 调用轻量级LLM服务
+            // 3. 调用轻量级LLM服务
             String selectedIds = callLightweightLLMService(lightweightQuestions, size, selectedKnowledgePoints);
             
-            // 3. 根据ID获取完整题目信息
-            return parseAndReturnQuestions(selectedIds, allQuestions);
+            // 4. 根据ID获取完整题目信息
+            return parseAndReturnQuestions(selectedIds, candidates);
             
         } catch (Exception e) {
             throw new RuntimeException("轻量级AI选题失败: " + e.getMessage(), e);
@@ -271,23 +282,47 @@ public class AIExamGenerationService {
     /**
      * 构建轻量级题目列表（仅包含ID、题干、知识点）
      * 大幅减少LLM输入token数量，提升处理效率
+     * 题目按预排序顺序加入，超出提示词token预算后停止（至少保留size道）
      */
-    private String buildLightweightQuestionList(List<Qu> questions, Integer size, Integer quType) {
-        StringBuilder lightweightList = new StringBuilder();
-        
-        String typeName = getQuestionTypeName(quType);
-        lightweightList.append("题型：").append(typeName).append("\n");
-        lightweightList.append("从以下").append(questions.size()).append("道题目中选择").append(size).append("道最优题目：\n\n");
-        
+    private String buildLightweightQuestionList(List<Qu> questions, Integer size, Integer quType,
+                                                List<String> selectedKnowledgePoints) {
+        AIConfig.Selection conf = aiConfig.getSelection();
+
+        // 选题提示词本身也计入预算
+        int budget = conf.getMaxPromptTokens()
+                - TokenEstimator.estimate(buildSelectionPromptWithKnowledgePoints(selectedKnowledgePoints));
+
         // 构建轻量级题目列表
+        StringBuilder body = new StringBuilder();
+        int used = 0;
+        int count = 0;
         for (Qu qu : questions) {
-            lightweightList.append("ID: ").append(qu.getId()).append("\n");
-            lightweightList.append("题干: ").append(getSafeQuestionStem(qu)).append("\n");
-            lightweightList.append("知识点: ").append(getSafeKnowledgePoints(qu)).append("\n");
-            lightweightList.append("难度: ").append(qu.getLevel() != null ? qu.getLevel() : 1).append("\n");
-            lightweightList.append("---\n");
+            StringBuilder entry = new StringBuilder();
+            entry.append("ID: ").append(qu.getId()).append("\n");
+            entry.append("题干: ").append(truncateContent(getSafeQuestionStem(qu), conf.getMaxStemLength())).append("\n");
+            entry.append("知识点: ").append(getSafeKnowledgePoints(qu)).append("\n");
+            entry.append("难度: ").append(qu.getLevel() != null ? qu.getLevel() : 1).append("\n");
+            entry.append("---\n");
+
+            int tokens = TokenEstimator.estimate(entry);
+            if (count >= size && used + tokens > budget) {
+                break;
+            }
+            body.append(entry);
+            used += tokens;
+            count++;
         }
-        
+
+        if (count < questions.size()) {
+            System.out.println("✂️ 提示词预算限制: 候选题 " + questions.size() + " → " + count + " 道, 约 " + used + " tokens");
+        }
+
+        StringBuilder lightweightList = new StringBuilder();
+        String typeName = getQuestionTypeName(quType);
+        lightweightList.append("题型：").append(typeName).append("\n");
+        lightweightList.append("从以下").append(count).append("道题目中选择").append(size).append("道最优题目：\n\n");
+        lightweightList.append(body);
+
         return lightweightList.toString();
     }
 
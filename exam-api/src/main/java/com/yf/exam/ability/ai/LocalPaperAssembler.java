@@ -0,0 +1,387 @@
+package com.yf.exam.ability.ai;
+
+import com.yf.exam.ability.ai.config.AIConfig;
+import com.yf.exam.config.PromptConfig;
+import com.yf.exam.modules.qu.entity.Qu;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.util.CollectionUtils;
+
+import java.util.*;
+
+/**
+ * 本地组卷优化器
+ * 按难度方案计算的各档题数约束，最大化知识点覆盖与多样性：
+ * 贪心构造 + 随机重启 + 同档交换局部搜索，随机种子由输入决定，结果可复现
+ *
+ * @author AI Assistant
+ * @date 2026-10-19
+ */
+@Component
+public class LocalPaperAssembler {
+
+    private static final Logger logger = LoggerFactory.getLogger(LocalPaperAssembler.class);
+
+    /**
+     * 难度档位，顺序与 calculateQuestionCounts 返回值一致
+     */
+    private static final int[] LEVELS = {
+            PromptConfig.DifficultyRatio.EASY_LEVEL,
+            PromptConfig.DifficultyRatio.MEDIUM_LEVEL,
+            PromptConfig.DifficultyRatio.HARD_LEVEL,
+            PromptConfig.DifficultyRatio.SUPER_HARD_LEVEL
+    };
+
+    /**
+     * 选定知识点的覆盖权重
+     */
+    private static final double SELECTED_POINT_WEIGHT = 2.0;
+
+    /**
+     * 其他知识点的覆盖权重
+     */
+    private static final double OTHER_POINT_WEIGHT = 1.0;
+
+    /**
+     * 同一知识点重复出现的惩罚
+     */
+    private static final double REDUNDANCY_PENALTY = 0.3;
+
+    /**
+     * 无知识点标注题目的基础分，保证可被选中但排在有标注题目之后
+     */
+    private static final double UNTAGGED_SCORE = 0.05;
+
+    /**
+     * 贪心构造时的随机扰动幅度
+     */
+    private static final double JITTER = 0.35;
+
+    @Autowired
+    private AIConfig aiConfig;
+
+    /**
+     * 按难度方案组卷
+     * @param candidates 候选题
+     * @param totalSize 总题数
+     * @param selectedKnowledgePoints 选定知识点（可为null）
+     * @param scheme 难度方案
+     * @return 选中的题目，按难度从低到高排列
+     */
+    public List<Qu> assemble(List<Qu> candidates, int totalSize, List<String> selectedKnowledgePoints,
+                             PromptConfig.DifficultyRatio.DifficultyScheme scheme) {
+
+        if (CollectionUtils.isEmpty(candidates) || totalSize <= 0) {
+            return new ArrayList<>();
+        }
+        if (candidates.size() <= totalSize) {
+            return new ArrayList<>(candidates);
+        }
+
+        long start = System.currentTimeMillis();
+        AIConfig.Assembly conf = aiConfig.getAssembly();
+        Problem problem = new Problem(candidates, selectedKnowledgePoints);
+
+        // 1. 各档需要的题数，题量不足的档位从相邻档位补足
+        int[] required = planCounts(problem, totalSize, scheme);
+
+        // 2. 随机重启：每轮贪心构造 + 局部搜索，保留目标值最高的一轮
+        Random random = new Random(seedOf(candidates, totalSize, scheme));
+        int[] best = null;
+        double bestValue = Double.NEGATIVE_INFINITY;
+        int restarts = Math.max(1, conf.getRestarts());
+        for (int round = 0; round < restarts; round++) {
+            // 第一轮不加扰动，得到纯贪心解
+            double jitter = round == 0 ? 0 : JITTER;
+            int[] solution = greedy(problem, required, random, jitter);
+            localSearch(problem, solution, conf.getSwapPasses());
+            double value = problem.objective(solution);
+            if (value > bestValue) {
+                bestValue = value;
+                best = solution;
+            }
+        }
+
+        List<Qu> result = new ArrayList<>(best.length);
+        Integer[] order = new Integer[best.length];
+        for (int i = 0; i < best.length; i++) {
+            order[i] = best[i];
+        }
+        Arrays.sort(order, Comparator.comparingInt((Integer i) -> problem.levels[i]).thenComparingInt(i -> i));
+        for (Integer index : order) {
+            result.add(problem.questions.get(index));
+        }
+
+        logger.info("🧮 本地组卷完成: 候选 {} 道 → 选中 {} 道, 计划 {}, 覆盖知识点 {} 个, 目标值 {}, 耗时 {}ms",
+                candidates.size(), result.size(), Arrays.toString(required),
+                problem.coveredCount(best), String.format("%.2f", bestValue), System.currentTimeMillis() - start);
+        return result;
+    }
+
+    /**
+     * 计算各档题数：按方案分配，题量不足时就近借用相邻档位
+     */
+    private int[] planCounts(Problem problem, int totalSize, PromptConfig.DifficultyRatio.DifficultyScheme scheme) {
+        int[] plan = PromptConfig.DifficultyRatio.calculateQuestionCounts(totalSize, scheme);
+        int[] available = new int[LEVELS.length];
+        for (int level : problem.levels) {
+            available[levelIndex(level)]++;
+        }
+
+        int[] required = new int[LEVELS.length];
+        int shortage = 0;
+        for (int i = 0; i < LEVELS.length; i++) {
+            required[i] = Math.min(plan[i], available[i]);
+            shortage += plan[i] - required[i];
+        }
+
+        // 缺口按距离由近及远从其他档位补齐
+        for (int i = 0; i < LEVELS.length && shortage > 0; i++) {
+            int missing = plan[i] - required[i];
+            for (int distance = 1; distance < LEVELS.length && missing > 0; distance++) {
+                for (int neighbor : new int[]{i - distance, i + distance}) {
+                    if (neighbor < 0 || neighbor >= LEVELS.length || missing == 0) {
+                        continue;
+                    }
+                    int spare = available[neighbor] - required[neighbor];
+                    int take = Math.min(spare, missing);
+                    if (take > 0) {
+                        required[neighbor] += take;
+                        missing -= take;
+                        shortage -= take;
+                    }
+                }
+            }
+        }
+        return required;
+    }
+
+    /**
+     * 贪心构造：每步在仍有缺额的档位中选边际收益最高的题目
+     */
+    private int[] greedy(Problem problem, int[] required, Random random, double jitter) {
+        int total = 0;
+        for (int count : required) {
+            total += count;
+        }
+
+        int[] remaining = required.clone();
+        int[] solution = new int[total];
+        boolean[] used = new boolean[problem.size()];
+        int[] pointCount = new int[problem.pointCount()];
+        double[] noise = new double[problem.size()];
+        for (int i = 0; i < noise.length; i++) {
+            noise[i] = jitter > 0 ? random.nextDouble() * jitter : 0;
+        }
+
+        for (int step = 0; step < total; step++) {
+            int bestIndex = -1;
+            double bestGain = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i < problem.size(); i++) {
+                if (used[i] || remaining[problem.levelIndexes[i]] == 0) {
+                    continue;
+                }
+                double gain = problem.gain(i, pointCount) + noise[i];
+                if (gain > bestGain) {
+                    bestGain = gain;
+                    bestIndex = i;
+                }
+            }
+            used[bestIndex] = true;
+            remaining[problem.levelIndexes[bestIndex]]--;
+            problem.add(bestIndex, pointCount);
+            solution[step] = bestIndex;
+        }
+        return solution;
+    }
+
+    /**
+     * 局部搜索：尝试把已选题与同档未选题交换，目标值提升则接受
+     */
+    private void localSearch(Problem problem, int[] solution, int passes) {
+        boolean[] used = new boolean[problem.size()];
+        int[] pointCount = new int[problem.pointCount()];
+        for (int index : solution) {
+            used[index] = true;
+            problem.add(index, pointCount);
+        }
+
+        for (int pass = 0; pass < passes; pass++) {
+            boolean improved = false;
+            for (int s = 0; s < solution.length; s++) {
+                int current = solution[s];
+                problem.remove(current, pointCount);
+                double currentGain = problem.gain(current, pointCount);
+
+                int bestIndex = current;
+                double bestGain = currentGain;
+                for (int i = 0; i < problem.size(); i++) {
+                    if (used[i] || problem.levels[i] != problem.levels[current]) {
+                        continue;
+                    }
+                    double gain = problem.gain(i, pointCount);
+                    if (gain > bestGain + 1e-9) {
+                        bestGain = gain;
+                        bestIndex = i;
+                    }
+                }
+
+                problem.add(bestIndex, pointCount);
+                if (bestIndex != current) {
+                    used[current] = false;
+                    used[bestIndex] = true;
+                    solution[s] = bestIndex;
+                    improved = true;
+                }
+            }
+            if (!improved) {
+                break;
+            }
+        }
+    }
+
+    private static int levelIndex(int level) {
+        for (int i = 0; i < LEVELS.length; i++) {
+            if (LEVELS[i] == level) {
+                return i;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * 随机种子由候选题、题数和方案决定，相同输入得到相同结果
+     */
+    private static long seedOf(List<Qu> candidates, int totalSize, PromptConfig.DifficultyRatio.DifficultyScheme scheme) {
+        long seed = 1125899906842597L;
+        for (Qu qu : candidates) {
+            seed = 31 * seed + (qu.getId() == null ? 0 : qu.getId().hashCode());
+        }
+        seed = 31 * seed + totalSize;
+        seed = 31 * seed + scheme.ordinal();
+        return seed;
+    }
+
+    /**
+     * 组卷问题的紧凑表示：知识点编号化，便于快速计算边际收益
+     */
+    private static class Problem {
+
+        private final List<Qu> questions;
+        private final int[] levels;
+        private final int[] levelIndexes;
+        private final int[][] points;
+        private final double[] weights;
+
+        Problem(List<Qu> candidates, List<String> selectedKnowledgePoints) {
+            this.questions = candidates;
+            this.levels = new int[candidates.size()];
+            this.levelIndexes = new int[candidates.size()];
+            this.points = new int[candidates.size()][];
+
+            Set<String> selected = new HashSet<>();
+            if (selectedKnowledgePoints != null) {
+                for (String point : selectedKnowledgePoints) {
+                    selected.add(point.trim());
+                }
+            }
+
+            Map<String, Integer> pointIds = new HashMap<>();
+            List<Double> weightList = new ArrayList<>();
+            for (int i = 0; i < candidates.size(); i++) {
+                Qu qu = candidates.get(i);
+                Integer level = qu.getLevel();
+                boolean known = level != null && level >= PromptConfig.DifficultyRatio.EASY_LEVEL
+                        && level <= PromptConfig.DifficultyRatio.SUPER_HARD_LEVEL;
+                levels[i] = known ? level : PromptConfig.DifficultyRatio.EASY_LEVEL;
+                levelIndexes[i] = levelIndex(levels[i]);
+
+                Set<String> names = QuestionPreRanker.parseKnowledgePoints(qu.getKnowledgePoints());
+                int[] ids = new int[names.size()];
+                int n = 0;
+                for (String name : names) {
+                    Integer id = pointIds.get(name);
+                    if (id == null) {
+                        id = pointIds.size();
+                        pointIds.put(name, id);
+                        weightList.add(selected.isEmpty() || selected.contains(name) ? SELECTED_POINT_WEIGHT : OTHER_POINT_WEIGHT);
+                    }
+                    ids[n++] = id;
+                }
+                points[i] = ids;
+            }
+
+            this.weights = new double[weightList.size()];
+            for (int i = 0; i < weights.length; i++) {
+                weights[i] = weightList.get(i);
+            }
+        }
+
+        int size() {
+            return questions.size();
+        }
+
+        int pointCount() {
+            return weights.length;
+        }
+
+        /**
+         * 加入题目 i 的边际收益：新覆盖知识点的权重，减去重复知识点的惩罚
+         * 与 objective 的增量严格一致，保证局部搜索单调提升
+         */
+        double gain(int i, int[] pointCount) {
+            if (points[i].length == 0) {
+                return UNTAGGED_SCORE;
+            }
+            double gain = 0;
+            for (int p : points[i]) {
+                gain += pointCount[p] == 0 ? weights[p] : -REDUNDANCY_PENALTY * pointCount[p];
+            }
+            return gain;
+        }
+
+        void add(int i, int[] pointCount) {
+            for (int p : points[i]) {
+                pointCount[p]++;
+            }
+        }
+
+        void remove(int i, int[] pointCount) {
+            for (int p : points[i]) {
+                pointCount[p]--;
+            }
+        }
+
+        /**
+         * 目标值：覆盖知识点的总权重 - 重复惩罚
+         */
+        double objective(int[] solution) {
+            int[] pointCount = new int[pointCount()];
+            double value = 0;
+            for (int index : solution) {
+                if (points[index].length == 0) {
+                    value += UNTAGGED_SCORE;
+                }
+                add(index, pointCount);
+            }
+            for (int p = 0; p < pointCount.length; p++) {
+                if (pointCount[p] > 0) {
+                    value += weights[p] - REDUNDANCY_PENALTY * (pointCount[p] - 1) * pointCount[p] / 2.0;
+                }
+            }
+            return value;
+        }
+
+        int coveredCount(int[] solution) {
+            Set<Integer> covered = new HashSet<>();
+            for (int index : solution) {
+                for (int p : points[index]) {
+                    covered.add(p);
+                }
+            }
+            return covered.size();
+        }
+    }
+}
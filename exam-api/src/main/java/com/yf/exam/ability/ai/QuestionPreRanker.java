@@ -0,0 +1,214 @@
+package com.yf.exam.ability.ai;
+
+import com.alibaba.fastjson2.JSONArray;
+import com.yf.exam.ability.ai.config.AIConfig;
+import com.yf.exam.config.PromptConfig;
+import com.yf.exam.modules.paper.dto.ext.PaperQuUsageDTO;
+import com.yf.exam.modules.paper.service.PaperQuService;
+import com.yf.exam.modules.qu.entity.Qu;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.util.CollectionUtils;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * 候选题本地预排序
+ * 在调用LLM选题前，按知识点匹配/覆盖、难度契合度、近期使用情况打分，
+ * 只把有限数量(目标题数的倍数)的候选题发给LLM
+ *
+ * @author AI Assistant
+ * @date 2026-10-19
+ */
+@Component
+public class QuestionPreRanker {
+
+    private static final Logger logger = LoggerFactory.getLogger(QuestionPreRanker.class);
+
+    private static final long DAY_MILLIS = 24L * 60 * 60 * 1000;
+
+    @Autowired
+    private AIConfig aiConfig;
+
+    @Autowired
+    private PaperQuService paperQuService;
+
+    /**
+     * 预排序并截取候选题
+     * @param candidates 全部候选题
+     * @param size 需要选择的题目数量
+     * @param selectedKnowledgePoints 选定的知识点（可为null）
+     * @param scheme 难度方案（可为null，使用默认方案）
+     * @return 按得分从高到低排列的候选题，数量不超过 size * candidateMultiple
+     */
+    public List<Qu> shortlist(List<Qu> candidates, int size, List<String> selectedKnowledgePoints,
+                              PromptConfig.DifficultyRatio.DifficultyScheme scheme) {
+
+        AIConfig.Selection conf = aiConfig.getSelection();
+        int limit = Math.max(size * Math.max(1, conf.getCandidateMultiple()), conf.getMinCandidates());
+
+        if (CollectionUtils.isEmpty(candidates) || candidates.size() <= limit) {
+            return candidates == null ? new ArrayList<>() : new ArrayList<>(candidates);
+        }
+
+        long start = System.currentTimeMillis();
+        if (scheme == null) {
+            scheme = PromptConfig.DifficultyRatio.DEFAULT_SCHEME;
+        }
+
+        Set<String> selectedSet = CollectionUtils.isEmpty(selectedKnowledgePoints)
+                ? Collections.emptySet()
+                : selectedKnowledgePoints.stream().map(String::trim).collect(Collectors.toSet());
+        Map<String, PaperQuUsageDTO> usageMap = loadUsage(candidates);
+        long now = System.currentTimeMillis();
+
+        // 1. 计算基础得分
+        List<Scored> pool = new ArrayList<>(candidates.size());
+        for (Qu qu : candidates) {
+            Set<String> points = parseKnowledgePoints(qu.getKnowledgePoints());
+            double base = conf.getKnowledgeWeight() * knowledgeScore(points, selectedSet)
+                    + conf.getDifficultyWeight() * difficultyScore(qu.getLevel(), scheme)
+                    + conf.getRecencyWeight() * recencyScore(usageMap.get(qu.getId()), now, conf.getRecencyHalfLifeDays());
+            pool.add(new Scored(qu, points, base));
+        }
+
+        // 2. 贪心挑选：基础得分 + 新增知识点覆盖的边际收益，保证候选集知识点多样
+        List<Qu> result = new ArrayList<>(limit);
+        Set<String> covered = new HashSet<>();
+        while (result.size() < limit && !pool.isEmpty()) {
+            int bestIndex = 0;
+            double bestScore = -1;
+            for (int i = 0; i < pool.size(); i++) {
+                Scored item = pool.get(i);
+                double score = item.base + conf.getCoverageWeight() * coverageGain(item.points, covered);
+                if (score > bestScore) {
+                    bestScore = score;
+                    bestIndex = i;
+                }
+            }
+            Scored best = pool.get(bestIndex);
+            // 与末尾交换后删除，O(1)
+            pool.set(bestIndex, pool.get(pool.size() - 1));
+            pool.remove(pool.size() - 1);
+            covered.addAll(best.points);
+            result.add(best.qu);
+        }
+
+        logger.info("📉 候选题预排序: {} → {} 道, 覆盖知识点 {} 个, 耗时 {}ms",
+                candidates.size(), result.size(), covered.size(), System.currentTimeMillis() - start);
+        return result;
+    }
+
+    /**
+     * 解析知识点JSON数组
+     * @param knowledgePoints JSON数组字符串
+     * @return 知识点集合，解析失败返回空集合
+     */
+    public static Set<String> parseKnowledgePoints(String knowledgePoints) {
+        Set<String> points = new LinkedHashSet<>();
+        if (knowledgePoints == null || knowledgePoints.trim().isEmpty() || "[]".equals(knowledgePoints.trim())) {
+            return points;
+        }
+        try {
+            JSONArray array = JSONArray.parseArray(knowledgePoints);
+            for (Object obj : array) {
+                if (obj != null && !obj.toString().trim().isEmpty()) {
+                    points.add(obj.toString().trim());
+                }
+            }
+        } catch (Exception e) {
+            // 非JSON格式，按单个知识点处理
+            points.add(knowledgePoints.trim());
+        }
+        return points;
+    }
+
+    /**
+     * 知识点匹配得分：题目知识点中落在选定知识点内的比例
+     * 未选定知识点时，有知识点标注的题目略优先
+     */
+    private double knowledgeScore(Set<String> points, Set<String> selected) {
+        if (points.isEmpty()) {
+            return 0;
+        }
+        if (selected.isEmpty()) {
+            return 0.5;
+        }
+        int hit = 0;
+        for (String point : points) {
+            if (selected.contains(point)) {
+                hit++;
+            }
+        }
+        return (double) hit / points.size();
+    }
+
+    /**
+     * 覆盖增益：题目知识点中尚未被候选集覆盖的比例
+     */
+    private double coverageGain(Set<String> points, Set<String> covered) {
+        if (points.isEmpty()) {
+            return 0;
+        }
+        int fresh = 0;
+        for (String point : points) {
+            if (!covered.contains(point)) {
+                fresh++;
+            }
+        }
+        return (double) fresh / points.size();
+    }
+
+    /**
+     * 难度契合度：该难度在方案中的占比，相对最大占比归一化
+     */
+    private double difficultyScore(Integer level, PromptConfig.DifficultyRatio.DifficultyScheme scheme) {
+        double[] ratios = {scheme.getEasyRatio(), scheme.getMediumRatio(), scheme.getHardRatio(), scheme.getSuperHardRatio()};
+        double max = Arrays.stream(ratios).max().orElse(1);
+        int index = (level == null ? PromptConfig.DifficultyRatio.EASY_LEVEL : level) - 1;
+        if (index < 0 || index >= ratios.length || max <= 0) {
+            return 0;
+        }
+        return ratios[index] / max;
+    }
+
+    /**
+     * 近期使用得分：从未组卷为1，刚被组卷接近0，按半衰期恢复
+     */
+    private double recencyScore(PaperQuUsageDTO usage, long now, int halfLifeDays) {
+        if (usage == null || usage.getLastUsedTime() == null) {
+            return 1;
+        }
+        double days = Math.max(0, now - usage.getLastUsedTime().getTime()) / (double) DAY_MILLIS;
+        return 1 - Math.pow(0.5, days / Math.max(1, halfLifeDays));
+    }
+
+    private Map<String, PaperQuUsageDTO> loadUsage(List<Qu> candidates) {
+        try {
+            List<String> ids = candidates.stream().map(Qu::getId).collect(Collectors.toList());
+            return paperQuService.listUsage(ids).stream()
+                    .collect(Collectors.toMap(PaperQuUsageDTO::getQuId, u -> u, (a, b) -> a));
+        } catch (Exception e) {
+            logger.warn("⚠️ 获取题目组卷使用情况失败，忽略近期使用因素: {}", e.getMessage());
+            return new HashMap<>();
+        }
+    }
+
+    /**
+     * 带得分的候选题
+     */
+    private static class Scored {
+        private final Qu qu;
+        private final Set<String> points;
+        private final double base;
+
+        Scored(Qu qu, Set<String> points, double base) {
+            this.qu = qu;
+            this.points = points;
+            this.base = base;
+        }
+    }
+}
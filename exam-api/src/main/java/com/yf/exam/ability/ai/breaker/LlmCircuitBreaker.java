@@ -0,0 +1,358 @@
+package com.yf.exam.ability.ai.breaker;
+
+import com.yf.exam.ability.ai.config.AIConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * LLM调用熔断器
+ * 按秒分桶的滚动窗口统计错误率和慢调用率，超过阈值后熔断（OPEN），
+ * 等待一段时间后进入半开（HALF_OPEN）放行少量探测调用，探测全部成功则恢复（CLOSED），
+ * 探测失败则重新熔断并将等待时间翻倍
+ *
+ * @author AI Assistant
+ * @date 2026-10-19
+ */
+@Component
+public class LlmCircuitBreaker {
+
+    private static final Logger logger = LoggerFactory.getLogger(LlmCircuitBreaker.class);
+
+    /**
+     * 熔断器状态
+     */
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    @Autowired
+    private AIConfig aiConfig;
+
+    private State state = State.CLOSED;
+
+    /**
+     * 滚动窗口：每秒一个桶
+     */
+    private Bucket[] buckets;
+
+    /**
+     * 最近调用的延迟样本（环形缓冲）
+     */
+    private long[] latencies;
+    private int latencyCursor;
+    private int latencyCount;
+
+    private long openedAt;
+    private long currentOpenMillis;
+    private int halfOpenInFlight;
+    private int halfOpenSuccess;
+
+    private long rejectedCount;
+    private long transitionCount;
+    private long lastTransitionAt;
+    private String lastError;
+
+    /**
+     * 是否允许发起调用（只读判断，不占用半开探测名额）
+     * 供各功能在调用前决定是否直接走降级逻辑
+     * @return 允许返回true
+     */
+    public synchronized boolean isCallPermitted() {
+        AIConfig.Breaker conf = aiConfig.getBreaker();
+        if (!conf.isEnabled()) {
+            return true;
+        }
+        switch (state) {
+            case OPEN:
+                return System.currentTimeMillis() - openedAt >= currentOpenMillis;
+            case HALF_OPEN:
+                return halfOpenInFlight < Math.max(1, conf.getHalfOpenProbes());
+            default:
+                return true;
+        }
+    }
+
+    /**
+     * 申请一次调用许可，半开状态下会占用一个探测名额
+     * 获得许可后必须调用 onSuccess / onFailure / onIgnored 之一
+     * @return 获得许可返回true，熔断中返回false
+     */
+    public synchronized boolean tryAcquire() {
+        AIConfig.Breaker conf = aiConfig.getBreaker();
+        if (!conf.isEnabled()) {
+            return true;
+        }
+
+        if (state == State.OPEN && System.currentTimeMillis() - openedAt >= currentOpenMillis) {
+            transitionTo(State.HALF_OPEN);
+        }
+
+        if (state == State.OPEN
+                || (state == State.HALF_OPEN && halfOpenInFlight >= Math.max(1, conf.getHalfOpenProbes()))) {
+            rejectedCount++;
+            return false;
+        }
+
+        if (state == State.HALF_OPEN) {
+            halfOpenInFlight++;
+        }
+        return true;
+    }
+
+    /**
+     * 记录一次成功调用，超过慢调用阈值的按慢调用统计
+     * @param elapsedMillis 调用耗时
+     */
+    public synchronized void onSuccess(long elapsedMillis) {
+        AIConfig.Breaker conf = aiConfig.getBreaker();
+        if (!conf.isEnabled()) {
+            return;
+        }
+        boolean slow = elapsedMillis >= conf.getSlowCallMillis();
+        record(false, slow, elapsedMillis);
+
+        if (state == State.HALF_OPEN) {
+            halfOpenInFlight = Math.max(0, halfOpenInFlight - 1);
+            if (slow) {
+                lastError = "探测调用耗时 " + elapsedMillis + "ms";
+                reopen();
+                return;
+            }
+            halfOpenSuccess++;
+            if (halfOpenSuccess >= Math.max(1, conf.getHalfOpenProbes())) {
+                transitionTo(State.CLOSED);
+            }
+            return;
+        }
+        evaluate();
+    }
+
+    /**
+     * 记录一次失败调用（连接失败、超时、服务端5xx）
+     * @param elapsedMillis 调用耗时
+     * @param error 错误描述
+     */
+    public synchronized void onFailure(long elapsedMillis, String error) {
+        AIConfig.Breaker conf = aiConfig.getBreaker();
+        if (!conf.isEnabled()) {
+            return;
+        }
+        lastError = error;
+        record(true, elapsedMillis >= conf.getSlowCallMillis(), elapsedMillis);
+
+        if (state == State.HALF_OPEN) {
+            halfOpenInFlight = Math.max(0, halfOpenInFlight - 1);
+            reopen();
+            return;
+        }
+        evaluate();
+    }
+
+    /**
+     * 调用结束但不计入统计（如4xx请求错误，与服务健康无关），释放半开探测名额
+     */
+    public synchronized void onIgnored() {
+        if (state == State.HALF_OPEN) {
+            halfOpenInFlight = Math.max(0, halfOpenInFlight - 1);
+        }
+    }
+
+    /**
+     * 手动重置为关闭状态并清空统计
+     */
+    public synchronized void reset() {
+        transitionTo(State.CLOSED);
+        lastError = null;
+    }
+
+    /**
+     * 当前状态
+     * @return 状态
+     */
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * 熔断器状态快照，用于监控端点
+     * @return 状态数据
+     */
+    public synchronized Map<String, Object> snapshot() {
+        AIConfig.Breaker conf = aiConfig.getBreaker();
+        long now = System.currentTimeMillis();
+        int[] totals = windowTotals(now);
+
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("enabled", conf.isEnabled());
+        data.put("state", state.name());
+        data.put("windowSeconds", conf.getWindowSeconds());
+        data.put("calls", totals[0]);
+        data.put("failures", totals[1]);
+        data.put("slowCalls", totals[2]);
+        data.put("failureRate", rate(totals[1], totals[0]));
+        data.put("slowCallRate", rate(totals[2], totals[0]));
+
+        long[] samples = latencySamples();
+        Map<String, Object> latency = new LinkedHashMap<>();
+        latency.put("samples", samples.length);
+        latency.put("p50", percentile(samples, 0.50));
+        latency.put("p95", percentile(samples, 0.95));
+        latency.put("p99", percentile(samples, 0.99));
+        latency.put("max", samples.length == 0 ? 0 : samples[samples.length - 1]);
+        data.put("latencyMillis", latency);
+
+        if (state == State.OPEN) {
+            data.put("retryInMillis", Math.max(0, currentOpenMillis - (now - openedAt)));
+        }
+        data.put("rejectedCalls", rejectedCount);
+        data.put("transitions", transitionCount);
+        data.put("lastTransitionTime", lastTransitionAt == 0 ? null : new Date(lastTransitionAt));
+        data.put("lastError", lastError);
+        return data;
+    }
+
+    /**
+     * 关闭状态下检查窗口统计，超过阈值则熔断
+     */
+    private void evaluate() {
+        if (state != State.CLOSED) {
+            return;
+        }
+        AIConfig.Breaker conf = aiConfig.getBreaker();
+        int[] totals = windowTotals(System.currentTimeMillis());
+        if (totals[0] < Math.max(1, conf.getMinimumCalls())) {
+            return;
+        }
+        double failureRate = rate(totals[1], totals[0]);
+        double slowRate = rate(totals[2], totals[0]);
+        if (failureRate >= conf.getFailureRateThreshold() || slowRate >= conf.getSlowCallRateThreshold()) {
+            logger.warn("⚡ LLM调用熔断: 窗口内 {} 次调用, 错误率 {}, 慢调用率 {}",
+                    totals[0], String.format("%.2f", failureRate), String.format("%.2f", slowRate));
+            currentOpenMillis = conf.getOpenSeconds() * 1000L;
+            transitionTo(State.OPEN);
+        }
+    }
+
+    /**
+     * 半开探测失败，重新熔断并将等待时间翻倍
+     */
+    private void reopen() {
+        AIConfig.Breaker conf = aiConfig.getBreaker();
+        long max = Math.max(conf.getOpenSeconds(), conf.getMaxOpenSeconds()) * 1000L;
+        currentOpenMillis = Math.min(max, Math.max(conf.getOpenSeconds() * 1000L, currentOpenMillis * 2));
+        logger.warn("⚡ LLM半开探测失败，{} 秒后重试: {}", currentOpenMillis / 1000, lastError);
+        transitionTo(State.OPEN);
+    }
+
+    private void transitionTo(State target) {
+        if (state == target) {
+            return;
+        }
+        logger.info("🔌 LLM熔断器状态: {} → {}", state, target);
+        state = target;
+        transitionCount++;
+        lastTransitionAt = System.currentTimeMillis();
+        halfOpenInFlight = 0;
+        halfOpenSuccess = 0;
+        if (target == State.OPEN) {
+            openedAt = lastTransitionAt;
+        } else if (target == State.CLOSED) {
+            // 恢复后旧的失败统计不再参与判断
+            buckets = null;
+            currentOpenMillis = 0;
+        }
+    }
+
+    private void record(boolean failure, boolean slow, long elapsedMillis) {
+        AIConfig.Breaker conf = aiConfig.getBreaker();
+        long second = System.currentTimeMillis() / 1000;
+        int size = Math.max(1, conf.getWindowSeconds());
+        if (buckets == null || buckets.length != size) {
+            buckets = new Bucket[size];
+        }
+        int index = (int) (second % size);
+        Bucket bucket = buckets[index];
+        if (bucket == null || bucket.second != second) {
+            bucket = new Bucket(second);
+            buckets[index] = bucket;
+        }
+        bucket.calls++;
+        if (failure) {
+            bucket.failures++;
+        }
+        if (slow) {
+            bucket.slowCalls++;
+        }
+
+        int capacity = Math.max(1, conf.getLatencySamples());
+        if (latencies == null || latencies.length != capacity) {
+            latencies = new long[capacity];
+            latencyCursor = 0;
+            latencyCount = 0;
+        }
+        latencies[latencyCursor] = elapsedMillis;
+        latencyCursor = (latencyCursor + 1) % capacity;
+        latencyCount = Math.min(capacity, latencyCount + 1);
+    }
+
+    /**
+     * 汇总窗口内的调用数、失败数、慢调用数
+     */
+    private int[] windowTotals(long now) {
+        int[] totals = new int[3];
+        if (buckets == null) {
+            return totals;
+        }
+        long oldest = now / 1000 - buckets.length + 1;
+        for (Bucket bucket : buckets) {
+            if (bucket != null && bucket.second >= oldest) {
+                totals[0] += bucket.calls;
+                totals[1] += bucket.failures;
+                totals[2] += bucket.slowCalls;
+            }
+        }
+        return totals;
+    }
+
+    private long[] latencySamples() {
+        if (latencies == null || latencyCount == 0) {
+            return new long[0];
+        }
+        long[] samples = Arrays.copyOf(latencies, latencyCount);
+        Arrays.sort(samples);
+        return samples;
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+
+    private static double rate(int part, int total) {
+        return total == 0 ? 0 : (double) part / total;
+    }
+
+    /**
+     * 每秒统计桶
+     */
+    private static class Bucket {
+        private final long second;
+        private int calls;
+        private int failures;
+        private int slowCalls;
+
+        Bucket(long second) {
+            this.second = second;
+        }
+    }
+}
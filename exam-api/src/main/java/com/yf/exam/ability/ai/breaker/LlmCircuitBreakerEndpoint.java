@@ -0,0 +1,35 @@
+package com.yf.exam.ability.ai.breaker;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * LLM熔断器监控端点：/actuator/llmbreaker
+ * GET查看状态和窗口统计，POST重置为关闭状态
+ *
+ * @author AI Assistant
+ * @date 2026-10-19
+ */
+@Component
+@Endpoint(id = "llmbreaker")
+public class LlmCircuitBreakerEndpoint {
+
+    @Autowired
+    private LlmCircuitBreaker circuitBreaker;
+
+    @ReadOperation
+    public Map<String, Object> state() {
+        return circuitBreaker.snapshot();
+    }
+
+    @WriteOperation
+    public Map<String, Object> reset() {
+        circuitBreaker.reset();
+        return circuitBreaker.snapshot();
+    }
+}
@@ -0,0 +1,16 @@
+package com.yf.exam.ability.ai.breaker;
+
+/**
+ * LLM调用被熔断器拒绝
+ *
+ * @author AI Assistant
+ * @date 2026-10-19
+ */
+public class LlmCircuitOpenException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public LlmCircuitOpenException() {
+        super("AI服务暂不可用（熔断中），请稍后重试");
+    }
+}
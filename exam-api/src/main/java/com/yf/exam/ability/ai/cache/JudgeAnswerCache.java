@@ -0,0 +1,390 @@
+package com.yf.exam.ability.ai.cache;
+
+import com.alibaba.fastjson2.JSONObject;
+import com.yf.exam.ability.ai.config.AIConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.text.Normalizer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 简答题答案等价缓存
+ * 同一题目（题干+标准答案+满分）下，答案归一化（全半角统一、小写、合并空白）后完全相同的直接复用已有评分，
+ * 运算符、正负号、小数点等标点会改变答案含义，归一化时一律保留；
+ * 空白答案和“不知道”等无效答案直接记0分；开启相似度阈值后，字符n-gram相似度达到阈值的答案也复用评分。
+ * 每次复用都会记录到复用记录中，供监控端点查询
+ *
+ * @author AI Assistant
+ * @date 2026-10-19
+ */
+@Component
+public class JudgeAnswerCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(JudgeAnswerCache.class);
+
+    public static final String HIT_BLANK = "BLANK";
+    public static final String HIT_EXACT = "EXACT";
+    public static final String HIT_SIMILAR = "SIMILAR";
+
+    /**
+     * 结果中标记复用类型的字段，带此字段的结果不再写入缓存
+     */
+    public static final String FIELD_CACHE_HIT = "cacheHit";
+
+    private static final int AUDIT_HASH_LENGTH = 12;
+
+    @Autowired
+    private AIConfig aiConfig;
+
+    /**
+     * 题目 → 答案缓存，按访问顺序淘汰
+     */
+    private final LinkedHashMap<String, LinkedHashMap<String, Entry>> questions =
+            new LinkedHashMap<>(256, 0.75f, true);
+
+    private final Deque<Map<String, Object>> audit = new ArrayDeque<>();
+
+    private long lookupCount;
+    private long blankHits;
+    private long exactHits;
+    private long similarHits;
+    private long storeCount;
+
+    /**
+     * 计算题目缓存键
+     * @param questionContent 题目内容
+     * @param standardAnswer 标准答案
+     * @param maxScore 满分
+     * @return 缓存键
+     */
+    public static String questionKey(String questionContent, String standardAnswer, double maxScore) {
+        String text = (questionContent == null ? "" : questionContent.trim()) + "\n"
+                + (standardAnswer == null ? "" : standardAnswer.trim()) + "\n" + maxScore;
+        return DigestUtils.md5DigestAsHex(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 归一化答案：全半角统一、小写、连续空白合并为一个空格并去掉首尾空白，标点和符号原样保留
+     * @param answer 原始答案
+     * @return 归一化文本
+     */
+    public static String normalize(String answer) {
+        if (answer == null) {
+            return "";
+        }
+        String text = Normalizer.normalize(answer, Normalizer.Form.NFKC).toLowerCase();
+        StringBuilder sb = new StringBuilder(text.length());
+        boolean space = false;
+        for (int i = 0; i < text.length(); ) {
+            int cp = text.codePointAt(i);
+            i += Character.charCount(cp);
+            if (Character.isWhitespace(cp) || Character.isSpaceChar(cp)) {
+                space = sb.length() > 0;
+                continue;
+            }
+            if (space) {
+                sb.append(' ');
+                space = false;
+            }
+            sb.appendCodePoint(cp);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 查找可复用的评分
+     * @param questionKey 题目缓存键
+     * @param answer 学生答案
+     * @return 评分结果副本（score、comment等，附加cacheHit字段），未命中返回null
+     */
+    public synchronized JSONObject lookup(String questionKey, String answer) {
+        AIConfig.JudgeCache conf = aiConfig.getJudgeCache();
+        if (!conf.isEnabled()) {
+            return null;
+        }
+        lookupCount++;
+        String text = normalize(answer);
+
+        if (isBlank(text, conf)) {
+            blankHits++;
+            JSONObject result = new JSONObject();
+            result.put("score", 0);
+            result.put("percentage", 0);
+            result.put("grade", "D");
+            result.put("comment", "未作答或答案无有效内容，记0分");
+            result.put(FIELD_CACHE_HIT, HIT_BLANK);
+            record(HIT_BLANK, questionKey, answer, null, 1.0, 0);
+            return result;
+        }
+
+        LinkedHashMap<String, Entry> answers = questions.get(questionKey);
+        if (answers == null) {
+            return null;
+        }
+        long expireBefore = System.currentTimeMillis() - conf.getTtlMinutes() * 60_000L;
+        answers.values().removeIf(e -> e.createTime < expireBefore);
+
+        Entry entry = answers.get(text);
+        if (entry != null) {
+            exactHits++;
+            record(HIT_EXACT, questionKey, answer, entry.hash, 1.0, entry.result.get("score"));
+            return reuse(entry, HIT_EXACT, 1.0);
+        }
+
+        // 近似匹配：只比较长度接近的答案，Jaccard相似度不会超过长度比
+        double threshold = conf.getSimilarityThreshold();
+        if (threshold <= 0 || text.length() < conf.getSimilarityMinLength()) {
+            return null;
+        }
+        Set<String> grams = grams(text, conf.getNgram());
+        Entry best = null;
+        double bestSimilarity = 0;
+        for (Entry candidate : answers.values()) {
+            int shorter = Math.min(candidate.text.length(), text.length());
+            int longer = Math.max(candidate.text.length(), text.length());
+            if ((double) shorter / longer < threshold) {
+                continue;
+            }
+            double similarity = jaccard(grams, candidate.grams(conf.getNgram()));
+            if (similarity >= threshold && similarity > bestSimilarity) {
+                best = candidate;
+                bestSimilarity = similarity;
+            }
+        }
+        if (best == null) {
+            return null;
+        }
+        similarHits++;
+        record(HIT_SIMILAR, questionKey, answer, best.hash, bestSimilarity, best.result.get("score"));
+        return reuse(best, HIT_SIMILAR, bestSimilarity);
+    }
+
+    /**
+     * 缓存LLM评分结果，空白答案和复用得到的结果不缓存
+     * @param questionKey 题目缓存键
+     * @param answer 学生答案
+     * @param result 评分结果，须包含score
+     */
+    public synchronized void store(String questionKey, String answer, JSONObject result) {
+        AIConfig.JudgeCache conf = aiConfig.getJudgeCache();
+        if (!conf.isEnabled() || result == null || result.get("score") == null
+                || result.containsKey(FIELD_CACHE_HIT)) {
+            return;
+        }
+        String text = normalize(answer);
+        if (isBlank(text, conf)) {
+            return;
+        }
+
+        LinkedHashMap<String, Entry> answers = questions.get(questionKey);
+        if (answers == null) {
+            final int maxAnswers = Math.max(1, conf.getMaxAnswersPerQuestion());
+            answers = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                    return size() > maxAnswers;
+                }
+            };
+            questions.put(questionKey, answers);
+            trimQuestions(conf);
+        }
+        answers.put(text, new Entry(text, new JSONObject(result)));
+        storeCount++;
+    }
+
+    /**
+     * 清空缓存和统计
+     */
+    public synchronized void reset() {
+        questions.clear();
+        audit.clear();
+        lookupCount = 0;
+        blankHits = 0;
+        exactHits = 0;
+        similarHits = 0;
+        storeCount = 0;
+    }
+
+    /**
+     * 缓存统计和复用记录，用于监控端点
+     * @return 统计数据
+     */
+    public synchronized Map<String, Object> snapshot() {
+        AIConfig.JudgeCache conf = aiConfig.getJudgeCache();
+        int answerCount = 0;
+        for (LinkedHashMap<String, Entry> answers : questions.values()) {
+            answerCount += answers.size();
+        }
+        long hits = blankHits + exactHits + similarHits;
+
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("enabled", conf.isEnabled());
+        data.put("similarityThreshold", conf.getSimilarityThreshold());
+        data.put("questions", questions.size());
+        data.put("answers", answerCount);
+        data.put("lookups", lookupCount);
+        data.put("blankHits", blankHits);
+        data.put("exactHits", exactHits);
+        data.put("similarHits", similarHits);
+        data.put("misses", lookupCount - hits);
+        data.put("hitRate", lookupCount == 0 ? 0 : (double) hits / lookupCount);
+        data.put("stores", storeCount);
+
+        // 最新的复用记录在前
+        List<Map<String, Object>> records = new ArrayList<>();
+        Iterator<Map<String, Object>> it = audit.descendingIterator();
+        while (it.hasNext()) {
+            records.add(it.next());
+        }
+        data.put("reuses", records);
+        return data;
+    }
+
+    private JSONObject reuse(Entry entry, String kind, double similarity) {
+        JSONObject result = new JSONObject(entry.result);
+        result.put(FIELD_CACHE_HIT, kind);
+        if (HIT_SIMILAR.equals(kind)) {
+            result.put("similarity", Math.round(similarity * 1000) / 1000.0);
+        }
+        return result;
+    }
+
+    /**
+     * 无效答案比较时忽略首尾标点，如“不知道。”；全部由符号组成的答案（如“>”）不视为未作答
+     */
+    private boolean isBlank(String text, AIConfig.JudgeCache conf) {
+        if (text.isEmpty()) {
+            return true;
+        }
+        String core = stripPunctuation(text);
+        if (core.isEmpty() || conf.getBlankAnswers() == null) {
+            return false;
+        }
+        for (String blank : conf.getBlankAnswers()) {
+            if (core.equals(stripPunctuation(normalize(blank)))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String stripPunctuation(String text) {
+        int start = 0;
+        int end = text.length();
+        while (start < end && !Character.isLetterOrDigit(text.charAt(start))) {
+            start++;
+        }
+        while (end > start && !Character.isLetterOrDigit(text.charAt(end - 1))) {
+            end--;
+        }
+        return text.substring(start, end);
+    }
+
+    private void trimQuestions(AIConfig.JudgeCache conf) {
+        Iterator<String> it = questions.keySet().iterator();
+        while (questions.size() > Math.max(1, conf.getMaxQuestions()) && it.hasNext()) {
+            it.next();
+            it.remove();
+        }
+    }
+
+    /**
+     * 记录一次复用
+     */
+    private void record(String kind, String questionKey, String answer, String matchedHash,
+                        double similarity, Object score) {
+        Map<String, Object> item = new LinkedHashMap<>();
+        item.put("time", new Date());
+        item.put("kind", kind);
+        item.put("questionKey", questionKey);
+        // 只记录答案摘要，不保留作答原文
+        item.put("answerHash", hash(normalize(answer == null ? "" : answer)));
+        item.put("answerLength", answer == null ? 0 : answer.length());
+        if (matchedHash != null) {
+            item.put("matchedHash", matchedHash);
+        }
+        item.put("similarity", Math.round(similarity * 1000) / 1000.0);
+        item.put("score", score);
+        audit.addLast(item);
+        while (audit.size() > Math.max(0, aiConfig.getJudgeCache().getAuditSize())) {
+            audit.pollFirst();
+        }
+        logger.info("♻️ 简答题复用评分: {}, 题目 {}, 相似度 {}, 得分 {}",
+                kind, questionKey, item.get("similarity"), score);
+    }
+
+    /**
+     * 归一化答案的摘要，复用记录中代替答案原文
+     */
+    private static String hash(String normalized) {
+        return DigestUtils.md5DigestAsHex(normalized.getBytes(StandardCharsets.UTF_8)).substring(0, AUDIT_HASH_LENGTH);
+    }
+
+    private static Set<String> grams(String text, int n) {
+        int size = Math.max(1, n);
+        Set<String> grams = new HashSet<>();
+        if (text.length() <= size) {
+            grams.add(text);
+            return grams;
+        }
+        for (int i = 0; i + size <= text.length(); i++) {
+            grams.add(text.substring(i, i + size));
+        }
+        return grams;
+    }
+
+    private static double jaccard(Set<String> a, Set<String> b) {
+        if (a.isEmpty() || b.isEmpty()) {
+            return 0;
+        }
+        Set<String> small = a.size() <= b.size() ? a : b;
+        Set<String> large = small == a ? b : a;
+        int common = 0;
+        for (String gram : small) {
+            if (large.contains(gram)) {
+                common++;
+            }
+        }
+        return (double) common / (a.size() + b.size() - common);
+    }
+
+    /**
+     * 缓存的评分
+     */
+    private static class Entry {
+        private final String text;
+        private final String hash;
+        private final JSONObject result;
+        private final long createTime = System.currentTimeMillis();
+        private Set<String> grams;
+        private int gramSize;
+
+        Entry(String text, JSONObject result) {
+            this.text = text;
+            this.hash = hash(text);
+            this.result = result;
+        }
+
+        Set<String> grams(int n) {
+            if (grams == null || gramSize != n) {
+                grams = JudgeAnswerCache.grams(text, n);
+                gramSize = n;
+            }
+            return grams;
+        }
+    }
+}
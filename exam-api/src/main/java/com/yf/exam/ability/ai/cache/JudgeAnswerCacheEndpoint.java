@@ -0,0 +1,36 @@
+package com.yf.exam.ability.ai.cache;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * 简答题答案缓存监控端点：judgecache
+ * 读取命中率和复用记录（仅答案摘要），写操作清空缓存；
+ * 不在web暴露列表中，只能通过JMX访问，避免考生读取他人答案或清空评分缓存
+ *
+ * @author AI Assistant
+ * @date 2026-10-19
+ */
+@Component
+@Endpoint(id = "judgecache")
+public class JudgeAnswerCacheEndpoint {
+
+    @Autowired
+    private JudgeAnswerCache judgeAnswerCache;
+
+    @ReadOperation
+    public Map<String, Object> state() {
+        return judgeAnswerCache.snapshot();
+    }
+
+    @WriteOperation
+    public Map<String, Object> reset() {
+        judgeAnswerCache.reset();
+        return judgeAnswerCache.snapshot();
+    }
+}
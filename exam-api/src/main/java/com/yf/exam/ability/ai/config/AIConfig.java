@@ -0,0 +1,653 @@
+package com.yf.exam.ability.ai.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * AI能力配置
+ *
+ * @author AI Assistant
+ * @date 2026-10-19
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "conf.ai")
+public class AIConfig {
+
+    /**
+     * 智能选题配置
+     */
+    private Selection selection = new Selection();
+
+    /**
+     * 难度比例组卷配置
+     */
+    private Assembly assembly = new Assembly();
+
+    /**
+     * LLM调用熔断配置
+     */
+    private Breaker breaker = new Breaker();
+
+    /**
+     * 熔断期间简答题排队评判配置
+     */
+    private JudgeQueue judgeQueue = new JudgeQueue();
+
+    /**
+     * AI文档异步导入任务配置
+     */
+    private ImportJob importJob = new ImportJob();
+
+    /**
+     * 简答题批量阅卷配置
+     */
+    private Grading grading = new Grading();
+
+    /**
+     * 简答题答案等价缓存配置
+     */
+    private JudgeCache judgeCache = new JudgeCache();
+
+    /**
+     * 多模态请求图片预处理配置
+     */
+    private Image image = new Image();
+
+    /**
+     * LLM请求优先级调度配置
+     */
+    private Scheduler scheduler = new Scheduler();
+
+    /**
+     * LLM服务节点池配置
+     */
+    private Pool pool = new Pool();
+
+    /**
+     * 本地题干提取配置
+     */
+    private Stem stem = new Stem();
+
+    /**
+     * 知识大纲相似度索引配置
+     */
+    private OutlineIndex outlineIndex = new OutlineIndex();
+
+    /**
+     * 文档解析配置
+     */
+    private Extract extract = new Extract();
+
+    /**
+     * 智能选题 - 本地预排序参数
+     */
+    @Data
+    public static class Selection {
+
+        /**
+         * 发送给LLM的候选题数量 = 目标题数 * 该倍数
+         */
+        private int candidateMultiple = 4;
+
+        /**
+         * 候选题数量下限，避免小题量时候选过少
+         */
+        private int minCandidates = 20;
+
+        /**
+         * 单次选题提示词的token上限
+         */
+        private int maxPromptTokens = 8000;
+
+        /**
+         * 候选题题干最大长度（字符）
+         */
+        private int maxStemLength = 120;
+
+        /**
+         * 使用热度衰减半衰期（天），越久未被组卷的题目得分越高
+         */
+        private int recencyHalfLifeDays = 30;
+
+        /**
+         * 知识点匹配权重
+         */
+        private double knowledgeWeight = 0.4;
+
+        /**
+         * 知识点覆盖（边际新知识点）权重
+         */
+        private double coverageWeight = 0.25;
+
+        /**
+         * 难度契合度权重
+         */
+        private double difficultyWeight = 0.15;
+
+        /**
+         * 近期使用权重
+         */
+        private double recencyWeight = 0.2;
+    }
+
+    /**
+     * 难度比例组卷 - 本地优化器参数
+     */
+    @Data
+    public static class Assembly {
+
+        /**
+         * 是否在本地组卷结果上再调用LLM逐档重排：LLM只能在同难度档内保留或替换题目，各档题数不变（关闭时完全本地完成）
+         */
+        private boolean llmRerank = false;
+
+        /**
+         * 随机重启次数
+         */
+        private int restarts = 8;
+
+        /**
+         * 每轮局部搜索（同档交换）的最大遍数
+         */
+        private int swapPasses = 3;
+    }
+
+    /**
+     * LLM调用熔断器参数
+     */
+    @Data
+    public static class Breaker {
+
+        /**
+         * 是否启用熔断
+         */
+        private boolean enabled = true;
+
+        /**
+         * 错误率/慢调用率统计的滚动窗口（秒）
+         */
+        private int windowSeconds = 300;
+
+        /**
+         * 窗口内至少多少次调用才计算错误率
+         */
+        private int minimumCalls = 4;
+
+        /**
+         * 错误率阈值，达到后熔断
+         */
+        private double failureRateThreshold = 0.5;
+
+        /**
+         * 慢调用判定阈值（毫秒）
+         */
+        private long slowCallMillis = 60000;
+
+        /**
+         * 慢调用率阈值，达到后熔断
+         */
+        private double slowCallRateThreshold = 0.6;
+
+        /**
+         * 熔断后首次进入半开状态前的等待时间（秒）
+         */
+        private int openSeconds = 30;
+
+        /**
+         * 半开探测连续失败时等待时间翻倍，最长不超过该值（秒）
+         */
+        private int maxOpenSeconds = 300;
+
+        /**
+         * 半开状态允许的探测调用数，全部成功后关闭熔断
+         */
+        private int halfOpenProbes = 2;
+
+        /**
+         * 延迟分位数统计保留的最近样本数
+         */
+        private int latencySamples = 200;
+    }
+
+    /**
+     * 简答题排队评判参数
+     */
+    @Data
+    public static class JudgeQueue {
+
+        /**
+         * 最多排队的评判请求数
+         */
+        private int capacity = 500;
+
+        /**
+         * 单个请求最多尝试次数
+         */
+        private int maxAttempts = 3;
+
+        /**
+         * 评判结果保留时间（分钟），超时后不可查询
+         */
+        private int resultTtlMinutes = 60;
+    }
+
+    /**
+     * AI文档异步导入任务参数
+     */
+    @Data
+    public static class ImportJob {
+
+        /**
+         * 并行处理的任务数
+         */
+        private int workers = 2;
+
+        /**
+         * 排队任务上限，超过后拒绝新任务
+         */
+        private int queueCapacity = 50;
+
+        /**
+         * 知识点识别阶段每处理多少题保存一次检查点
+         */
+        private int checkpointEvery = 5;
+
+        /**
+         * 入库时每块题目数，每块一个事务
+         */
+        private int saveChunkSize = 100;
+
+        /**
+         * 是否复用已导入文档的解析结果，按 文件内容SHA-256+学科+年级 匹配
+         */
+        private boolean reuseFingerprint = true;
+
+        /**
+         * 上传文件保存目录，相对于 conf.upload.dir
+         */
+        private String dir = "ai-import/";
+    }
+
+    /**
+     * 简答题批量阅卷 - 批次与并发参数
+     */
+    @Data
+    public static class Grading {
+
+        /**
+         * 同时进行的LLM评分请求数
+         */
+        private int concurrency = 4;
+
+        /**
+         * 同一题目每次提交给LLM评分的答卷数
+         */
+        private int batchSize = 8;
+
+        /**
+         * 单次评分提示词中每份答案的最大长度（字符），超出部分截断
+         */
+        private int maxAnswerLength = 1000;
+
+        /**
+         * 阅卷任务进度保留时间（分钟）
+         */
+        private int taskTtlMinutes = 120;
+    }
+
+    /**
+     * 简答题答案等价缓存 - 复用相同答案的评分结果
+     */
+    @Data
+    public static class JudgeCache {
+
+        /**
+         * 是否启用缓存
+         */
+        private boolean enabled = true;
+
+        /**
+         * 缓存的题目数上限，超出后淘汰最久未使用的题目
+         */
+        private int maxQuestions = 2000;
+
+        /**
+         * 每道题缓存的答案数上限
+         */
+        private int maxAnswersPerQuestion = 300;
+
+        /**
+         * 缓存有效期（分钟），评分标准调整后旧结果自然过期
+         */
+        private int ttlMinutes = 1440;
+
+        /**
+         * 近似答案复用阈值（字符n-gram Jaccard相似度），0表示只复用完全相同的答案
+         */
+        private double similarityThreshold = 0;
+
+        /**
+         * 相似度计算的n-gram长度
+         */
+        private int ngram = 2;
+
+        /**
+         * 近似匹配的最短答案长度（归一化后字符数），过短的答案相似度不可靠
+         */
+        private int similarityMinLength = 10;
+
+        /**
+         * 视为未作答的答案（归一化后完全相同），直接记0分
+         */
+        private List<String> blankAnswers = new ArrayList<>(Arrays.asList(
+                "不知道", "不会", "不清楚", "不懂", "不记得", "忘了", "无", "没有", "略", "空", "idk"));
+
+        /**
+         * 保留的复用记录条数
+         */
+        private int auditSize = 500;
+    }
+
+    /**
+     * 多模态请求图片预处理 - 缩放、重新压缩和编码缓存
+     */
+    @Data
+    public static class Image {
+
+        /**
+         * 图片最长边（像素），超出时等比缩小
+         */
+        private int maxSide = 1280;
+
+        /**
+         * 图片最大像素数，超出时等比缩小
+         */
+        private int maxPixels = 1600000;
+
+        /**
+         * 重新压缩的JPEG质量（0-1）
+         */
+        private float jpegQuality = 0.85f;
+
+        /**
+         * 无需缩放且不超过该大小（字节）的图片保持原样，避免线条图被有损压缩
+         */
+        private int keepOriginalBytes = 200 * 1024;
+
+        /**
+         * 编码结果缓存的总大小上限（字节）
+         */
+        private long cacheMaxBytes = 64L * 1024 * 1024;
+    }
+
+    /**
+     * LLM请求调度 - 总并发、各优先级的并发配额、权重和最长排队时间
+     */
+    @Data
+    public static class Scheduler {
+
+        /**
+         * 是否启用调度，关闭后请求直接发送
+         */
+        private boolean enabled = true;
+
+        /**
+         * LLM服务总并发数
+         */
+        private int maxConcurrency = 8;
+
+        /**
+         * 为交互请求预留的名额，普通和批量请求不能占用
+         */
+        private int interactiveReserve = 2;
+
+        /**
+         * 交互请求：判分、组卷选题等用户等待结果的调用
+         */
+        private Lane interactive = new Lane(8, 6, 15000);
+
+        /**
+         * 普通请求：单题知识点、题干识别等
+         */
+        private Lane standard = new Lane(6, 3, 60000);
+
+        /**
+         * 批量请求：文档提取、批量识别、批量阅卷
+         */
+        private Lane bulk = new Lane(4, 1, 0);
+    }
+
+    /**
+     * LLM服务节点池 - 多个OpenAI兼容节点按未完成请求数最少分配，健康检查和异常节点摘除，可选对冲请求
+     */
+    @Data
+    public static class Pool {
+
+        /**
+         * 节点的 /v1/chat/completions 地址
+         */
+        private List<String> urls = new ArrayList<>(Arrays.asList(
+                "http://localhost:10031/v1/chat/completions"));
+
+        /**
+         * 模型名称
+         */
+        private String model = "qwen3_32b";
+
+        /**
+         * 健康检查间隔（毫秒），请求节点的 /v1/models，0表示不检查
+         */
+        private long healthCheckMillis = 15000;
+
+        /**
+         * 健康检查超时（毫秒）
+         */
+        private int healthTimeoutMillis = 3000;
+
+        /**
+         * 连续失败多少次后摘除节点
+         */
+        private int consecutiveFailures = 3;
+
+        /**
+         * 节点平均耗时超过其余节点中位数的倍数时视为慢节点摘除，0表示不按耗时摘除
+         */
+        private double outlierFactor = 3.0;
+
+        /**
+         * 按耗时判定慢节点前至少需要的成功调用数
+         */
+        private int outlierMinSamples = 10;
+
+        /**
+         * 首次摘除时长（秒），再次摘除时按次数递增
+         */
+        private int ejectionSeconds = 30;
+
+        /**
+         * 最长摘除时长（秒）
+         */
+        private int maxEjectionSeconds = 300;
+
+        /**
+         * 最多同时摘除的节点比例，至少保留一个节点
+         */
+        private double maxEjectionRatio = 0.5;
+
+        /**
+         * 对冲请求
+         */
+        private Hedge hedge = new Hedge();
+    }
+
+    /**
+     * 对冲请求参数：首个请求超过该功能近期耗时分位数仍未返回时，向另一节点发送副本，先返回者生效，另一个被取消
+     */
+    @Data
+    public static class Hedge {
+
+        /**
+         * 是否启用
+         */
+        private boolean enabled = false;
+
+        /**
+         * 启用对冲的功能编码
+         */
+        private List<String> features = new ArrayList<>(Arrays.asList("judge", "selection", "overall_analysis"));
+
+        /**
+         * 发送副本的耗时分位数
+         */
+        private double percentile = 0.95;
+
+        /**
+         * 每个功能保留的耗时样本数
+         */
+        private int samples = 200;
+
+        /**
+         * 样本不足该数量时使用初始延迟
+         */
+        private int minSamples = 20;
+
+        /**
+         * 样本不足时发送副本的延迟（毫秒）
+         */
+        private long initialDelayMillis = 5000;
+
+        /**
+         * 发送副本的最短延迟（毫秒）
+         */
+        private long minDelayMillis = 300;
+    }
+
+    /**
+     * 本地题干提取 - 按常见版式去除题号、选项和答案解析，置信度不足的题目再交给大模型
+     */
+    @Data
+    public static class Stem {
+
+        /**
+         * 是否启用本地提取
+         */
+        private boolean enabled = true;
+
+        /**
+         * 本地结果的最低置信度，低于该值时调用大模型
+         */
+        private double minConfidence = 0.8;
+
+        /**
+         * 本地结果的最大长度，超出时视为材料题等复杂版式交给大模型精简
+         */
+        private int maxLength = 500;
+    }
+
+    /**
+     * 知识大纲相似度索引 - 知识点和已关联题目的题干按字符n-gram TF-IDF向量化，
+     * 为大模型识别筛选候选大纲，相似度明显领先时直接本地识别
+     */
+    @Data
+    public static class OutlineIndex {
+
+        /**
+         * 是否启用
+         */
+        private boolean enabled = true;
+
+        /**
+         * n-gram最小长度
+         */
+        private int minGram = 2;
+
+        /**
+         * n-gram最大长度
+         */
+        private int maxGram = 3;
+
+        /**
+         * 知识点名称相对题干样例的权重
+         */
+        private float knowledgePointWeight = 2.0f;
+
+        /**
+         * 每个大纲保留的已关联题目题干数
+         */
+        private int examplesPerOutline = 20;
+
+        /**
+         * 交给大模型的候选大纲数
+         */
+        private int shortlist = 20;
+
+        /**
+         * 是否允许相似度明显领先时直接本地识别
+         */
+        private boolean localEnabled = true;
+
+        /**
+         * 本地识别的最低相似度
+         */
+        private double localMinScore = 0.3;
+
+        /**
+         * 本地识别时第一名领先第二名的最小差值
+         */
+        private double localMinMargin = 0.15;
+    }
+
+    /**
+     * 文档解析 - Word文档在本进程内用POI提取文本和图片，其他格式仍交给解析服务
+     */
+    @Data
+    public static class Extract {
+
+        /**
+         * 是否在本进程内解析 .docx/.doc
+         */
+        private boolean localEnabled = true;
+
+        /**
+         * 含WMF/EMF图片（公式等）时优先交给解析服务转换为PNG，解析服务不可用时仍使用本地结果
+         */
+        private boolean vectorFallback = true;
+    }
+
+    /**
+     * 单个优先级的调度参数
+     */
+    @Data
+    public static class Lane {
+
+        /**
+         * 该优先级最多同时进行的请求数
+         */
+        private int quota;
+
+        /**
+         * 多个优先级同时排队时的分配权重
+         */
+        private int weight;
+
+        /**
+         * 最长排队时间（毫秒），超时的请求直接放弃，0表示不限
+         */
+        private long maxWaitMillis;
+
+        public Lane() {
+        }
+
+        public Lane(int quota, int weight, long maxWaitMillis) {
+            this.quota = quota;
+            this.weight = weight;
+            this.maxWaitMillis = maxWaitMillis;
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package com.yf.exam.ability.ai.image;
+
+import com.alibaba.fastjson2.JSON;
+import com.yf.exam.ability.ai.config.AIConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * 多模态请求的图片预处理
+ * 将base64图片按模型适用的分辨率缩小并重新压缩为JPEG，结果以data URL的字节形式缓存（按原图内容哈希），
+ * 同一张图片在多次请求中只处理一次。HTTP地址的图片原样返回，无法解码的图片保持原数据
+ *
+ * @author AI Assistant
+ * @date 2026-10-19
+ */
+@Component
+public class LlmImagePreparer {
+
+    private static final Logger logger = LoggerFactory.getLogger(LlmImagePreparer.class);
+
+    private static final String DATA_PREFIX = "data:";
+    private static final String BASE64_MARK = ";base64,";
+    private static final String JPEG_PREFIX = "data:image/jpeg;base64,";
+
+    @Autowired
+    private AIConfig aiConfig;
+
+    /**
+     * 原图哈希 → 编码后的data URL字节，按访问顺序淘汰
+     */
+    private final LinkedHashMap<String, byte[]> cache = new LinkedHashMap<>(64, 0.75f, true);
+
+    private long cacheBytes;
+
+    /**
+     * 预处理一张图片
+     * @param imageData data URL、base64编码或HTTP地址
+     * @return 图片地址，已按JSON字符串转义（不含引号），可直接写入请求体
+     */
+    public byte[] prepare(String imageData) {
+        if (imageData.startsWith("http")) {
+            return escaped(imageData);
+        }
+
+        String base64 = imageData;
+        String prefix = JPEG_PREFIX;
+        if (imageData.startsWith(DATA_PREFIX)) {
+            int mark = imageData.indexOf(BASE64_MARK);
+            if (mark < 0) {
+                return escaped(imageData);
+            }
+            prefix = imageData.substring(0, mark + BASE64_MARK.length());
+            base64 = imageData.substring(mark + BASE64_MARK.length());
+        }
+
+        byte[] raw;
+        try {
+            raw = Base64.getMimeDecoder().decode(base64);
+        } catch (IllegalArgumentException e) {
+            logger.warn("⚠️ 图片base64解码失败，按原数据发送: {}", e.getMessage());
+            return escaped(imageData);
+        }
+
+        String key = DigestUtils.md5DigestAsHex(raw);
+        synchronized (this) {
+            byte[] cached = cache.get(key);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        byte[] encoded = encode(raw, prefix);
+        synchronized (this) {
+            if (cache.put(key, encoded) == null) {
+                cacheBytes += encoded.length;
+            }
+            trim();
+        }
+        return encoded;
+    }
+
+    /**
+     * 缩放并重新压缩，失败或无需处理时保留原图
+     */
+    private byte[] encode(byte[] raw, String originalPrefix) {
+        AIConfig.Image conf = aiConfig.getImage();
+        try {
+            BufferedImage source = ImageIO.read(new ByteArrayInputStream(raw));
+            if (source == null) {
+                return dataUrl(originalPrefix, raw);
+            }
+
+            int width = source.getWidth();
+            int height = source.getHeight();
+            double scale = Math.min(1.0, (double) conf.getMaxSide() / Math.max(width, height));
+            scale = Math.min(scale, Math.sqrt((double) conf.getMaxPixels() / ((long) width * height)));
+            if (scale >= 1.0 && raw.length <= conf.getKeepOriginalBytes()) {
+                return dataUrl(originalPrefix, raw);
+            }
+
+            int targetWidth = Math.max(1, (int) Math.round(width * Math.min(1.0, scale)));
+            int targetHeight = Math.max(1, (int) Math.round(height * Math.min(1.0, scale)));
+
+            // JPEG不支持透明通道，铺白底
+            BufferedImage target = new BufferedImage(targetWidth, targetHeight, BufferedImage.TYPE_INT_RGB);
+            Graphics2D g = target.createGraphics();
+            try {
+                g.setColor(Color.WHITE);
+                g.fillRect(0, 0, targetWidth, targetHeight);
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                g.drawImage(source, 0, 0, targetWidth, targetHeight, null);
+            } finally {
+                g.dispose();
+            }
+
+            byte[] jpeg = writeJpeg(target, conf.getJpegQuality());
+            if (scale >= 1.0 && jpeg.length >= raw.length) {
+                return dataUrl(originalPrefix, raw);
+            }
+            logger.info("🖼️ 图片预处理: {}x{} {}KB → {}x{} {}KB", width, height, raw.length / 1024,
+                    targetWidth, targetHeight, jpeg.length / 1024);
+            return dataUrl(JPEG_PREFIX, jpeg);
+        } catch (IOException | RuntimeException e) {
+            logger.warn("⚠️ 图片预处理失败，按原图发送: {}", e.getMessage());
+            return dataUrl(originalPrefix, raw);
+        }
+    }
+
+    private static byte[] writeJpeg(BufferedImage image, float quality) throws IOException {
+        Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName("jpeg");
+        if (!writers.hasNext()) {
+            throw new IOException("JPEG编码器不可用");
+        }
+        ImageWriter writer = writers.next();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ImageOutputStream ios = ImageIO.createImageOutputStream(out)) {
+            writer.setOutput(ios);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(Math.max(0.1f, Math.min(1.0f, quality)));
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * 拼接data URL字节，base64直接编码到结果数组中，不生成中间字符串
+     */
+    private static byte[] dataUrl(String prefix, byte[] raw) {
+        byte[] head = prefix.getBytes(StandardCharsets.US_ASCII);
+        byte[] body = Base64.getEncoder().encode(raw);
+        byte[] result = new byte[head.length + body.length];
+        System.arraycopy(head, 0, result, 0, head.length);
+        System.arraycopy(body, 0, result, head.length, body.length);
+        return result;
+    }
+
+    private static byte[] escaped(String text) {
+        String quoted = JSON.toJSONString(text);
+        return quoted.substring(1, quoted.length() - 1).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private void trim() {
+        long max = aiConfig.getImage().getCacheMaxBytes();
+        Iterator<byte[]> it = cache.values().iterator();
+        while (cacheBytes > max && it.hasNext()) {
+            cacheBytes -= it.next().length;
+            it.remove();
+        }
+    }
+}
@@ -0,0 +1,299 @@
+package com.yf.exam.ability.ai.index;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.yf.exam.ability.ai.config.AIConfig;
+import com.yf.exam.ability.ai.utils.StemExtractor;
+import com.yf.exam.modules.outline.entity.KnowledgeOutline;
+import com.yf.exam.modules.outline.entity.QuestionOutlineMapping;
+import com.yf.exam.modules.outline.service.KnowledgeOutlineService;
+import com.yf.exam.modules.outline.service.QuestionOutlineMappingService;
+import com.yf.exam.modules.qu.entity.Qu;
+import com.yf.exam.modules.qu.service.QuService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 知识大纲相似度索引
+ * 每个启用的大纲以知识点名称和已关联题目的题干作为文本建立向量，首次检索时全量加载；
+ * 大纲增删改后标记变更，下次检索前只重新加载变更的大纲，新关联的题目直接追加为样例
+ *
+ * @author AI Assistant
+ * @date 2026-10-19
+ */
+@Component
+public class OutlineVectorIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutlineVectorIndex.class);
+
+    private static final int QUERY_BATCH = 500;
+
+    @Autowired
+    private AIConfig aiConfig;
+
+    @Autowired
+    private KnowledgeOutlineService knowledgeOutlineService;
+
+    @Autowired
+    private QuestionOutlineMappingService questionOutlineMappingService;
+
+    @Autowired
+    private QuService quService;
+
+    private final TextVectorIndex index = new TextVectorIndex();
+
+    private final Map<String, Item> items = new ConcurrentHashMap<>();
+
+    private final Set<String> changed = ConcurrentHashMap.newKeySet();
+
+    private volatile boolean loaded;
+
+    /**
+     * 检索最相似的大纲，作为大模型识别的候选
+     * @param text 题目内容
+     * @param subject 学科，为null时不限
+     * @param grade 年级，为null时不限
+     * @return 按相似度降序的候选，未启用时为空
+     */
+    public List<Match> shortlist(String text, String subject, String grade) {
+        AIConfig.OutlineIndex conf = aiConfig.getOutlineIndex();
+        if (!conf.isEnabled() || text == null || text.trim().isEmpty()) {
+            return Collections.emptyList();
+        }
+        ensureLoaded();
+        Map<String, Float> query = new HashMap<>();
+        TextVectorIndex.addWeighted(query, TextVectorIndex.grams(stem(text), conf.getMinGram(), conf.getMaxGram()), 1f);
+        List<TextVectorIndex.Hit> hits = index.search(query, id -> {
+            Item item = items.get(id);
+            return item != null
+                    && (subject == null || subject.equals(item.outline.getSubject()))
+                    && (grade == null || grade.equals(item.outline.getGrade()));
+        }, Math.max(1, conf.getShortlist()));
+
+        List<Match> matches = new ArrayList<>();
+        for (TextVectorIndex.Hit hit : hits) {
+            Item item = items.get(hit.getId());
+            if (item != null) {
+                matches.add(new Match(item.outline, hit.getScore()));
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * 第一名相似度和领先幅度都达到阈值时返回第一名，可直接作为识别结果
+     * @param matches 检索结果
+     * @return 可信的第一名，否则为null
+     */
+    public Match confident(List<Match> matches) {
+        AIConfig.OutlineIndex conf = aiConfig.getOutlineIndex();
+        if (!conf.isLocalEnabled() || matches.isEmpty()) {
+            return null;
+        }
+        Match top = matches.get(0);
+        double second = matches.size() > 1 ? matches.get(1).getScore() : 0;
+        if (top.getScore() >= conf.getLocalMinScore() && top.getScore() - second >= conf.getLocalMinMargin()) {
+            return top;
+        }
+        return null;
+    }
+
+    /**
+     * 大纲新增、修改或删除后调用，下次检索前重新加载
+     * @param outlineId 大纲ID
+     */
+    public void changed(String outlineId) {
+        if (outlineId != null) {
+            changed.add(outlineId);
+        }
+    }
+
+    /**
+     * 题目关联到大纲后追加为样例
+     * @param outlineId 大纲ID
+     * @param content 题目内容
+     */
+    public void addExample(String outlineId, String content) {
+        Item item = items.get(outlineId);
+        if (!loaded || item == null || content == null || content.trim().isEmpty()) {
+            return;
+        }
+        synchronized (item) {
+            item.examples.addFirst(stem(content));
+            while (item.examples.size() > Math.max(0, aiConfig.getOutlineIndex().getExamplesPerOutline())) {
+                item.examples.removeLast();
+            }
+            index.put(outlineId, vector(item));
+        }
+    }
+
+    /**
+     * 全量重建
+     */
+    public synchronized void rebuild() {
+        long start = System.currentTimeMillis();
+        changed.clear();
+        List<KnowledgeOutline> outlines = knowledgeOutlineService.getAllActive();
+        Map<String, LinkedList<String>> examples = loadExamples(null);
+
+        index.clear();
+        items.clear();
+        for (KnowledgeOutline outline : outlines) {
+            LinkedList<String> list = examples.get(outline.getId());
+            Item item = new Item(outline, list != null ? list : new LinkedList<>());
+            items.put(outline.getId(), item);
+            index.put(outline.getId(), vector(item));
+        }
+        loaded = true;
+        logger.info("📚 知识大纲相似度索引已建立: 大纲 {} 个, 词项 {} 个, 耗时 {}ms",
+                items.size(), index.termCount(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * @return 已索引的大纲数
+     */
+    public int size() {
+        return index.size();
+    }
+
+    private void ensureLoaded() {
+        if (!loaded) {
+            synchronized (this) {
+                if (!loaded) {
+                    rebuild();
+                }
+            }
+            return;
+        }
+        if (changed.isEmpty()) {
+            return;
+        }
+        synchronized (this) {
+            Set<String> ids = new HashSet<>(changed);
+            changed.removeAll(ids);
+            Map<String, LinkedList<String>> examples = loadExamples(ids);
+            for (String id : ids) {
+                KnowledgeOutline outline = knowledgeOutlineService.getById(id);
+                if (outline == null || !Integer.valueOf(1).equals(outline.getIsActive())) {
+                    items.remove(id);
+                    index.remove(id);
+                    continue;
+                }
+                LinkedList<String> list = examples.get(id);
+                Item item = new Item(outline, list != null ? list : new LinkedList<>());
+                items.put(id, item);
+                index.put(id, vector(item));
+            }
+            logger.info("📚 知识大纲相似度索引增量更新: {} 个", ids.size());
+        }
+    }
+
+    /**
+     * 加载大纲已关联题目的题干，每个大纲取最近的若干道
+     * @param outlineIds 大纲ID，为null时加载全部
+     */
+    private Map<String, LinkedList<String>> loadExamples(Set<String> outlineIds) {
+        int limit = Math.max(0, aiConfig.getOutlineIndex().getExamplesPerOutline());
+        Map<String, LinkedList<String>> result = new HashMap<>();
+        if (limit == 0 || (outlineIds != null && outlineIds.isEmpty())) {
+            return result;
+        }
+        QueryWrapper<QuestionOutlineMapping> wrapper = new QueryWrapper<>();
+        wrapper.select("question_id", "outline_id").orderByDesc("create_time");
+        if (outlineIds != null) {
+            wrapper.in("outline_id", outlineIds);
+        }
+        Map<String, List<String>> questionIds = new HashMap<>();
+        for (QuestionOutlineMapping mapping : questionOutlineMappingService.list(wrapper)) {
+            List<String> ids = questionIds.computeIfAbsent(mapping.getOutlineId(), k -> new ArrayList<>());
+            if (ids.size() < limit) {
+                ids.add(mapping.getQuestionId());
+            }
+        }
+
+        List<String> all = new ArrayList<>();
+        questionIds.values().forEach(all::addAll);
+        Map<String, String> contents = new HashMap<>();
+        for (int i = 0; i < all.size(); i += QUERY_BATCH) {
+            List<String> batch = all.subList(i, Math.min(all.size(), i + QUERY_BATCH));
+            for (Qu qu : quService.listByIds(batch)) {
+                contents.put(qu.getId(), qu.getContent());
+            }
+        }
+        for (Map.Entry<String, List<String>> entry : questionIds.entrySet()) {
+            LinkedList<String> list = new LinkedList<>();
+            for (String questionId : entry.getValue()) {
+                String content = contents.get(questionId);
+                if (content != null && !content.trim().isEmpty()) {
+                    list.add(stem(content));
+                }
+            }
+            result.put(entry.getKey(), list);
+        }
+        return result;
+    }
+
+    private Map<String, Float> vector(Item item) {
+        AIConfig.OutlineIndex conf = aiConfig.getOutlineIndex();
+        Map<String, Float> terms = new HashMap<>();
+        TextVectorIndex.addWeighted(terms, TextVectorIndex.grams(item.outline.getKnowledgePoint(),
+                conf.getMinGram(), conf.getMaxGram()), conf.getKnowledgePointWeight());
+        for (String example : item.examples) {
+            TextVectorIndex.addWeighted(terms, TextVectorIndex.grams(example, conf.getMinGram(), conf.getMaxGram()), 1f);
+        }
+        return terms;
+    }
+
+    /**
+     * 去掉选项和答案，只用题干参与相似度计算
+     */
+    private static String stem(String content) {
+        String stem = StemExtractor.extract(content, 0).getStem();
+        return stem != null && !stem.isEmpty() ? stem : content;
+    }
+
+    /**
+     * 已索引的大纲
+     */
+    private static class Item {
+        private final KnowledgeOutline outline;
+        private final LinkedList<String> examples;
+
+        Item(KnowledgeOutline outline, LinkedList<String> examples) {
+            this.outline = outline;
+            this.examples = examples;
+        }
+    }
+
+    /**
+     * 检索结果
+     */
+    public static class Match {
+        private final KnowledgeOutline outline;
+        private final double score;
+
+        Match(KnowledgeOutline outline, double score) {
+            this.outline = outline;
+            this.score = score;
+        }
+
+        public KnowledgeOutline getOutline() {
+            return outline;
+        }
+
+        public double getScore() {
+            return score;
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package com.yf.exam.ability.ai.index;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+/**
+ * 内存文本向量索引
+ * 文本按字符n-gram切分，词频取对数后乘IDF作为稀疏向量，按余弦相似度取前K个。
+ * 条目可单独增删，文档频率随之更新，各条目的向量长度在下次检索前统一重算
+ *
+ * @author AI Assistant
+ * @date 2026-10-19
+ */
+public class TextVectorIndex {
+
+    private static final Pattern HTML_TAG = Pattern.compile("</?[a-zA-Z][^>]*>");
+
+    private final Map<String, Map<String, Float>> entries = new HashMap<>();
+    private final Map<String, Integer> documentFrequency = new HashMap<>();
+    private final Map<String, Set<String>> postings = new HashMap<>();
+    private final Map<String, Double> norms = new HashMap<>();
+    private boolean normsDirty;
+
+    /**
+     * 切分字符n-gram并统计词频，只保留字母、数字和汉字，文本短于最小长度时整体作为一项
+     * @param text 文本
+     * @param minGram 最小长度
+     * @param maxGram 最大长度
+     * @return n-gram词频
+     */
+    public static Map<String, Float> grams(String text, int minGram, int maxGram) {
+        Map<String, Float> counts = new HashMap<>();
+        if (text == null) {
+            return counts;
+        }
+        String normalized = normalize(text);
+        if (normalized.isEmpty()) {
+            return counts;
+        }
+        if (normalized.length() < minGram) {
+            counts.put(normalized, 1f);
+            return counts;
+        }
+        for (int n = minGram; n <= maxGram; n++) {
+            for (int i = 0; i + n <= normalized.length(); i++) {
+                counts.merge(normalized.substring(i, i + n), 1f, Float::sum);
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * 词频取对数并乘以权重后累加到目标向量
+     * @param target 目标向量
+     * @param counts 词频
+     * @param weight 权重
+     */
+    public static void addWeighted(Map<String, Float> target, Map<String, Float> counts, float weight) {
+        for (Map.Entry<String, Float> entry : counts.entrySet()) {
+            float value = (float) (1 + Math.log(entry.getValue())) * weight;
+            target.merge(entry.getKey(), value, Float::sum);
+        }
+    }
+
+    /**
+     * 新增或替换条目
+     * @param id 条目ID
+     * @param terms 词项权重（未乘IDF）
+     */
+    public synchronized void put(String id, Map<String, Float> terms) {
+        remove(id);
+        Map<String, Float> copy = new HashMap<>(terms);
+        entries.put(id, copy);
+        for (String term : copy.keySet()) {
+            documentFrequency.merge(term, 1, Integer::sum);
+            postings.computeIfAbsent(term, k -> new HashSet<>()).add(id);
+        }
+        normsDirty = true;
+    }
+
+    /**
+     * 删除条目
+     * @param id 条目ID
+     */
+    public synchronized void remove(String id) {
+        Map<String, Float> terms = entries.remove(id);
+        if (terms == null) {
+            return;
+        }
+        for (String term : terms.keySet()) {
+            if (documentFrequency.merge(term, -1, Integer::sum) <= 0) {
+                documentFrequency.remove(term);
+            }
+            Set<String> ids = postings.get(term);
+            if (ids != null) {
+                ids.remove(id);
+                if (ids.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+        norms.remove(id);
+        normsDirty = true;
+    }
+
+    /**
+     * 清空索引
+     */
+    public synchronized void clear() {
+        entries.clear();
+        documentFrequency.clear();
+        postings.clear();
+        norms.clear();
+        normsDirty = false;
+    }
+
+    /**
+     * @return 条目数
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return 词项数
+     */
+    public synchronized int termCount() {
+        return postings.size();
+    }
+
+    /**
+     * 余弦相似度检索
+     * @param query 查询词项权重（未乘IDF）
+     * @param filter 条目过滤，为null时不过滤
+     * @param k 返回数量
+     * @return 按相似度降序的结果，不含相似度为0的条目
+     */
+    public synchronized List<Hit> search(Map<String, Float> query, Predicate<String> filter, int k) {
+        if (query.isEmpty() || entries.isEmpty() || k <= 0) {
+            return Collections.emptyList();
+        }
+        if (normsDirty) {
+            recomputeNorms();
+        }
+
+        double queryNorm = 0;
+        Map<String, Double> dots = new HashMap<>();
+        for (Map.Entry<String, Float> entry : query.entrySet()) {
+            double idf = idf(entry.getKey());
+            double weight = entry.getValue() * idf;
+            queryNorm += weight * weight;
+            Set<String> ids = postings.get(entry.getKey());
+            if (ids == null) {
+                continue;
+            }
+            for (String id : ids) {
+                if (filter != null && !filter.test(id)) {
+                    continue;
+                }
+                double docWeight = entries.get(id).get(entry.getKey()) * idf;
+                dots.merge(id, weight * docWeight, Double::sum);
+            }
+        }
+        if (dots.isEmpty() || queryNorm == 0) {
+            return Collections.emptyList();
+        }
+        queryNorm = Math.sqrt(queryNorm);
+
+        PriorityQueue<Hit> top = new PriorityQueue<>(k + 1, (a, b) -> Double.compare(a.score, b.score));
+        for (Map.Entry<String, Double> entry : dots.entrySet()) {
+            double norm = norms.get(entry.getKey());
+            if (norm == 0) {
+                continue;
+            }
+            top.add(new Hit(entry.getKey(), entry.getValue() / (queryNorm * norm)));
+            if (top.size() > k) {
+                top.poll();
+            }
+        }
+        List<Hit> hits = new ArrayList<>(top);
+        hits.sort((a, b) -> Double.compare(b.score, a.score));
+        return hits;
+    }
+
+    private void recomputeNorms() {
+        norms.clear();
+        for (Map.Entry<String, Map<String, Float>> entry : entries.entrySet()) {
+            double sum = 0;
+            for (Map.Entry<String, Float> term : entry.getValue().entrySet()) {
+                double weight = term.getValue() * idf(term.getKey());
+                sum += weight * weight;
+            }
+            norms.put(entry.getKey(), Math.sqrt(sum));
+        }
+        normsDirty = false;
+    }
+
+    private double idf(String term) {
+        int df = documentFrequency.getOrDefault(term, 0);
+        return Math.log((entries.size() + 1.0) / (df + 1.0)) + 1;
+    }
+
+    private static String normalize(String text) {
+        // 只去除真正的HTML标签，题干中的 x<3且y>2 等比较符号之间的内容保留
+        String plain = HTML_TAG.matcher(text).replaceAll("");
+        StringBuilder sb = new StringBuilder(plain.length());
+        for (int i = 0; i < plain.length(); i++) {
+            char c = plain.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                sb.append(Character.toLowerCase(c));
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 检索结果
+     */
+    public static class Hit {
+        private final String id;
+        private final double score;
+
+        Hit(String id, double score) {
+            this.id = id;
+            this.score = score;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public double getScore() {
+            return score;
+        }
+    }
+}
@@ -0,0 +1,531 @@
+package com.yf.exam.ability.ai.pool;
+
+import com.yf.exam.ability.ai.config.AIConfig;
+import com.yf.exam.ability.ai.usage.LlmFeature;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import javax.annotation.PreDestroy;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * LLM服务节点池
+ * 每次请求选择未完成请求数最少的可用节点；定时请求各节点的 /v1/models 做健康检查；
+ * 连续失败或平均耗时明显高于其余节点的节点被暂时摘除，到期后重新参与分配，但同时摘除的节点数受比例限制。
+ * 开启对冲的功能在首个请求超过近期耗时分位数仍未返回时，向另一节点发送副本，先成功者生效，另一个断开连接取消
+ *
+ * @author AI Assistant
+ * @date 2026-10-19
+ */
+@Component
+public class LlmEndpointPool {
+
+    private static final Logger logger = LoggerFactory.getLogger(LlmEndpointPool.class);
+
+    private static final String COMPLETIONS_SUFFIX = "/chat/completions";
+    private static final String MODELS_SUFFIX = "/models";
+
+    /**
+     * 健康检查调度间隔，实际检查间隔由配置决定
+     */
+    private static final long HEALTH_TICK_MILLIS = 5000;
+
+    /**
+     * 当前线程正在进行的请求，用于登记HTTP连接以便取消
+     */
+    private static final ThreadLocal<Attempt> CURRENT = new ThreadLocal<>();
+
+    @Autowired
+    private AIConfig aiConfig;
+
+    private final AtomicInteger threadIndex = new AtomicInteger();
+
+    private final ExecutorService hedgeExecutor = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "llm-hedge-" + threadIndex.incrementAndGet());
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final List<Node> nodes = new ArrayList<>();
+
+    private List<String> configuredUrls;
+
+    private final Map<LlmFeature, Samples> featureLatency = new EnumMap<>(LlmFeature.class);
+
+    private long pickSequence;
+    private long lastHealthCheck;
+    private long hedgeCount;
+    private long hedgeWins;
+
+    /**
+     * 登记当前请求的HTTP连接，由RestTemplate的连接工厂调用
+     * @param connection 连接
+     */
+    public static void register(HttpURLConnection connection) {
+        Attempt attempt = CURRENT.get();
+        if (attempt != null) {
+            attempt.connection = connection;
+        }
+    }
+
+    /**
+     * @return 模型名称
+     */
+    public String getModel() {
+        return aiConfig.getPool().getModel();
+    }
+
+    /**
+     * 选择节点发送请求，开启对冲的功能在超时未返回时向另一节点发送副本
+     * @param feature 调用功能
+     * @param call 按节点地址发送请求
+     * @return HTTP响应
+     */
+    public ResponseEntity<String> execute(LlmFeature feature, Function<String, ResponseEntity<String>> call) {
+        Node primary = choose(null);
+        long delay = hedgeDelay(feature);
+        if (delay < 0 || availableCount() < 2) {
+            return attempt(new Attempt(primary), feature, call);
+        }
+        return hedged(primary, feature, call, delay);
+    }
+
+    /**
+     * 节点和对冲状态快照，用于监控端点
+     * @return 状态数据
+     */
+    public synchronized Map<String, Object> snapshot() {
+        syncNodes();
+        long now = System.currentTimeMillis();
+        List<Map<String, Object>> items = new ArrayList<>();
+        for (Node node : nodes) {
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("url", node.url);
+            item.put("healthy", node.healthy);
+            item.put("ejected", node.ejectedUntil > now);
+            item.put("ejectedSeconds", Math.max(0, (node.ejectedUntil - now) / 1000));
+            item.put("ejections", node.ejections);
+            item.put("outstanding", node.outstanding);
+            item.put("successes", node.successes);
+            item.put("failures", node.failures);
+            item.put("avgLatencyMillis", Math.round(node.avgLatency));
+            items.add(item);
+        }
+        Map<String, Object> hedge = new LinkedHashMap<>();
+        AIConfig.Hedge conf = aiConfig.getPool().getHedge();
+        hedge.put("enabled", conf.isEnabled());
+        hedge.put("hedges", hedgeCount);
+        hedge.put("hedgeWins", hedgeWins);
+        Map<String, Object> delays = new LinkedHashMap<>();
+        for (String code : conf.getFeatures()) {
+            for (LlmFeature feature : LlmFeature.values()) {
+                if (feature.getCode().equals(code)) {
+                    delays.put(code, hedgeDelay(feature));
+                }
+            }
+        }
+        hedge.put("delayMillis", delays);
+
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("model", getModel());
+        data.put("nodes", items);
+        data.put("hedge", hedge);
+        return data;
+    }
+
+    /**
+     * 定时健康检查
+     */
+    @Scheduled(fixedDelay = HEALTH_TICK_MILLIS)
+    public void healthCheck() {
+        AIConfig.Pool conf = aiConfig.getPool();
+        List<Node> targets;
+        synchronized (this) {
+            long now = System.currentTimeMillis();
+            if (conf.getHealthCheckMillis() <= 0 || now - lastHealthCheck < conf.getHealthCheckMillis()) {
+                return;
+            }
+            lastHealthCheck = now;
+            syncNodes();
+            targets = new ArrayList<>(nodes);
+        }
+        for (Node node : targets) {
+            boolean healthy = probe(node, conf.getHealthTimeoutMillis());
+            synchronized (this) {
+                if (node.healthy != healthy) {
+                    logger.warn(healthy ? "✅ LLM节点恢复: {}" : "⚠️ LLM节点健康检查失败: {}", node.url);
+                }
+                node.healthy = healthy;
+            }
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        hedgeExecutor.shutdownNow();
+    }
+
+    private ResponseEntity<String> hedged(Node primary, LlmFeature feature,
+                                          Function<String, ResponseEntity<String>> call, long delay) {
+        CompletionService<ResponseEntity<String>> completion = new ExecutorCompletionService<>(hedgeExecutor);
+        Attempt first = new Attempt(primary);
+        Future<ResponseEntity<String>> firstFuture = completion.submit(() -> attempt(first, feature, call));
+        Attempt second = null;
+        Future<ResponseEntity<String>> secondFuture = null;
+        try {
+            Future<ResponseEntity<String>> done = completion.poll(delay, TimeUnit.MILLISECONDS);
+            if (done != null) {
+                return result(done);
+            }
+
+            Node backup = choose(primary);
+            if (backup == null) {
+                return result(firstFuture);
+            }
+            synchronized (this) {
+                hedgeCount++;
+            }
+            logger.info("🔀 LLM对冲请求: {} 超过 {}ms 未返回，副本发往 {}", feature.getCode(), delay, backup.url);
+            second = new Attempt(backup);
+            final Attempt hedge = second;
+            secondFuture = completion.submit(() -> attempt(hedge, feature, call));
+
+            RuntimeException error = null;
+            for (int i = 0; i < 2; i++) {
+                Future<ResponseEntity<String>> winner = completion.take();
+                try {
+                    ResponseEntity<String> response = result(winner);
+                    if (winner == secondFuture) {
+                        synchronized (this) {
+                            hedgeWins++;
+                        }
+                        cancel(first, firstFuture);
+                    } else {
+                        cancel(second, secondFuture);
+                    }
+                    return response;
+                } catch (RuntimeException e) {
+                    error = e;
+                }
+            }
+            throw error;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("LLM请求被中断", e);
+        } finally {
+            cancel(first, firstFuture);
+            if (second != null) {
+                cancel(second, secondFuture);
+            }
+        }
+    }
+
+    /**
+     * 在当前线程向指定节点发送一次请求，被取消的请求不计入节点统计
+     */
+    private ResponseEntity<String> attempt(Attempt attempt, LlmFeature feature,
+                                           Function<String, ResponseEntity<String>> call) {
+        Node node = attempt.node;
+        synchronized (this) {
+            node.outstanding++;
+        }
+        CURRENT.set(attempt);
+        long start = System.currentTimeMillis();
+        try {
+            ResponseEntity<String> response = call.apply(node.url);
+            onSuccess(node, feature, System.currentTimeMillis() - start);
+            return response;
+        } catch (ResourceAccessException | HttpServerErrorException e) {
+            if (!attempt.canceled) {
+                onFailure(node, e.getMessage());
+            }
+            throw e;
+        } finally {
+            CURRENT.remove();
+            synchronized (this) {
+                node.outstanding--;
+            }
+        }
+    }
+
+    private static ResponseEntity<String> result(Future<ResponseEntity<String>> future) throws InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    /**
+     * 取消请求：断开连接让阻塞的读取立即结束
+     */
+    private static void cancel(Attempt attempt, Future<?> future) {
+        if (future.isDone()) {
+            return;
+        }
+        attempt.canceled = true;
+        HttpURLConnection connection = attempt.connection;
+        if (connection != null) {
+            connection.disconnect();
+        }
+        future.cancel(true);
+    }
+
+    /**
+     * 选择未完成请求最少的可用节点，相同时轮流选择；没有可用节点时选最早恢复的节点
+     * @param exclude 排除的节点，对冲时为首个请求的节点
+     * @return 节点，排除后没有其他节点时返回null
+     */
+    private synchronized Node choose(Node exclude) {
+        syncNodes();
+        long now = System.currentTimeMillis();
+        Node best = null;
+        for (Node node : nodes) {
+            if (node == exclude || !node.available(now)) {
+                continue;
+            }
+            if (best == null || node.outstanding < best.outstanding
+                    || (node.outstanding == best.outstanding && node.lastPicked < best.lastPicked)) {
+                best = node;
+            }
+        }
+        if (best == null && exclude == null) {
+            for (Node node : nodes) {
+                if (best == null || (node.healthy && !best.healthy)
+                        || (node.healthy == best.healthy && node.ejectedUntil < best.ejectedUntil)) {
+                    best = node;
+                }
+            }
+        }
+        if (best != null) {
+            best.lastPicked = ++pickSequence;
+        }
+        return best;
+    }
+
+    private synchronized int availableCount() {
+        long now = System.currentTimeMillis();
+        int count = 0;
+        for (Node node : nodes) {
+            if (node.available(now)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private synchronized void onSuccess(Node node, LlmFeature feature, long elapsed) {
+        AIConfig.Pool conf = aiConfig.getPool();
+        node.consecutiveFailures = 0;
+        node.successes++;
+        node.avgLatency = node.samples == 0 ? elapsed : node.avgLatency * 0.8 + elapsed * 0.2;
+        node.samples++;
+        featureLatency.computeIfAbsent(feature, k -> new Samples()).add(elapsed, conf.getHedge().getSamples());
+
+        // 与其余节点的平均耗时中位数比较，明显偏慢则摘除
+        if (conf.getOutlierFactor() <= 0 || node.samples < conf.getOutlierMinSamples()) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        List<Double> others = new ArrayList<>();
+        for (Node other : nodes) {
+            if (other != node && other.available(now) && other.samples >= conf.getOutlierMinSamples()) {
+                others.add(other.avgLatency);
+            }
+        }
+        if (others.isEmpty()) {
+            return;
+        }
+        others.sort(null);
+        double median = others.get(others.size() / 2);
+        if (node.avgLatency > median * conf.getOutlierFactor()) {
+            eject(node, String.format("平均耗时 %dms，其余节点 %dms", Math.round(node.avgLatency), Math.round(median)));
+        }
+    }
+
+    private synchronized void onFailure(Node node, String error) {
+        node.failures++;
+        node.consecutiveFailures++;
+        if (node.consecutiveFailures >= Math.max(1, aiConfig.getPool().getConsecutiveFailures())) {
+            eject(node, "连续失败 " + node.consecutiveFailures + " 次: " + error);
+        }
+    }
+
+    /**
+     * 摘除节点，超出同时摘除比例或没有其他可用节点时不摘除
+     */
+    private void eject(Node node, String reason) {
+        AIConfig.Pool conf = aiConfig.getPool();
+        long now = System.currentTimeMillis();
+        int ejected = 0;
+        for (Node other : nodes) {
+            if (other.ejectedUntil > now) {
+                ejected++;
+            }
+        }
+        int allowed = (int) Math.floor(nodes.size() * conf.getMaxEjectionRatio());
+        if (ejected + 1 > allowed || availableCount() <= 1) {
+            logger.warn("⚠️ LLM节点异常但已达摘除上限: {}, {}", node.url, reason);
+            return;
+        }
+        node.ejections++;
+        long seconds = Math.min(conf.getMaxEjectionSeconds(), (long) conf.getEjectionSeconds() * node.ejections);
+        node.ejectedUntil = now + seconds * 1000;
+        node.consecutiveFailures = 0;
+        // 恢复后重新积累样本再判断是否偏慢
+        node.samples = 0;
+        node.avgLatency = 0;
+        logger.warn("🚫 LLM节点摘除 {}s: {}, {}", seconds, node.url, reason);
+    }
+
+    private synchronized long hedgeDelay(LlmFeature feature) {
+        AIConfig.Hedge conf = aiConfig.getPool().getHedge();
+        if (!conf.isEnabled() || conf.getFeatures() == null || !conf.getFeatures().contains(feature.getCode())) {
+            return -1;
+        }
+        Samples samples = featureLatency.get(feature);
+        if (samples == null || samples.count < Math.max(1, conf.getMinSamples())) {
+            return conf.getInitialDelayMillis();
+        }
+        return Math.max(conf.getMinDelayMillis(), samples.percentile(conf.getPercentile()));
+    }
+
+    /**
+     * 按配置同步节点列表，保留已有节点的统计
+     */
+    private void syncNodes() {
+        List<String> urls = aiConfig.getPool().getUrls();
+        if (urls == null || urls.isEmpty() || urls.equals(configuredUrls)) {
+            return;
+        }
+        List<Node> synced = new ArrayList<>();
+        for (String url : urls) {
+            Node node = null;
+            for (Node existing : nodes) {
+                if (existing.url.equals(url)) {
+                    node = existing;
+                }
+            }
+            synced.add(node != null ? node : new Node(url));
+        }
+        nodes.clear();
+        nodes.addAll(synced);
+        configuredUrls = new ArrayList<>(urls);
+        logger.info("🌐 LLM节点池: {}", urls);
+    }
+
+    private static boolean probe(Node node, int timeoutMillis) {
+        String url = node.url.endsWith(COMPLETIONS_SUFFIX)
+                ? node.url.substring(0, node.url.length() - COMPLETIONS_SUFFIX.length()) + MODELS_SUFFIX
+                : node.url;
+        HttpURLConnection connection = null;
+        try {
+            connection = (HttpURLConnection) new URL(url).openConnection();
+            connection.setConnectTimeout(timeoutMillis);
+            connection.setReadTimeout(timeoutMillis);
+            connection.setRequestMethod("GET");
+            return connection.getResponseCode() < 500;
+        } catch (Exception e) {
+            return false;
+        } finally {
+            if (connection != null) {
+                connection.disconnect();
+            }
+        }
+    }
+
+    /**
+     * 节点状态
+     */
+    private static class Node {
+        private final String url;
+        private boolean healthy = true;
+        private long ejectedUntil;
+        private int ejections;
+        private int outstanding;
+        private int consecutiveFailures;
+        private long successes;
+        private long failures;
+        private int samples;
+        private double avgLatency;
+        private long lastPicked;
+
+        Node(String url) {
+            this.url = url;
+        }
+
+        boolean available(long now) {
+            return healthy && ejectedUntil <= now;
+        }
+    }
+
+    /**
+     * 一次发往节点的请求
+     */
+    private static class Attempt {
+        private final Node node;
+        private volatile HttpURLConnection connection;
+        private volatile boolean canceled;
+
+        Attempt(Node node) {
+            this.node = node;
+        }
+    }
+
+    /**
+     * 最近的耗时样本
+     */
+    private static class Samples {
+        private long[] values = new long[0];
+        private int cursor;
+        private int count;
+
+        void add(long value, int capacity) {
+            int size = Math.max(1, capacity);
+            if (values.length != size) {
+                values = new long[size];
+                cursor = 0;
+                count = 0;
+            }
+            values[cursor] = value;
+            cursor = (cursor + 1) % size;
+            count = Math.min(size, count + 1);
+        }
+
+        long percentile(double p) {
+            long[] sorted = Arrays.copyOf(values, count);
+            Arrays.sort(sorted);
+            int index = (int) Math.ceil(p * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+        }
+    }
+}
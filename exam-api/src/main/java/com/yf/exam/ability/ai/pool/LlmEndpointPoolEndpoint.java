@@ -0,0 +1,28 @@
+package com.yf.exam.ability.ai.pool;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * LLM节点池监控端点：/actuator/llmpool
+ * 查看各节点的健康、摘除、并发和耗时，以及对冲次数和当前对冲延迟
+ *
+ * @author AI Assistant
+ * @date 2026-10-19
+ */
+@Component
+@Endpoint(id = "llmpool")
+public class LlmEndpointPoolEndpoint {
+
+    @Autowired
+    private LlmEndpointPool llmEndpointPool;
+
+    @ReadOperation
+    public Map<String, Object> state() {
+        return llmEndpointPool.snapshot();
+    }
+}
@@ -0,0 +1,25 @@
+package com.yf.exam.ability.ai.scheduler;
+
+/**
+ * LLM请求优先级
+ *
+ * @author AI Assistant
+ * @date 2026-10-19
+ */
+public enum LlmPriority {
+
+    /**
+     * 交互请求，用户在等待结果
+     */
+    INTERACTIVE,
+
+    /**
+     * 普通请求
+     */
+    STANDARD,
+
+    /**
+     * 批量请求，可以排队等待
+     */
+    BULK
+}
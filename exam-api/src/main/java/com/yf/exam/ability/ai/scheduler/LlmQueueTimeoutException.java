@@ -0,0 +1,16 @@
+package com.yf.exam.ability.ai.scheduler;
+
+/**
+ * LLM请求排队超时被放弃
+ *
+ * @author AI Assistant
+ * @date 2026-10-19
+ */
+public class LlmQueueTimeoutException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public LlmQueueTimeoutException(LlmPriority priority, long waitedMillis) {
+        super("AI服务繁忙，请求排队 " + waitedMillis + "ms 后已放弃（" + priority + "），请稍后重试");
+    }
+}
@@ -0,0 +1,291 @@
+package com.yf.exam.ability.ai.scheduler;
+
+import com.yf.exam.ability.ai.config.AIConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * LLM请求调度器
+ * 所有LLM调用在此排队获取许可：总并发受 maxConcurrency 限制，每个优先级另有并发配额；
+ * 多个优先级同时排队时按权重平滑轮询分配，保证批量请求不会饿死；
+ * 非交互请求不能占用为交互请求预留的名额；排队超过最长等待时间的请求直接放弃，不再发送。
+ * 优先级默认由调用方法决定，批量任务可用 callAs / runAs 将当前线程内的调用整体降级
+ *
+ * @author AI Assistant
+ * @date 2026-10-19
+ */
+@Component
+public class LlmScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(LlmScheduler.class);
+
+    /**
+     * 当前线程指定的优先级，覆盖调用方法的默认优先级
+     */
+    private static final ThreadLocal<LlmPriority> SCOPE = new ThreadLocal<>();
+
+    @Autowired
+    private AIConfig aiConfig;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Map<LlmPriority, LaneState> lanes = new EnumMap<>(LlmPriority.class);
+
+    private int inFlight;
+
+    public LlmScheduler() {
+        for (LlmPriority priority : LlmPriority.values()) {
+            lanes.put(priority, new LaneState());
+        }
+    }
+
+    /**
+     * 以指定优先级执行，期间当前线程发起的LLM调用均使用该优先级
+     * @param priority 优先级
+     * @param action 执行内容
+     * @return 执行结果
+     */
+    public static <T> T callAs(LlmPriority priority, Supplier<T> action) {
+        LlmPriority previous = SCOPE.get();
+        SCOPE.set(priority);
+        try {
+            return action.get();
+        } finally {
+            if (previous == null) {
+                SCOPE.remove();
+            } else {
+                SCOPE.set(previous);
+            }
+        }
+    }
+
+    /**
+     * 以指定优先级执行，期间当前线程发起的LLM调用均使用该优先级
+     * @param priority 优先级
+     * @param action 执行内容
+     */
+    public static void runAs(LlmPriority priority, Runnable action) {
+        callAs(priority, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    /**
+     * 获取许可后执行LLM调用
+     * @param defaultPriority 调用方法的默认优先级，当前线程指定了优先级时以线程为准
+     * @param call LLM调用
+     * @return 调用结果
+     * @throws LlmQueueTimeoutException 排队超时
+     */
+    public <T> T execute(LlmPriority defaultPriority, Supplier<T> call) {
+        if (!aiConfig.getScheduler().isEnabled()) {
+            return call.get();
+        }
+        LlmPriority priority = SCOPE.get() != null ? SCOPE.get() : defaultPriority;
+        Ticket ticket = acquire(priority);
+        try {
+            return call.get();
+        } finally {
+            release(ticket);
+        }
+    }
+
+    /**
+     * 调度状态快照，用于监控端点
+     * @return 状态数据
+     */
+    public Map<String, Object> snapshot() {
+        AIConfig.Scheduler conf = aiConfig.getScheduler();
+        lock.lock();
+        try {
+            Map<String, Object> data = new LinkedHashMap<>();
+            data.put("enabled", conf.isEnabled());
+            data.put("maxConcurrency", conf.getMaxConcurrency());
+            data.put("interactiveReserve", conf.getInteractiveReserve());
+            data.put("inFlight", inFlight);
+            for (LlmPriority priority : LlmPriority.values()) {
+                LaneState lane = lanes.get(priority);
+                AIConfig.Lane laneConf = laneConf(priority);
+                Map<String, Object> item = new LinkedHashMap<>();
+                item.put("quota", laneConf.getQuota());
+                item.put("weight", laneConf.getWeight());
+                item.put("maxWaitMillis", laneConf.getMaxWaitMillis());
+                item.put("waiting", lane.waiting.size());
+                item.put("inFlight", lane.inFlight);
+                item.put("granted", lane.granted);
+                item.put("dropped", lane.dropped);
+                item.put("avgWaitMillis", lane.granted == 0 ? 0 : lane.totalWaitMillis / lane.granted);
+                item.put("maxWaitMillisSeen", lane.maxWaitMillis);
+                data.put(priority.name().toLowerCase(), item);
+            }
+            return data;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Ticket acquire(LlmPriority priority) {
+        Ticket ticket = new Ticket(priority);
+        LaneState lane = lanes.get(priority);
+        lock.lock();
+        try {
+            lane.waiting.addLast(ticket);
+            dispatch();
+        } finally {
+            lock.unlock();
+        }
+
+        long maxWait = laneConf(priority).getMaxWaitMillis();
+        try {
+            if (maxWait > 0) {
+                ticket.latch.await(maxWait, TimeUnit.MILLISECONDS);
+            } else {
+                ticket.latch.await();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        long waited = System.currentTimeMillis() - ticket.enqueueTime;
+        lock.lock();
+        try {
+            if (!ticket.granted) {
+                if (!ticket.dropped) {
+                    lane.waiting.remove(ticket);
+                    lane.dropped++;
+                }
+                logger.warn("⏳ LLM请求排队超时放弃: {}, 等待 {}ms, 排队 {}", priority, waited, lane.waiting.size());
+                throw new LlmQueueTimeoutException(priority, waited);
+            }
+            lane.totalWaitMillis += waited;
+            lane.maxWaitMillis = Math.max(lane.maxWaitMillis, waited);
+        } finally {
+            lock.unlock();
+        }
+        return ticket;
+    }
+
+    private void release(Ticket ticket) {
+        lock.lock();
+        try {
+            inFlight--;
+            lanes.get(ticket.priority).inFlight--;
+            dispatch();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 在并发名额内依次放行排队请求，已超过最长等待时间的请求直接放弃
+     */
+    private void dispatch() {
+        int max = Math.max(1, aiConfig.getScheduler().getMaxConcurrency());
+        while (inFlight < max) {
+            LlmPriority priority = pick(max);
+            if (priority == null) {
+                return;
+            }
+            LaneState lane = lanes.get(priority);
+            Ticket ticket = lane.waiting.pollFirst();
+            if (lane.waiting.isEmpty()) {
+                // 队列清空后不保留轮询积分，避免下次排队时突发占用
+                lane.currentWeight = 0;
+            }
+            long maxWait = laneConf(priority).getMaxWaitMillis();
+            if (maxWait > 0 && System.currentTimeMillis() - ticket.enqueueTime > maxWait) {
+                ticket.dropped = true;
+                lane.dropped++;
+                ticket.latch.countDown();
+                continue;
+            }
+            ticket.granted = true;
+            inFlight++;
+            lane.inFlight++;
+            lane.granted++;
+            ticket.latch.countDown();
+        }
+    }
+
+    /**
+     * 平滑加权轮询：在有请求排队且未超出配额的优先级中选择一个
+     */
+    private LlmPriority pick(int max) {
+        int reserve = Math.max(0, aiConfig.getScheduler().getInteractiveReserve());
+        int totalWeight = 0;
+        LlmPriority best = null;
+        for (LlmPriority priority : LlmPriority.values()) {
+            LaneState lane = lanes.get(priority);
+            AIConfig.Lane conf = laneConf(priority);
+            if (lane.waiting.isEmpty() || lane.inFlight >= Math.max(1, conf.getQuota())) {
+                continue;
+            }
+            if (priority != LlmPriority.INTERACTIVE && inFlight >= max - reserve) {
+                continue;
+            }
+            int weight = Math.max(1, conf.getWeight());
+            lane.currentWeight += weight;
+            totalWeight += weight;
+            if (best == null || lane.currentWeight > lanes.get(best).currentWeight) {
+                best = priority;
+            }
+        }
+        if (best != null) {
+            lanes.get(best).currentWeight -= totalWeight;
+        }
+        return best;
+    }
+
+    private AIConfig.Lane laneConf(LlmPriority priority) {
+        AIConfig.Scheduler conf = aiConfig.getScheduler();
+        switch (priority) {
+            case INTERACTIVE:
+                return conf.getInteractive();
+            case STANDARD:
+                return conf.getStandard();
+            default:
+                return conf.getBulk();
+        }
+    }
+
+    /**
+     * 单个优先级的排队和统计
+     */
+    private static class LaneState {
+        private final Deque<Ticket> waiting = new ArrayDeque<>();
+        private int inFlight;
+        private int currentWeight;
+        private long granted;
+        private long dropped;
+        private long totalWaitMillis;
+        private long maxWaitMillis;
+    }
+
+    /**
+     * 排队凭证
+     */
+    private static class Ticket {
+        private final LlmPriority priority;
+        private final long enqueueTime = System.currentTimeMillis();
+        private final CountDownLatch latch = new CountDownLatch(1);
+        private boolean granted;
+        private boolean dropped;
+
+        Ticket(LlmPriority priority) {
+            this.priority = priority;
+        }
+    }
+}
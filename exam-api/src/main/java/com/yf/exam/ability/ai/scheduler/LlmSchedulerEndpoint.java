@@ -0,0 +1,28 @@
+package com.yf.exam.ability.ai.scheduler;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * LLM请求调度监控端点：/actuator/llmscheduler
+ * 查看各优先级的排队、并发、放行和放弃数量
+ *
+ * @author AI Assistant
+ * @date 2026-10-19
+ */
+@Component
+@Endpoint(id = "llmscheduler")
+public class LlmSchedulerEndpoint {
+
+    @Autowired
+    private LlmScheduler llmScheduler;
+
+    @ReadOperation
+    public Map<String, Object> state() {
+        return llmScheduler.snapshot();
+    }
+}
@@ -0,0 +1,79 @@
+package com.yf.exam.ability.ai.usage;
+
+import com.yf.exam.ability.ai.scheduler.LlmPriority;
+
+/**
+ * LLM调用所属功能，用于用量统计，同时决定默认调度优先级
+ *
+ * @author AI Assistant
+ * @date 2026-10-19
+ */
+public enum LlmFeature {
+
+    /**
+     * 文档拆题（含结构分析、多模态）
+     */
+    EXTRACTION("extraction", LlmPriority.BULK),
+
+    /**
+     * 智能选题
+     */
+    SELECTION("selection", LlmPriority.INTERACTIVE),
+
+    /**
+     * 简答题评判
+     */
+    JUDGE("judge", LlmPriority.INTERACTIVE),
+
+    /**
+     * 简答题批量阅卷
+     */
+    JUDGE_BATCH("judge_batch", LlmPriority.BULK),
+
+    /**
+     * 整体测试分析
+     */
+    OVERALL_ANALYSIS("overall_analysis", LlmPriority.INTERACTIVE),
+
+    /**
+     * 题干提取
+     */
+    STEM("stem", LlmPriority.STANDARD),
+
+    /**
+     * 知识点识别
+     */
+    KNOWLEDGE("knowledge", LlmPriority.STANDARD),
+
+    /**
+     * 题目大纲识别
+     */
+    OUTLINE("outline", LlmPriority.STANDARD),
+
+    /**
+     * 知识大纲文档导入
+     */
+    OUTLINE_IMPORT("outline_import", LlmPriority.BULK);
+
+    private final String code;
+    private final LlmPriority priority;
+
+    LlmFeature(String code, LlmPriority priority) {
+        this.code = code;
+        this.priority = priority;
+    }
+
+    /**
+     * @return 指标标签和统计表中使用的编码
+     */
+    public String getCode() {
+        return code;
+    }
+
+    /**
+     * @return 默认调度优先级
+     */
+    public LlmPriority getPriority() {
+        return priority;
+    }
+}
@@ -0,0 +1,281 @@
+package com.yf.exam.ability.ai.usage;
+
+import com.alibaba.fastjson2.JSONObject;
+import com.yf.exam.ability.ai.utils.TokenEstimator;
+import com.yf.exam.modules.ai.entity.LlmUsageDaily;
+import com.yf.exam.modules.ai.service.LlmUsageDailyService;
+import com.yf.exam.modules.user.UserUtils;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * LLM用量记录
+ * 每次调用记录响应中的usage（缺失时按提示词和输出估算）、耗时、提示词长度和结果，
+ * 按功能发布Micrometer指标（llm.requests / llm.tokens / llm.prompt.chars），
+ * 同时按 日期+功能+考试+用户 在内存中累计，定时合并写入日汇总表。
+ * 考试和用户只进入汇总表，不作为指标标签，避免指标数量随考试和用户增长
+ *
+ * @author AI Assistant
+ * @date 2026-10-19
+ */
+@Component
+public class LlmUsageRecorder {
+
+    private static final Logger logger = LoggerFactory.getLogger(LlmUsageRecorder.class);
+
+    public static final String OUTCOME_SUCCESS = "success";
+    public static final String OUTCOME_EMPTY = "empty";
+    public static final String OUTCOME_ERROR = "error";
+    public static final String OUTCOME_REJECTED = "rejected";
+    public static final String OUTCOME_TIMEOUT = "timeout";
+
+    /**
+     * 当前线程的考试和用户，后台任务中没有登录用户时由调用方指定
+     */
+    private static final ThreadLocal<String[]> SCOPE = new ThreadLocal<>();
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private LlmUsageDailyService llmUsageDailyService;
+
+    /**
+     * 待写入的日汇总，键为 日期|功能|考试|用户
+     */
+    private Map<String, LlmUsageDaily> pending = new HashMap<>();
+
+    /**
+     * 指定当前线程LLM调用归属的考试和用户
+     * @param examId 考试ID，可为null
+     * @param userId 用户ID，为null时使用当前登录用户
+     * @param action 执行内容
+     * @return 执行结果
+     */
+    public static <T> T callFor(String examId, String userId, Supplier<T> action) {
+        String[] previous = SCOPE.get();
+        SCOPE.set(new String[]{examId, userId});
+        try {
+            return action.get();
+        } finally {
+            if (previous == null) {
+                SCOPE.remove();
+            } else {
+                SCOPE.set(previous);
+            }
+        }
+    }
+
+    /**
+     * 指定当前线程LLM调用归属的考试和用户
+     * @param examId 考试ID，可为null
+     * @param userId 用户ID，为null时使用当前登录用户
+     * @param action 执行内容
+     */
+    public static void runFor(String examId, String userId, Runnable action) {
+        callFor(examId, userId, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    /**
+     * 开始记录一次调用
+     * @param feature 调用功能
+     * @param prompt 提示词
+     * @return 调用记录，结束时须调用 finish
+     */
+    public Call start(LlmFeature feature, String prompt) {
+        String[] scope = SCOPE.get();
+        String examId = scope == null ? null : scope[0];
+        String userId = scope == null || scope[1] == null ? UserUtils.getUserId(false) : scope[1];
+        return new Call(feature, prompt, examId, userId);
+    }
+
+    /**
+     * 定时将内存中的汇总写入数据库
+     */
+    @Scheduled(fixedDelay = 60000)
+    public void flush() {
+        Map<String, LlmUsageDaily> batch;
+        synchronized (this) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            batch = pending;
+            pending = new HashMap<>();
+        }
+        try {
+            llmUsageDailyService.accumulate(new ArrayList<>(batch.values()));
+        } catch (Exception e) {
+            // 写入失败时放回，下次一并写入
+            logger.warn("⚠️ LLM用量汇总写入失败，稍后重试: {}", e.getMessage());
+            synchronized (this) {
+                for (Map.Entry<String, LlmUsageDaily> entry : batch.entrySet()) {
+                    LlmUsageDaily current = pending.get(entry.getKey());
+                    if (current == null) {
+                        pending.put(entry.getKey(), entry.getValue());
+                    } else {
+                        merge(current, entry.getValue());
+                    }
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        flush();
+    }
+
+    private void record(Call call, long latency, long promptTokens, long completionTokens, boolean estimated) {
+        String feature = call.feature.getCode();
+        Timer.builder("llm.requests")
+                .description("LLM调用耗时（含排队）")
+                .tag("feature", feature)
+                .tag("outcome", call.outcome)
+                .register(meterRegistry)
+                .record(latency, TimeUnit.MILLISECONDS);
+        Counter.builder("llm.tokens")
+                .tag("feature", feature)
+                .tag("type", "prompt")
+                .register(meterRegistry)
+                .increment(promptTokens);
+        Counter.builder("llm.tokens")
+                .tag("feature", feature)
+                .tag("type", "completion")
+                .register(meterRegistry)
+                .increment(completionTokens);
+        DistributionSummary.builder("llm.prompt.chars")
+                .tag("feature", feature)
+                .register(meterRegistry)
+                .record(call.promptChars);
+
+        LlmUsageDaily item = new LlmUsageDaily();
+        item.setStatDate(java.sql.Date.valueOf(LocalDate.now()));
+        item.setFeature(feature);
+        item.setExamId(call.examId == null ? "" : call.examId);
+        item.setUserId(call.userId == null ? "" : call.userId);
+        item.setCalls(1L);
+        item.setFailures(OUTCOME_SUCCESS.equals(call.outcome) ? 0L : 1L);
+        item.setPromptTokens(promptTokens);
+        item.setCompletionTokens(completionTokens);
+        item.setEstimatedCalls(estimated ? 1L : 0L);
+        item.setPromptChars((long) call.promptChars);
+        item.setLatencyMillis(latency);
+        item.setMaxLatencyMillis(latency);
+
+        String key = item.getStatDate() + "|" + feature + "|" + item.getExamId() + "|" + item.getUserId();
+        synchronized (this) {
+            LlmUsageDaily current = pending.get(key);
+            if (current == null) {
+                pending.put(key, item);
+            } else {
+                merge(current, item);
+            }
+        }
+    }
+
+    private static void merge(LlmUsageDaily target, LlmUsageDaily item) {
+        target.setCalls(target.getCalls() + item.getCalls());
+        target.setFailures(target.getFailures() + item.getFailures());
+        target.setPromptTokens(target.getPromptTokens() + item.getPromptTokens());
+        target.setCompletionTokens(target.getCompletionTokens() + item.getCompletionTokens());
+        target.setEstimatedCalls(target.getEstimatedCalls() + item.getEstimatedCalls());
+        target.setPromptChars(target.getPromptChars() + item.getPromptChars());
+        target.setLatencyMillis(target.getLatencyMillis() + item.getLatencyMillis());
+        target.setMaxLatencyMillis(Math.max(target.getMaxLatencyMillis(), item.getMaxLatencyMillis()));
+    }
+
+    /**
+     * 一次LLM调用的记录
+     */
+    public class Call {
+        private final LlmFeature feature;
+        private final String prompt;
+        private final int promptChars;
+        private final String examId;
+        private final String userId;
+        private final long startTime = System.currentTimeMillis();
+        private String outcome = OUTCOME_ERROR;
+        private JSONObject usage;
+        private String content;
+        private boolean finished;
+
+        Call(LlmFeature feature, String prompt, String examId, String userId) {
+            this.feature = feature;
+            this.prompt = prompt;
+            this.promptChars = prompt == null ? 0 : prompt.length();
+            this.examId = examId;
+            this.userId = userId;
+        }
+
+        /**
+         * 记录响应中的usage
+         */
+        public void usage(JSONObject usage) {
+            this.usage = usage;
+        }
+
+        /**
+         * 记录响应内容，内容为空记为 empty
+         */
+        public void complete(String content) {
+            this.content = content;
+            this.outcome = content == null || content.trim().isEmpty() ? OUTCOME_EMPTY : OUTCOME_SUCCESS;
+        }
+
+        /**
+         * 记录失败结果
+         */
+        public void fail(String outcome) {
+            this.outcome = outcome;
+        }
+
+        /**
+         * 结束记录，重复调用无效
+         */
+        public void finish() {
+            if (finished) {
+                return;
+            }
+            finished = true;
+            long latency = System.currentTimeMillis() - startTime;
+            long promptTokens;
+            long completionTokens;
+            boolean estimated;
+            if (usage != null && usage.getLong("prompt_tokens") != null) {
+                promptTokens = usage.getLongValue("prompt_tokens");
+                completionTokens = usage.getLongValue("completion_tokens");
+                estimated = false;
+            } else {
+                // 未发送成功的请求不计token
+                boolean sent = OUTCOME_SUCCESS.equals(outcome) || OUTCOME_EMPTY.equals(outcome);
+                promptTokens = sent ? TokenEstimator.estimate(prompt) : 0;
+                completionTokens = sent ? TokenEstimator.estimate(content) : 0;
+                estimated = sent;
+            }
+            try {
+                record(this, latency, promptTokens, completionTokens, estimated);
+            } catch (Exception e) {
+                logger.warn("⚠️ LLM用量记录失败: {}", e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,258 @@
+package com.yf.exam.ability.ai.utils;
+
+import com.alibaba.fastjson2.JSON;
+import com.alibaba.fastjson2.JSONArray;
+import com.alibaba.fastjson2.JSONObject;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 大模型输出的容错JSON解析
+ * 单次扫描定位JSON主体：跳过思考过程、代码块标记和前后说明文字；
+ * 输出在 max_tokens 处被截断时，在最内层数组的最后一个完整元素之后截断（没有数组时按完整字段），再由内向外补齐括号，
+ * 解析结果附带修复说明，调用方据此记录挽回了多少内容
+ *
+ * @author AI Assistant
+ * @date 2026-10-19
+ */
+public final class LlmJson {
+
+    private static final String THINK_END = "</think>";
+    private static final String FENCE = "```";
+
+    private LlmJson() {
+    }
+
+    /**
+     * 解析JSON数组
+     * @param text 大模型输出
+     * @return 解析结果，无法挽回时value为null
+     */
+    public static Result<JSONArray> parseArray(String text) {
+        Result<JSONArray> result = new Result<>();
+        String json = locate(text, '[', ']', result);
+        if (json != null) {
+            try {
+                result.value = JSON.parseArray(json);
+                result.kept = result.value.size();
+            } catch (Exception e) {
+                result.error = e.getMessage();
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 解析JSON对象
+     * @param text 大模型输出
+     * @return 解析结果，无法挽回时value为null
+     */
+    public static Result<JSONObject> parseObject(String text) {
+        Result<JSONObject> result = new Result<>();
+        String json = locate(text, '{', '}', result);
+        if (json != null) {
+            try {
+                result.value = JSON.parseObject(json);
+                result.kept = result.value.size();
+            } catch (Exception e) {
+                result.error = e.getMessage();
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 扫描出JSON主体文本，必要时截断补齐
+     */
+    private static String locate(String text, char open, char close, Result<?> result) {
+        if (text == null || text.trim().isEmpty()) {
+            result.error = "响应为空";
+            return null;
+        }
+
+        int from = 0;
+        int think = text.lastIndexOf(THINK_END);
+        if (think >= 0) {
+            from = think + THINK_END.length();
+            result.notes.add("跳过思考过程");
+        }
+        int start = text.indexOf(open, from);
+        int fence = text.indexOf(FENCE, from);
+        if (fence >= 0 && (start < 0 || fence < start)) {
+            // 代码块内的JSON优先，避免把说明文字中的括号当成开头
+            int lineEnd = text.indexOf('\n', fence);
+            int inner = text.indexOf(open, lineEnd < 0 ? fence + FENCE.length() : lineEnd);
+            if (inner >= 0) {
+                start = inner;
+            }
+            result.notes.add("去除代码块标记");
+        }
+        if (start < 0) {
+            result.error = "响应中未找到JSON" + (open == '[' ? "数组" : "对象");
+            return null;
+        }
+        if (!text.substring(from, start).trim().isEmpty() && fence < 0) {
+            result.notes.add("忽略前置文字" + (start - from) + "字符");
+        }
+
+        // 每层记录可安全截断的位置：逗号之前、子结构闭合之后
+        StringBuilder stack = new StringBuilder();
+        List<Integer> cuts = new ArrayList<>();
+        boolean inString = false;
+        boolean escape = false;
+        int end = -1;
+        for (int i = start; i < text.length() && end < 0; i++) {
+            char c = text.charAt(i);
+            if (inString) {
+                if (escape) {
+                    escape = false;
+                } else if (c == '\\') {
+                    escape = true;
+                } else if (c == '"') {
+                    inString = false;
+                }
+                continue;
+            }
+            switch (c) {
+                case '"':
+                    inString = true;
+                    break;
+                case '[':
+                case '{':
+                    stack.append(c);
+                    cuts.add(-1);
+                    break;
+                case ']':
+                case '}':
+                    if (stack.length() > 0) {
+                        stack.setLength(stack.length() - 1);
+                        cuts.remove(cuts.size() - 1);
+                    }
+                    if (stack.length() == 0) {
+                        end = i + 1;
+                    } else {
+                        cuts.set(cuts.size() - 1, i + 1);
+                    }
+                    break;
+                case ',':
+                    if (!cuts.isEmpty()) {
+                        cuts.set(cuts.size() - 1, i);
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        if (end > 0) {
+            String tail = text.substring(end).replace(FENCE, "").trim();
+            if (!tail.isEmpty()) {
+                result.notes.add("忽略尾部文字" + tail.length() + "字符");
+            }
+            return text.substring(start, end);
+        }
+
+        result.truncated = true;
+        int level = cutLevel(stack, cuts);
+        if (level < 0) {
+            result.notes.add("响应被截断，没有完整元素");
+            result.droppedChars = text.length() - start;
+            return String.valueOf(open) + close;
+        }
+        int cut = cuts.get(level);
+        result.droppedChars = text.length() - cut;
+        result.notes.add("响应被截断，丢弃末尾不完整内容" + result.droppedChars + "字符");
+
+        // 从截断所在层向外依次补齐括号
+        StringBuilder json = new StringBuilder(text.substring(start, cut));
+        for (int k = level; k >= 0; k--) {
+            json.append(stack.charAt(k) == '[' ? ']' : '}');
+        }
+        return json.toString();
+    }
+
+    /**
+     * 选择截断层级：优先最内层有完整元素的数组，保留包装对象内已完整的每一项；
+     * 没有这样的数组时按最外层的完整字段截断
+     * @return 层级下标，无可截断位置时为-1
+     */
+    private static int cutLevel(CharSequence stack, List<Integer> cuts) {
+        for (int k = stack.length() - 1; k >= 0; k--) {
+            if (stack.charAt(k) == '[' && cuts.get(k) >= 0) {
+                return k;
+            }
+        }
+        return cuts.isEmpty() || cuts.get(0) < 0 ? -1 : 0;
+    }
+
+    /**
+     * 解析结果
+     */
+    public static class Result<T> {
+
+        private T value;
+        private boolean truncated;
+        private int kept;
+        private int droppedChars;
+        private String error;
+        private final List<String> notes = new ArrayList<>();
+
+        /**
+         * @return 解析出的JSON，无法挽回时为null
+         */
+        public T getValue() {
+            return value;
+        }
+
+        /**
+         * @return 输出是否被截断
+         */
+        public boolean isTruncated() {
+            return truncated;
+        }
+
+        /**
+         * @return 是否经过修复（非纯净JSON）
+         */
+        public boolean isRepaired() {
+            return !notes.isEmpty();
+        }
+
+        /**
+         * @return 保留的元素（数组）或字段（对象）数量
+         */
+        public int getKept() {
+            return kept;
+        }
+
+        /**
+         * @return 截断时丢弃的字符数
+         */
+        public int getDroppedChars() {
+            return droppedChars;
+        }
+
+        /**
+         * @return 解析失败原因
+         */
+        public String getError() {
+            return error;
+        }
+
+        /**
+         * @return 修复说明
+         */
+        public List<String> getNotes() {
+            return notes;
+        }
+
+        /**
+         * @return 修复摘要，用于日志
+         */
+        public String summary() {
+            String kept = "保留" + this.kept + "项";
+            return notes.isEmpty() ? kept : String.join("，", notes) + "，" + kept;
+        }
+    }
+}
@@ -0,0 +1,382 @@
+package com.yf.exam.ability.ai.utils;
+
+import com.alibaba.fastjson2.JSON;
+import com.alibaba.fastjson2.JSONArray;
+import com.alibaba.fastjson2.JSONObject;
+import com.yf.exam.modules.qu.enums.QuType;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * 整体测试统计
+ * 在本地逐题判定对错并汇总得分率、各题型得分、各知识点正确率和错误类型，
+ * 只把汇总结果交给大模型撰写评价，分数部分不依赖大模型。
+ * 客观题按标准答案比对；简答题有 userScore 时直接采用，否则按参考答案的覆盖程度估算
+ *
+ * @author AI Assistant
+ * @date 2026-10-19
+ */
+public final class OverallTestStats {
+
+    private static final String UNTAGGED = "未标注";
+
+    /**
+     * 正确率低于该值的知识点为薄弱知识点
+     */
+    private static final double WEAK_ACCURACY = 0.6;
+
+    /**
+     * 正确率不低于该值的知识点为优势知识点
+     */
+    private static final double STRONG_ACCURACY = 0.85;
+
+    /**
+     * 简答题估算时覆盖参考答案的比例达到该值视为答对
+     */
+    private static final double SAQ_PASS_COVERAGE = 0.6;
+
+    private static final int WRONG_EXAMPLES = 5;
+
+    private OverallTestStats() {
+    }
+
+    /**
+     * 汇总统计
+     * @param answers 作答列表，字段同 TestAnswerItemDTO，可选 userScore
+     * @return 统计结果
+     */
+    public static JSONObject aggregate(JSONArray answers) {
+        Group total = new Group();
+        Map<Integer, Group> byType = new LinkedHashMap<>();
+        Map<String, Group> byPoint = new LinkedHashMap<>();
+        Map<String, Integer> errors = new LinkedHashMap<>();
+        JSONArray wrongExamples = new JSONArray();
+        int answered = 0;
+        int estimated = 0;
+
+        for (int i = 0; i < answers.size(); i++) {
+            JSONObject item = answers.getJSONObject(i);
+            int type = item.getIntValue("questionType");
+            double maxScore = item.getDoubleValue("maxScore") > 0 ? item.getDoubleValue("maxScore") : 1;
+            String userAnswer = item.getString("userAnswer");
+            String correctAnswer = item.getString("correctAnswer");
+            boolean blank = userAnswer == null || userAnswer.trim().isEmpty();
+            if (!blank) {
+                answered++;
+            }
+
+            Judged judged = judge(type, userAnswer, correctAnswer, maxScore);
+            if (item.getDouble("userScore") != null) {
+                double score = Math.max(0, Math.min(maxScore, item.getDoubleValue("userScore")));
+                judged = new Judged(score, QuType.SAQ.equals(type)
+                        ? score >= maxScore * SAQ_PASS_COVERAGE : score >= maxScore, judged.error);
+            } else if (QuType.SAQ.equals(type)) {
+                estimated++;
+            }
+            if (blank) {
+                judged = new Judged(0, false, "unanswered");
+            }
+            if (!judged.correct && judged.error != null) {
+                errors.merge(judged.error, 1, Integer::sum);
+            }
+
+            total.add(judged, maxScore);
+            byType.computeIfAbsent(type, k -> new Group()).add(judged, maxScore);
+            for (String point : knowledgePoints(item.getString("knowledgePoint"))) {
+                byPoint.computeIfAbsent(point, k -> new Group()).add(judged, maxScore);
+            }
+            if (!judged.correct && wrongExamples.size() < WRONG_EXAMPLES) {
+                JSONObject example = new JSONObject();
+                example.put("type", typeName(type));
+                example.put("knowledgePoint", item.getString("knowledgePoint"));
+                example.put("question", abbreviate(item.getString("questionContent"), 60));
+                example.put("userAnswer", abbreviate(userAnswer, 30));
+                example.put("correctAnswer", abbreviate(correctAnswer, 30));
+                wrongExamples.add(example);
+            }
+        }
+
+        JSONObject stats = new JSONObject();
+        stats.put("questionCount", total.count);
+        stats.put("answeredCount", answered);
+        stats.put("correctCount", total.correct);
+        stats.put("accuracy", total.accuracy());
+        stats.put("score", round(total.score, 1));
+        stats.put("maxScore", round(total.maxScore, 1));
+        stats.put("overallScore", total.maxScore == 0 ? 0 : round(total.score * 100 / total.maxScore, 1));
+        stats.put("estimatedCount", estimated);
+
+        JSONArray types = new JSONArray();
+        for (Map.Entry<Integer, Group> entry : byType.entrySet()) {
+            JSONObject json = entry.getValue().toJson();
+            json.put("type", entry.getKey());
+            json.put("typeName", typeName(entry.getKey()));
+            types.add(json);
+        }
+        stats.put("byType", types);
+
+        List<Map.Entry<String, Group>> points = new ArrayList<>(byPoint.entrySet());
+        points.sort((a, b) -> {
+            int cmp = Double.compare(a.getValue().accuracy(), b.getValue().accuracy());
+            return cmp != 0 ? cmp : Integer.compare(b.getValue().count, a.getValue().count);
+        });
+        JSONArray pointStats = new JSONArray();
+        List<String> weak = new ArrayList<>();
+        List<String> strong = new ArrayList<>();
+        for (Map.Entry<String, Group> entry : points) {
+            JSONObject json = entry.getValue().toJson();
+            json.put("knowledgePoint", entry.getKey());
+            pointStats.add(json);
+            if (UNTAGGED.equals(entry.getKey())) {
+                continue;
+            }
+            if (entry.getValue().accuracy() < WEAK_ACCURACY) {
+                weak.add(entry.getKey());
+            } else if (entry.getValue().accuracy() >= STRONG_ACCURACY) {
+                strong.add(entry.getKey());
+            }
+        }
+        stats.put("byKnowledgePoint", pointStats);
+        stats.put("weakKnowledgePoints", weak);
+        stats.put("strongKnowledgePoints", strong);
+        stats.put("errorPatterns", errors);
+        stats.put("wrongExamples", wrongExamples);
+        return stats;
+    }
+
+    /**
+     * 题型名称
+     * @param type 题型
+     * @return 名称
+     */
+    public static String typeName(int type) {
+        switch (type) {
+            case 1: return "单选题";
+            case 2: return "多选题";
+            case 3: return "判断题";
+            case 4: return "简答题";
+            case 5: return "填空题";
+            default: return "其他";
+        }
+    }
+
+    private static Judged judge(int type, String userAnswer, String correctAnswer, double maxScore) {
+        if (correctAnswer == null || correctAnswer.trim().isEmpty()) {
+            return new Judged(0, false, "noStandardAnswer");
+        }
+        String user = userAnswer == null ? "" : userAnswer;
+        switch (type) {
+            case 1:
+            case 2: {
+                Set<Character> expected = letters(correctAnswer);
+                if (expected.isEmpty()) {
+                    return exact(user, correctAnswer, maxScore, "wrongChoice");
+                }
+                Set<Character> actual = letters(user);
+                if (actual.equals(expected)) {
+                    return new Judged(maxScore, true, null);
+                }
+                if (type == 2 && expected.containsAll(actual)) {
+                    return new Judged(0, false, "missedOptions");
+                }
+                if (type == 2 && actual.containsAll(expected)) {
+                    return new Judged(0, false, "extraOptions");
+                }
+                return new Judged(0, false, "wrongChoice");
+            }
+            case 3: {
+                String expected = truth(correctAnswer);
+                String actual = truth(user);
+                boolean correct = expected != null && actual != null
+                        ? expected.equals(actual) : normalize(user).equals(normalize(correctAnswer));
+                return new Judged(correct ? maxScore : 0, correct, "judgeWrong");
+            }
+            case 5: {
+                String[] expected = correctAnswer.split("[;；|]+");
+                String[] actual = user.split("[;；|]+");
+                int right = 0;
+                for (int i = 0; i < expected.length; i++) {
+                    if (i < actual.length && normalize(actual[i]).equals(normalize(expected[i]))) {
+                        right++;
+                    }
+                }
+                return new Judged(maxScore * right / expected.length, right == expected.length, "gapMismatch");
+            }
+            case 4: {
+                double coverage = coverage(user, correctAnswer);
+                double score = Math.round(maxScore * Math.min(1, coverage) * 2) / 2.0;
+                return new Judged(score, coverage >= SAQ_PASS_COVERAGE, "incompleteAnswer");
+            }
+            default:
+                return exact(user, correctAnswer, maxScore, "wrongAnswer");
+        }
+    }
+
+    private static Judged exact(String user, String correct, double maxScore, String error) {
+        boolean ok = normalize(user).equals(normalize(correct));
+        return new Judged(ok ? maxScore : 0, ok, error);
+    }
+
+    /**
+     * 参考答案的字符二元组被学生答案覆盖的比例
+     */
+    private static double coverage(String user, String correct) {
+        Set<String> expected = bigrams(normalize(correct));
+        if (expected.isEmpty()) {
+            return 0;
+        }
+        Set<String> actual = bigrams(normalize(user));
+        int hit = 0;
+        for (String gram : expected) {
+            if (actual.contains(gram)) {
+                hit++;
+            }
+        }
+        return (double) hit / expected.size();
+    }
+
+    private static Set<String> bigrams(String text) {
+        Set<String> grams = new HashSet<>();
+        if (text.length() == 1) {
+            grams.add(text);
+        }
+        for (int i = 0; i + 2 <= text.length(); i++) {
+            grams.add(text.substring(i, i + 2));
+        }
+        return grams;
+    }
+
+    private static Set<Character> letters(String answer) {
+        Set<Character> set = new TreeSet<>();
+        for (char c : answer.toUpperCase().toCharArray()) {
+            if (c >= 'A' && c <= 'H') {
+                set.add(c);
+            }
+        }
+        return set;
+    }
+
+    /**
+     * 判断题答案统一为 T/F，无法识别时返回null
+     */
+    private static String truth(String answer) {
+        String text = normalize(answer);
+        switch (text) {
+            case "对": case "正确": case "√": case "✓": case "true": case "t": case "是": case "y": case "a":
+                return "T";
+            case "错": case "错误": case "×": case "✗": case "x": case "false": case "f": case "否": case "n": case "b":
+                return "F";
+            default:
+                return null;
+        }
+    }
+
+    private static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder(text.length());
+        for (char c : text.toCharArray()) {
+            if (Character.isLetterOrDigit(c) || c == '√' || c == '✓' || c == '×' || c == '✗') {
+                sb.append(Character.toLowerCase(c));
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 知识点字段可能是单个名称、顿号分隔的多个名称或JSON数组
+     */
+    private static List<String> knowledgePoints(String value) {
+        List<String> points = new ArrayList<>();
+        if (value != null && value.trim().startsWith("[")) {
+            try {
+                for (Object point : JSON.parseArray(value)) {
+                    if (point != null && !point.toString().trim().isEmpty()) {
+                        points.add(point.toString().trim());
+                    }
+                }
+            } catch (Exception e) {
+                // 按普通文本处理
+            }
+        }
+        if (points.isEmpty() && value != null) {
+            for (String point : value.split("[、,，;；]+")) {
+                if (!point.trim().isEmpty()) {
+                    points.add(point.trim());
+                }
+            }
+        }
+        if (points.isEmpty()) {
+            points.add(UNTAGGED);
+        }
+        return points;
+    }
+
+    private static String abbreviate(String text, int max) {
+        if (text == null) {
+            return "";
+        }
+        String trimmed = text.trim();
+        return trimmed.length() <= max ? trimmed : trimmed.substring(0, max) + "…";
+    }
+
+    private static double round(double value, int scale) {
+        double factor = Math.pow(10, scale);
+        return Math.round(value * factor) / factor;
+    }
+
+    /**
+     * 单题判定结果
+     */
+    private static class Judged {
+        private final double score;
+        private final boolean correct;
+        private final String error;
+
+        Judged(double score, boolean correct, String error) {
+            this.score = score;
+            this.correct = correct;
+            this.error = error;
+        }
+    }
+
+    /**
+     * 分组累计
+     */
+    private static class Group {
+        private int count;
+        private int correct;
+        private double score;
+        private double maxScore;
+
+        void add(Judged judged, double max) {
+            count++;
+            if (judged.correct) {
+                correct++;
+            }
+            score += judged.score;
+            maxScore += max;
+        }
+
+        double accuracy() {
+            return count == 0 ? 0 : round((double) correct / count, 3);
+        }
+
+        JSONObject toJson() {
+            JSONObject json = new JSONObject();
+            json.put("count", count);
+            json.put("correctCount", correct);
+            json.put("accuracy", accuracy());
+            json.put("score", round(score, 1));
+            json.put("maxScore", round(maxScore, 1));
+            return json;
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package com.yf.exam.ability.ai.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 本地题干提取
+ * 按常见版式确定性地处理题目内容：去除题号和题型前缀、【答案】【解析】等标记之后的内容、A./B./C./D. 选项，
+ * 统一括号填空的写法并清除填在括号内的答案。版式不规整时降低置信度，由调用方决定是否交给大模型
+ *
+ * @author AI Assistant
+ * @date 2026-10-19
+ */
+public final class StemExtractor {
+
+    private static final String BLANK = "（ ）";
+
+    /**
+     * 开头的题号：1. 1、 1） （1） 第1题
+     */
+    private static final Pattern NUMBER = Pattern.compile(
+            "^\\s*(?:第\\s*\\d+\\s*题[.．、:：]?|\\d+\\s*[.．、)）]|[（(]\\s*\\d+\\s*[)）])\\s*");
+
+    /**
+     * 开头的题型前缀：【单选题】 单选题： （多选）
+     */
+    private static final Pattern TYPE_PREFIX = Pattern.compile(
+            "^\\s*[【\\[（(]?(?:单项选择题|多项选择题|单选题|多选题|不定项选择题|判断题|填空题|简答题|单选|多选|判断|填空|简答)[】\\]）)]?\\s*[:：]?\\s*");
+
+    /**
+     * 答案解析标记，带括号或冒号的才算，避免误伤题干中的“分析”“解析”等字样
+     */
+    private static final Pattern ANSWER_MARKER = Pattern.compile(
+            "[【\\[](?:参考答案|正确答案|答案|解析|详解|分析|点评|点睛|考点|知识点)[】\\]]"
+                    + "|(?:参考答案|正确答案|答案|解析|详解)\\s*[:：]");
+
+    /**
+     * 选项标号：行首或空白后的 A. A、 A） A:，或任意位置的 (A) （A）
+     */
+    private static final Pattern OPTION_LABEL = Pattern.compile(
+            "(?:(?<=^|[\\s\\u3000])([A-H])\\s*[.．、:：)）])|(?:[（(]([A-H])[)）])", Pattern.MULTILINE);
+
+    /**
+     * 括号内填写的答案：（B） （ √ ）
+     */
+    private static final Pattern FILLED_CHOICE = Pattern.compile("[（(][\\s\\u3000]*([A-H]{1,8})[\\s\\u3000]*[)）]");
+    private static final Pattern FILLED_JUDGE = Pattern.compile("[（(][\\s\\u3000]*(?:√|×|✓|✗|对|错|正确|错误)[\\s\\u3000]*[)）]");
+
+    /**
+     * 空括号
+     */
+    private static final Pattern EMPTY_BLANK = Pattern.compile("[（(][\\s\\u3000]*[)）]");
+
+    private StemExtractor() {
+    }
+
+    /**
+     * 提取题干
+     * @param content 题目内容
+     * @param maxLength 题干最大长度，超出时降低置信度
+     * @return 提取结果
+     */
+    public static Result extract(String content, int maxLength) {
+        Result result = new Result();
+        if (content == null || content.trim().isEmpty()) {
+            result.note("内容为空");
+            return result;
+        }
+        String text = content.replace("\r\n", "\n").replace('\r', '\n');
+        double confidence = 0.95;
+
+        // 题号、题型前缀
+        Matcher number = NUMBER.matcher(text);
+        if (number.find()) {
+            text = text.substring(number.end());
+            result.note("去除题号");
+        }
+        Matcher prefix = TYPE_PREFIX.matcher(text);
+        if (prefix.find() && prefix.end() > 0) {
+            text = text.substring(prefix.end());
+            result.note("去除题型前缀");
+        }
+
+        // 答案解析标记之后的内容
+        Matcher marker = ANSWER_MARKER.matcher(text);
+        if (marker.find()) {
+            if (text.substring(0, marker.start()).trim().isEmpty()) {
+                result.note("答案标记位于开头");
+                return result;
+            }
+            result.note("去除" + marker.group().replaceAll("[【】\\[\\]:：\\s]", "") + "及之后内容");
+            text = text.substring(0, marker.start());
+        }
+
+        // 选项：找到从A开始依次递增的最长标号序列，题干截止到A之前；
+        // 长度相同时取靠后的A，避免把题干括号内填写的答案（A）当成选项开头
+        List<int[]> labels = new ArrayList<>();
+        Matcher label = OPTION_LABEL.matcher(text);
+        while (label.find()) {
+            String letter = label.group(1) != null ? label.group(1) : label.group(2);
+            labels.add(new int[]{label.start(), letter.charAt(0)});
+        }
+        int optionStart = -1;
+        int optionIndex = -1;
+        int optionCount = 0;
+        for (int i = 0; i < labels.size(); i++) {
+            if (labels.get(i)[1] != 'A') {
+                continue;
+            }
+            char expected = 'B';
+            int count = 1;
+            for (int j = i + 1; j < labels.size(); j++) {
+                if (labels.get(j)[1] == expected) {
+                    expected++;
+                    count++;
+                }
+            }
+            if (count >= 2 && count >= optionCount) {
+                optionStart = labels.get(i)[0];
+                optionIndex = i;
+                optionCount = count;
+            }
+        }
+        if (optionStart >= 0) {
+            // 标号多于一组连续选项时可能是多道题粘连
+            if (labels.size() - optionIndex > optionCount) {
+                confidence = Math.min(confidence, 0.5);
+                result.note("选项标号不连续");
+            }
+            text = text.substring(0, optionStart);
+            result.note("去除" + optionCount + "个选项");
+        } else if (!labels.isEmpty()) {
+            confidence = Math.min(confidence, 0.5);
+            result.note("选项版式无法识别");
+        }
+
+        // 括号内的答案和空括号
+        if (optionStart >= 0) {
+            Matcher filled = FILLED_CHOICE.matcher(text);
+            if (filled.find()) {
+                text = filled.replaceAll(BLANK);
+                result.note("清除括号内答案");
+            }
+        }
+        Matcher judge = FILLED_JUDGE.matcher(text);
+        if (judge.find()) {
+            text = judge.replaceAll(BLANK);
+            result.note("清除括号内判断");
+        }
+        text = EMPTY_BLANK.matcher(text).replaceAll(BLANK);
+
+        // 整理空白
+        String stem = text.replaceAll("[ \\t\\u3000]+\\n", "\n").replaceAll("\\n{2,}", "\n").trim();
+        if (stem.length() < 4) {
+            confidence = Math.min(confidence, 0.3);
+            result.note("题干过短");
+        } else if (maxLength > 0 && stem.length() > maxLength) {
+            confidence = Math.min(confidence, 0.6);
+            result.note("题干超过" + maxLength + "字");
+        }
+        result.stem = stem;
+        result.confidence = stem.isEmpty() ? 0 : confidence;
+        return result;
+    }
+
+    /**
+     * 提取结果
+     */
+    public static class Result {
+
+        private String stem;
+        private double confidence;
+        private final List<String> notes = new ArrayList<>();
+
+        private void note(String note) {
+            notes.add(note);
+        }
+
+        /**
+         * @return 题干，无法提取时为null
+         */
+        public String getStem() {
+            return stem;
+        }
+
+        /**
+         * @return 置信度，0~1
+         */
+        public double getConfidence() {
+            return confidence;
+        }
+
+        /**
+         * @return 处理说明
+         */
+        public List<String> getNotes() {
+            return notes;
+        }
+
+        /**
+         * @return 处理摘要，用于日志
+         */
+        public String summary() {
+            return String.format("置信度%.2f%s", confidence, notes.isEmpty() ? "" : "，" + String.join("，", notes));
+        }
+    }
+}
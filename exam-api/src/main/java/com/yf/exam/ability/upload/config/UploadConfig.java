@@ -29,4 +29,49 @@ public class UploadConfig {
      */
     private String [] allowExtensions;
 
+    /**
+     * 是否开启无引用文件的定时回收
+     */
+    private boolean gcEnabled = true;
+
+    /**
+     * 回收时间
+     */
+    private String gcCron = "0 30 3 * * ?";
+
+    /**
+     * 上传后多少小时内即使无引用也保留，留给前端上传后再保存题目的时间
+     */
+    private int gcGraceHours = 24;
+
+    /**
+     * 缩略图宽度规格，请求的宽度向上取到其中之一
+     */
+    private int[] imageWidths = {160, 320, 480, 640, 800, 1024, 1280, 1600};
+
+    /**
+     * 缩略图JPEG压缩质量
+     */
+    private float imageQuality = 0.8f;
+
+    /**
+     * 缩略图生成线程数
+     */
+    private int imageWorkers = 2;
+
+    /**
+     * 缩略图生成队列长度，满时直接返回原图
+     */
+    private int imageQueue = 64;
+
+    /**
+     * 请求等待生成的最长时间，超时返回原图，生成继续完成
+     */
+    private long imageWaitMillis = 3000;
+
+    /**
+     * 原图像素数上限，超过时不生成，避免解码超大图片占满内存
+     */
+    private long imageMaxPixels = 50_000_000L;
+
 }
@@ -3,6 +3,10 @@ package com.yf.exam.ability.upload.controller;
 import com.yf.exam.ability.upload.service.impl.AIUploadService;
 import com.yf.exam.core.api.ApiRest;
 import com.yf.exam.core.api.controller.BaseController;
+import com.yf.exam.core.api.dto.BaseIdReqDTO;
+import com.yf.exam.core.api.dto.BaseIdRespDTO;
+import com.yf.exam.modules.ai.dto.AiImportJobDTO;
+import com.yf.exam.modules.ai.service.AiImportJobService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
@@ -14,14 +18,57 @@ public class AIUploadController extends BaseController {
     @Autowired
     private AIUploadService aiUploadService;
 
+    @Autowired
+    private AiImportJobService aiImportJobService;
+
     /**
-     * 上传试卷并自动拆题
+     * 上传试卷并自动拆题，相同文档复用已解析结果，force=true 时强制重新解析
      */
     @PostMapping("/upload")
     public ApiRest<?> uploadAndSplit(
             @RequestParam("file") MultipartFile file,
             @RequestParam(value = "subject", required = false) String subject,
-            @RequestParam(value = "grade", required = false) String grade) {
-        return aiUploadService.handleUploadAndSplit(file, subject, grade);
+            @RequestParam(value = "grade", required = false) String grade,
+            @RequestParam(value = "force", defaultValue = "false") boolean force) {
+        return aiUploadService.handleUploadAndSplit(file, subject, grade, force);
+    }
+
+    /**
+     * 提交异步导入任务，立即返回任务ID，相同文档复用已解析结果，force=true 时强制重新解析
+     */
+    @PostMapping("/jobs")
+    public ApiRest<BaseIdRespDTO> submitJob(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(value = "subject", required = false) String subject,
+            @RequestParam(value = "grade", required = false) String grade,
+            @RequestParam(value = "force", defaultValue = "false") boolean force) {
+        String id = aiImportJobService.submit(file, subject, grade, force);
+        return super.success(new BaseIdRespDTO(id));
+    }
+
+    /**
+     * 查询导入任务进度，包含已拆分的题目
+     */
+    @PostMapping("/jobs/detail")
+    public ApiRest<AiImportJobDTO> jobDetail(@RequestBody BaseIdReqDTO reqDTO) {
+        return super.success(aiImportJobService.detail(reqDTO.getId(), true));
+    }
+
+    /**
+     * 取消导入任务
+     */
+    @PostMapping("/jobs/cancel")
+    public ApiRest<?> cancelJob(@RequestBody BaseIdReqDTO reqDTO) {
+        aiImportJobService.cancel(reqDTO.getId());
+        return super.success();
+    }
+
+    /**
+     * 从检查点恢复失败或已取消的导入任务
+     */
+    @PostMapping("/jobs/resume")
+    public ApiRest<?> resumeJob(@RequestBody BaseIdReqDTO reqDTO) {
+        aiImportJobService.resume(reqDTO.getId());
+        return super.success();
     }
 }
@@ -0,0 +1,27 @@
+package com.yf.exam.ability.upload.service;
+
+import java.io.File;
+
+/**
+ * 图片缩略图服务
+ * 按限定宽度生成压缩后的图片，每个规格只生成一次并缓存在磁盘上
+ * @author AI Assistant
+ * @date 2026-10-19
+ */
+public interface ImageDerivativeService {
+
+    /**
+     * 获取限定宽度的图片
+     * @param source 原图
+     * @param width 请求的最大宽度，向上取到配置的规格
+     * @return 缩放后的文件；不是可缩放的图片、原图不超过该宽度、生成繁忙或失败时返回null，由调用方返回原图
+     */
+    File derive(File source, int width);
+
+    /**
+     * 删除原图的全部缩略图，原图被回收时调用
+     * @param hash 原图内容SHA-256
+     */
+    void evict(String hash);
+
+}
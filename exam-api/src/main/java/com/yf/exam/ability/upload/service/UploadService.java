@@ -27,4 +27,12 @@ public interface UploadService {
      */
     void download(HttpServletRequest request, HttpServletResponse response);
 
+    /**
+     * 保存程序生成的文件，如从文档中提取的图片
+     * @param data 文件内容
+     * @param fileName 原始文件名，用于确定后缀
+     * @return 访问地址
+     */
+    String save(byte[] data, String fileName);
+
 }
@@ -3,19 +3,26 @@ package com.yf.exam.ability.upload.service.impl;
 import com.alibaba.fastjson2.JSONArray;
 import com.alibaba.fastjson2.JSONObject;
 import com.alibaba.fastjson2.TypeReference;
+import com.yf.exam.ability.ai.config.AIConfig;
+import com.yf.exam.ability.ai.utils.LlmJson;
+import com.yf.exam.ability.upload.service.UploadService;
+import com.yf.exam.ability.upload.utils.DocumentExtractor;
 import com.yf.exam.ability.upload.utils.FileUtils.MultipartInputStreamFileResource;
 import com.yf.exam.config.PromptConfig;
 import com.yf.exam.core.api.ApiRest;
+import com.yf.exam.modules.ai.entity.AiDocFingerprint;
 import com.yf.exam.modules.ai.service.AIProcessingService;
+import com.yf.exam.modules.ai.service.AiDocFingerprintService;
 import com.yf.exam.modules.qu.entity.Qu;
 import com.yf.exam.modules.qu.entity.QuAnswer;
-import com.yf.exam.modules.qu.service.QuService;
-import com.yf.exam.modules.qu.service.QuAnswerService;
+import com.yf.exam.modules.qu.service.QuImportService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -26,6 +33,7 @@ import org.springframework.core.io.Resource;
 import org.springframework.http.*;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
+import org.springframework.util.StreamUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -69,10 +77,16 @@ public class AIUploadService {
     private RestTemplate restTemplate;
     
     @Autowired
-    private QuService quService;
-    
+    private UploadService uploadService;
+
+    @Autowired
+    private QuImportService quImportService;
+
+    @Autowired
+    private AiDocFingerprintService aiDocFingerprintService;
+
     @Autowired
-    private QuAnswerService quAnswerService;
+    private AIConfig aiConfig;
 
 
     /**
@@ -86,10 +100,89 @@ public class AIUploadService {
      * 1. 先抽图片和文本（Python微服务） - 支持选择输出格式
      */
     public String extractTextFromFile(MultipartFile file, boolean legacyFormat) {
+        try {
+            return extractTextFromFile(new MultipartInputStreamFileResource(file.getInputStream(), file.getOriginalFilename()), legacyFormat);
+        } catch (java.io.IOException e) {
+            throw new RuntimeException("文件解析异常: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 1. 先抽图片和文本 - 文件资源版本，供异步导入任务读取已保存的文件。
+     * 兼容格式的 .docx/.doc 在本进程内解析，其他情况以及本地解析失败时调用Python微服务
+     */
+    public String extractTextFromFile(Resource fileResource, boolean legacyFormat) {
+        String fileName = fileResource.getFilename();
+        AIConfig.Extract conf = aiConfig.getExtract();
+        if (!legacyFormat || !conf.isLocalEnabled() || !DocumentExtractor.supports(fileName)) {
+            return extractByService(fileResource, legacyFormat);
+        }
+
+        byte[] bytes;
+        try {
+            bytes = StreamUtils.copyToByteArray(fileResource.getInputStream());
+        } catch (IOException e) {
+            throw new RuntimeException("文件解析异常: " + e.getMessage(), e);
+        }
+
+        long start = System.currentTimeMillis();
+        DocumentExtractor.Result local;
+        try {
+            local = DocumentExtractor.extract(new ByteArrayInputStream(bytes), fileName);
+        } catch (Exception | LinkageError e) {
+            logger.warn("⚠️ 本地解析失败，改用解析服务: {} - {}", fileName, e.getMessage());
+            return extractByService(new MultipartInputStreamFileResource(new ByteArrayInputStream(bytes), fileName), true);
+        }
+        logger.info("📄 本地解析完成: {} - {}, 耗时 {}ms", fileName, local.summary(), System.currentTimeMillis() - start);
+
+        // WMF/EMF浏览器无法显示，解析服务可转换为PNG（仅支持.docx）
+        if (local.getVectorImageCount() > 0 && conf.isVectorFallback() && fileName.toLowerCase().endsWith(".docx")) {
+            try {
+                return extractByService(new MultipartInputStreamFileResource(new ByteArrayInputStream(bytes), fileName), true);
+            } catch (Exception e) {
+                logger.warn("⚠️ 解析服务不可用，WMF/EMF图片按原格式保存: {}", e.getMessage());
+            }
+        }
+        return toLegacyJson(local, fileName).toJSONString();
+    }
+
+    /**
+     * 本地解析结果转为解析服务的兼容格式，图片写入上传目录
+     */
+    private JSONObject toLegacyJson(DocumentExtractor.Result local, String fileName) {
+        String imageType = fileName.toLowerCase().endsWith(".doc") ? "doc_embedded" : "docx_embedded";
+        JSONArray images = new JSONArray();
+        for (DocumentExtractor.Image image : local.getImages()) {
+            JSONObject json = new JSONObject();
+            json.put("image_url", uploadService.save(image.getData(), image.getId() + "." + image.getExtension()));
+            json.put("image_type", imageType);
+            json.put("image_id", image.getId());
+            json.put("original_path", image.getOriginalPath());
+            images.add(json);
+        }
+
+        JSONObject structure = new JSONObject();
+        structure.put("total_blocks", local.getParagraphCount());
+        structure.put("question_blocks", local.getQuestionLines());
+        structure.put("option_blocks", local.getOptionLines());
+        structure.put("relationships", images.size());
+
+        JSONObject result = new JSONObject();
+        result.put("textContent", local.getText());
+        result.put("images", images);
+        result.put("imageCount", images.size());
+        result.put("message", "Extracted " + images.size() + " images in-process");
+        result.put("structure_info", structure);
+        return result;
+    }
+
+    /**
+     * 调用Python微服务解析文件
+     */
+    private String extractByService(Resource fileResource, boolean legacyFormat) {
         try {
             String pythonUrl = "http://localhost:8003/api/extract_questions_with_images";
             MultiValueMap<String, Object> body = new LinkedMultiValueMap<>();
-            Resource fileResource = new MultipartInputStreamFileResource(file.getInputStream(), file.getOriginalFilename());
             body.add("file", fileResource);
             body.add("legacy_format", legacyFormat); // 传递格式参数
 
@@ -355,39 +448,12 @@ public class AIUploadService {
      */
     private JSONArray callOriginalExtraction(String textContent, String subject, String grade, JSONArray extractedImages) {
         try {
-            // 调用智能提取接口 - 自动检测文档结构并选择最佳方法
-            String response = aiProcessingService.extractQuestionsIntelligent(textContent);
-            
-            if (response == null) {
-                throw new RuntimeException("调用AI接口失败: AI服务返回空结果");
-            }
-            
-            // 解析响应 - 提取JSON数组
-            String responseBody = response;
-            JSONArray questions = parseAIResponse(responseBody);
+            JSONArray questions = splitQuestions(textContent);
             
             // 为原始提取的题目也进行个别处理（简化版）
             for (Object item : questions) {
                 if (item instanceof JSONObject) {
-                    JSONObject question = (JSONObject) item;
-                    String questionContent = question.getString("content");
-                    
-                    // Simple approach - same as enhanced method
-                    String extractedStem = aiProcessingService.extractStem(questionContent);
-                    
-                    // Use constrained knowledge point extraction if subject/grade provided
-                    String knowledgePoint;
-                    if (subject != null && grade != null) {
-                        knowledgePoint = aiProcessingService.identifyKnowledgeWithConstraints(questionContent, subject, grade);
-                    } else {
-                        knowledgePoint = aiProcessingService.identifyKnowledge(questionContent);
-                    }
-                    
-                    question.put("questionStem", extractedStem != null ? extractedStem.trim() : questionContent);
-                    question.put("knowledgePoints", knowledgePoint != null ? "[\"" + knowledgePoint.trim() + "\"]" : "[]");
-                    
-                    // 设置提取状态为已处理（因为我们已经尝试了处理）
-                    question.put("extractionStatus", 1);
+                    identifyQuestion((JSONObject) item, subject, grade);
                 }
             }
             
@@ -399,6 +465,45 @@ public class AIUploadService {
         }
     }
 
+    /**
+     * 2.1 调用大模型拆题，返回题目JSON数组
+     */
+    public JSONArray splitQuestions(String textContent) {
+        // 调用智能提取接口 - 自动检测文档结构并选择最佳方法
+        String response = aiProcessingService.extractQuestionsIntelligent(textContent);
+        
+        if (response == null) {
+            throw new RuntimeException("调用AI接口失败: AI服务返回空结果");
+        }
+        
+        // 解析响应 - 提取JSON数组
+        return parseAIResponse(response);
+    }
+
+    /**
+     * 2.2 单题题干提取和知识点识别，结果写回题目JSON
+     */
+    public void identifyQuestion(JSONObject question, String subject, String grade) {
+        String questionContent = question.getString("content");
+        
+        // Simple approach - same as enhanced method
+        String extractedStem = aiProcessingService.extractStem(questionContent);
+        
+        // Use constrained knowledge point extraction if subject/grade provided
+        String knowledgePoint;
+        if (subject != null && grade != null) {
+            knowledgePoint = aiProcessingService.identifyKnowledgeWithConstraints(questionContent, subject, grade);
+        } else {
+            knowledgePoint = aiProcessingService.identifyKnowledge(questionContent);
+        }
+        
+        question.put("questionStem", extractedStem != null ? extractedStem.trim() : questionContent);
+        question.put("knowledgePoints", knowledgePoint != null ? "[\"" + knowledgePoint.trim() + "\"]" : "[]");
+        
+        // 设置提取状态为已处理（因为我们已经尝试了处理）
+        question.put("extractionStatus", 1);
+    }
+
     /**
      * 3. 存数据库
      */
@@ -433,10 +538,10 @@ public class AIUploadService {
                 }
             }
             
-            int savedCount = 0;
+            List<QuImportService.Item> items = new ArrayList<>();
             
-            for (Object questionObj : questions) {
-                JSONObject questionJson = (JSONObject) questionObj;
+            for (int row = 0; row < questions.size(); row++) {
+                JSONObject questionJson = questions.getJSONObject(row);
                 
                 // 创建题目实体
                 Qu qu = new Qu();
@@ -498,64 +603,59 @@ public class AIUploadService {
                     qu.setGrade(grade);
                 }
                 
-                logger.info("💾 保存结构化题目:");
-                logger.info("  📋 Block ID: {}", blockId);
-                logger.info("  📝 Content: {}", qu.getContent().substring(0, Math.min(50, qu.getContent().length())) + "...");
-                
-                // 保存题目
-                boolean saved = quService.save(qu);
-                if (saved) {
-                    savedCount++;
-                    logger.info("  ✅ 题目保存成功，ID: {}", qu.getId());
-                    
-                    // 保存答案选项
-                    JSONArray options = questionJson.getJSONArray("options");
-                    if (options != null && !options.isEmpty()) {
-                        for (Object optionObj : options) {
-                            JSONObject optionJson = (JSONObject) optionObj;
-                            
-                            QuAnswer answer = new QuAnswer();
-                            answer.setQuId(qu.getId());
-                            answer.setIsRight(optionJson.getBoolean("isRight") != null ? optionJson.getBoolean("isRight") : false);
-                            
-                            // 结构化选项图片处理 - 支持多图片
-                            List<String> optionImageUrls = new ArrayList<>();
-                            
-                            // 优先使用image_refs解析多图片URL
-                            JSONArray optionImageRefs = optionJson.getJSONArray("image_refs");
-                            if (optionImageRefs != null && !optionImageRefs.isEmpty()) {
-                                for (int j = 0; j < optionImageRefs.size(); j++) {
-                                    String imageRef = optionImageRefs.getString(j);
-                                    if (imageUrlMap.containsKey(imageRef)) {
-                                        String imageUrl = imageUrlMap.get(imageRef);
-                                        optionImageUrls.add(imageUrl);
-                                        logger.info("    🖼️ 选项图片解析: {} → {}", imageRef, imageUrl);
-                                    } else {
-                                        logger.warn("    ⚠️ 未找到选项图片引用: {}", imageRef);
-                                    }
-                                }
-                            } else {
-                                // 降级：尝试直接从image字段获取
-                                String directImageUrl = optionJson.getString("image");
-                                if (directImageUrl != null && !directImageUrl.trim().isEmpty()) {
-                                    optionImageUrls.add(directImageUrl);
-                                    logger.info("    🖼️ 选项图片直接: {}", directImageUrl);
+                QuImportService.Item item = new QuImportService.Item();
+                item.setRow(row + 1);
+                item.setQu(qu);
+                items.add(item);
+                logger.debug("  📋 结构化题目: {}", blockId);
+
+                // 答案选项
+                JSONArray options = questionJson.getJSONArray("options");
+                if (options != null && !options.isEmpty()) {
+                    for (Object optionObj : options) {
+                        JSONObject optionJson = (JSONObject) optionObj;
+                        
+                        QuAnswer answer = new QuAnswer();
+                        answer.setIsRight(optionJson.getBoolean("isRight") != null ? optionJson.getBoolean("isRight") : false);
+                        
+                        // 结构化选项图片处理 - 支持多图片
+                        List<String> optionImageUrls = new ArrayList<>();
+                        
+                        // 优先使用image_refs解析多图片URL
+                        JSONArray optionImageRefs = optionJson.getJSONArray("image_refs");
+                        if (optionImageRefs != null && !optionImageRefs.isEmpty()) {
+                            for (int j = 0; j < optionImageRefs.size(); j++) {
+                                String imageRef = optionImageRefs.getString(j);
+                                if (imageUrlMap.containsKey(imageRef)) {
+                                    String imageUrl = imageUrlMap.get(imageRef);
+                                    optionImageUrls.add(imageUrl);
+                                    logger.info("    🖼️ 选项图片解析: {} → {}", imageRef, imageUrl);
+                                } else {
+                                    logger.warn("    ⚠️ 未找到选项图片引用: {}", imageRef);
                                 }
                             }
-                            
-                            // 设置多图片支持
-                            answer.setImageList(optionImageUrls);
-                            
-                            answer.setContent(optionJson.getString("content"));
-                            answer.setAnalysis(optionJson.getString("analysis") != null ? optionJson.getString("analysis") : "");
-                            
-                            quAnswerService.save(answer);
+                        } else {
+                            // 降级：尝试直接从image字段获取
+                            String directImageUrl = optionJson.getString("image");
+                            if (directImageUrl != null && !directImageUrl.trim().isEmpty()) {
+                                optionImageUrls.add(directImageUrl);
+                                logger.info("    🖼️ 选项图片直接: {}", directImageUrl);
+                            }
                         }
+                        
+                        // 设置多图片支持
+                        answer.setImageList(optionImageUrls);
+                        
+                        answer.setContent(optionJson.getString("content"));
+                        answer.setAnalysis(optionJson.getString("analysis") != null ? optionJson.getString("analysis") : "");
+                        
+                        item.getAnswers().add(answer);
                     }
-                } else {
-                    logger.error("  ❌ 题目保存失败");
                 }
             }
+
+            QuImportService.Result saved = quImportService.saveAll(items, aiConfig.getImportJob().getSaveChunkSize());
+            int savedCount = saved.getSavedCount();
             
             // 🔍 一致性检测
             ConsistencyCheckResult consistency = performConsistencyCheck(questions, doclingDocument);
@@ -565,6 +665,8 @@ public class AIUploadService {
             result.put("totalCount", questions.size());
             result.put("imageCount", imageUrlMap.size());
             result.put("extractionMethod", "structured");
+            result.put("duplicateCount", saved.getDuplicateCount());
+            result.put("errors", saved.getErrors());
             result.put("consistencyCheck", consistency.toMap());
             
             ApiRest<Map<String, Object>> apiRest = new ApiRest<>();
@@ -596,138 +698,18 @@ public class AIUploadService {
      */
     public ApiRest<?> saveQuestionsWithImages(JSONArray questions, JSONArray extractedImages, String subject, String grade) {
         try {
-            int savedCount = 0;
-            int questionIndex = 0; // Question index for document position matching
-            
-            for (Object questionObj : questions) {
-                JSONObject questionJson = (JSONObject) questionObj;
-                
-                // 创建题目实体
-                Qu qu = new Qu();
-                qu.setQuType(questionJson.getInteger("quType"));
-                qu.setLevel(questionJson.getInteger("level") != null ? questionJson.getInteger("level") : 1);
-                
-                // Handle image URL - match by reference or sequential assignment
-                String imageUrl = questionJson.getString("image");
-                
-                // Simple: extract image marker from question content and match directly
-                String questionContent = questionJson.getString("content");
-                String imageMarker = extractImageMarkerFromContent(questionContent);
-                
-                logger.debug("🔍 题目 {} 内容: {}", questionIndex, 
-                    (questionContent != null ? questionContent.substring(0, Math.min(100, questionContent.length())) + "..." : "null"));
-                logger.debug("🏷️ 提取的标记: {}", imageMarker);
-                
-                if (imageMarker != null && extractedImages != null) {
-                    // Direct match by image_id
-                    String matchedUrl = findImageByReference(imageMarker, extractedImages);
-                    imageUrl = matchedUrl != null ? matchedUrl : "";
-                    if (matchedUrl != null) {
-                        logger.info("✅ 直接匹配成功: {} → {}", imageMarker, matchedUrl.substring(matchedUrl.lastIndexOf('/') + 1));
-                    } else {
-                        logger.warn("❌ 未找到匹配: {}", imageMarker);
-                    }
-                } else {
-                    imageUrl = "";
-                    if (imageMarker == null) {
-                        logger.debug("⚪ 题目内容中未发现图片标记");
-                    }
-                }
-                
-                qu.setImage(imageUrl != null ? imageUrl : "");
-                
-                qu.setContent(questionJson.getString("content"));
-                qu.setCreateTime(new Date());
-                qu.setUpdateTime(new Date());
-                qu.setRemark(questionJson.getString("remark") != null ? questionJson.getString("remark") : "");
-                qu.setAnalysis(questionJson.getString("analysis") != null ? questionJson.getString("analysis") : "");
-                
-                // 设置增强字段
-                String questionStem = questionJson.getString("questionStem") != null ? 
-                    questionJson.getString("questionStem") : questionJson.getString("content");
-                String knowledgePoints = questionJson.getString("knowledgePoints") != null ? 
-                    questionJson.getString("knowledgePoints") : "[]";
-                Integer extractionStatus = questionJson.getInteger("extractionStatus") != null ? 
-                    questionJson.getInteger("extractionStatus") : 0;
-                
-                qu.setQuestionStem(questionStem);
-                qu.setKnowledgePoints(knowledgePoints); // Keep for backward compatibility
-                qu.setExtractionStatus(extractionStatus);
-                
-                // Set subject and grade if provided
-                if (subject != null && !subject.trim().isEmpty()) {
-                    qu.setSubject(subject);
-                }
-                if (grade != null && !grade.trim().isEmpty()) {
-                    qu.setGrade(grade);
-                }
-                
-                logger.info("💾 保存增强题目数据:");
-                logger.info("  📝 内容: {}...", qu.getContent().substring(0, Math.min(50, qu.getContent().length())));
-                logger.info("  🔍 题干: {}...", questionStem.substring(0, Math.min(50, questionStem.length())));
-                logger.info("  🏷️ 知识点: {}", knowledgePoints);
-                logger.info("  📊 提取状态: {}", extractionStatus);
-                
-                // 保存题目
-                boolean saved = quService.save(qu);
-                if (saved) {
-                    savedCount++;
-                    logger.info("✅ 题目保存成功，ID: {}", qu.getId());
-                    
-                    // 保存答案选项
-                    JSONArray options = questionJson.getJSONArray("options");
-                    if (options != null && !options.isEmpty()) {
-                        for (Object optionObj : options) {
-                            JSONObject optionJson = (JSONObject) optionObj;
-                            
-                            QuAnswer answer = new QuAnswer();
-                            answer.setQuId(qu.getId());
-                            answer.setIsRight(optionJson.getBoolean("isRight") != null ? optionJson.getBoolean("isRight") : false);
-                            
-                            // Handle answer image URL - check both content and original image field
-                            String answerContent = optionJson.getString("content");
-                            String originalAnswerImage = optionJson.getString("image");
-                            String answerImageUrl = "";
-                            
-                            // First try to extract marker from answer content
-                            String answerImageMarker = extractImageMarkerFromContent(answerContent);
-                            if (answerImageMarker != null && extractedImages != null) {
-                                String matchedUrl = findImageByReference(answerImageMarker, extractedImages);
-                                if (matchedUrl != null) {
-                                    answerImageUrl = matchedUrl;
-                                    logger.debug("✅ 答案内容标记: {}", answerImageMarker);
-                                }
-                            }
-                            
-                            // Fallback: try original image field if it contains a marker
-                            if (answerImageUrl.isEmpty() && originalAnswerImage != null) {
-                                String originalMarker = extractImageMarkerFromContent(originalAnswerImage);
-                                if (originalMarker != null && extractedImages != null) {
-                                    String matchedUrl = findImageByReference(originalMarker, extractedImages);
-                                    if (matchedUrl != null) {
-                                        answerImageUrl = matchedUrl;
-                                        logger.debug("✅ 答案图片字段: {}", originalMarker);
-                                    }
-                                }
-                            }
-                            
-                            answer.setImage(answerImageUrl != null ? answerImageUrl : "");
-                            answer.setContent(optionJson.getString("content"));
-                            answer.setAnalysis(optionJson.getString("analysis") != null ? optionJson.getString("analysis") : "");
-                            
-                            quAnswerService.save(answer);
-                        }
-                    }
-                } else {
-                    logger.error("❌ 题目保存到数据库失败");
-                }
-                
-                questionIndex++; // Move to next question
+            List<QuImportService.Item> items = new ArrayList<>();
+            for (int i = 0; i < questions.size(); i++) {
+                items.add(buildQuestionWithImages(questions.getJSONObject(i), i + 1, extractedImages, subject, grade));
             }
+            QuImportService.Result saved = quImportService.saveAll(items, aiConfig.getImportJob().getSaveChunkSize());
+            int savedCount = saved.getSavedCount();
             
             Map<String, Object> result = new HashMap<>();
             result.put("savedCount", savedCount);
             result.put("totalCount", questions.size());
+            result.put("duplicateCount", saved.getDuplicateCount());
+            result.put("errors", saved.getErrors());
             
             // Add image information to result
             int imageCount = extractedImages != null ? extractedImages.size() : 0;
@@ -749,6 +731,134 @@ public class AIUploadService {
         }
     }
 
+    /**
+     * 3.1 保存单个题目及其选项（带图片信息和学科年级）
+     * @return 题目是否保存成功
+     */
+    public boolean saveQuestionWithImages(JSONObject questionJson, JSONArray extractedImages, String subject, String grade) {
+        QuImportService.Result saved = quImportService.saveChunk(
+                java.util.Collections.singletonList(buildQuestionWithImages(questionJson, 1, extractedImages, subject, grade)));
+        return saved.getSavedCount() > 0;
+    }
+
+    /**
+     * 3.2 按大模型拆题结果构造待导入的题目及其选项，图片标记替换为图片地址
+     * @param row 行号，用于返回校验结果
+     */
+    public QuImportService.Item buildQuestionWithImages(JSONObject questionJson, int row, JSONArray extractedImages, String subject, String grade) {
+        // 创建题目实体
+        Qu qu = new Qu();
+        qu.setQuType(questionJson.getInteger("quType"));
+        qu.setLevel(questionJson.getInteger("level") != null ? questionJson.getInteger("level") : 1);
+        
+        // Handle image URL - match by reference or sequential assignment
+        String imageUrl = questionJson.getString("image");
+        
+        // Simple: extract image marker from question content and match directly
+        String questionContent = questionJson.getString("content");
+        String imageMarker = extractImageMarkerFromContent(questionContent);
+        
+        logger.debug("🔍 题目内容: {}", 
+            (questionContent != null ? questionContent.substring(0, Math.min(100, questionContent.length())) + "..." : "null"));
+        logger.debug("🏷️ 提取的标记: {}", imageMarker);
+        
+        if (imageMarker != null && extractedImages != null) {
+            // Direct match by image_id
+            String matchedUrl = findImageByReference(imageMarker, extractedImages);
+            imageUrl = matchedUrl != null ? matchedUrl : "";
+            if (matchedUrl != null) {
+                logger.info("✅ 直接匹配成功: {} → {}", imageMarker, matchedUrl.substring(matchedUrl.lastIndexOf('/') + 1));
+            } else {
+                logger.warn("❌ 未找到匹配: {}", imageMarker);
+            }
+        } else {
+            imageUrl = "";
+            if (imageMarker == null) {
+                logger.debug("⚪ 题目内容中未发现图片标记");
+            }
+        }
+        
+        qu.setImage(imageUrl != null ? imageUrl : "");
+        
+        qu.setContent(questionJson.getString("content"));
+        qu.setCreateTime(new Date());
+        qu.setUpdateTime(new Date());
+        qu.setRemark(questionJson.getString("remark") != null ? questionJson.getString("remark") : "");
+        qu.setAnalysis(questionJson.getString("analysis") != null ? questionJson.getString("analysis") : "");
+        
+        // 设置增强字段
+        String questionStem = questionJson.getString("questionStem") != null ? 
+            questionJson.getString("questionStem") : questionJson.getString("content");
+        String knowledgePoints = questionJson.getString("knowledgePoints") != null ? 
+            questionJson.getString("knowledgePoints") : "[]";
+        Integer extractionStatus = questionJson.getInteger("extractionStatus") != null ? 
+            questionJson.getInteger("extractionStatus") : 0;
+        
+        qu.setQuestionStem(questionStem);
+        qu.setKnowledgePoints(knowledgePoints); // Keep for backward compatibility
+        qu.setExtractionStatus(extractionStatus);
+        
+        // Set subject and grade if provided
+        if (subject != null && !subject.trim().isEmpty()) {
+            qu.setSubject(subject);
+        }
+        if (grade != null && !grade.trim().isEmpty()) {
+            qu.setGrade(grade);
+        }
+        
+        logger.debug("💾 构造题目 {}: {}... 知识点 {}, 提取状态 {}", row,
+                qu.getContent() != null ? qu.getContent().substring(0, Math.min(50, qu.getContent().length())) : "", knowledgePoints, extractionStatus);
+
+        QuImportService.Item item = new QuImportService.Item();
+        item.setRow(row);
+        item.setQu(qu);
+
+        // 答案选项
+        JSONArray options = questionJson.getJSONArray("options");
+        if (options != null && !options.isEmpty()) {
+            for (Object optionObj : options) {
+                JSONObject optionJson = (JSONObject) optionObj;
+                
+                QuAnswer answer = new QuAnswer();
+                answer.setIsRight(optionJson.getBoolean("isRight") != null ? optionJson.getBoolean("isRight") : false);
+                
+                // Handle answer image URL - check both content and original image field
+                String answerContent = optionJson.getString("content");
+                String originalAnswerImage = optionJson.getString("image");
+                String answerImageUrl = "";
+                
+                // First try to extract marker from answer content
+                String answerImageMarker = extractImageMarkerFromContent(answerContent);
+                if (answerImageMarker != null && extractedImages != null) {
+                    String matchedUrl = findImageByReference(answerImageMarker, extractedImages);
+                    if (matchedUrl != null) {
+                        answerImageUrl = matchedUrl;
+                        logger.debug("✅ 答案内容标记: {}", answerImageMarker);
+                    }
+                }
+                
+                // Fallback: try original image field if it contains a marker
+                if (answerImageUrl.isEmpty() && originalAnswerImage != null) {
+                    String originalMarker = extractImageMarkerFromContent(originalAnswerImage);
+                    if (originalMarker != null && extractedImages != null) {
+                        String matchedUrl = findImageByReference(originalMarker, extractedImages);
+                        if (matchedUrl != null) {
+                            answerImageUrl = matchedUrl;
+                            logger.debug("✅ 答案图片字段: {}", originalMarker);
+                        }
+                    }
+                }
+                
+                answer.setImage(answerImageUrl != null ? answerImageUrl : "");
+                answer.setContent(optionJson.getString("content"));
+                answer.setAnalysis(optionJson.getString("analysis") != null ? optionJson.getString("analysis") : "");
+                
+                item.getAnswers().add(answer);
+            }
+        }
+        return item;
+    }
+
     /**
      * 4. 全流程入口（给 Controller 用）
      */
@@ -800,11 +910,31 @@ public class AIUploadService {
      * 4. 全流程入口（带学科年级约束）
      */
     public ApiRest<?> handleUploadAndSplit(MultipartFile file, String subject, String grade) {
+        return handleUploadAndSplit(file, subject, grade, false);
+    }
+
+    /**
+     * 4. 全流程入口（带学科年级约束），相同文档默认复用已保存的抽取和拆题结果
+     * @param force 是否强制重新解析
+     */
+    public ApiRest<?> handleUploadAndSplit(MultipartFile file, String subject, String grade, boolean force) {
         try {
             logger.info("🔍 开始完整流程诊断 - 文件: {}", file.getOriginalFilename());
             
+            // 0. 文档指纹
+            byte[] bytes = file.getBytes();
+            String hash = aiDocFingerprintService.hash(new ByteArrayInputStream(bytes));
+            AiDocFingerprint fingerprint = force ? null : aiDocFingerprintService.find(hash, subject, grade);
+            boolean reuseExtract = fingerprint != null && fingerprint.getExtractResult() != null;
+            if (reuseExtract) {
+                aiDocFingerprintService.hit(fingerprint);
+                logger.info("♻️ 复用已解析的相同文档: {} - 拆题结果{}", file.getOriginalFilename(),
+                        fingerprint.getQuestions() != null ? fingerprint.getQuestionCount() + " 题" : "无");
+            }
+            
             // 1. 先抽文件内容
-            String extractJsonStr = extractTextFromFile(file, true);
+            String extractJsonStr = reuseExtract ? fingerprint.getExtractResult()
+                    : extractTextFromFile(new MultipartInputStreamFileResource(new ByteArrayInputStream(bytes), file.getOriginalFilename()), true);
             JSONObject extractBody = JSONObject.parseObject(extractJsonStr);
             
             // 🔍 DIAGNOSTIC: 检查Python返回的内容
@@ -898,7 +1028,16 @@ public class AIUploadService {
             }
             
             // 2. 调 LLM 拆题 (pass extracted images info to AI)
-            JSONArray questions = callAiExtractQuestions(textContent, subject, grade, extractedImages);
+            JSONArray questions;
+            if (reuseExtract && fingerprint.getQuestions() != null) {
+                questions = JSONArray.parseArray(fingerprint.getQuestions());
+            } else {
+                if (!reuseExtract) {
+                    aiDocFingerprintService.saveExtract(hash, subject, grade, file.getOriginalFilename(), bytes.length, extractJsonStr);
+                }
+                questions = callAiExtractQuestions(textContent, subject, grade, extractedImages);
+                aiDocFingerprintService.saveQuestions(hash, subject, grade, questions);
+            }
             
             
             // 3. 存库并返回正确格式（包含图片信息）
@@ -915,44 +1054,21 @@ public class AIUploadService {
 
     /**
      * 解析AI响应，提取JSON数组
-     * AI可能返回额外的文本，需要提取纯JSON部分
+     * AI可能返回额外的文本或在输出上限处被截断，截断时保留已完整输出的题目
      */
     private JSONArray parseAIResponse(String response) {
-        try {
-            // 尝试直接解析
-            return JSONArray.parseArray(response);
-        } catch (Exception e) {
-            logger.warn("直接解析JSON失败，尝试提取JSON数组: {}", e.getMessage());
-            
-            try {
-                // 处理markdown代码块格式 ```json ... ```
-                String cleanedResponse = response;
-                if (response.contains("```json")) {
-                    int startIndex = response.indexOf("```json") + 7;
-                    int endIndex = response.lastIndexOf("```");
-                    if (startIndex < endIndex) {
-                        cleanedResponse = response.substring(startIndex, endIndex).trim();
-                    }
-                }
-                
-                // 查找JSON数组的开始和结束位置
-                int startIndex = cleanedResponse.indexOf('[');
-                int endIndex = cleanedResponse.lastIndexOf(']');
-                
-                if (startIndex != -1 && endIndex != -1 && endIndex > startIndex) {
-                    String jsonString = cleanedResponse.substring(startIndex, endIndex + 1);
-                    logger.info("提取到JSON字符串，长度: {}", jsonString.length());
-                    return JSONArray.parseArray(jsonString);
-                } else {
-                    throw new RuntimeException("响应中未找到有效的JSON数组");
-                }
-                
-            } catch (Exception parseError) {
-                logger.error("JSON解析失败，响应前500字符: {}", 
-                    response.length() > 500 ? response.substring(0, 500) : response);
-                throw new RuntimeException("AI响应格式错误，无法解析JSON: " + parseError.getMessage());
-            }
+        LlmJson.Result<JSONArray> parsed = LlmJson.parseArray(response);
+        if (parsed.getValue() == null) {
+            logger.error("JSON解析失败，响应前500字符: {}",
+                response.length() > 500 ? response.substring(0, 500) : response);
+            throw new RuntimeException("AI响应格式错误，无法解析JSON: " + parsed.getError());
+        }
+        if (parsed.isTruncated()) {
+            logger.warn("⚠️ AI响应被截断，已挽回{}道完整题目: {}", parsed.getKept(), parsed.summary());
+        } else if (parsed.isRepaired()) {
+            logger.info("🔧 AI响应已修复: {}", parsed.summary());
         }
+        return parsed.getValue();
     }
 
 
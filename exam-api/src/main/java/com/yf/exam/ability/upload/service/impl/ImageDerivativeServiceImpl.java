@@ -0,0 +1,287 @@
+package com.yf.exam.ability.upload.service.impl;
+
+import com.yf.exam.ability.upload.config.UploadConfig;
+import com.yf.exam.ability.upload.service.ImageDerivativeService;
+import com.yf.exam.ability.upload.utils.FileUtils;
+import org.apache.commons.io.FilenameUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 图片缩略图服务
+ * 缓存文件为 derived/哈希前两位/三四位/原图哈希-w宽度.后缀，原图内容不变则结果不变；
+ * 请求宽度向上取到固定规格，同一规格并发请求共用一次生成，生成放在有界线程池中，
+ * 队列满或等待超时时直接返回原图，大量未缓存请求不会拖垮服务
+ * @author AI Assistant
+ * @date 2026-10-19
+ */
+@Service
+public class ImageDerivativeServiceImpl implements ImageDerivativeService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImageDerivativeServiceImpl.class);
+
+    private static final String DERIVED_DIR = "derived/";
+
+    private static final int PASSTHROUGH_LIMIT = 10000;
+
+    @Autowired
+    private UploadConfig conf;
+
+    private ThreadPoolExecutor executor;
+
+    /**
+     * 生成中的规格，相同规格的请求等待同一个结果
+     */
+    private final ConcurrentHashMap<String, CompletableFuture<File>> inflight = new ConcurrentHashMap<>();
+
+    /**
+     * 无需缩放的规格（原图不够宽或像素超限），避免每次都进入线程池读取尺寸
+     */
+    private final Set<String> passthrough = ConcurrentHashMap.newKeySet();
+
+    @PostConstruct
+    public void init() {
+        int workers = Math.max(1, conf.getImageWorkers());
+        AtomicInteger index = new AtomicInteger();
+        executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(Math.max(1, conf.getImageQueue())),
+                r -> {
+                    Thread thread = new Thread(r, "image-derive-" + index.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    public File derive(File source, int width) {
+        String ext = FilenameUtils.getExtension(source.getName()).toLowerCase();
+        if (width <= 0 || !source.isFile() || !isScalable(ext)) {
+            return null;
+        }
+        int target = this.snap(width);
+        String outExt = "png".equals(ext) ? "png" : "jpg";
+
+        String hash;
+        try {
+            hash = FileUtils.contentHash(source);
+        } catch (IOException e) {
+            return null;
+        }
+        String path = DERIVED_DIR + hash.substring(0, 2) + "/" + hash.substring(2, 4) + "/"
+                + hash + "-w" + target + "." + outExt;
+        File cached = new File(conf.getDir(), path);
+        if (cached.isFile()) {
+            return cached;
+        }
+        if (passthrough.contains(path)) {
+            return null;
+        }
+
+        CompletableFuture<File> future = new CompletableFuture<>();
+        CompletableFuture<File> running = inflight.putIfAbsent(path, future);
+        if (running == null) {
+            try {
+                executor.execute(() -> {
+                    try {
+                        File file = this.generate(source, cached, target, outExt);
+                        if (file == null) {
+                            if (passthrough.size() >= PASSTHROUGH_LIMIT) {
+                                passthrough.clear();
+                            }
+                            passthrough.add(path);
+                        }
+                        future.complete(file);
+                    } catch (Throwable e) {
+                        logger.warn("⚠️ 生成缩略图失败: {}, {}", source.getName(), e.getMessage());
+                        future.complete(null);
+                    } finally {
+                        inflight.remove(path, future);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                inflight.remove(path, future);
+                logger.warn("⚠️ 缩略图生成队列已满，返回原图: {}", source.getName());
+                return null;
+            }
+            running = future;
+        }
+
+        try {
+            return running.get(conf.getImageWaitMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // 生成继续进行，下次请求命中缓存
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * 向上取到配置的规格，超过最大规格时取最大规格，限制缓存文件的种类
+     */
+    private int snap(int width) {
+        int[] widths = conf.getImageWidths().clone();
+        Arrays.sort(widths);
+        for (int w : widths) {
+            if (w >= width) {
+                return w;
+            }
+        }
+        return widths[widths.length - 1];
+    }
+
+    /**
+     * @return 缓存文件；原图不超过目标宽度或像素数超限时返回null
+     */
+    private File generate(File source, File cached, int width, String outExt) throws IOException {
+        if (cached.isFile()) {
+            return cached;
+        }
+
+        // 先只读尺寸，避免解码超大图片
+        BufferedImage image;
+        try (ImageInputStream in = ImageIO.createImageInputStream(source)) {
+            Iterator<ImageReader> readers = in == null ? null : ImageIO.getImageReaders(in);
+            if (readers == null || !readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                int w = reader.getWidth(0);
+                int h = reader.getHeight(0);
+                if (w <= width || (long) w * h > conf.getImageMaxPixels()) {
+                    return null;
+                }
+                image = reader.read(0);
+            } finally {
+                reader.dispose();
+            }
+        }
+
+        long start = System.currentTimeMillis();
+        BufferedImage scaled = this.scale(image, width, "png".equals(outExt));
+        Path target = cached.toPath();
+        Files.createDirectories(target.getParent());
+        Path tmp = Files.createTempFile(target.getParent(), "derive-", ".tmp");
+        try {
+            this.write(scaled, outExt, tmp.toFile());
+            try {
+                Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+        logger.info("🖼️ 已生成缩略图: {} {}x{} -> w{}, {}KB -> {}KB, 耗时 {}ms", source.getName(),
+                image.getWidth(), image.getHeight(), width, source.length() / 1024,
+                cached.length() / 1024, System.currentTimeMillis() - start);
+        return cached;
+    }
+
+    /**
+     * 每次缩小一半直到接近目标宽度，最后一步双线性插值，比一次缩放清晰
+     */
+    private BufferedImage scale(BufferedImage image, int width, boolean alpha) {
+        int type = alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+        BufferedImage current = image;
+        int w = image.getWidth();
+        int h = image.getHeight();
+        int targetHeight = Math.max(1, (int) Math.round((double) h * width / w));
+        do {
+            w = Math.max(width, w / 2);
+            h = w == width ? targetHeight : Math.max(targetHeight, h / 2);
+            BufferedImage next = new BufferedImage(w, h, type);
+            Graphics2D g = next.createGraphics();
+            try {
+                if (!alpha) {
+                    // 透明区域按白底处理，JPEG不支持透明
+                    g.setColor(java.awt.Color.WHITE);
+                    g.fillRect(0, 0, w, h);
+                }
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                g.drawImage(current, 0, 0, w, h, null);
+            } finally {
+                g.dispose();
+            }
+            current = next;
+        } while (w > width);
+        return current;
+    }
+
+    private void write(BufferedImage image, String ext, File file) throws IOException {
+        if ("png".equals(ext)) {
+            ImageIO.write(image, "png", file);
+            return;
+        }
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(file)) {
+            writer.setOutput(out);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(conf.getImageQuality());
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    private static boolean isScalable(String ext) {
+        return "jpg".equals(ext) || "jpeg".equals(ext) || "png".equals(ext) || "bmp".equals(ext);
+    }
+
+    @Override
+    public void evict(String hash) {
+        File folder = Paths.get(conf.getDir(), DERIVED_DIR, hash.substring(0, 2), hash.substring(2, 4)).toFile();
+        File[] files = folder.listFiles((d, name) -> name.startsWith(hash + "-"));
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+    }
+}
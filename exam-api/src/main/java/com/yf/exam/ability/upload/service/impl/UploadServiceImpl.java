@@ -4,20 +4,23 @@ import com.yf.exam.ability.Constant;
 import com.yf.exam.ability.upload.config.UploadConfig;
 import com.yf.exam.ability.upload.dto.UploadReqDTO;
 import com.yf.exam.ability.upload.dto.UploadRespDTO;
+import com.yf.exam.ability.upload.service.ImageDerivativeService;
 import com.yf.exam.ability.upload.service.UploadService;
 import com.yf.exam.ability.upload.utils.FileUtils;
 import com.yf.exam.core.exception.ServiceException;
+import com.yf.exam.modules.sys.file.service.SysFileService;
 import lombok.extern.log4j.Log4j2;
 import org.apache.commons.io.FilenameUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
-import org.springframework.util.FileCopyUtils;
 import org.springframework.web.multipart.MultipartFile;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import java.io.FileOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.UnsupportedEncodingException;
 import java.net.URLDecoder;
 import java.util.regex.Matcher;
@@ -36,6 +39,12 @@ public class UploadServiceImpl implements UploadService {
     @Autowired
     private UploadConfig conf;
 
+    @Autowired
+    private SysFileService sysFileService;
+
+    @Autowired
+    private ImageDerivativeService imageDerivativeService;
+
     @Override
     public UploadRespDTO upload(UploadReqDTO reqDTO) {
 
@@ -48,23 +57,10 @@ public class UploadServiceImpl implements UploadService {
         if(!allow){
             throw new ServiceException("文件类型不允许上传！");
         }
-        // 上传文件夹
-        String fileDir = conf.getDir();
-        // 真实物理地址
-        String fullPath;
-        try {
-
-            // 新文件
-            String filePath = FileUtils.processPath(file);
-            // 文件保存地址
-            fullPath = fileDir + filePath;
-            // 创建文件夹
-            FileUtils.checkDir(fullPath);
-            // 上传文件
-            FileCopyUtils.copy(file.getInputStream(), new FileOutputStream(fullPath));
-
+        // 按内容哈希保存，相同文件只存一份
+        try (InputStream in = file.getInputStream()) {
+            String filePath = sysFileService.store(in, file.getOriginalFilename());
             return this.generateResult(filePath);
-
         } catch (IOException e) {
             e.printStackTrace();
             throw new ServiceException("文件上传失败："+e.getMessage());
@@ -73,6 +69,16 @@ public class UploadServiceImpl implements UploadService {
 
 
 
+    @Override
+    public String save(byte[] data, String fileName) {
+        try {
+            return this.generateResult(sysFileService.store(new ByteArrayInputStream(data), fileName)).getUrl();
+        } catch (IOException e) {
+            throw new ServiceException("文件保存失败：" + e.getMessage());
+        }
+    }
+
+
     @Override
     public void download(HttpServletRequest request, HttpServletResponse response) {
 
@@ -88,8 +94,21 @@ public class UploadServiceImpl implements UploadService {
 
         System.out.println("++++完整路径为："+filePath);
 
+        // 图片限定宽度，如 ?w=800
+        // 生成排队或超时时暂时返回原图，此时不能让原图以缩略图地址被长期缓存
+        boolean immutable = true;
+        String width = request.getParameter("w");
+        if (width != null && width.matches("\\d{1,5}")) {
+            File derived = imageDerivativeService.derive(new File(filePath), Integer.parseInt(width));
+            if (derived != null) {
+                filePath = derived.getPath();
+            } else {
+                immutable = false;
+            }
+        }
+
         try {
-            FileUtils.writeRange(request, response, filePath);
+            FileUtils.writeRange(request, response, filePath, immutable);
         } catch (IOException e) {
             response.setStatus(404);
             log.error("预览文件失败" + e.getMessage());
@@ -0,0 +1,410 @@
+package com.yf.exam.ability.upload.utils;
+
+import org.apache.commons.io.FilenameUtils;
+import org.apache.poi.hwpf.HWPFDocument;
+import org.apache.poi.hwpf.model.PicturesTable;
+import org.apache.poi.hwpf.usermodel.CharacterRun;
+import org.apache.poi.hwpf.usermodel.Paragraph;
+import org.apache.poi.hwpf.usermodel.Picture;
+import org.apache.poi.hwpf.usermodel.Range;
+import org.apache.poi.xwpf.usermodel.IBodyElement;
+import org.apache.poi.xwpf.usermodel.XWPFDocument;
+import org.apache.poi.xwpf.usermodel.XWPFParagraph;
+import org.apache.poi.xwpf.usermodel.XWPFPictureData;
+import org.apache.poi.xwpf.usermodel.XWPFTable;
+import org.apache.poi.xwpf.usermodel.XWPFTableCell;
+import org.apache.poi.xwpf.usermodel.XWPFTableRow;
+import org.apache.xmlbeans.XmlCursor;
+
+import javax.xml.namespace.QName;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Word文档本地解析
+ * 按正文顺序提取段落和表格文本，图片在所在位置插入 {{IMG_001}} 标记，与解析服务的兼容格式一致。
+ * .docx 只遍历正文，页眉页脚中的Logo不会被当成题目图片；.doc 只处理嵌入式图片
+ *
+ * @author AI Assistant
+ * @date 2026-10-19
+ */
+public final class DocumentExtractor {
+
+    private static final String NS_R = "http://schemas.openxmlformats.org/officeDocument/2006/relationships";
+
+    private static final QName BLIP_EMBED = new QName(NS_R, "embed");
+    private static final QName IMAGEDATA_ID = new QName(NS_R, "id");
+
+    /**
+     * 段落内需要展开的容器：超链接、域、智能标记、修订插入、内容控件
+     */
+    private static final List<String> CONTAINERS = Arrays.asList(
+            "hyperlink", "fldSimple", "smartTag", "ins", "sdt", "sdtContent", "customXml", "moveTo");
+
+    private static final Pattern QUESTION_LINE = Pattern.compile("^\\s*\\d+\\s*[.．、]");
+    private static final Pattern OPTION_LINE = Pattern.compile("^\\s*[A-H]\\s*[.．、:：]");
+
+    private DocumentExtractor() {
+    }
+
+    /**
+     * @param fileName 文件名
+     * @return 是否可本地解析
+     */
+    public static boolean supports(String fileName) {
+        String ext = FilenameUtils.getExtension(fileName == null ? "" : fileName).toLowerCase(Locale.ROOT);
+        return "docx".equals(ext) || "doc".equals(ext);
+    }
+
+    /**
+     * 解析文档
+     * @param in 文件流
+     * @param fileName 文件名，按后缀区分 .docx/.doc
+     * @return 解析结果
+     * @throws IOException 文件损坏或格式与后缀不符
+     */
+    public static Result extract(InputStream in, String fileName) throws IOException {
+        Result result = new Result();
+        if ("doc".equalsIgnoreCase(FilenameUtils.getExtension(fileName))) {
+            extractDoc(new HWPFDocument(in), result);
+        } else {
+            XWPFDocument doc = new XWPFDocument(in);
+            for (String line : body(doc, doc.getBodyElements(), result)) {
+                result.line(line);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 正文元素依次转为文本行，表格每行一行，单元格以制表符分隔
+     */
+    private static List<String> body(XWPFDocument doc, List<IBodyElement> elements, Result result) {
+        List<String> lines = new ArrayList<>();
+        for (IBodyElement element : elements) {
+            if (element instanceof XWPFParagraph) {
+                StringBuilder sb = new StringBuilder();
+                children(doc, ((XWPFParagraph) element).getCTP().newCursor(), sb, result);
+                lines.add(sb.toString());
+            } else if (element instanceof XWPFTable) {
+                for (XWPFTableRow row : ((XWPFTable) element).getRows()) {
+                    List<String> cells = new ArrayList<>();
+                    for (XWPFTableCell cell : row.getTableCells()) {
+                        List<String> cellLines = body(doc, cell.getBodyElements(), result);
+                        cellLines.removeIf(line -> line.trim().isEmpty());
+                        cells.add(String.join(" ", cellLines));
+                    }
+                    lines.add(String.join("\t", cells));
+                }
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * 遍历段落或容器的子元素
+     */
+    private static void children(XWPFDocument doc, XmlCursor cursor, StringBuilder sb, Result result) {
+        try {
+            if (!cursor.toFirstChild()) {
+                return;
+            }
+            do {
+                String name = cursor.getName().getLocalPart();
+                if ("r".equals(name)) {
+                    run(doc, cursor, sb, result);
+                } else if (CONTAINERS.contains(name)) {
+                    children(doc, cursor.newCursor(), sb, result);
+                } else if ("oMath".equals(name) || "oMathPara".equals(name)) {
+                    sb.append(cursor.getTextValue());
+                }
+            } while (cursor.toNextSibling());
+        } finally {
+            cursor.dispose();
+        }
+    }
+
+    /**
+     * 文本、制表符和换行按原样输出，图片输出标记
+     */
+    private static void run(XWPFDocument doc, XmlCursor run, StringBuilder sb, Result result) {
+        XmlCursor cursor = run.newCursor();
+        try {
+            if (!cursor.toFirstChild()) {
+                return;
+            }
+            do {
+                switch (cursor.getName().getLocalPart()) {
+                    case "t":
+                        sb.append(cursor.getTextValue());
+                        break;
+                    case "tab":
+                        sb.append('\t');
+                        break;
+                    case "br":
+                    case "cr":
+                        sb.append('\n');
+                        break;
+                    case "noBreakHyphen":
+                        sb.append('-');
+                        break;
+                    case "drawing":
+                    case "pict":
+                    case "object":
+                    case "AlternateContent":
+                        for (String rId : pictureIds(cursor)) {
+                            XWPFPictureData data = doc.getPictureDataByID(rId);
+                            if (data != null) {
+                                sb.append(result.image("docx:" + rId, data.getData(),
+                                        data.suggestFileExtension(), data.getPackagePart().getPartName().getName()));
+                            }
+                        }
+                        break;
+                    default:
+                        break;
+                }
+            } while (cursor.toNextSibling());
+        } finally {
+            cursor.dispose();
+        }
+    }
+
+    /**
+     * 按出现顺序查找图片引用：DrawingML 的 a:blip 和 VML（公式对象预览图）的 v:imagedata，
+     * 兼容内容只取第一个分支，避免新旧两种写法重复计数
+     */
+    private static List<String> pictureIds(XmlCursor element) {
+        List<String> ids = new ArrayList<>();
+        XmlCursor cursor = element.newCursor();
+        XmlCursor end = element.newCursor();
+        try {
+            if ("AlternateContent".equals(cursor.getName().getLocalPart())) {
+                if (!cursor.toFirstChild()) {
+                    return ids;
+                }
+                end.dispose();
+                end = cursor.newCursor();
+            }
+            end.toEndToken();
+            while (cursor.isLeftOf(end)) {
+                if (cursor.isStart()) {
+                    String name = cursor.getName().getLocalPart();
+                    String rId = "blip".equals(name) ? cursor.getAttributeText(BLIP_EMBED)
+                            : "imagedata".equals(name) ? cursor.getAttributeText(IMAGEDATA_ID) : null;
+                    if (rId != null && !rId.isEmpty()) {
+                        ids.add(rId);
+                    }
+                }
+                cursor.toNextToken();
+            }
+        } finally {
+            cursor.dispose();
+            end.dispose();
+        }
+        return ids;
+    }
+
+    /**
+     * .doc：段落内逐个字符块处理，跳过域代码只保留域结果，单元格结束符转为制表符
+     */
+    private static void extractDoc(HWPFDocument doc, Result result) {
+        PicturesTable pictures = doc.getPicturesTable();
+        Range range = doc.getRange();
+        // 嵌套的域，栈顶为true表示当前处于域代码部分
+        Deque<Boolean> fields = new ArrayDeque<>();
+        for (int i = 0; i < range.numParagraphs(); i++) {
+            Paragraph paragraph = range.getParagraph(i);
+            StringBuilder sb = new StringBuilder();
+            for (int j = 0; j < paragraph.numCharacterRuns(); j++) {
+                CharacterRun run = paragraph.getCharacterRun(j);
+                boolean inInstruction = !fields.isEmpty() && fields.peek();
+                if (!inInstruction && pictures.hasPicture(run)) {
+                    Picture picture = pictures.extractPicture(run, true);
+                    if (picture != null) {
+                        sb.append(result.image("doc:" + picture.getStartOffset(), picture.getContent(),
+                                picture.suggestFileExtension(), "pictures/" + picture.suggestFullFileName()));
+                    }
+                    continue;
+                }
+                for (char c : run.text().toCharArray()) {
+                    if (c == '\u0013') {
+                        fields.push(true);
+                    } else if (c == '\u0014') {
+                        if (!fields.isEmpty()) {
+                            fields.pop();
+                            fields.push(false);
+                        }
+                    } else if (c == '\u0015') {
+                        fields.poll();
+                    } else if (!fields.isEmpty() && fields.peek()) {
+                        continue;
+                    } else if (c == '\u0007') {
+                        sb.append('\t');
+                    } else if (c == '\u000b') {
+                        sb.append('\n');
+                    } else if (c >= ' ' || c == '\t') {
+                        sb.append(c);
+                    }
+                }
+            }
+            result.line(sb.toString().replaceAll("\t+$", ""));
+        }
+    }
+
+    /**
+     * 解析结果
+     */
+    public static class Result {
+
+        private final StringBuilder text = new StringBuilder();
+        private final List<Image> images = new ArrayList<>();
+        private final Map<String, Image> imageByKey = new HashMap<>();
+        private int paragraphCount;
+        private int questionLines;
+        private int optionLines;
+
+        private void line(String line) {
+            for (String part : line.split("\n")) {
+                if (part.trim().isEmpty()) {
+                    continue;
+                }
+                if (text.length() > 0) {
+                    text.append('\n');
+                }
+                text.append(part);
+                paragraphCount++;
+                if (QUESTION_LINE.matcher(part).find()) {
+                    questionLines++;
+                } else if (OPTION_LINE.matcher(part).find()) {
+                    optionLines++;
+                }
+            }
+        }
+
+        /**
+         * 登记图片并返回标记，同一图片多处引用时共用一个标记
+         */
+        private String image(String key, byte[] data, String extension, String originalPath) {
+            Image image = imageByKey.get(key);
+            if (image == null) {
+                image = new Image(String.format("IMG_%03d", images.size() + 1), data,
+                        extension == null || extension.isEmpty() ? "png" : extension.toLowerCase(Locale.ROOT), originalPath);
+                images.add(image);
+                imageByKey.put(key, image);
+            }
+            return "{{" + image.getId() + "}}";
+        }
+
+        /**
+         * @return 全文，段落以换行分隔，含图片标记
+         */
+        public String getText() {
+            return text.toString();
+        }
+
+        /**
+         * @return 按首次出现顺序排列的图片
+         */
+        public List<Image> getImages() {
+            return images;
+        }
+
+        /**
+         * @return 非空段落数
+         */
+        public int getParagraphCount() {
+            return paragraphCount;
+        }
+
+        /**
+         * @return 以题号开头的段落数
+         */
+        public int getQuestionLines() {
+            return questionLines;
+        }
+
+        /**
+         * @return 以选项标号开头的段落数
+         */
+        public int getOptionLines() {
+            return optionLines;
+        }
+
+        /**
+         * @return WMF/EMF图片数量，浏览器无法直接显示
+         */
+        public int getVectorImageCount() {
+            int count = 0;
+            for (Image image : images) {
+                if (image.isVector()) {
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        /**
+         * @return 处理摘要，用于日志
+         */
+        public String summary() {
+            return String.format("段落%d个，题号行%d个，选项行%d个，图片%d张（WMF/EMF %d张），文本%d字",
+                    paragraphCount, questionLines, optionLines, images.size(), getVectorImageCount(), text.length());
+        }
+    }
+
+    /**
+     * 文档中的图片
+     */
+    public static class Image {
+
+        private final String id;
+        private final byte[] data;
+        private final String extension;
+        private final String originalPath;
+
+        Image(String id, byte[] data, String extension, String originalPath) {
+            this.id = id;
+            this.data = data;
+            this.extension = extension;
+            this.originalPath = originalPath;
+        }
+
+        /**
+         * @return 标记ID，如 IMG_001
+         */
+        public String getId() {
+            return id;
+        }
+
+        public byte[] getData() {
+            return data;
+        }
+
+        /**
+         * @return 文件后缀，小写不带点
+         */
+        public String getExtension() {
+            return extension;
+        }
+
+        /**
+         * @return 在文档中的原始路径，如 /word/media/image1.png
+         */
+        public String getOriginalPath() {
+            return originalPath;
+        }
+
+        public boolean isVector() {
+            return "wmf".equals(extension) || "emf".equals(extension);
+        }
+    }
+}
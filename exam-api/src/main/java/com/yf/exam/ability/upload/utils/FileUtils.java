@@ -2,20 +2,34 @@ package com.yf.exam.ability.upload.utils;
 
 import com.baomidou.mybatisplus.core.toolkit.IdWorker;
 import com.yf.exam.core.utils.DateUtils;
+import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.io.FilenameUtils;
 import org.springframework.core.io.InputStreamResource;
 import org.springframework.web.multipart.MultipartFile;
-import org.springframework.core.io.InputStreamResource;
 
-import java.io.IOException;
-import java.io.InputStream;
 import javax.servlet.ServletOutputStream;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.io.RandomAccessFile;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.regex.Pattern;
 
 /**
  * 文件工具类
@@ -28,87 +42,301 @@ public class FileUtils {
 	 */
 	private static final String SUFFIX_SPLIT = ".";
 
+	/**
+	 * 单个请求最多的Range段数，超过时返回整个文件
+	 */
+	private static final int MAX_RANGES = 16;
+
+	/**
+	 * 按内容哈希命名的文件及其缩略图（哈希-w宽度）
+	 */
+	private static final Pattern BLOB_NAME = Pattern.compile("[0-9a-f]{64}(-w\\d+)?");
+
+	private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+	private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+	private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+	private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+	/**
+	 * 非内容寻址文件的ETag缓存
+	 */
+	private static final Map<String, String> ETAG_CACHE = new LinkedHashMap<String, String>(256, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+			return size() > 2048;
+		}
+	};
+
 
 	/**
 	 * 支持以断点的方式输出文件，提供文件在线预览和视频在线播放
+	 * 支持单段和多段Range、If-Range，强ETag和真实的Last-Modified，条件请求命中时返回304；
+	 * 连接器支持sendfile时交给Tomcat直接由内核发送，否则用FileChannel.transferTo输出
 	 * @param request
 	 * @param response
 	 * @param filePath
-	 * @throws IOException
+	 * @throws IOException 文件不存在时在写出任何内容之前抛出
 	 */
 	public static void writeRange(HttpServletRequest request,
                                       HttpServletResponse response, String filePath) throws IOException {
+		writeRange(request, response, filePath, true);
+	}
+
+	/**
+	 * 同上
+	 * @param request
+	 * @param response
+	 * @param filePath
+	 * @param immutable 为false时即使是按内容哈希命名的文件也不允许长期缓存，
+	 *                  用于请求的是缩略图但暂时只能返回原图的情况，避免原图以缩略图地址被缓存一年
+	 * @throws IOException 文件不存在时在写出任何内容之前抛出
+	 */
+	public static void writeRange(HttpServletRequest request,
+                                      HttpServletResponse response, String filePath, boolean immutable) throws IOException {
 
 		// 读取文件
 		File file = new File(filePath);
+		if (!file.isFile()) {
+			throw new FileNotFoundException(filePath);
+		}
+		long contentLength = file.length();
+		long lastModified = file.lastModified() / 1000 * 1000;
+		String blobHash = blobHash(file.getName());
+		String etag = "\"" + (blobHash != null ? blobHash : contentHash(file)) + "\"";
+
+		response.setHeader("Accept-Ranges", "bytes");
+		response.setHeader("ETag", etag);
+		response.setDateHeader("Last-Modified", lastModified);
+		// 按内容哈希命名的文件内容永不改变，其他文件每次用ETag校验
+		response.setHeader("Cache-Control", blobHash != null && immutable ? "public, max-age=31536000, immutable" : "no-cache");
+
+		if (notModified(request, etag, lastModified)) {
+			response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+			return;
+		}
 
-		//只读模式
-		RandomAccessFile randomFile = new RandomAccessFile(file, "r");
-		long contentLength = randomFile.length();
+		String contentType = MediaUtils.getContentType(filePath);
 		String range = request.getHeader("Range");
-		int start = 0, end = 0;
-		if (range != null && range.startsWith("bytes=")) {
-			String[] values = range.split("=")[1].split("-");
-			start = Integer.parseInt(values[0]);
-			if (values.length > 1) {
-				end = Integer.parseInt(values[1]);
+		if (range != null && !ifRangeMatches(request.getHeader("If-Range"), etag, lastModified)) {
+			range = null;
+		}
+		List<long[]> ranges = range == null ? null : parseRanges(range, contentLength);
+		if (ranges != null && ranges.isEmpty()) {
+			response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+			response.setHeader("Content-Range", "bytes */" + contentLength);
+			return;
+		}
+		boolean head = "HEAD".equalsIgnoreCase(request.getMethod());
+
+		// 整个文件或单段
+		if (ranges == null || ranges.size() == 1) {
+			long start = ranges == null ? 0 : ranges.get(0)[0];
+			long end = ranges == null ? contentLength - 1 : ranges.get(0)[1];
+			if (ranges != null) {
+				response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+				response.setHeader("Content-Range", "bytes " + start + "-" + end + "/" + contentLength);
+			}
+			response.setContentType(contentType);
+			response.setHeader("Content-Length", String.valueOf(end - start + 1));
+			if (head || end < start) {
+				return;
 			}
+			if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+				request.setAttribute(SENDFILE_FILENAME, file.getCanonicalPath());
+				request.setAttribute(SENDFILE_START, start);
+				request.setAttribute(SENDFILE_END, end + 1);
+				return;
+			}
+			try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+				WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+				transfer(channel, start, end - start + 1, out);
+			}
+			return;
 		}
-		int requestSize;
-		if (end != 0 && end > start) {
-			requestSize = end - start + 1;
-		} else {
-			requestSize = Integer.MAX_VALUE;
+
+		// 多段，multipart/byteranges
+		String boundary = "EXAM_BYTERANGES_" + IdWorker.getIdStr();
+		List<byte[]> partHeaders = new ArrayList<>();
+		long length = 0;
+		for (long[] r : ranges) {
+			byte[] header = ("\r\n--" + boundary + "\r\nContent-Type: " + contentType
+					+ "\r\nContent-Range: bytes " + r[0] + "-" + r[1] + "/" + contentLength + "\r\n\r\n")
+					.getBytes(StandardCharsets.US_ASCII);
+			partHeaders.add(header);
+			length += header.length + r[1] - r[0] + 1;
 		}
+		byte[] closing = ("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII);
+		length += closing.length;
 
-		byte[] buffer = new byte[128];
-		response.setContentType(MediaUtils.getContentType(filePath));
-		response.setHeader("Accept-Ranges", "bytes");
-		response.setHeader("ETag", file.getName());
-		response.setHeader("Last-Modified", new Date().toString());
-		//第一次请求只返回content length来让客户端请求多次实际数据
-		if (range == null) {
-			response.setHeader("Content-length", contentLength + "");
-		} else {
-			//以后的多次以断点续传的方式来返回视频数据
-			response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
-			long requestStart = 0, requestEnd = 0;
-			String[] ranges = range.split("=");
-			if (ranges.length > 1) {
-				String[] rangeData = ranges[1].split("-");
-				requestStart = Integer.parseInt(rangeData[0]);
-				if (rangeData.length > 1) {
-					requestEnd = Integer.parseInt(rangeData[1]);
+		response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+		response.setContentType("multipart/byteranges; boundary=" + boundary);
+		response.setHeader("Content-Length", String.valueOf(length));
+		if (head) {
+			return;
+		}
+		ServletOutputStream out = response.getOutputStream();
+		WritableByteChannel target = Channels.newChannel(out);
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			for (int i = 0; i < ranges.size(); i++) {
+				out.write(partHeaders.get(i));
+				long[] r = ranges.get(i);
+				transfer(channel, r[0], r[1] - r[0] + 1, target);
+			}
+			out.write(closing);
+		}
+	}
+
+	/**
+	 * 解析Range头，按RFC 7233处理 a-b、a-、-n 三种形式，超出文件末尾的截断
+	 * @param range Range头
+	 * @param length 文件长度
+	 * @return 格式不合法或段数过多时返回null（忽略Range返回整个文件），全部不可满足时返回空列表
+	 */
+	private static List<long[]> parseRanges(String range, long length) {
+		if (!range.startsWith("bytes=")) {
+			return null;
+		}
+		String[] specs = range.substring(6).split(",");
+		if (specs.length > MAX_RANGES) {
+			return null;
+		}
+		List<long[]> ranges = new ArrayList<>();
+		for (String spec : specs) {
+			String value = spec.trim();
+			int dash = value.indexOf('-');
+			if (dash < 0) {
+				return null;
+			}
+			long start;
+			long end;
+			try {
+				if (dash == 0) {
+					// 最后n个字节
+					long suffix = Long.parseLong(value.substring(1));
+					if (suffix == 0) {
+						continue;
+					}
+					start = Math.max(0, length - suffix);
+					end = length - 1;
+				} else {
+					start = Long.parseLong(value.substring(0, dash));
+					if (dash == value.length() - 1) {
+						end = length - 1;
+					} else {
+						long last = Long.parseLong(value.substring(dash + 1));
+						if (last < start) {
+							return null;
+						}
+						end = Math.min(length - 1, last);
+					}
 				}
+			} catch (NumberFormatException e) {
+				return null;
 			}
-			long length;
-			if (requestEnd > 0) {
-				length = requestEnd - requestStart + 1;
-				response.setHeader("Content-length", "" + length);
-				response.setHeader("Content-Range", "bytes " + requestStart + "-" + requestEnd + "/" + contentLength);
-			} else {
-				length = contentLength - requestStart;
-				response.setHeader("Content-length", "" + length);
-				response.setHeader("Content-Range", "bytes " + requestStart + "-" + (contentLength - 1) + "/" + contentLength);
+			if (start < 0) {
+				return null;
+			}
+			if (start < length && start <= end) {
+				ranges.add(new long[]{start, end});
 			}
 		}
-		ServletOutputStream out = response.getOutputStream();
-		int needSize = requestSize;
-		randomFile.seek(start);
-		while (needSize > 0) {
-			int len = randomFile.read(buffer);
-			if (needSize < buffer.length) {
-				out.write(buffer, 0, needSize);
-			} else {
-				out.write(buffer, 0, len);
-				if (len < buffer.length) {
-					break;
+		return ranges;
+	}
+
+	/**
+	 * If-None-Match优先，没有时才看If-Modified-Since
+	 */
+	private static boolean notModified(HttpServletRequest request, String etag, long lastModified) {
+		String ifNoneMatch = request.getHeader("If-None-Match");
+		if (ifNoneMatch != null) {
+			for (String tag : ifNoneMatch.split(",")) {
+				String value = tag.trim();
+				if (value.startsWith("W/")) {
+					value = value.substring(2);
 				}
+				if ("*".equals(value) || etag.equals(value)) {
+					return true;
+				}
+			}
+			return false;
+		}
+		long since = dateHeader(request, "If-Modified-Since");
+		return since != -1 && lastModified <= since;
+	}
+
+	/**
+	 * If-Range与当前ETag（强比较）或最后修改时间一致时才按Range返回
+	 */
+	private static boolean ifRangeMatches(String ifRange, String etag, long lastModified) {
+		if (ifRange == null) {
+			return true;
+		}
+		String value = ifRange.trim();
+		if (value.startsWith("\"") || value.startsWith("W/")) {
+			return etag.equals(value);
+		}
+		try {
+			SimpleDateFormat format = new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss zzz", Locale.US);
+			format.setTimeZone(TimeZone.getTimeZone("GMT"));
+			return format.parse(value).getTime() == lastModified;
+		} catch (ParseException e) {
+			return false;
+		}
+	}
+
+	private static long dateHeader(HttpServletRequest request, String name) {
+		try {
+			return request.getDateHeader(name);
+		} catch (IllegalArgumentException e) {
+			return -1;
+		}
+	}
+
+	private static void transfer(FileChannel channel, long position, long count, WritableByteChannel out) throws IOException {
+		long done = 0;
+		while (done < count) {
+			long n = channel.transferTo(position + done, count - done, out);
+			if (n <= 0) {
+				break;
 			}
-			needSize -= buffer.length;
+			done += n;
 		}
-		randomFile.close();
-		out.close();
+	}
+
+	/**
+	 * 按内容哈希存放的文件及其缩略图内容不会改变，文件名直接作为ETag
+	 */
+	private static String blobHash(String fileName) {
+		String base = FilenameUtils.getBaseName(fileName);
+		return BLOB_NAME.matcher(base).matches() ? base : null;
+	}
+
+	/**
+	 * 文件内容的SHA-256，按内容哈希命名的文件直接取文件名，其他文件计算后按路径、大小和修改时间缓存
+	 * @param file 文件
+	 * @return 十六进制哈希
+	 * @throws IOException
+	 */
+	public static String contentHash(File file) throws IOException {
+		String name = FilenameUtils.getBaseName(file.getName());
+		if (name.length() == 64 && BLOB_NAME.matcher(name).matches()) {
+			return name;
+		}
+		String key = file.getAbsolutePath() + "|" + file.length() + "|" + file.lastModified();
+		synchronized (ETAG_CACHE) {
+			String cached = ETAG_CACHE.get(key);
+			if (cached != null) {
+				return cached;
+			}
+		}
+		String hash;
+		try (InputStream in = new FileInputStream(file)) {
+			hash = DigestUtils.sha256Hex(in);
+		}
+		synchronized (ETAG_CACHE) {
+			ETAG_CACHE.put(key, hash);
+		}
+		return hash;
 	}
 
 
@@ -141,9 +369,15 @@ public class FileUtils {
 	 * @return
 	 */
 	public static String processPath(MultipartFile file){
+		return processPath(file.getOriginalFilename());
+	}
 
-		// 创建OSSClient实例。
-		String fileName = file.getOriginalFilename();
+	/**
+	 * 按原始文件名处理新的文件路径，用于程序生成的文件，如从文档中提取的图片
+	 * @param fileName 原始文件名
+	 * @return
+	 */
+	public static String processPath(String fileName){
 
 		// 需要重命名
 		fileName = renameFile(fileName);
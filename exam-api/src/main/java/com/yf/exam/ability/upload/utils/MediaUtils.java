@@ -20,6 +20,15 @@ public class MediaUtils {
 
             //视频
             put(".mp4", "video,video/mp4");
+
+            //图片，题目和选项图片需带正确类型才能被浏览器缓存和直接显示
+            put(".jpg", "image/jpeg");
+            put(".jpeg", "image/jpeg");
+            put(".png", "image/png");
+            put(".gif", "image/gif");
+            put(".bmp", "image/bmp");
+            put(".webp", "image/webp");
+            put(".svg", "image/svg+xml");
             
         }
     };
@@ -1,5 +1,6 @@
 package com.yf.exam.config;
 
+import java.util.List;
 
 public class PromptConfig {
     public static final String EXTRACT_QUESTION_PROMPT =
@@ -416,7 +417,8 @@ public class PromptConfig {
      * 整体测试判分提示词
      */
     public static final String OVERALL_TEST_JUDGE_PROMPT = 
-        "你是专业的教育评估专家。请对整个测试进行综合评价和建议。\n\n" +
+        "你是专业的教育评估专家。请对整个测试进行综合评价和建议。\n" +
+        "下面的统计结果已由系统逐题计算（得分率、各题型得分、各知识点正确率、错误类型和部分错题），请据此撰写评价，不要重新计算分数。\n\n" +
         "评估维度：\n" +
         "1. 整体表现：学生在各题型上的表现情况\n" +
         "2. 知识掌握：对相关知识点的掌握程度\n" +
@@ -424,7 +426,6 @@ public class PromptConfig {
         "4. 改进建议：针对性的学习提升建议\n\n" +
         "请按照以下JSON格式返回结果：\n" +
         "{\n" +
-        "  \"overallScore\": 85.5,\n" +
         "  \"overallFeedback\": \"整体表现良好，基础知识扎实...\",\n" +
         "  \"strengthAreas\": [\"优势领域1\", \"优势领域2\"],\n" +
         "  \"weaknessAreas\": [\"薄弱环节1\", \"薄弱环节2\"],\n" +
@@ -587,6 +588,27 @@ public class PromptConfig {
             "  \"comment\": \"简洁的评分理由和建议（用普通文字）\"\n" +
             "}";
 
+    /**
+     * 批量简答题评分提示词 - 同一题目的多份学生答案一次评分
+     */
+    public static final String BATCH_SHORT_ANSWER_GRADING_PROMPT =
+            "请对以下多份简答题答案分别评分，各份答案相互独立，不要互相参照：\n\n" +
+            "题目：{questionContent}\n" +
+            "标准答案：{standardAnswer}\n" +
+            "知识点：{knowledgePoint}\n" +
+            "满分：{fullMarks}分\n\n" +
+            "评分标准：\n" +
+            "- 准确性（60%）：答案内容正确性\n" +
+            "- 完整性（25%）：是否涵盖关键知识点\n" +
+            "- 表达清晰度（15%）：语言表达和逻辑\n\n" +
+            "学生答案（共{answerCount}份）：\n" +
+            "{answers}\n" +
+            "**重要：返回纯JSON数组，每份答案一项，index与答案编号一致，不要使用LaTeX数学公式或特殊符号**\n\n" +
+            "返回JSON格式：\n" +
+            "[\n" +
+            "  {\"index\": 1, \"score\": 具体分数, \"comment\": \"简洁的评分理由\"}\n" +
+            "]";
+
     /**
      * 构建完整的评分提示词
      */
@@ -626,4 +648,23 @@ public class PromptConfig {
                 .replace("{studentAnswer}", studentAnswer != null ? studentAnswer : "")
                 .replace("{fullMarks}", String.valueOf(fullMarks));
     }
+
+    /**
+     * 构建批量简答题评分提示词
+     * @param answers 学生答案，按顺序编号为【答案1】【答案2】...
+     */
+    public static String buildBatchGradingPrompt(String questionContent, String standardAnswer,
+                                               String knowledgePoint, double fullMarks, List<String> answers) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < answers.size(); i++) {
+            sb.append("【答案").append(i + 1).append("】").append(answers.get(i)).append("\n");
+        }
+        return BATCH_SHORT_ANSWER_GRADING_PROMPT
+                .replace("{questionContent}", questionContent != null ? questionContent : "")
+                .replace("{standardAnswer}", standardAnswer != null ? standardAnswer : "无标准答案")
+                .replace("{knowledgePoint}", knowledgePoint != null ? knowledgePoint : "基础知识")
+                .replace("{fullMarks}", String.valueOf(fullMarks))
+                .replace("{answerCount}", String.valueOf(answers.size()))
+                .replace("{answers}", sb.toString());
+    }
 }
@@ -1,7 +1,9 @@
 package com.yf.exam.config;
 
+import com.yf.exam.ability.ai.pool.LlmEndpointPool;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.http.client.SimpleClientHttpRequestFactory;
 
@@ -11,16 +13,36 @@ import java.net.URI;
 
 @Configuration
 public class RestTemplateConfig {
+    @Primary
     @Bean
     public RestTemplate restTemplate() {
         RestTemplate restTemplate = new RestTemplate();
-        
+        restTemplate.setRequestFactory(requestFactory());
+        return restTemplate;
+    }
+
+    /**
+     * Request bodies are written straight to the connection instead of being buffered in memory,
+     * used for large multimodal LLM requests
+     */
+    @Bean
+    public RestTemplate streamingRestTemplate() {
+        SimpleClientHttpRequestFactory factory = requestFactory();
+        factory.setBufferRequestBody(false);
+        RestTemplate restTemplate = new RestTemplate();
+        restTemplate.setRequestFactory(factory);
+        return restTemplate;
+    }
+
+    private SimpleClientHttpRequestFactory requestFactory() {
         // Configure request factory to bypass proxy for localhost
         SimpleClientHttpRequestFactory factory = new SimpleClientHttpRequestFactory() {
             @Override
             protected void prepareConnection(java.net.HttpURLConnection connection, String httpMethod) throws java.io.IOException {
                 super.prepareConnection(connection, httpMethod);
-                
+                // Let the LLM endpoint pool disconnect a hedged request that lost the race
+                LlmEndpointPool.register(connection);
+
                 // Check if the URL is localhost and bypass proxy
                 String host = connection.getURL().getHost();
                 if ("localhost".equals(host) || "127.0.0.1".equals(host) || "::1".equals(host)) {
@@ -29,11 +51,9 @@ public class RestTemplateConfig {
                 }
             }
         };
-        
+
         factory.setConnectTimeout(30000); // 30 seconds connection timeout
         factory.setReadTimeout(180000); // 3 minutes read timeout for complex document processing
-        restTemplate.setRequestFactory(factory);
-        
-        return restTemplate;
+        return factory;
     }
 }
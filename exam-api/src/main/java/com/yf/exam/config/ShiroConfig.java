@@ -55,6 +55,13 @@ public class ShiroConfig {
 		// 文件读取
 		map.put("/upload/file/**", "anon");
 		
+		// AI导入任务须登录，按创建者隔离
+		map.put("/exam/api/ai-upload/jobs", "jwt");
+		map.put("/exam/api/ai-upload/jobs/**", "jwt");
+
+		// 管理端点（LLM熔断、调度、连接池、指标等）含重置操作，仅管理员可用
+		map.put("/actuator/**", "jwt,roles[sa]");
+
 		// AI智能导入 - 临时测试用
 		map.put("/exam/api/ai-upload/**", "anon");
 
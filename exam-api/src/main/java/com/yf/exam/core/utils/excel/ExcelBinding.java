@@ -0,0 +1,440 @@
+package com.yf.exam.core.utils.excel;
+
+import com.yf.exam.core.utils.Reflections;
+import com.yf.exam.core.utils.excel.annotation.ExcelField;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Excel列绑定
+ * 按（类、导入导出类型、分组）缓存 @ExcelField 的排序结果，并预先解析出每一列的读写方法句柄和类型转换，
+ * 逐行导入导出时不再扫描注解、排序和按名称查找方法，转换规则与原 ImportExcel / ExportExcel 一致
+ * @author AI Assistant
+ * @date 2026-10-19
+ */
+public final class ExcelBinding<E> {
+
+	private static Logger log = LoggerFactory.getLogger(ExcelBinding.class);
+
+	/**
+	 * 导入类型，对应 ExcelField.type
+	 */
+	private static final int TYPE_IMPORT = 2;
+
+	private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+	private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+	private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+	/**
+	 * 绑定缓存
+	 */
+	private static final Map<Key, ExcelBinding<?>> CACHE = new ConcurrentHashMap<>();
+
+	/**
+	 * 按值类型缓存的 fieldtype 转换类，未找到时为空
+	 */
+	private static final Map<Class<?>, Optional<Class<?>>> FIELD_TYPES = new ConcurrentHashMap<>();
+
+	/**
+	 * 转换类的导入导出方法
+	 */
+	private static final Map<Class<?>, Method[]> FIELD_TYPE_METHODS = new ConcurrentHashMap<>();
+
+	private final Constructor<E> constructor;
+
+	private final List<Column> columns;
+
+	private ExcelBinding(Constructor<E> constructor, List<Column> columns) {
+		this.constructor = constructor;
+		this.columns = columns;
+	}
+
+	/**
+	 * 导入绑定
+	 * @param cls 导入对象类型
+	 * @param groups 导入分组，为空时取全部
+	 * @return 绑定
+	 */
+	public static <E> ExcelBinding<E> forImport(Class<E> cls, int... groups) {
+		return of(cls, TYPE_IMPORT, groups);
+	}
+
+	/**
+	 * 导出绑定
+	 * @param cls 导出对象类型
+	 * @param type 导出类型（1:导出数据；2：导出模板）
+	 * @param groups 导出分组，为空时取全部
+	 * @return 绑定
+	 */
+	public static <E> ExcelBinding<E> forExport(Class<E> cls, int type, int... groups) {
+		return of(cls, type, groups);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <E> ExcelBinding<E> of(Class<E> cls, int type, int... groups) {
+		Key key = new Key(cls, type, groups);
+		return (ExcelBinding<E>) CACHE.computeIfAbsent(key, k -> compile(cls, type, k.groups));
+	}
+
+	private static <E> ExcelBinding<E> compile(Class<E> cls, int type, int... groups) {
+		List<Object[]> annotations = new ArrayList<>();
+		for (Field f : cls.getDeclaredFields()) {
+			ExcelField ef = f.getAnnotation(ExcelField.class);
+			if (ef != null && (ef.type() == 0 || ef.type() == type) && inGroup(ef, groups)) {
+				annotations.add(new Object[]{ef, f});
+			}
+		}
+		for (Method m : cls.getDeclaredMethods()) {
+			ExcelField ef = m.getAnnotation(ExcelField.class);
+			if (ef != null && (ef.type() == 0 || ef.type() == type) && inGroup(ef, groups)) {
+				annotations.add(new Object[]{ef, m});
+			}
+		}
+		Collections.sort(annotations, Comparator.comparingInt(o -> ((ExcelField) o[0]).sort()));
+
+		List<Column> columns = new ArrayList<>();
+		for (Object[] os : annotations) {
+			columns.add(column(cls, (ExcelField) os[0], os[1]));
+		}
+		Constructor<E> constructor = null;
+		try {
+			constructor = cls.getDeclaredConstructor();
+			constructor.setAccessible(true);
+		} catch (NoSuchMethodException e) {
+			// 只用于导出的类可以没有无参构造函数，导入时 newRow 再报错
+		}
+		return new ExcelBinding<>(constructor, Collections.unmodifiableList(columns));
+	}
+
+	/**
+	 * @return 列数
+	 */
+	public int size() {
+		return columns.size();
+	}
+
+	/**
+	 * @param column 列号，从0开始
+	 * @return 列注解
+	 */
+	public ExcelField field(int column) {
+		return columns.get(column).ef;
+	}
+
+	/**
+	 * @return 新的行对象
+	 */
+	public E newRow() {
+		if (constructor == null) {
+			throw new IllegalStateException("缺少无参构造函数");
+		}
+		try {
+			return constructor.newInstance();
+		} catch (Exception e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * 写入一个单元格，转换失败时写入null
+	 * @param row 行对象
+	 * @param column 列号，从0开始
+	 * @param value 单元格的值，按文本转换
+	 */
+	public void set(E row, int column, Object value) {
+		if (column < 0 || column >= columns.size() || value == null) {
+			return;
+		}
+		Column c = columns.get(column);
+		Object val;
+		try {
+			val = c.converter.apply(value.toString());
+		} catch (Exception ex) {
+			log.info("Get cell value [" + column + "] error: " + ex.toString());
+			val = null;
+		}
+		try {
+			c.setter.invoke(row, val);
+		} catch (Throwable ex) {
+			log.warn("Set cell value [" + column + "] error: " + ex.toString());
+		}
+	}
+
+	/**
+	 * 读取一列的值
+	 * @param row 行对象
+	 * @param column 列号，从0开始
+	 * @return 值
+	 * @throws Exception 读取失败
+	 */
+	public Object get(E row, int column) throws Exception {
+		try {
+			return columns.get(column).getter.invoke(row);
+		} catch (Exception | Error e) {
+			throw e;
+		} catch (Throwable e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * 按 fieldtype 转换类把值转成单元格文本
+	 * @param val 值
+	 * @param fieldType 指定的转换类，Class.class 表示按值类型查找
+	 * @return 文本
+	 * @throws Exception 找不到转换类或转换失败
+	 */
+	public static String format(Object val, Class<?> fieldType) throws Exception {
+		Class<?> type = fieldType != Class.class ? fieldType : fieldType(val.getClass())
+				.orElseThrow(() -> new ClassNotFoundException(val.getClass().getSimpleName() + "Type"));
+		return (String) fieldTypeMethods(type)[1].invoke(null, val);
+	}
+
+	private static boolean inGroup(ExcelField ef, int... groups) {
+		if (groups == null || groups.length == 0) {
+			return true;
+		}
+		for (int g : groups) {
+			for (int efg : ef.groups()) {
+				if (g == efg) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	private static Column column(Class<?> cls, ExcelField ef, Object member) {
+		Class<?> valType = Class.class;
+		String name;
+		if (member instanceof Field) {
+			valType = ((Field) member).getType();
+			name = ((Field) member).getName();
+		} else {
+			Method method = (Method) member;
+			name = StringUtils.uncapitalize(method.getName().substring(3));
+			if (method.getName().startsWith("get")) {
+				valType = method.getReturnType();
+			} else if (method.getName().startsWith("set")) {
+				valType = method.getParameterTypes()[0];
+			}
+		}
+		return new Column(ef, converter(ef, valType), setter(cls, member, name, valType), getter(cls, ef, member));
+	}
+
+	private static Function<String, Object> converter(ExcelField ef, Class<?> valType) {
+		if (valType == String.class) {
+			return s -> StringUtils.endsWith(s, ".0") ? StringUtils.substringBefore(s, ".0") : s;
+		}
+		if (valType == Integer.class) {
+			return s -> Double.valueOf(s).intValue();
+		}
+		if (valType == Long.class) {
+			return s -> Double.valueOf(s).longValue();
+		}
+		if (valType == Double.class) {
+			return Double::valueOf;
+		}
+		if (valType == Float.class) {
+			return Float::valueOf;
+		}
+		if (valType == java.util.Date.class) {
+			return s -> {
+				try {
+					return new SimpleDateFormat("yyyy-MM-dd").parse(s);
+				} catch (java.text.ParseException e) {
+					throw new IllegalArgumentException(e);
+				}
+			};
+		}
+		Optional<Class<?>> fieldType = ef.fieldType() != Class.class ? Optional.of(ef.fieldType()) : fieldType(valType);
+		Method getValue = fieldType.map(t -> fieldTypeMethods(t)[0]).orElse(null);
+		if (getValue == null) {
+			return s -> {
+				throw new IllegalArgumentException("不支持的类型：" + valType.getName());
+			};
+		}
+		return s -> {
+			try {
+				return getValue.invoke(null, s);
+			} catch (Exception e) {
+				throw new IllegalArgumentException(e);
+			}
+		};
+	}
+
+	/**
+	 * 优先使用setter，没有时直接写字段
+	 */
+	private static Invoker setter(Class<?> cls, Object member, String name, Class<?> valType) {
+		try {
+			MethodHandle mh = LOOKUP.unreflect(cls.getMethod("set" + StringUtils.capitalize(name), valType))
+					.asType(SETTER_TYPE);
+			return (target, val) -> {
+				mh.invokeExact(target, val);
+				return null;
+			};
+		} catch (NoSuchMethodException | IllegalAccessException e) {
+			if (member instanceof Field) {
+				Field field = (Field) member;
+				try {
+					field.setAccessible(true);
+					MethodHandle mh = LOOKUP.unreflectSetter(field).asType(SETTER_TYPE);
+					return (target, val) -> {
+						mh.invokeExact(target, val);
+						return null;
+					};
+				} catch (IllegalAccessException | RuntimeException ex) {
+					log.warn("Field [" + name + "] is not writable: " + ex.toString());
+				}
+			}
+			return (target, val) -> null;
+		}
+	}
+
+	/**
+	 * 取值方式与原 ExportExcel 相同：指定了 value 时按属性路径取 getter，字段取同名 getter，方法直接调用；
+	 * 无法预先解析时退回 Reflections 按名称调用
+	 */
+	private static Invoker getter(Class<?> cls, ExcelField ef, Object member) {
+		String path;
+		if (StringUtils.isNotBlank(ef.value())) {
+			path = ef.value();
+		} else if (member instanceof Field) {
+			path = ((Field) member).getName();
+		} else {
+			Method method = (Method) member;
+			if (method.getParameterCount() != 0) {
+				return (target, val) -> {
+					throw new IllegalArgumentException("不是取值方法：" + method.getName());
+				};
+			}
+			try {
+				method.setAccessible(true);
+				MethodHandle mh = LOOKUP.unreflect(method).asType(GETTER_TYPE);
+				return (target, val) -> (Object) mh.invokeExact(target);
+			} catch (IllegalAccessException | RuntimeException e) {
+				return (target, val) -> Reflections.invokeMethod(target, method.getName(), new Class<?>[]{}, new Object[]{});
+			}
+		}
+
+		MethodHandle chain = null;
+		Class<?> type = cls;
+		try {
+			for (String name : StringUtils.split(path, ".")) {
+				Method m = type.getMethod("get" + StringUtils.capitalize(name));
+				MethodHandle mh = LOOKUP.unreflect(m).asType(GETTER_TYPE);
+				chain = chain == null ? mh : MethodHandles.filterReturnValue(chain, mh);
+				type = m.getReturnType();
+			}
+		} catch (NoSuchMethodException | IllegalAccessException e) {
+			chain = null;
+		}
+		if (chain == null) {
+			return (target, val) -> Reflections.invokeGetter(target, path);
+		}
+		MethodHandle mh = chain;
+		return (target, val) -> (Object) mh.invokeExact(target);
+	}
+
+	private static Optional<Class<?>> fieldType(Class<?> valType) {
+		return FIELD_TYPES.computeIfAbsent(valType, t -> {
+			try {
+				return Optional.of(Class.forName(ExcelBinding.class.getPackage().getName() + ".fieldtype." + t.getSimpleName() + "Type"));
+			} catch (ClassNotFoundException e) {
+				return Optional.empty();
+			}
+		});
+	}
+
+	/**
+	 * @return {getValue(String), setValue(Object)}，不存在的方法为null
+	 */
+	private static Method[] fieldTypeMethods(Class<?> fieldType) {
+		return FIELD_TYPE_METHODS.computeIfAbsent(fieldType, t -> new Method[]{
+				findMethod(t, "getValue", String.class), findMethod(t, "setValue", Object.class)});
+	}
+
+	private static Method findMethod(Class<?> cls, String name, Class<?> param) {
+		try {
+			return cls.getMethod(name, param);
+		} catch (NoSuchMethodException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * 读写调用，读取时 val 不使用
+	 */
+	@FunctionalInterface
+	private interface Invoker {
+		Object invoke(Object target, Object val) throws Throwable;
+
+		default Object invoke(Object target) throws Throwable {
+			return invoke(target, null);
+		}
+	}
+
+	private static class Column {
+		private final ExcelField ef;
+		private final Function<String, Object> converter;
+		private final Invoker setter;
+		private final Invoker getter;
+
+		Column(ExcelField ef, Function<String, Object> converter, Invoker setter, Invoker getter) {
+			this.ef = ef;
+			this.converter = converter;
+			this.setter = setter;
+			this.getter = getter;
+		}
+	}
+
+	/**
+	 * 缓存键
+	 */
+	private static final class Key {
+		private final Class<?> cls;
+		private final int type;
+		private final int[] groups;
+
+		Key(Class<?> cls, int type, int[] groups) {
+			this.cls = cls;
+			this.type = type;
+			this.groups = groups == null ? new int[0] : groups.clone();
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof Key)) {
+				return false;
+			}
+			Key k = (Key) o;
+			return cls == k.cls && type == k.type && Arrays.equals(groups, k.groups);
+		}
+
+		@Override
+		public int hashCode() {
+			return (cls.hashCode() * 31 + type) * 31 + Arrays.hashCode(groups);
+		}
+	}
+}
@@ -4,7 +4,6 @@
 package com.yf.exam.core.utils.excel;
 
 import com.google.common.collect.Lists;
-import com.yf.exam.core.utils.Reflections;
 import com.yf.exam.core.utils.excel.annotation.ExcelField;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.poi.ss.usermodel.Cell;
@@ -26,11 +25,7 @@ import org.slf4j.LoggerFactory;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.io.OutputStream;
-import java.lang.reflect.Field;
-import java.lang.reflect.Method;
 import java.net.URLEncoder;
-import java.util.Collections;
-import java.util.Comparator;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
@@ -66,9 +61,9 @@ public class ExportExcel {
 	private int rownum;
 
 	/**
-	 * 注解列表（Object[]{ ExcelField, Field/Method }）
+	 * 列绑定，按类、导出类型和分组缓存
 	 */
-	List<Object[]> annotationList = Lists.newArrayList();
+	private ExcelBinding<Object> binding;
 
 	/**
 	 * 构造函数
@@ -86,67 +81,13 @@ public class ExportExcel {
 	 * @param type 导出类型（1:导出数据；2：导出模板）
 	 * @param groups 导入分组
 	 */
+	@SuppressWarnings("unchecked")
 	public ExportExcel(String title, Class<?> cls, int type, int... groups){
-		// Get annotation field
-		Field[] fs = cls.getDeclaredFields();
-		for (Field f : fs){
-			ExcelField ef = f.getAnnotation(ExcelField.class);
-			if (ef != null && (ef.type()==0 || ef.type()==type)){
-				if (groups!=null && groups.length>0){
-					boolean inGroup = false;
-					for (int g : groups){
-						if (inGroup){
-							break;
-						}
-						for (int efg : ef.groups()){
-							if (g == efg){
-								inGroup = true;
-								annotationList.add(new Object[]{ef, f});
-								break;
-							}
-						}
-					}
-				}else{
-					annotationList.add(new Object[]{ef, f});
-				}
-			}
-		}
-		// Get annotation method
-		Method[] ms = cls.getDeclaredMethods();
-		for (Method m : ms){
-			ExcelField ef = m.getAnnotation(ExcelField.class);
-			if (ef != null && (ef.type()==0 || ef.type()==type)){
-				if (groups!=null && groups.length>0){
-					boolean inGroup = false;
-					for (int g : groups){
-						if (inGroup){
-							break;
-						}
-						for (int efg : ef.groups()){
-							if (g == efg){
-								inGroup = true;
-								annotationList.add(new Object[]{ef, m});
-								break;
-							}
-						}
-					}
-				}else{
-					annotationList.add(new Object[]{ef, m});
-				}
-			}
-		}
-		// Field sorting
-		Collections.sort(annotationList, new Comparator<Object[]>() {
-			@Override
-			public int compare(Object[] o1, Object[] o2) {
-				return new Integer(((ExcelField)o1[0]).sort()).compareTo(
-						new Integer(((ExcelField)o2[0]).sort()));
-			}
-		});
+		this.binding = ExcelBinding.forExport((Class<Object>) cls, type, groups);
 		// Initialize
 		List<String> headerList = Lists.newArrayList();
-		for (Object[] os : annotationList){
-			String t = ((ExcelField)os[0]).title();
+		for (int i = 0; i < binding.size(); i++){
+			String t = binding.field(i).title();
 			// 如果是导出，则去掉注释
 			if (type==1){
 				String[] ss = StringUtils.split(t, "**", 2);
@@ -165,6 +106,8 @@ public class ExportExcel {
 	 */
 	private void initialize(String title, List<String> headerList) {
 		this.wb = new SXSSFWorkbook(500);
+		// 刷出窗口的行写入压缩的临时文件，整库导出时磁盘占用也可控
+		this.wb.setCompressTempFiles(true);
 		this.sheet = wb.createSheet("Export");
 		this.styles = createStyles(wb);
 		// Create title
@@ -320,12 +263,7 @@ public class ExportExcel {
 	            style.setDataFormat(format.getFormat("yyyy-MM-dd"));
 				cell.setCellValue((Date) val);
 			} else {
-				if (fieldType != Class.class){
-					cell.setCellValue((String)fieldType.getMethod("setValue", Object.class).invoke(null, val));
-				}else{
-					cell.setCellValue((String)Class.forName(this.getClass().getName().replaceAll(this.getClass().getSimpleName(),
-						"fieldtype."+val.getClass().getSimpleName()+"Type")).getMethod("setValue", Object.class).invoke(null, val));
-				}
+				cell.setCellValue(ExcelBinding.format(val, fieldType));
 			}
 		} catch (Exception ex) {
 			log.info("Set cell value ["+row.getRowNum()+","+column+"] error: " + ex.toString());
@@ -341,29 +279,34 @@ public class ExportExcel {
 	 */
 	public <E> ExportExcel setDataList(List<E> list){
 		for (E e : list){
-			int colunm = 0;
-			Row row = this.addRow();
-			StringBuilder sb = new StringBuilder();
-			for (Object[] os : annotationList){
-				ExcelField ef = (ExcelField)os[0];
-				Object val = null;
-				try{
-					if (StringUtils.isNotBlank(ef.value())){
-						val = Reflections.invokeGetter(e, ef.value());
-					}else{
-						if (os[1] instanceof Field){
-							val = Reflections.invokeGetter(e, ((Field)os[1]).getName());
-						}else if (os[1] instanceof Method){
-							val = Reflections.invokeMethod(e, ((Method)os[1]).getName(), new Class[] {}, new Object[] {});
-						}
-					}
-				}catch(Exception ex) {
-					log.info(ex.toString());
-					val = "";
-				}
-				this.addCell(row, colunm++, val, ef.align(), ef.fieldType());
+			this.addData(e);
+		}
+		return this;
+	}
+
+	/**
+	 * 添加一行数据，超出行窗口的行随即刷到临时文件，可配合游标逐行导出
+	 * @param e 数据对象
+	 */
+	public ExportExcel addData(Object e){
+		int colunm = 0;
+		Row row = this.addRow();
+		StringBuilder sb = log.isDebugEnabled() ? new StringBuilder() : null;
+		for (int i = 0; i < binding.size(); i++){
+			ExcelField ef = binding.field(i);
+			Object val;
+			try{
+				val = binding.get(e, i);
+			}catch(Exception ex) {
+				log.info(ex.toString());
+				val = "";
+			}
+			this.addCell(row, colunm++, val, ef.align(), ef.fieldType());
+			if (sb != null){
 				sb.append(val + ", ");
 			}
+		}
+		if (sb != null){
 			log.debug("Write success: ["+row.getRowNum()+"] "+sb.toString());
 		}
 		return this;
@@ -0,0 +1,171 @@
+package com.yf.exam.core.utils.excel;
+
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.model.StylesTable;
+import org.xml.sax.InputSource;
+import org.xml.sax.XMLReader;
+
+import javax.xml.parsers.SAXParserFactory;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+
+/**
+ * 流式导入Excel文件（仅支持“XLSX”格式）
+ * 以只读方式打开文件，用SAX逐行解析工作表，每行通过 ExcelBinding 转换成对象后立即交给回调，
+ * 内存占用与行数无关，只有共享字符串表常驻内存。列号与 ImportExcel 相同，按 @ExcelField 的排序对应
+ * @author AI Assistant
+ * @date 2026-10-19
+ */
+public class StreamingImportExcel {
+
+	/**
+	 * 行回调
+	 */
+	@FunctionalInterface
+	public interface RowHandler<E> {
+
+		/**
+		 * 处理一行
+		 * @param rowNum Excel中的行号，从1开始
+		 * @param row 行对象
+		 * @throws Exception 异常会中止解析并由 read 抛出
+		 */
+		void handle(int rowNum, E row) throws Exception;
+	}
+
+	private StreamingImportExcel() {
+	}
+
+	/**
+	 * 逐行读取，空行跳过
+	 * @param file 导入文件
+	 * @param headerNum 标题行号，数据行号=标题行号+1
+	 * @param sheetIndex 工作表编号
+	 * @param cls 导入对象类型
+	 * @param handler 行回调
+	 * @return 读取的行数
+	 * @throws IOException 文件无法解析，或回调抛出的异常
+	 */
+	public static <E> int read(File file, int headerNum, int sheetIndex, Class<E> cls, RowHandler<E> handler)
+			throws IOException {
+		ExcelBinding<E> binding = ExcelBinding.forImport(cls);
+		OPCPackage pkg = null;
+		try {
+			pkg = OPCPackage.open(file.getPath(), PackageAccess.READ);
+			XSSFReader reader = new XSSFReader(pkg);
+			ReadOnlySharedStringsTable strings = new ReadOnlySharedStringsTable(pkg);
+			StylesTable styles = reader.getStylesTable();
+
+			Iterator<InputStream> sheets = reader.getSheetsData();
+			for (int i = 0; i < sheetIndex && sheets.hasNext(); i++) {
+				sheets.next().close();
+			}
+			if (!sheets.hasNext()) {
+				throw new RuntimeException("文档中没有工作表!");
+			}
+
+			Contents<E> contents = new Contents<>(binding, headerNum, handler);
+			SAXParserFactory factory = SAXParserFactory.newInstance();
+			factory.setNamespaceAware(true);
+			factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+			XMLReader parser = factory.newSAXParser().getXMLReader();
+			parser.setContentHandler(new XSSFSheetXMLHandler(styles, strings, contents, new DataFormatter(), false));
+			try (InputStream sheet = sheets.next()) {
+				parser.parse(new InputSource(sheet));
+			}
+			return contents.count;
+		} catch (HandlerException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			if (cause instanceof IOException) {
+				throw (IOException) cause;
+			}
+			throw new IOException(cause);
+		} catch (IOException | RuntimeException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new IOException("文档格式不正确!", e);
+		} finally {
+			if (pkg != null) {
+				pkg.revert();
+			}
+		}
+	}
+
+	/**
+	 * 把单元格写入当前行对象，行结束时回调
+	 */
+	private static class Contents<E> implements XSSFSheetXMLHandler.SheetContentsHandler {
+
+		private final ExcelBinding<E> binding;
+		private final int headerNum;
+		private final RowHandler<E> handler;
+
+		private int rowNum;
+		private E row;
+		private boolean blank;
+		private int count;
+
+		Contents(ExcelBinding<E> binding, int headerNum, RowHandler<E> handler) {
+			this.binding = binding;
+			this.headerNum = headerNum;
+			this.handler = handler;
+		}
+
+		@Override
+		public void startRow(int rowNum) {
+			this.rowNum = rowNum;
+			this.row = rowNum > headerNum ? binding.newRow() : null;
+			this.blank = true;
+		}
+
+		@Override
+		public void endRow() {
+			if (row == null || blank) {
+				return;
+			}
+			try {
+				handler.handle(rowNum + 1, row);
+			} catch (Exception e) {
+				throw new HandlerException(e);
+			}
+			count++;
+			row = null;
+		}
+
+		@Override
+		public void cell(String cellReference, String formattedValue) {
+			if (row == null || cellReference == null || formattedValue == null || formattedValue.isEmpty()) {
+				return;
+			}
+			blank = false;
+			binding.set(row, new CellReference(cellReference).getCol(), formattedValue);
+		}
+
+		@Override
+		public void headerFooter(String text, boolean isHeader, String tagName) {
+		}
+	}
+
+	/**
+	 * 包装回调中的异常，穿过SAX解析器后还原
+	 */
+	private static class HandlerException extends RuntimeException {
+
+		private static final long serialVersionUID = 1L;
+
+		HandlerException(Throwable cause) {
+			super(cause);
+		}
+	}
+}
@@ -0,0 +1,46 @@
+package com.yf.exam.modules.ai.controller;
+
+import com.yf.exam.core.api.ApiRest;
+import com.yf.exam.core.api.controller.BaseController;
+import com.yf.exam.modules.ai.dto.request.LlmUsageReqDTO;
+import com.yf.exam.modules.ai.dto.response.LlmUsageRollupDTO;
+import com.yf.exam.modules.ai.service.LlmUsageDailyService;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import org.apache.shiro.authz.annotation.RequiresRoles;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+* <p>
+* LLM用量统计控制器
+* </p>
+*
+* @author AI Assistant
+* @since 2026-10-19
+*/
+@Api(tags={"LLM用量统计"})
+@RestController
+@RequestMapping("/exam/api/ai/usage")
+public class LlmUsageController extends BaseController {
+
+    @Autowired
+    private LlmUsageDailyService baseService;
+
+    /**
+     * 按功能、考试、用户或日期汇总用量，用于定位开销最大的调用
+     * @param reqDTO
+     * @return
+     */
+    @RequiresRoles("sa")
+    @ApiOperation(value = "用量汇总")
+    @RequestMapping(value = "/rollup", method = { RequestMethod.POST})
+    public ApiRest<List<LlmUsageRollupDTO>> rollup(@RequestBody LlmUsageReqDTO reqDTO) {
+        return super.success(baseService.rollup(reqDTO));
+    }
+}
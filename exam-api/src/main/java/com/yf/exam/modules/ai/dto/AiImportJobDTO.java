@@ -0,0 +1,72 @@
+package com.yf.exam.modules.ai.dto;
+
+import com.alibaba.fastjson2.JSONArray;
+import io.swagger.annotations.ApiModel;
+import io.swagger.annotations.ApiModelProperty;
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.Date;
+
+/**
+* <p>
+* AI导入任务进度
+* </p>
+*
+* @author AI Assistant
+* @since 2026-10-19
+*/
+@Data
+@ApiModel(value="AI导入任务", description="AI导入任务")
+public class AiImportJobDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @ApiModelProperty(value = "任务ID", required=true)
+    private String id;
+
+    @ApiModelProperty(value = "原始文件名")
+    private String fileName;
+
+    @ApiModelProperty(value = "学科")
+    private String subject;
+
+    @ApiModelProperty(value = "年级")
+    private String grade;
+
+    @ApiModelProperty(value = "状态:0=排队中,1=处理中,2=已完成,3=失败,4=已取消", required=true)
+    private Integer state;
+
+    @ApiModelProperty(value = "当前阶段:EXTRACT/SPLIT/IDENTIFY/SAVE/DONE", required=true)
+    private String stage;
+
+    @ApiModelProperty(value = "当前阶段总量")
+    private Integer stageTotal;
+
+    @ApiModelProperty(value = "当前阶段已完成量")
+    private Integer stageDone;
+
+    @ApiModelProperty(value = "总体进度0-100", required=true)
+    private Integer progress;
+
+    @ApiModelProperty(value = "拆出的题目数")
+    private Integer totalCount;
+
+    @ApiModelProperty(value = "已入库题目数")
+    private Integer savedCount;
+
+    @ApiModelProperty(value = "结果或错误信息")
+    private String message;
+
+    @ApiModelProperty(value = "已拆出的题目（部分结果）")
+    private JSONArray questions;
+
+    @ApiModelProperty(value = "创建时间")
+    private Date createTime;
+
+    @ApiModelProperty(value = "更新时间")
+    private Date updateTime;
+
+    @ApiModelProperty(value = "结束时间")
+    private Date finishTime;
+}
@@ -0,0 +1,44 @@
+package com.yf.exam.modules.ai.dto.request;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import io.swagger.annotations.ApiModel;
+import io.swagger.annotations.ApiModelProperty;
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.Date;
+
+/**
+* <p>
+* LLM用量汇总查询条件
+* </p>
+*
+* @author AI Assistant
+* @since 2026-10-19
+*/
+@Data
+@ApiModel(value="LLM用量查询", description="LLM用量查询")
+public class LlmUsageReqDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @JsonFormat(timezone = "GMT+8", pattern = "yyyy-MM-dd")
+    @ApiModelProperty(value = "开始日期，默认最近7天")
+    private Date startDate;
+
+    @JsonFormat(timezone = "GMT+8", pattern = "yyyy-MM-dd")
+    @ApiModelProperty(value = "结束日期，默认今天")
+    private Date endDate;
+
+    @ApiModelProperty(value = "汇总维度:feature/exam/user/day，默认feature")
+    private String groupBy;
+
+    @ApiModelProperty(value = "调用功能")
+    private String feature;
+
+    @ApiModelProperty(value = "考试ID")
+    private String examId;
+
+    @ApiModelProperty(value = "用户ID")
+    private String userId;
+}
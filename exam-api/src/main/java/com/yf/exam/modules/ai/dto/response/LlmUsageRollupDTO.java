@@ -0,0 +1,52 @@
+package com.yf.exam.modules.ai.dto.response;
+
+import io.swagger.annotations.ApiModel;
+import io.swagger.annotations.ApiModelProperty;
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+* <p>
+* LLM用量汇总结果，按总token数倒序
+* </p>
+*
+* @author AI Assistant
+* @since 2026-10-19
+*/
+@Data
+@ApiModel(value="LLM用量汇总", description="LLM用量汇总")
+public class LlmUsageRollupDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @ApiModelProperty(value = "汇总维度的值：功能编码、考试ID、用户ID或日期")
+    private String dimension;
+
+    @ApiModelProperty(value = "调用次数")
+    private Long calls;
+
+    @ApiModelProperty(value = "失败次数")
+    private Long failures;
+
+    @ApiModelProperty(value = "输入token数")
+    private Long promptTokens;
+
+    @ApiModelProperty(value = "输出token数")
+    private Long completionTokens;
+
+    @ApiModelProperty(value = "总token数")
+    private Long totalTokens;
+
+    @ApiModelProperty(value = "token数为估算的调用次数")
+    private Long estimatedCalls;
+
+    @ApiModelProperty(value = "平均提示词字符数")
+    private Long avgPromptChars;
+
+    @ApiModelProperty(value = "平均耗时（毫秒）")
+    private Long avgLatencyMillis;
+
+    @ApiModelProperty(value = "最大耗时（毫秒）")
+    private Long maxLatencyMillis;
+}
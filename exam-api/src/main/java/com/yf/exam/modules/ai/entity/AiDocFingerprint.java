@@ -0,0 +1,100 @@
+package com.yf.exam.modules.ai.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import com.baomidou.mybatisplus.extension.activerecord.Model;
+import lombok.Data;
+
+import java.util.Date;
+
+/**
+* <p>
+* AI导入文档指纹实体类，按 文件内容SHA-256+学科+年级 保存抽取和拆题结果
+* </p>
+*
+* @author AI Assistant
+* @since 2026-10-19
+*/
+@Data
+@TableName("el_ai_doc_fingerprint")
+public class AiDocFingerprint extends Model<AiDocFingerprint> {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * ID
+     */
+    @TableId(value = "id", type = IdType.ASSIGN_ID)
+    private String id;
+
+    /**
+     * 文件内容SHA-256
+     */
+    @TableField("content_hash")
+    private String contentHash;
+
+    /**
+     * 学科，未指定时为空字符串
+     */
+    private String subject;
+
+    /**
+     * 年级，未指定时为空字符串
+     */
+    private String grade;
+
+    /**
+     * 首次上传的文件名
+     */
+    @TableField("file_name")
+    private String fileName;
+
+    /**
+     * 文件大小(字节)
+     */
+    @TableField("file_size")
+    private Long fileSize;
+
+    /**
+     * 文本/图片抽取结果
+     */
+    @TableField("extract_result")
+    private String extractResult;
+
+    /**
+     * 拆题及识别结果JSON
+     */
+    private String questions;
+
+    /**
+     * 题目数
+     */
+    @TableField("question_count")
+    private Integer questionCount;
+
+    /**
+     * 复用次数
+     */
+    @TableField("hit_count")
+    private Integer hitCount;
+
+    /**
+     * 最近复用时间
+     */
+    @TableField("last_hit_time")
+    private Date lastHitTime;
+
+    /**
+     * 创建时间
+     */
+    @TableField("create_time")
+    private Date createTime;
+
+    /**
+     * 更新时间
+     */
+    @TableField("update_time")
+    private Date updateTime;
+}
@@ -0,0 +1,144 @@
+package com.yf.exam.modules.ai.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import com.baomidou.mybatisplus.extension.activerecord.Model;
+import lombok.Data;
+
+import java.util.Date;
+
+/**
+* <p>
+* AI文档导入任务实体类
+* </p>
+*
+* @author AI Assistant
+* @since 2026-10-19
+*/
+@Data
+@TableName("el_ai_import_job")
+public class AiImportJob extends Model<AiImportJob> {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 任务ID
+     */
+    @TableId(value = "id", type = IdType.ASSIGN_ID)
+    private String id;
+
+    /**
+     * 创建人
+     */
+    @TableField("user_id")
+    private String userId;
+
+    /**
+     * 原始文件名
+     */
+    @TableField("file_name")
+    private String fileName;
+
+    /**
+     * 已保存的上传文件路径
+     */
+    @TableField("file_path")
+    private String filePath;
+
+    /**
+     * 学科
+     */
+    private String subject;
+
+    /**
+     * 年级
+     */
+    private String grade;
+
+    /**
+     * 文件内容SHA-256
+     */
+    @TableField("content_hash")
+    private String contentHash;
+
+    /**
+     * 是否强制重新解析，不复用已解析结果
+     */
+    @TableField("force_extract")
+    private Boolean forceExtract;
+
+    /**
+     * 状态
+     */
+    private Integer state;
+
+    /**
+     * 当前阶段
+     */
+    private String stage;
+
+    /**
+     * 当前阶段总量
+     */
+    @TableField("stage_total")
+    private Integer stageTotal;
+
+    /**
+     * 当前阶段已完成量
+     */
+    @TableField("stage_done")
+    private Integer stageDone;
+
+    /**
+     * 总体进度0-100
+     */
+    private Integer progress;
+
+    /**
+     * 拆出的题目数
+     */
+    @TableField("total_count")
+    private Integer totalCount;
+
+    /**
+     * 已入库题目数
+     */
+    @TableField("saved_count")
+    private Integer savedCount;
+
+    /**
+     * 文本/图片抽取结果
+     */
+    @TableField("extract_result")
+    private String extractResult;
+
+    /**
+     * 拆题及识别结果JSON
+     */
+    private String questions;
+
+    /**
+     * 结果或错误信息
+     */
+    private String message;
+
+    /**
+     * 创建时间
+     */
+    @TableField("create_time")
+    private Date createTime;
+
+    /**
+     * 更新时间
+     */
+    @TableField("update_time")
+    private Date updateTime;
+
+    /**
+     * 结束时间
+     */
+    @TableField("finish_time")
+    private Date finishTime;
+}
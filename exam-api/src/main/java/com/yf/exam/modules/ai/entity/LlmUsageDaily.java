@@ -0,0 +1,106 @@
+package com.yf.exam.modules.ai.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import com.baomidou.mybatisplus.extension.activerecord.Model;
+import lombok.Data;
+
+import java.util.Date;
+
+/**
+* <p>
+* LLM用量日汇总实体类，按 日期+功能+考试+用户 累计
+* </p>
+*
+* @author AI Assistant
+* @since 2026-10-19
+*/
+@Data
+@TableName("el_llm_usage_daily")
+public class LlmUsageDaily extends Model<LlmUsageDaily> {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * ID
+     */
+    @TableId(value = "id", type = IdType.ASSIGN_ID)
+    private String id;
+
+    /**
+     * 统计日期
+     */
+    @TableField("stat_date")
+    private Date statDate;
+
+    /**
+     * 调用功能
+     */
+    private String feature;
+
+    /**
+     * 考试ID，无则为空字符串
+     */
+    @TableField("exam_id")
+    private String examId;
+
+    /**
+     * 用户ID，无则为空字符串
+     */
+    @TableField("user_id")
+    private String userId;
+
+    /**
+     * 调用次数
+     */
+    private Long calls;
+
+    /**
+     * 失败次数（含熔断拒绝和排队超时）
+     */
+    private Long failures;
+
+    /**
+     * 输入token数
+     */
+    @TableField("prompt_tokens")
+    private Long promptTokens;
+
+    /**
+     * 输出token数
+     */
+    @TableField("completion_tokens")
+    private Long completionTokens;
+
+    /**
+     * 响应未返回usage、token数为估算的调用次数
+     */
+    @TableField("estimated_calls")
+    private Long estimatedCalls;
+
+    /**
+     * 提示词字符数
+     */
+    @TableField("prompt_chars")
+    private Long promptChars;
+
+    /**
+     * 累计耗时（毫秒，含排队）
+     */
+    @TableField("latency_millis")
+    private Long latencyMillis;
+
+    /**
+     * 最大耗时（毫秒）
+     */
+    @TableField("max_latency_millis")
+    private Long maxLatencyMillis;
+
+    /**
+     * 更新时间
+     */
+    @TableField("update_time")
+    private Date updateTime;
+}
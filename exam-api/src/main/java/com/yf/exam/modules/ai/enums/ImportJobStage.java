@@ -0,0 +1,35 @@
+package com.yf.exam.modules.ai.enums;
+
+
+/**
+ * AI导入任务阶段，按顺序执行
+ * @author AI Assistant
+ * @date 2026-10-19
+ */
+public interface ImportJobStage {
+
+    /**
+     * 文本/图片抽取（Python服务）
+     */
+    String EXTRACT = "EXTRACT";
+
+    /**
+     * 大模型拆题
+     */
+    String SPLIT = "SPLIT";
+
+    /**
+     * 逐题题干提取、知识点识别
+     */
+    String IDENTIFY = "IDENTIFY";
+
+    /**
+     * 逐题入库
+     */
+    String SAVE = "SAVE";
+
+    /**
+     * 全部完成
+     */
+    String DONE = "DONE";
+}
@@ -0,0 +1,35 @@
+package com.yf.exam.modules.ai.enums;
+
+
+/**
+ * AI导入任务状态
+ * @author AI Assistant
+ * @date 2026-10-19
+ */
+public interface ImportJobState {
+
+    /**
+     * 排队中
+     */
+    Integer PENDING = 0;
+
+    /**
+     * 处理中
+     */
+    Integer RUNNING = 1;
+
+    /**
+     * 已完成
+     */
+    Integer SUCCESS = 2;
+
+    /**
+     * 失败
+     */
+    Integer FAILED = 3;
+
+    /**
+     * 已取消
+     */
+    Integer CANCELED = 4;
+}
@@ -0,0 +1,30 @@
+package com.yf.exam.modules.ai.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.yf.exam.modules.ai.entity.AiDocFingerprint;
+import org.apache.ibatis.annotations.Param;
+
+/**
+* <p>
+* AI导入文档指纹Mapper
+* </p>
+*
+* @author AI Assistant
+* @since 2026-10-19
+*/
+public interface AiDocFingerprintMapper extends BaseMapper<AiDocFingerprint> {
+
+    /**
+     * 保存抽取结果，同一 内容+学科+年级 已存在时覆盖抽取结果并清空拆题结果
+     * @param item
+     * @return
+     */
+    int saveExtract(@Param("item") AiDocFingerprint item);
+
+    /**
+     * 复用次数加一
+     * @param id
+     * @return
+     */
+    int hit(@Param("id") String id);
+}
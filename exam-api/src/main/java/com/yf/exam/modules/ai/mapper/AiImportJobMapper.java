@@ -0,0 +1,16 @@
+package com.yf.exam.modules.ai.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.yf.exam.modules.ai.entity.AiImportJob;
+
+/**
+* <p>
+* AI导入任务Mapper
+* </p>
+*
+* @author AI Assistant
+* @since 2026-10-19
+*/
+public interface AiImportJobMapper extends BaseMapper<AiImportJob> {
+
+}
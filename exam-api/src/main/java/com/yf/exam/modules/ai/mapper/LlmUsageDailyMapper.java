@@ -0,0 +1,34 @@
+package com.yf.exam.modules.ai.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.yf.exam.modules.ai.dto.request.LlmUsageReqDTO;
+import com.yf.exam.modules.ai.dto.response.LlmUsageRollupDTO;
+import com.yf.exam.modules.ai.entity.LlmUsageDaily;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
+
+/**
+* <p>
+* LLM用量日汇总Mapper
+* </p>
+*
+* @author AI Assistant
+* @since 2026-10-19
+*/
+public interface LlmUsageDailyMapper extends BaseMapper<LlmUsageDaily> {
+
+    /**
+     * 累加一条用量，同一 日期+功能+考试+用户 已存在时合并
+     * @param item
+     * @return
+     */
+    int accumulate(@Param("item") LlmUsageDaily item);
+
+    /**
+     * 按维度汇总用量
+     * @param query
+     * @return
+     */
+    List<LlmUsageRollupDTO> rollup(@Param("query") LlmUsageReqDTO query);
+}
@@ -3,14 +3,34 @@ package com.yf.exam.modules.ai.service;
 import com.alibaba.fastjson2.JSON;
 import com.alibaba.fastjson2.JSONArray;
 import com.alibaba.fastjson2.JSONObject;
+import com.yf.exam.ability.ai.breaker.LlmCircuitBreaker;
+import com.yf.exam.ability.ai.config.AIConfig;
+import com.yf.exam.ability.ai.breaker.LlmCircuitOpenException;
+import com.yf.exam.ability.ai.image.LlmImagePreparer;
+import com.yf.exam.ability.ai.index.OutlineVectorIndex;
+import com.yf.exam.ability.ai.pool.LlmEndpointPool;
+import com.yf.exam.ability.ai.scheduler.LlmQueueTimeoutException;
+import com.yf.exam.ability.ai.scheduler.LlmScheduler;
+import com.yf.exam.ability.ai.usage.LlmFeature;
+import com.yf.exam.ability.ai.usage.LlmUsageRecorder;
+import com.yf.exam.ability.ai.utils.LlmJson;
+import com.yf.exam.ability.ai.utils.OverallTestStats;
+import com.yf.exam.ability.ai.utils.StemExtractor;
 import com.yf.exam.config.PromptConfig;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.http.*;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.RequestCallback;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestTemplate;
 import com.yf.exam.modules.outline.service.KnowledgeOutlineService;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.*;
 import java.util.Arrays;
@@ -29,9 +49,38 @@ public class AIProcessingService {
     
     @Autowired
     private KnowledgeOutlineService knowledgeOutlineService;
-    
-    // Qwen3-32B API配置
 
+    @Autowired
+    private LlmCircuitBreaker circuitBreaker;
+
+    @Autowired
+    @Qualifier("streamingRestTemplate")
+    private RestTemplate streamingRestTemplate;
+
+    @Autowired
+    private LlmImagePreparer imagePreparer;
+
+    @Autowired
+    private LlmScheduler llmScheduler;
+
+    @Autowired
+    private LlmUsageRecorder usageRecorder;
+
+    // Qwen3-32B 节点地址和模型名见 conf.ai.pool
+    @Autowired
+    private LlmEndpointPool endpointPool;
+
+    @Autowired
+    private AIConfig aiConfig;
+
+    @Autowired
+    private OutlineVectorIndex outlineIndex;
+
+    // 多模态请求体片段
+    private static final byte[] IMAGE_PART_OPEN =
+            ",{\"type\":\"image_url\",\"image_url\":{\"url\":\"".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] IMAGE_PART_CLOSE = "\"}}".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] REQUEST_CLOSE = "]}]}".getBytes(StandardCharsets.UTF_8);
 
     /**
      * 题目提取 - 从文档中提取题目
@@ -101,7 +150,11 @@ public class AIProcessingService {
             }
             
             // 解析结构分析结果
-            JSONObject structure = JSON.parseObject(structureAnalysis);
+            JSONObject structure = LlmJson.parseObject(structureAnalysis).getValue();
+            if (structure == null) {
+                logger.warn("⚠️ 文档结构分析结果无法解析，回退到传统提取方法");
+                return extractQuestions(content);
+            }
             String documentType = structure.getString("documentType");
             double confidence = structure.getDoubleValue("confidence");
             
@@ -144,8 +197,8 @@ public class AIProcessingService {
             
             String quickAnalysis = callQwen3API(structurePrompt);
             
-            if (quickAnalysis != null) {
-                JSONObject structure = JSON.parseObject(quickAnalysis);
+            JSONObject structure = LlmJson.parseObject(quickAnalysis).getValue();
+            if (structure != null) {
                 String documentType = structure.getString("documentType");
                 
                 if ("separated".equals(documentType)) {
@@ -296,15 +349,17 @@ public class AIProcessingService {
             logger.debug("📋 验证数据前200字符: {}", 
                 extractionResult.length() > 200 ? extractionResult.substring(0, 200) + "..." : extractionResult);
             
-            JSONArray questions;
-            try {
-                questions = JSON.parseArray(extractionResult);
-            } catch (Exception jsonException) {
-                logger.error("❌ JSON解析失败: {}", jsonException.getMessage());
+            LlmJson.Result<JSONArray> parsed = LlmJson.parseArray(extractionResult);
+            JSONArray questions = parsed.getValue();
+            if (questions == null) {
+                logger.error("❌ JSON解析失败: {}", parsed.getError());
                 logger.error("❌ 无法解析的数据前500字符: {}", 
                     extractionResult.length() > 500 ? extractionResult.substring(0, 500) + "..." : extractionResult);
                 return false;
             }
+            if (parsed.isRepaired()) {
+                logger.info("🔧 提取结果已修复: {}", parsed.summary());
+            }
             
             if (questions == null || questions.isEmpty()) {
                 logger.warn("❌ 提取结果为空");
@@ -402,7 +457,7 @@ public class AIProcessingService {
     public String selectQuestions(Map<String, Object> request) {
         try {
             String prompt = buildSelectionPrompt(request);
-            return callQwen3API(prompt);
+            return callQwen3API(prompt, LlmFeature.SELECTION);
         } catch (Exception e) {
             logger.error("题目选择失败", e);
             return null;
@@ -415,7 +470,7 @@ public class AIProcessingService {
     public String selectLightweightQuestions(Map<String, Object> request) {
         try {
             String prompt = buildLightweightSelectionPrompt(request);
-            return callQwen3API(prompt);
+            return callQwen3API(prompt, LlmFeature.SELECTION);
         } catch (Exception e) {
             logger.error("轻量级题目选择失败", e);
             return null;
@@ -423,12 +478,21 @@ public class AIProcessingService {
     }
 
     /**
-     * 题干提取
+     * 题干提取：先按常见版式本地提取，置信度不足时再调用大模型
      */
     public String extractStem(String questionContent) {
+        AIConfig.Stem conf = aiConfig.getStem();
+        if (conf.isEnabled()) {
+            StemExtractor.Result local = StemExtractor.extract(questionContent, conf.getMaxLength());
+            if (local.getConfidence() >= conf.getMinConfidence()) {
+                logger.debug("📝 本地题干提取: {}", local.summary());
+                return local.getStem();
+            }
+            logger.info("📝 本地题干提取置信度不足，交由AI处理: {}", local.summary());
+        }
         try {
             String prompt = PromptConfig.STEM_EXTRACTION_PROMPT + "\n\n题目内容：\n" + questionContent;
-            return callQwen3API(prompt);
+            return callQwen3API(prompt, LlmFeature.STEM);
         } catch (Exception e) {
             logger.error("题干提取失败", e);
             return null;
@@ -444,7 +508,7 @@ public class AIProcessingService {
             String prompt = PromptConfig.KNOWLEDGE_POINT_PROMPT + "\n\n题目内容：\n" + questionContent;
             logger.info("📝 知识点识别提示词: {}", prompt.length() > 200 ? prompt.substring(0, 200) + "..." : prompt);
             
-            String result = callQwen3API(prompt);
+            String result = callQwen3API(prompt, LlmFeature.KNOWLEDGE);
             
             if (result != null) {
                 logger.info("✅ 知识点识别AI响应成功，内容长度: {}", result.length());
@@ -466,16 +530,30 @@ public class AIProcessingService {
     public String identifyKnowledgeWithConstraints(String questionContent, String subject, String grade) {
         try {
             logger.info("🎯 开始约束知识点识别，学科: {}, 年级: {}", subject, grade);
-            
-            // 获取该学科年级的所有知识点作为约束
-            List<String> validKnowledgePoints = getValidKnowledgePoints(subject, grade);
+
+            // 相似度明显领先且为单一知识点时直接返回，否则只把相似的候选交给大模型
+            List<OutlineVectorIndex.Match> candidates = outlineIndex.shortlist(questionContent, subject, grade);
+            OutlineVectorIndex.Match local = outlineIndex.confident(candidates);
+            if (local != null && local.getOutline().getKnowledgePoint().trim().split("\\s+").length == 1) {
+                logger.info("✅ 本地知识点识别: {}, 相似度 {}", local.getOutline().getKnowledgePoint(),
+                        String.format("%.2f", local.getScore()));
+                return local.getOutline().getKnowledgePoint().trim();
+            }
+            List<String> validKnowledgePoints = candidates.isEmpty()
+                    ? getValidKnowledgePoints(subject, grade)
+                    : candidates.stream()
+                        .map(match -> match.getOutline().getKnowledgePoint())
+                        .filter(kp -> kp != null && !kp.trim().isEmpty())
+                        .flatMap(kp -> Arrays.stream(kp.trim().split("\\s+")))
+                        .distinct()
+                        .collect(Collectors.toList());
             
             String prompt = PromptConfig.KNOWLEDGE_POINT_PROMPT 
                 + "\n\n【重要约束】：知识点必须从以下列表中选择，不能自创：\n"
                 + String.join("、", validKnowledgePoints)
                 + "\n\n题目内容：\n" + questionContent;
             
-            String result = callQwen3API(prompt);
+            String result = callQwen3API(prompt, LlmFeature.KNOWLEDGE);
             
             if (result != null) {
                 logger.info("✅ 约束知识点识别成功: {}", result);
@@ -497,7 +575,7 @@ public class AIProcessingService {
     public String judgeShortAnswer(Map<String, Object> request) {
         try {
             String prompt = buildShortAnswerJudgePrompt(request);
-            return callQwen3API(prompt);
+            return callQwen3API(prompt, LlmFeature.JUDGE);
         } catch (Exception e) {
             logger.error("简答题判分失败", e);
             return null;
@@ -505,25 +583,106 @@ public class AIProcessingService {
     }
 
     /**
-     * 整体测试判分
+     * 简答题批量判分：同一题目的多份答案一次评分
+     * @param questionContent 题目内容
+     * @param standardAnswer 标准答案
+     * @param knowledgePoint 知识点
+     * @param maxScore 满分
+     * @param answers 学生答案
+     * @return LLM返回的JSON数组文本，失败返回null
+     */
+    public String judgeShortAnswerBatch(String questionContent, String standardAnswer, String knowledgePoint,
+                                        double maxScore, List<String> answers) {
+        try {
+            String prompt = PromptConfig.buildBatchGradingPrompt(questionContent, standardAnswer,
+                    knowledgePoint, maxScore, answers);
+            return callQwen3API(prompt, LlmFeature.JUDGE_BATCH);
+        } catch (Exception e) {
+            logger.error("简答题批量判分失败", e);
+            return null;
+        }
+    }
+
+    /**
+     * 整体测试判分：得分和正确率在本地统计，只把统计摘要交给大模型撰写评价；
+     * 大模型不可用时仍返回统计结果和按统计生成的评价
      */
     public String judgeOverallTest(Map<String, Object> request) {
+        JSONObject statistics;
         try {
-            String prompt = buildOverallTestJudgePrompt(request);
-            return callQwen3API(prompt);
+            JSONArray answers = JSON.parseArray(JSON.toJSONString(request.get("answers")));
+            if (answers == null || answers.isEmpty()) {
+                return null;
+            }
+            statistics = OverallTestStats.aggregate(answers);
         } catch (Exception e) {
-            logger.error("整体测试判分失败", e);
+            logger.error("整体测试统计失败", e);
             return null;
         }
+
+        String content = null;
+        try {
+            String prompt = buildOverallTestJudgePrompt(statistics);
+            content = callQwen3API(prompt, LlmFeature.OVERALL_ANALYSIS);
+        } catch (Exception e) {
+            logger.error("整体测试AI评价失败，仅返回统计结果", e);
+        }
+        return mergeOverallAnalysis(statistics, content).toJSONString();
+    }
+
+    /**
+     * 合并本地统计和大模型评价，分数以本地统计为准
+     */
+    private JSONObject mergeOverallAnalysis(JSONObject statistics, String content) {
+        JSONObject narrative = content == null ? null : LlmJson.parseObject(content).getValue();
+        boolean ai = narrative != null && narrative.getString("overallFeedback") != null;
+        if (narrative == null) {
+            narrative = new JSONObject();
+        }
+
+        List<String> weak = statistics.getList("weakKnowledgePoints", String.class);
+        List<String> strong = statistics.getList("strongKnowledgePoints", String.class);
+        JSONObject result = new JSONObject();
+        result.put("overallScore", statistics.getDouble("overallScore"));
+        result.put("overallFeedback", ai ? narrative.getString("overallFeedback")
+                : String.format("共%d题，答对%d题，得分率%.1f%%。", statistics.getIntValue("questionCount"),
+                        statistics.getIntValue("correctCount"), statistics.getDoubleValue("overallScore")));
+        result.put("strengthAreas", narrative.containsKey("strengthAreas") ? narrative.get("strengthAreas") : strong);
+        result.put("weaknessAreas", narrative.containsKey("weaknessAreas") ? narrative.get("weaknessAreas") : weak);
+        if (narrative.containsKey("studyRecommendations")) {
+            result.put("studyRecommendations", narrative.get("studyRecommendations"));
+        } else {
+            List<String> recommendations = new ArrayList<>();
+            for (String point : weak) {
+                recommendations.add("加强「" + point + "」的练习");
+            }
+            result.put("studyRecommendations", recommendations);
+        }
+        result.put("aiFeedback", ai);
+        result.put("statistics", statistics);
+        return result;
     }
 
     /**
-     * 大纲识别
+     * 大纲识别：相似度明显领先时直接返回本地结果，否则把相似的候选大纲交给大模型选择
      */
     public String identifyOutline(Map<String, Object> request) {
         try {
-            String prompt = buildOutlineIdentificationPrompt(request);
-            return callQwen3API(prompt);
+            List<OutlineVectorIndex.Match> candidates = outlineIndex.shortlist((String) request.get("questionContent"),
+                    (String) request.get("subject"), (String) request.get("grade"));
+            OutlineVectorIndex.Match local = outlineIndex.confident(candidates);
+            if (local != null) {
+                double second = candidates.size() > 1 ? candidates.get(1).getScore() : 0;
+                JSONObject result = new JSONObject();
+                result.put("outlineId", local.getOutline().getId());
+                result.put("knowledgePoint", local.getOutline().getKnowledgePoint());
+                result.put("confidence", Math.round(local.getScore() * 100) / 100.0);
+                result.put("reason", String.format("本地相似度匹配：%.2f，领先第二名 %.2f", local.getScore(), local.getScore() - second));
+                logger.info("✅ 本地大纲识别: {}", result);
+                return result.toJSONString();
+            }
+            String prompt = buildOutlineIdentificationPrompt(request, candidates);
+            return callQwen3API(prompt, LlmFeature.OUTLINE);
         } catch (Exception e) {
             logger.error("大纲识别失败", e);
             return null;
@@ -535,7 +694,7 @@ public class AIProcessingService {
      */
     public String extractOutlineStructure(String prompt) {
         try {
-            return callQwen3API(prompt);
+            return callQwen3API(prompt, LlmFeature.OUTLINE_IMPORT);
         } catch (Exception e) {
             logger.error("知识大纲结构提取失败", e);
             return null;
@@ -556,7 +715,7 @@ public class AIProcessingService {
                     + "\n注意：提取的知识点必须从上述列表中选择，不能自创新的知识点。";
             }
             
-            return callQwen3API(constrainedPrompt);
+            return callQwen3API(constrainedPrompt, LlmFeature.OUTLINE_IMPORT);
         } catch (Exception e) {
             logger.error("知识大纲结构提取失败", e);
             return null;
@@ -589,80 +748,82 @@ public class AIProcessingService {
      * @return AI响应内容
      */
     private String callQwen3APIWithImages(String prompt, List<String> images) {
+        LlmUsageRecorder.Call usage = usageRecorder.start(LlmFeature.EXTRACTION, prompt);
         try {
-            logger.info("🚀 调用Qwen3多模态API: {}", QWEN3_API_URL);
-            logger.info("🔍 使用模型: {}, 图片数量: {}", MODEL_NAME, images.size());
-            
-            JSONObject requestBody = new JSONObject();
-            requestBody.put("model", MODEL_NAME);
-            
-            JSONArray messages = new JSONArray();
-            JSONObject message = new JSONObject();
-            message.put("role", "user");
-            
-            // 构建多模态内容
-            JSONArray contentArray = new JSONArray();
-            
-            // 添加文字内容
-            JSONObject textContent = new JSONObject();
-            textContent.put("type", "text");
-            textContent.put("text", prompt);
-            contentArray.add(textContent);
-            
-            // 添加图片内容
+            String model = endpointPool.getModel();
+            logger.info("🚀 调用Qwen3多模态API");
+            logger.info("🔍 使用模型: {}, 图片数量: {}", model, images.size());
+
+            // 按片段拼接请求体：图片经缩放压缩后以字节形式直接写入连接，不构建完整的JSON字符串
+            List<byte[]> parts = new ArrayList<>();
+            parts.add(("{\"model\":" + JSON.toJSONString(model)
+                    + ",\"max_tokens\":32768,\"temperature\":0.1"
+                    + ",\"messages\":[{\"role\":\"user\",\"content\":[{\"type\":\"text\",\"text\":"
+                    + JSON.toJSONString(prompt) + "}").getBytes(StandardCharsets.UTF_8));
             for (String imageData : images) {
-                JSONObject imageContent = new JSONObject();
-                imageContent.put("type", "image_url");
-                JSONObject imageUrl = new JSONObject();
-                
-                // 判断是base64还是URL
-                if (imageData.startsWith("data:image") || imageData.startsWith("http")) {
-                    imageUrl.put("url", imageData);
-                } else {
-                    // 假设是base64编码，添加前缀
-                    imageUrl.put("url", "data:image/jpeg;base64," + imageData);
-                }
-                
-                imageContent.put("image_url", imageUrl);
-                contentArray.add(imageContent);
+                parts.add(IMAGE_PART_OPEN);
+                parts.add(imagePreparer.prepare(imageData));
+                parts.add(IMAGE_PART_CLOSE);
             }
-            
-            message.put("content", contentArray);
-            messages.add(message);
-            
-            requestBody.put("messages", messages);
-            requestBody.put("max_tokens", 32768);
-            requestBody.put("temperature", 0.1);
+            parts.add(REQUEST_CLOSE);
 
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-          
-            HttpEntity<String> entity = new HttpEntity<>(requestBody.toString(), headers);
+            long contentLength = 0;
+            for (byte[] part : parts) {
+                contentLength += part.length;
+            }
+            final long length = contentLength;
+            RequestCallback callback = request -> {
+                request.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+                request.getHeaders().setContentLength(length);
+                OutputStream out = request.getBody();
+                for (byte[] part : parts) {
+                    out.write(part);
+                }
+            };
 
-            logger.info("📤 发送多模态请求到: {}", QWEN3_API_URL);
-            logger.debug("📤 请求参数: {}", requestBody.toString());
-            
-            ResponseEntity<String> response = restTemplate.postForEntity(QWEN3_API_URL, entity, String.class);
+            logger.info("📤 发送多模态请求, 请求体 {}KB", length / 1024);
+
+            ResponseEntity<String> response = withBreaker(LlmFeature.EXTRACTION, url -> streamingRestTemplate.execute(url,
+                    HttpMethod.POST, callback, streamingRestTemplate.<String>responseEntityExtractor(String.class)));
             
-            return parseQwen3Response(response);
+            return parseQwen3Response(response, usage);
             
+        } catch (LlmCircuitOpenException e) {
+            logger.warn("⚡ AI服务熔断中，跳过多模态调用");
+            usage.fail(LlmUsageRecorder.OUTCOME_REJECTED);
+            throw e;
+        } catch (LlmQueueTimeoutException e) {
+            usage.fail(LlmUsageRecorder.OUTCOME_TIMEOUT);
+            throw e;
         } catch (Exception e) {
             logger.error("❌ Qwen3多模态API调用异常: {} - {}", e.getClass().getSimpleName(), e.getMessage());
             logger.error("详细错误: ", e);
             throw new RuntimeException("多模态AI服务调用失败: " + e.getMessage());
+        } finally {
+            usage.finish();
         }
     }
 
     /**
-     * 调用Qwen3-32B API
+     * 调用Qwen3-32B API（文档拆题）
      */
     private String callQwen3API(String prompt) {
+        return callQwen3API(prompt, LlmFeature.EXTRACTION);
+    }
+
+    /**
+     * 调用Qwen3-32B API
+     * @param prompt 提示词
+     * @param feature 调用功能，决定用量统计归属和默认调度优先级（当前线程指定了优先级时以线程为准）
+     */
+    private String callQwen3API(String prompt, LlmFeature feature) {
+        LlmUsageRecorder.Call usage = usageRecorder.start(feature, prompt);
         try {
-            logger.info("🚀 调用Qwen3 API: {}", QWEN3_API_URL);
-            logger.info("🔍 使用模型: {}", MODEL_NAME);
+            logger.info("🚀 调用Qwen3 API: {}", feature.getCode());
+            logger.info("🔍 使用模型: {}", endpointPool.getModel());
             
             JSONObject requestBody = new JSONObject();
-            requestBody.put("model", MODEL_NAME);
+            requestBody.put("model", endpointPool.getModel());
             
             JSONArray messages = new JSONArray();
             JSONObject message = new JSONObject();
@@ -679,15 +840,21 @@ public class AIProcessingService {
             headers.set("Authorization", "Bearer EMPTY");
             HttpEntity<String> entity = new HttpEntity<>(requestBody.toString(), headers);
 
-            logger.info("📤 发送请求到: {}", QWEN3_API_URL);
             logger.debug("📤 请求参数: {}", requestBody.toString());
             
-            ResponseEntity<String> response = restTemplate.postForEntity(QWEN3_API_URL, entity, String.class);
+            ResponseEntity<String> response = postWithBreaker(entity, feature);
             
-            return parseQwen3Response(response);
+            return parseQwen3Response(response, usage);
             
+        } catch (LlmCircuitOpenException e) {
+            logger.warn("⚡ AI服务熔断中，跳过调用");
+            usage.fail(LlmUsageRecorder.OUTCOME_REJECTED);
+            throw e;
+        } catch (LlmQueueTimeoutException e) {
+            usage.fail(LlmUsageRecorder.OUTCOME_TIMEOUT);
+            throw e;
         } catch (org.springframework.web.client.ResourceAccessException e) {
-            logger.error("❌ 无法连接到AI服务器: {}", QWEN3_API_URL);
+            logger.error("❌ 无法连接到AI服务器");
             logger.error("连接错误: {}", e.getMessage());
             
             // 检查是否是超时错误
@@ -710,15 +877,58 @@ public class AIProcessingService {
             } else {
                 throw new RuntimeException("AI服务调用失败: " + e.getMessage());
             }
+        } finally {
+            usage.finish();
+        }
+    }
+
+    /**
+     * 经熔断器发送请求：熔断中直接拒绝，连接失败/超时/5xx计为失败，其余HTTP错误不计入统计
+     * @param entity 请求体
+     * @param feature 调用功能
+     * @return HTTP响应
+     */
+    private ResponseEntity<String> postWithBreaker(HttpEntity<String> entity, LlmFeature feature) {
+        return withBreaker(feature, url -> restTemplate.postForEntity(url, entity, String.class));
+    }
+
+    /**
+     * 经调度器排队、熔断器放行后由节点池选择节点执行一次LLM请求，熔断中的请求不进入排队；
+     * 对冲发出的副本不另占调度名额，也不单独计入熔断统计
+     * @param feature 调用功能，决定默认调度优先级和是否对冲
+     * @param call 按节点地址发送请求
+     * @return HTTP响应
+     */
+    private ResponseEntity<String> withBreaker(LlmFeature feature, Function<String, ResponseEntity<String>> call) {
+        if (!circuitBreaker.isCallPermitted()) {
+            throw new LlmCircuitOpenException();
         }
+        return llmScheduler.execute(feature.getPriority(), () -> {
+            if (!circuitBreaker.tryAcquire()) {
+                throw new LlmCircuitOpenException();
+            }
+            long start = System.currentTimeMillis();
+            try {
+                ResponseEntity<String> response = endpointPool.execute(feature, call);
+                circuitBreaker.onSuccess(System.currentTimeMillis() - start);
+                return response;
+            } catch (ResourceAccessException | HttpServerErrorException e) {
+                circuitBreaker.onFailure(System.currentTimeMillis() - start, e.getMessage());
+                throw e;
+            } catch (RuntimeException e) {
+                circuitBreaker.onIgnored();
+                throw e;
+            }
+        });
     }
 
     /**
      * 解析Qwen3 API响应
      * @param response HTTP响应
+     * @param usage 用量记录，写入usage和响应内容
      * @return 解析出的内容
      */
-    private String parseQwen3Response(ResponseEntity<String> response) {
+    private String parseQwen3Response(ResponseEntity<String> response, LlmUsageRecorder.Call usage) {
         logger.info("📥 响应状态: {}", response.getStatusCode());
         logger.info("📥 响应Headers: {}", response.getHeaders());
         
@@ -728,11 +938,13 @@ public class AIProcessingService {
             
             try {
                 JSONObject responseObj = JSON.parseObject(response.getBody());
+                usage.usage(responseObj.getJSONObject("usage"));
                 JSONArray choices = responseObj.getJSONArray("choices");
                 if (choices != null && !choices.isEmpty()) {
                     JSONObject firstChoice = choices.getJSONObject(0);
                     JSONObject messageObj = firstChoice.getJSONObject("message");
                     String content = messageObj.getString("content");
+                    usage.complete(content);
                     
                     if (content != null && !content.trim().isEmpty()) {
                         logger.info("✅ AI响应成功，内容长度: {}", content.length());
@@ -805,22 +1017,30 @@ public class AIProcessingService {
     /**
      * 构建整体测试判分提示
      */
-    private String buildOverallTestJudgePrompt(Map<String, Object> request) {
+    private String buildOverallTestJudgePrompt(JSONObject statistics) {
         return PromptConfig.OVERALL_TEST_JUDGE_PROMPT + "\n\n" +
-                "测试信息：\n" + JSON.toJSONString(request);
+                "统计结果：\n" + statistics.toJSONString();
     }
 
     /**
      * 构建大纲识别提示
      */
-    private String buildOutlineIdentificationPrompt(Map<String, Object> request) {
+    private String buildOutlineIdentificationPrompt(Map<String, Object> request, List<OutlineVectorIndex.Match> candidates) {
         String questionContent = (String) request.get("questionContent");
         String subject = (String) request.get("subject");
         String grade = (String) request.get("grade");
 
-        return PromptConfig.OUTLINE_IDENTIFICATION_PROMPT + "\n\n" +
-                "题目内容：" + questionContent + "\n" +
-                "学科：" + subject + "\n" +
-                "年级：" + grade;
+        StringBuilder prompt = new StringBuilder(PromptConfig.OUTLINE_IDENTIFICATION_PROMPT).append("\n\n");
+        if (!candidates.isEmpty()) {
+            prompt.append("候选大纲（outlineId必须从中选择，按相似度排序）：\n");
+            for (OutlineVectorIndex.Match match : candidates) {
+                prompt.append(match.getOutline().getId()).append("：")
+                        .append(match.getOutline().getKnowledgePoint()).append("\n");
+            }
+            prompt.append("\n");
+        }
+        return prompt.append("题目内容：").append(questionContent).append("\n")
+                .append("学科：").append(subject).append("\n")
+                .append("年级：").append(grade).toString();
     }
 }
@@ -0,0 +1,62 @@
+package com.yf.exam.modules.ai.service;
+
+import com.alibaba.fastjson2.JSONArray;
+import com.baomidou.mybatisplus.extension.service.IService;
+import com.yf.exam.modules.ai.entity.AiDocFingerprint;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+* <p>
+* AI导入文档指纹业务类，重复上传的文档直接复用已保存的抽取和拆题结果
+* </p>
+*
+* @author AI Assistant
+* @since 2026-10-19
+*/
+public interface AiDocFingerprintService extends IService<AiDocFingerprint> {
+
+    /**
+     * 计算文件内容的SHA-256
+     * @param in 文件流，读完后由调用方关闭
+     * @return 十六进制小写摘要
+     * @throws IOException
+     */
+    String hash(InputStream in) throws IOException;
+
+    /**
+     * 查找已登记的文档，未启用复用时返回null
+     * @param hash 内容摘要
+     * @param subject 学科（可为null）
+     * @param grade 年级（可为null）
+     * @return 指纹记录
+     */
+    AiDocFingerprint find(String hash, String subject, String grade);
+
+    /**
+     * 记录一次复用
+     * @param fingerprint 指纹记录
+     */
+    void hit(AiDocFingerprint fingerprint);
+
+    /**
+     * 保存抽取结果，已有的拆题结果随之作废
+     * @param hash 内容摘要
+     * @param subject 学科（可为null）
+     * @param grade 年级（可为null）
+     * @param fileName 文件名
+     * @param fileSize 文件大小
+     * @param extractResult 抽取结果JSON
+     */
+    void saveExtract(String hash, String subject, String grade, String fileName, long fileSize, String extractResult);
+
+    /**
+     * 保存拆题及识别结果
+     * @param hash 内容摘要
+     * @param subject 学科（可为null）
+     * @param grade 年级（可为null）
+     * @param questions 题目
+     */
+    void saveQuestions(String hash, String subject, String grade, JSONArray questions);
+}
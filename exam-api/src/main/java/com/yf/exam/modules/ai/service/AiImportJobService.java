@@ -0,0 +1,49 @@
+package com.yf.exam.modules.ai.service;
+
+import com.baomidou.mybatisplus.extension.service.IService;
+import com.yf.exam.modules.ai.dto.AiImportJobDTO;
+import com.yf.exam.modules.ai.entity.AiImportJob;
+import org.springframework.web.multipart.MultipartFile;
+
+/**
+* <p>
+* AI文档导入任务业务类
+* 上传文件先保存并立即返回任务ID，由有界线程池按 抽取→拆题→识别→入库 分阶段处理，
+* 各阶段结果作为检查点落库，服务重启或手动恢复时从中断的阶段继续
+* </p>
+*
+* @author AI Assistant
+* @since 2026-10-19
+*/
+public interface AiImportJobService extends IService<AiImportJob> {
+
+    /**
+     * 提交导入任务，记录当前登录用户为创建者
+     * @param file 上传的试卷文件
+     * @param subject 学科（可为null）
+     * @param grade 年级（可为null）
+     * @param force 是否强制重新解析，为false时相同文档复用已保存的解析结果
+     * @return 任务ID
+     */
+    String submit(MultipartFile file, String subject, String grade, boolean force);
+
+    /**
+     * 查询任务进度，仅创建者或管理员
+     * @param id 任务ID
+     * @param withQuestions 是否返回已拆出的题目
+     * @return 任务进度
+     */
+    AiImportJobDTO detail(String id, boolean withQuestions);
+
+    /**
+     * 取消任务，处理中的任务在当前题目完成后停止，已入库的题目保留；仅创建者或管理员
+     * @param id 任务ID
+     */
+    void cancel(String id);
+
+    /**
+     * 恢复失败或已取消的任务，从中断的阶段继续；仅创建者或管理员
+     * @param id 任务ID
+     */
+    void resume(String id);
+}
@@ -0,0 +1,32 @@
+package com.yf.exam.modules.ai.service;
+
+import com.baomidou.mybatisplus.extension.service.IService;
+import com.yf.exam.modules.ai.dto.request.LlmUsageReqDTO;
+import com.yf.exam.modules.ai.dto.response.LlmUsageRollupDTO;
+import com.yf.exam.modules.ai.entity.LlmUsageDaily;
+
+import java.util.List;
+
+/**
+* <p>
+* LLM用量日汇总业务类
+* </p>
+*
+* @author AI Assistant
+* @since 2026-10-19
+*/
+public interface LlmUsageDailyService extends IService<LlmUsageDaily> {
+
+    /**
+     * 累加一批用量到日汇总表
+     * @param items 同一批次内 日期+功能+考试+用户 不重复
+     */
+    void accumulate(List<LlmUsageDaily> items);
+
+    /**
+     * 按维度汇总用量，按总token数倒序
+     * @param query 查询条件
+     * @return 汇总结果
+     */
+    List<LlmUsageRollupDTO> rollup(LlmUsageReqDTO query);
+}
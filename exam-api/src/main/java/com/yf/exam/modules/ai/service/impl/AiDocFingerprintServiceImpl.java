@@ -0,0 +1,92 @@
+package com.yf.exam.modules.ai.service.impl;
+
+import com.alibaba.fastjson2.JSONArray;
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.UpdateWrapper;
+import com.baomidou.mybatisplus.core.toolkit.IdWorker;
+import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.yf.exam.ability.ai.config.AIConfig;
+import com.yf.exam.modules.ai.entity.AiDocFingerprint;
+import com.yf.exam.modules.ai.mapper.AiDocFingerprintMapper;
+import com.yf.exam.modules.ai.service.AiDocFingerprintService;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Date;
+
+/**
+* <p>
+* AI导入文档指纹业务实现类
+* </p>
+*
+* @author AI Assistant
+* @since 2026-10-19
+*/
+@Service
+public class AiDocFingerprintServiceImpl extends ServiceImpl<AiDocFingerprintMapper, AiDocFingerprint> implements AiDocFingerprintService {
+
+    @Autowired
+    private AIConfig aiConfig;
+
+    @Override
+    public String hash(InputStream in) throws IOException {
+        return DigestUtils.sha256Hex(in);
+    }
+
+    @Override
+    public AiDocFingerprint find(String hash, String subject, String grade) {
+        if (!aiConfig.getImportJob().isReuseFingerprint() || StringUtils.isEmpty(hash)) {
+            return null;
+        }
+        QueryWrapper<AiDocFingerprint> wrapper = new QueryWrapper<>();
+        wrapper.lambda()
+                .eq(AiDocFingerprint::getContentHash, hash)
+                .eq(AiDocFingerprint::getSubject, normalize(subject))
+                .eq(AiDocFingerprint::getGrade, normalize(grade));
+        return this.getOne(wrapper, false);
+    }
+
+    @Override
+    public void hit(AiDocFingerprint fingerprint) {
+        baseMapper.hit(fingerprint.getId());
+    }
+
+    @Override
+    public void saveExtract(String hash, String subject, String grade, String fileName, long fileSize, String extractResult) {
+        AiDocFingerprint item = new AiDocFingerprint();
+        item.setId(IdWorker.getIdStr());
+        item.setContentHash(hash);
+        item.setSubject(normalize(subject));
+        item.setGrade(normalize(grade));
+        item.setFileName(fileName);
+        item.setFileSize(fileSize);
+        item.setExtractResult(extractResult);
+        item.setUpdateTime(new Date());
+        baseMapper.saveExtract(item);
+    }
+
+    @Override
+    public void saveQuestions(String hash, String subject, String grade, JSONArray questions) {
+        UpdateWrapper<AiDocFingerprint> wrapper = new UpdateWrapper<>();
+        wrapper.lambda()
+                .eq(AiDocFingerprint::getContentHash, hash)
+                .eq(AiDocFingerprint::getSubject, normalize(subject))
+                .eq(AiDocFingerprint::getGrade, normalize(grade));
+        AiDocFingerprint update = new AiDocFingerprint();
+        update.setQuestions(questions.toJSONString());
+        update.setQuestionCount(questions.size());
+        update.setUpdateTime(new Date());
+        this.update(update, wrapper);
+    }
+
+    /**
+     * 学科年级未指定时统一为空字符串，参与唯一键
+     */
+    private static String normalize(String value) {
+        return value == null ? "" : value.trim();
+    }
+}
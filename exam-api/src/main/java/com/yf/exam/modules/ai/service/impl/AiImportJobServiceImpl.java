@@ -0,0 +1,529 @@
+package com.yf.exam.modules.ai.service.impl;
+
+import com.alibaba.fastjson2.JSON;
+import com.alibaba.fastjson2.JSONArray;
+import com.alibaba.fastjson2.JSONObject;
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.UpdateWrapper;
+import com.baomidou.mybatisplus.core.toolkit.IdWorker;
+import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.yf.exam.ability.ai.config.AIConfig;
+import com.yf.exam.ability.ai.scheduler.LlmPriority;
+import com.yf.exam.ability.ai.scheduler.LlmScheduler;
+import com.yf.exam.ability.ai.usage.LlmUsageRecorder;
+import com.yf.exam.ability.upload.config.UploadConfig;
+import com.yf.exam.ability.upload.service.impl.AIUploadService;
+import com.yf.exam.ability.upload.utils.FileUtils;
+import com.yf.exam.core.exception.ServiceException;
+import com.yf.exam.core.utils.BeanMapper;
+import com.yf.exam.modules.ai.dto.AiImportJobDTO;
+import com.yf.exam.modules.ai.entity.AiDocFingerprint;
+import com.yf.exam.modules.ai.entity.AiImportJob;
+import com.yf.exam.modules.ai.enums.ImportJobStage;
+import com.yf.exam.modules.ai.enums.ImportJobState;
+import com.yf.exam.modules.ai.mapper.AiImportJobMapper;
+import com.yf.exam.modules.ai.service.AiDocFingerprintService;
+import com.yf.exam.modules.ai.service.AiImportJobService;
+import com.yf.exam.modules.qu.service.QuImportService;
+import com.yf.exam.modules.user.UserUtils;
+import org.apache.commons.io.FilenameUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.FileCopyUtils;
+import org.springframework.util.StringUtils;
+import org.springframework.web.multipart.MultipartFile;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+* <p>
+* AI文档导入任务业务实现类
+* </p>
+*
+* @author AI Assistant
+* @since 2026-10-19
+*/
+@Service
+public class AiImportJobServiceImpl extends ServiceImpl<AiImportJobMapper, AiImportJob> implements AiImportJobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AiImportJobServiceImpl.class);
+
+    private static final int MAX_MESSAGE_LENGTH = 1000;
+
+    private static final String CANCELED_MESSAGE = "任务已取消";
+
+    @Autowired
+    private AIUploadService aiUploadService;
+
+    @Autowired
+    private UploadConfig uploadConfig;
+
+    @Autowired
+    private AIConfig aiConfig;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private QuImportService quImportService;
+
+    @Autowired
+    private AiDocFingerprintService aiDocFingerprintService;
+
+    /**
+     * 任务线程池，队列有界
+     */
+    private ThreadPoolExecutor executor;
+
+    /**
+     * 已请求取消的任务
+     */
+    private final Set<String> canceled = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 已入队的任务，避免重复入队
+     */
+    private final Set<String> queued = ConcurrentHashMap.newKeySet();
+
+    @PostConstruct
+    public void init() {
+        AIConfig.ImportJob conf = aiConfig.getImportJob();
+        int workers = Math.max(1, conf.getWorkers());
+        AtomicInteger index = new AtomicInteger();
+        executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(Math.max(1, conf.getQueueCapacity())),
+                r -> new Thread(r, "ai-import-" + index.incrementAndGet()),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    public void destroy() {
+        // 处理中的任务保持RUNNING状态，下次启动时从检查点恢复
+        executor.shutdownNow();
+    }
+
+    /**
+     * 启动完成后恢复上次未完成的任务
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeInterrupted() {
+        QueryWrapper<AiImportJob> wrapper = new QueryWrapper<>();
+        wrapper.lambda()
+                .in(AiImportJob::getState, ImportJobState.PENDING, ImportJobState.RUNNING)
+                .orderByAsc(AiImportJob::getCreateTime);
+        List<AiImportJob> list = this.list(wrapper);
+        if (list.isEmpty()) {
+            return;
+        }
+        logger.info("🔁 恢复未完成的AI导入任务: {} 个", list.size());
+        for (AiImportJob job : list) {
+            AiImportJob update = new AiImportJob();
+            update.setId(job.getId());
+            update.setState(ImportJobState.PENDING);
+            this.updateById(update);
+            enqueue(job.getId());
+        }
+    }
+
+    @Override
+    public String submit(MultipartFile file, String subject, String grade, boolean force) {
+
+        if (file == null || file.isEmpty()) {
+            throw new ServiceException("上传文件不能为空！");
+        }
+        if (executor.getQueue().remainingCapacity() == 0) {
+            throw new ServiceException("导入任务过多，请稍后再试！");
+        }
+
+        String id = IdWorker.getIdStr();
+        String extension = FilenameUtils.getExtension(file.getOriginalFilename());
+        String fullPath = uploadConfig.getDir() + aiConfig.getImportJob().getDir()
+                + id + (StringUtils.isEmpty(extension) ? "" : "." + extension);
+        String hash;
+        try {
+            FileUtils.checkDir(fullPath);
+            FileCopyUtils.copy(file.getInputStream(), new FileOutputStream(fullPath));
+            try (InputStream in = new FileInputStream(fullPath)) {
+                hash = aiDocFingerprintService.hash(in);
+            }
+        } catch (IOException e) {
+            throw new ServiceException("文件保存失败：" + e.getMessage());
+        }
+
+        AiImportJob job = new AiImportJob();
+        job.setId(id);
+        job.setUserId(UserUtils.getUserId());
+        job.setFileName(file.getOriginalFilename());
+        job.setFilePath(fullPath);
+        job.setSubject(subject);
+        job.setGrade(grade);
+        job.setContentHash(hash);
+        job.setForceExtract(force);
+        job.setState(ImportJobState.PENDING);
+        job.setStage(ImportJobStage.EXTRACT);
+        job.setStageTotal(0);
+        job.setStageDone(0);
+        job.setProgress(0);
+        job.setTotalCount(0);
+        job.setSavedCount(0);
+        job.setCreateTime(new Date());
+        job.setUpdateTime(new Date());
+        this.save(job);
+
+        enqueue(id);
+        logger.info("📥 AI导入任务已提交: {} - {}", id, file.getOriginalFilename());
+        return id;
+    }
+
+    @Override
+    public AiImportJobDTO detail(String id, boolean withQuestions) {
+        AiImportJob job = this.findOwned(id);
+        AiImportJobDTO respDTO = new AiImportJobDTO();
+        BeanMapper.copy(job, respDTO);
+        respDTO.setQuestions(withQuestions && !StringUtils.isEmpty(job.getQuestions())
+                ? JSON.parseArray(job.getQuestions()) : null);
+        return respDTO;
+    }
+
+    @Override
+    public void cancel(String id) {
+        this.findOwned(id);
+
+        // 尚未开始的任务直接置为取消，工作线程抢占时发现不是排队状态即跳过，无需通知
+        if (finish(id, ImportJobState.PENDING, ImportJobState.CANCELED, CANCELED_MESSAGE)) {
+            logger.info("⏹️ AI导入任务已取消: {}", id);
+            return;
+        }
+
+        // 执行中的任务先登记取消标记再改状态，由工作线程在检查点停止并清除标记
+        canceled.add(id);
+        if (!finish(id, ImportJobState.RUNNING, ImportJobState.CANCELED, CANCELED_MESSAGE)) {
+            canceled.remove(id);
+            throw new ServiceException("任务已结束，无法取消！");
+        }
+        logger.info("⏹️ AI导入任务已取消: {}", id);
+    }
+
+    @Override
+    public void resume(String id) {
+        this.findOwned(id);
+        UpdateWrapper<AiImportJob> wrapper = new UpdateWrapper<>();
+        wrapper.lambda()
+                .eq(AiImportJob::getId, id)
+                .in(AiImportJob::getState, ImportJobState.FAILED, ImportJobState.CANCELED);
+
+        AiImportJob update = new AiImportJob();
+        update.setState(ImportJobState.PENDING);
+        update.setMessage("");
+        update.setUpdateTime(new Date());
+        if (!this.update(update, wrapper)) {
+            throw new ServiceException("只有失败或已取消的任务可以恢复！");
+        }
+        canceled.remove(id);
+        enqueue(id);
+        logger.info("▶️ AI导入任务已恢复: {}", id);
+    }
+
+    /**
+     * 查找当前用户可操作的任务，只有创建者和管理员可以查看、取消或恢复
+     */
+    private AiImportJob findOwned(String id) {
+        AiImportJob job = this.getById(id);
+        if (job == null) {
+            throw new ServiceException("导入任务不存在！");
+        }
+        if (!UserUtils.isAdmin(false) && !UserUtils.getUserId().equals(job.getUserId())) {
+            throw new ServiceException("无权操作该导入任务！");
+        }
+        return job;
+    }
+
+    /**
+     * 任务入队，队列已满时标记失败，可稍后手动恢复
+     */
+    private void enqueue(String id) {
+        if (!queued.add(id)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    LlmScheduler.runAs(LlmPriority.BULK, () -> process(id));
+                } finally {
+                    queued.remove(id);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            queued.remove(id);
+            finish(id, ImportJobState.PENDING, ImportJobState.FAILED, "任务队列已满，请稍后恢复任务");
+        }
+    }
+
+    /**
+     * 分阶段处理任务，每个阶段完成后保存检查点
+     */
+    private void process(String id) {
+
+        AiImportJob job = this.getById(id);
+        if (job == null || !ImportJobState.PENDING.equals(job.getState())) {
+            return;
+        }
+
+        // 抢占任务：仅排队中的任务可以开始
+        UpdateWrapper<AiImportJob> wrapper = new UpdateWrapper<>();
+        wrapper.lambda().eq(AiImportJob::getId, id).eq(AiImportJob::getState, ImportJobState.PENDING);
+        AiImportJob running = new AiImportJob();
+        running.setState(ImportJobState.RUNNING);
+        running.setUpdateTime(new Date());
+        if (!this.update(running, wrapper)) {
+            return;
+        }
+
+        long start = System.currentTimeMillis();
+        logger.info("🚀 AI导入任务开始: {} - {}, 阶段 {}", id, job.getFileName(), job.getStage());
+
+        try {
+            String stage = job.getStage();
+
+            // 1. 抽取文本和图片
+            String extractJson = job.getExtractResult();
+            if (ImportJobStage.EXTRACT.equals(stage) || extractJson == null) {
+                AiDocFingerprint fingerprint = Boolean.TRUE.equals(job.getForceExtract()) ? null
+                        : aiDocFingerprintService.find(job.getContentHash(), job.getSubject(), job.getGrade());
+                if (fingerprint != null && fingerprint.getExtractResult() != null) {
+                    // 相同文档已解析过，有拆题结果时直接入库，否则从拆题继续
+                    aiDocFingerprintService.hit(fingerprint);
+                    extractJson = fingerprint.getExtractResult();
+                    boolean split = fingerprint.getQuestions() != null;
+                    stage = split ? ImportJobStage.SAVE : ImportJobStage.SPLIT;
+                    AiImportJob checkpoint = checkpoint(id, stage, 0, split ? fingerprint.getQuestionCount() : 1);
+                    checkpoint.setExtractResult(extractJson);
+                    if (split) {
+                        checkpoint.setQuestions(fingerprint.getQuestions());
+                        checkpoint.setTotalCount(fingerprint.getQuestionCount());
+                        job.setQuestions(fingerprint.getQuestions());
+                        job.setStageDone(0);
+                    }
+                    this.updateById(checkpoint);
+                    logger.info("♻️ AI导入任务 {} 复用已解析的相同文档: {} 题, 继续阶段 {}",
+                            id, fingerprint.getQuestionCount(), stage);
+                } else {
+                    extractJson = extract(job);
+                    stage = ImportJobStage.SPLIT;
+                    AiImportJob checkpoint = checkpoint(id, stage, 0, 1);
+                    checkpoint.setExtractResult(extractJson);
+                    this.updateById(checkpoint);
+                    if (job.getContentHash() != null) {
+                        aiDocFingerprintService.saveExtract(job.getContentHash(), job.getSubject(), job.getGrade(),
+                                job.getFileName(), new File(job.getFilePath()).length(), extractJson);
+                    }
+                }
+            }
+            JSONObject extractBody = JSONObject.parseObject(extractJson);
+            JSONArray images = extractBody.getJSONArray("images");
+            checkCanceled(id);
+
+            // 2. 大模型拆题
+            JSONArray questions;
+            if (ImportJobStage.SPLIT.equals(stage) || job.getQuestions() == null) {
+                String textContent = extractBody.getString("textContent");
+                questions = LlmUsageRecorder.callFor(null, job.getUserId(),
+                        () -> aiUploadService.splitQuestions(textContent));
+                stage = ImportJobStage.IDENTIFY;
+                AiImportJob checkpoint = checkpoint(id, stage, 0, questions.size());
+                checkpoint.setQuestions(questions.toJSONString());
+                checkpoint.setTotalCount(questions.size());
+                this.updateById(checkpoint);
+                job.setStageDone(0);
+                logger.info("✂️ AI导入任务 {} 拆题完成: {} 道", id, questions.size());
+            } else {
+                questions = JSON.parseArray(job.getQuestions());
+            }
+            checkCanceled(id);
+
+            // 3. 逐题识别题干和知识点
+            if (ImportJobStage.IDENTIFY.equals(stage)) {
+                int every = Math.max(1, aiConfig.getImportJob().getCheckpointEvery());
+                for (int i = job.getStageDone(); i < questions.size(); i++) {
+                    checkCanceled(id);
+                    JSONObject question = questions.getJSONObject(i);
+                    LlmUsageRecorder.runFor(null, job.getUserId(),
+                            () -> aiUploadService.identifyQuestion(question, job.getSubject(), job.getGrade()));
+                    if ((i + 1) % every == 0 || i == questions.size() - 1) {
+                        AiImportJob checkpoint = checkpoint(id, stage, i + 1, questions.size());
+                        checkpoint.setQuestions(questions.toJSONString());
+                        this.updateById(checkpoint);
+                    }
+                }
+                stage = ImportJobStage.SAVE;
+                this.updateById(checkpoint(id, stage, 0, questions.size()));
+                job.setStageDone(0);
+                if (job.getContentHash() != null) {
+                    aiDocFingerprintService.saveQuestions(job.getContentHash(), job.getSubject(), job.getGrade(), questions);
+                }
+            }
+
+            // 4. 分块入库，每块题目与进度在同一事务中提交，恢复时不会重复入库
+            int savedCount = job.getSavedCount() == null ? 0 : job.getSavedCount();
+            int skippedCount = 0;
+            int duplicateCount = 0;
+            int chunk = Math.max(1, aiConfig.getImportJob().getSaveChunkSize());
+            for (int i = job.getStageDone(); i < questions.size(); i += chunk) {
+                checkCanceled(id);
+                final int done = Math.min(questions.size(), i + chunk);
+                final List<QuImportService.Item> items = new ArrayList<>();
+                for (int j = i; j < done; j++) {
+                    items.add(aiUploadService.buildQuestionWithImages(questions.getJSONObject(j), j + 1,
+                            images, job.getSubject(), job.getGrade()));
+                }
+                final int count = savedCount;
+                QuImportService.Result saved = transactionTemplate.execute(status -> {
+                    QuImportService.Result result = quImportService.saveChunk(items);
+                    AiImportJob checkpoint = checkpoint(id, ImportJobStage.SAVE, done, questions.size());
+                    checkpoint.setSavedCount(count + result.getSavedCount());
+                    this.updateById(checkpoint);
+                    return result;
+                });
+                savedCount += saved.getSavedCount();
+                skippedCount += saved.getSkippedCount();
+                duplicateCount += saved.getDuplicateCount();
+                for (QuImportService.RowError error : saved.getErrors()) {
+                    logger.warn("⚠️ AI导入任务 {} 第 {} 题{}: {}", id, error.getRow(),
+                            error.isSkipped() ? "未入库" : "需校对", error.getMessage());
+                }
+            }
+
+            String message = "成功导入 " + savedCount + " 道题目";
+            if (skippedCount > 0) {
+                message += "，" + skippedCount + " 道未通过校验";
+            }
+            if (duplicateCount > 0) {
+                message += "，" + duplicateCount + " 道疑似与已有题目重复";
+            }
+            int imageCount = images != null ? images.size() : 0;
+            if (imageCount > 0) {
+                message += "，提取了 " + imageCount + " 张图片";
+            }
+            AiImportJob done = checkpoint(id, ImportJobStage.DONE, questions.size(), questions.size());
+            done.setState(ImportJobState.SUCCESS);
+            done.setMessage(message);
+            done.setFinishTime(new Date());
+            UpdateWrapper<AiImportJob> finishWrapper = new UpdateWrapper<>();
+            finishWrapper.lambda().eq(AiImportJob::getId, id).eq(AiImportJob::getState, ImportJobState.RUNNING);
+            this.update(done, finishWrapper);
+
+            // 导入完成，删除保存的上传文件
+            new File(job.getFilePath()).delete();
+            logger.info("✅ AI导入任务完成: {} - {}, 耗时 {}ms", id, message, System.currentTimeMillis() - start);
+
+        } catch (CancellationException e) {
+            logger.info("⏹️ AI导入任务已停止: {}", id);
+        } catch (Exception e) {
+            logger.error("❌ AI导入任务失败: {}", id, e);
+            finish(id, ImportJobState.RUNNING, ImportJobState.FAILED, "AI解析失败: " + e.getMessage());
+        } finally {
+            canceled.remove(id);
+        }
+    }
+
+    /**
+     * 调用Python服务抽取文本和图片，校验结果
+     */
+    private String extract(AiImportJob job) {
+        this.updateById(checkpoint(job.getId(), ImportJobStage.EXTRACT, 0, 1));
+
+        File file = new File(job.getFilePath());
+        if (!file.exists()) {
+            throw new ServiceException("上传文件已不存在，请重新上传！");
+        }
+        String extractJson = aiUploadService.extractTextFromFile(new FileSystemResource(file), true);
+        JSONObject extractBody = JSONObject.parseObject(extractJson);
+        if (extractBody.containsKey("error")) {
+            throw new ServiceException("文件解析失败: " + extractBody.getString("error"));
+        }
+        String textContent = extractBody.getString("textContent");
+        if (textContent == null || textContent.trim().isEmpty()) {
+            throw new ServiceException("文件中未找到任何文本内容，请检查文件格式");
+        }
+        return extractJson;
+    }
+
+    /**
+     * 构建阶段进度更新，仅包含进度字段
+     */
+    private AiImportJob checkpoint(String id, String stage, int done, int total) {
+        AiImportJob update = new AiImportJob();
+        update.setId(id);
+        update.setStage(stage);
+        update.setStageDone(done);
+        update.setStageTotal(total);
+        update.setProgress(progressOf(stage, done, total));
+        update.setUpdateTime(new Date());
+        return update;
+    }
+
+    /**
+     * 总体进度：抽取 0-10，拆题 10-40，识别 40-80，入库 80-100
+     */
+    private static int progressOf(String stage, int done, int total) {
+        double ratio = total <= 0 ? 0 : (double) done / total;
+        switch (stage) {
+            case ImportJobStage.SPLIT:
+                return 10;
+            case ImportJobStage.IDENTIFY:
+                return 40 + (int) (40 * ratio);
+            case ImportJobStage.SAVE:
+                return 80 + (int) (20 * ratio);
+            case ImportJobStage.DONE:
+                return 100;
+            default:
+                return 0;
+        }
+    }
+
+    private void checkCanceled(String id) {
+        if (canceled.contains(id)) {
+            throw new CancellationException(id);
+        }
+    }
+
+    /**
+     * 按当前状态条件结束任务
+     * @return 是否更新成功，状态已变化时为false
+     */
+    private boolean finish(String id, Integer fromState, Integer toState, String message) {
+        UpdateWrapper<AiImportJob> wrapper = new UpdateWrapper<>();
+        wrapper.lambda().eq(AiImportJob::getId, id).eq(AiImportJob::getState, fromState);
+
+        AiImportJob update = new AiImportJob();
+        update.setState(toState);
+        update.setMessage(message != null && message.length() > MAX_MESSAGE_LENGTH
+                ? message.substring(0, MAX_MESSAGE_LENGTH) : message);
+        update.setUpdateTime(new Date());
+        update.setFinishTime(new Date());
+        return this.update(update, wrapper);
+    }
+}
@@ -0,0 +1,54 @@
+package com.yf.exam.modules.ai.service.impl;
+
+import com.baomidou.mybatisplus.core.toolkit.IdWorker;
+import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.yf.exam.modules.ai.dto.request.LlmUsageReqDTO;
+import com.yf.exam.modules.ai.dto.response.LlmUsageRollupDTO;
+import com.yf.exam.modules.ai.entity.LlmUsageDaily;
+import com.yf.exam.modules.ai.mapper.LlmUsageDailyMapper;
+import com.yf.exam.modules.ai.service.LlmUsageDailyService;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.Date;
+import java.util.List;
+
+/**
+* <p>
+* LLM用量日汇总业务实现类
+* </p>
+*
+* @author AI Assistant
+* @since 2026-10-19
+*/
+@Service
+public class LlmUsageDailyServiceImpl extends ServiceImpl<LlmUsageDailyMapper, LlmUsageDaily> implements LlmUsageDailyService {
+
+    /**
+     * 未指定开始日期时查询最近的天数
+     */
+    private static final int DEFAULT_DAYS = 7;
+
+    @Transactional(rollbackFor = Exception.class)
+    @Override
+    public void accumulate(List<LlmUsageDaily> items) {
+        Date now = new Date();
+        for (LlmUsageDaily item : items) {
+            item.setId(IdWorker.getIdStr());
+            item.setUpdateTime(now);
+            baseMapper.accumulate(item);
+        }
+    }
+
+    @Override
+    public List<LlmUsageRollupDTO> rollup(LlmUsageReqDTO query) {
+        if (query.getEndDate() == null) {
+            query.setEndDate(java.sql.Date.valueOf(LocalDate.now()));
+        }
+        if (query.getStartDate() == null) {
+            query.setStartDate(java.sql.Date.valueOf(LocalDate.now().minusDays(DEFAULT_DAYS - 1)));
+        }
+        return baseMapper.rollup(query);
+    }
+}
@@ -1,9 +1,17 @@
 package com.yf.exam.modules.judge.controller;
 
 import com.alibaba.fastjson2.JSONObject;
+import com.yf.exam.ability.ai.breaker.LlmCircuitBreaker;
+import com.yf.exam.ability.ai.cache.JudgeAnswerCache;
+import com.yf.exam.ability.ai.utils.LlmJson;
 import com.yf.exam.core.api.ApiRest;
 import com.yf.exam.core.api.controller.BaseController;
+import com.yf.exam.core.api.dto.BaseIdReqDTO;
+import com.yf.exam.core.api.dto.BaseIdRespDTO;
 import com.yf.exam.modules.ai.service.AIProcessingService;
+import com.yf.exam.modules.judge.service.JudgeQueueService;
+import com.yf.exam.modules.judge.service.SaqGradingService;
+import org.apache.shiro.authz.annotation.RequiresRoles;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
 
@@ -23,6 +31,18 @@ public class JudgeController extends BaseController {
     @Autowired
     private AIProcessingService aiProcessingService;
 
+    @Autowired
+    private LlmCircuitBreaker circuitBreaker;
+
+    @Autowired
+    private JudgeQueueService judgeQueueService;
+
+    @Autowired
+    private JudgeAnswerCache judgeAnswerCache;
+
+    @Autowired
+    private SaqGradingService saqGradingService;
+
     /**
      * 简答题AI评判
      */
@@ -50,6 +70,21 @@ public class JudgeController extends BaseController {
             llmRequest.put("knowledgePoint", request.getKnowledgePoint() != null ? request.getKnowledgePoint() : "基础知识");
             llmRequest.put("maxScore", request.getMaxScore()); // User-specified max score
 
+            // Blank answers and answers already graded for this question are answered from the cache
+            String questionKey = JudgeAnswerCache.questionKey(request.getQuestionContent(),
+                    request.getStandardAnswer(), request.getMaxScore());
+            JSONObject cached = judgeAnswerCache.lookup(questionKey, request.getUserAnswer());
+            if (cached != null) {
+                cached.put("maxScore", request.getMaxScore());
+                System.out.println("♻️ Short answer judged from cache: " + cached.get(JudgeAnswerCache.FIELD_CACHE_HIT));
+                return super.success(cached);
+            }
+
+            // AI service is circuit-broken: queue the request instead of waiting for a timeout
+            if (!circuitBreaker.isCallPermitted()) {
+                return queueShortAnswer(llmRequest, request.getMaxScore());
+            }
+
             System.out.println("🚀 Calling AI judge service...");
             
             // Call AI judge service directly
@@ -58,10 +93,15 @@ public class JudgeController extends BaseController {
             if (response != null) {
                 try {
                     // Parse response directly - simplified format
-                    JSONObject judgeResult = JSONObject.parseObject(response.trim());
+                    LlmJson.Result<JSONObject> parsed = LlmJson.parseObject(response);
+                    JSONObject judgeResult = parsed.getValue();
+                    if (judgeResult == null || judgeResult.get("score") == null) {
+                        throw new IllegalStateException(judgeResult == null ? parsed.getError() : "缺少score字段");
+                    }
                     
                     // Ensure user-specified maxScore is preserved
                     judgeResult.put("maxScore", request.getMaxScore());
+                    judgeAnswerCache.store(questionKey, request.getUserAnswer(), judgeResult);
                     
                     System.out.println("✅ Short answer judging completed successfully");
                     System.out.println("📊 Result: score=" + judgeResult.get("score") + 
@@ -76,6 +116,9 @@ public class JudgeController extends BaseController {
                 }
             } else {
                 System.err.println("❌ AI service returned null response");
+                if (!circuitBreaker.isCallPermitted()) {
+                    return queueShortAnswer(llmRequest, request.getMaxScore());
+                }
                 return super.failure("AI评判服务暂时不可用");
             }
 
@@ -85,6 +128,61 @@ public class JudgeController extends BaseController {
         }
     }
 
+    /**
+     * 查询排队中的简答题评判结果
+     */
+    @GetMapping("/short-answer/result/{ticket}")
+    public ApiRest<?> shortAnswerResult(@PathVariable("ticket") String ticket) {
+        Map<String, Object> result = judgeQueueService.getResult(ticket);
+        if (result == null) {
+            return super.failure("评判请求不存在或已过期");
+        }
+        return super.success(result);
+    }
+
+    /**
+     * 简答题评判请求入队，返回票据供前端轮询
+     */
+    private ApiRest<?> queueShortAnswer(Map<String, Object> llmRequest, double maxScore) {
+        String ticket = judgeQueueService.enqueue(llmRequest, maxScore);
+        if (ticket == null) {
+            return super.failure("AI评判服务繁忙，请稍后重试");
+        }
+        System.out.println("⏳ AI service unavailable, short answer judging queued: " + ticket);
+        return super.success(judgeQueueService.getResult(ticket));
+    }
+
+    /**
+     * 简答题批量阅卷：单张待阅试卷
+     */
+    @RequiresRoles("sa")
+    @PostMapping("/saq/paper")
+    public ApiRest<BaseIdRespDTO> gradePaper(@RequestBody BaseIdReqDTO reqDTO) {
+        return super.success(new BaseIdRespDTO(saqGradingService.gradePaper(reqDTO.getId())));
+    }
+
+    /**
+     * 简答题批量阅卷：考试下所有待阅试卷
+     */
+    @RequiresRoles("sa")
+    @PostMapping("/saq/exam")
+    public ApiRest<BaseIdRespDTO> gradeExam(@RequestBody BaseIdReqDTO reqDTO) {
+        return super.success(new BaseIdRespDTO(saqGradingService.gradeExam(reqDTO.getId())));
+    }
+
+    /**
+     * 查询批量阅卷任务进度
+     */
+    @RequiresRoles("sa")
+    @GetMapping("/saq/task/{taskId}")
+    public ApiRest<?> gradingTask(@PathVariable("taskId") String taskId) {
+        Map<String, Object> task = saqGradingService.getTask(taskId);
+        if (task == null) {
+            return super.failure("阅卷任务不存在或已过期");
+        }
+        return super.success(task);
+    }
+
     /**
      * 整体测试AI分析
      */
@@ -111,7 +209,14 @@ public class JudgeController extends BaseController {
             if (response != null) {
                 try {
                     // Parse and return response
-                    JSONObject analysisResult = JSONObject.parseObject(response);
+                    LlmJson.Result<JSONObject> parsed = LlmJson.parseObject(response);
+                    JSONObject analysisResult = parsed.getValue();
+                    if (analysisResult == null) {
+                        throw new IllegalStateException(parsed.getError());
+                    }
+                    if (parsed.isTruncated()) {
+                        System.out.println("⚠️ Overall analysis truncated: " + parsed.summary());
+                    }
                     System.out.println("✅ Overall test analysis completed successfully");
                     return super.success(analysisResult);
                 } catch (Exception parseError) {
@@ -173,6 +278,7 @@ public class JudgeController extends BaseController {
         private String correctAnswer;
         private String knowledgePoint;
         private double maxScore;
+        private Double userScore; // Optional, e.g. a short answer already graded
 
         public TestAnswerItemDTO() {}
 
@@ -190,6 +296,8 @@ public class JudgeController extends BaseController {
         public void setKnowledgePoint(String knowledgePoint) { this.knowledgePoint = knowledgePoint; }
         public double getMaxScore() { return maxScore; }
         public void setMaxScore(double maxScore) { this.maxScore = maxScore; }
+        public Double getUserScore() { return userScore; }
+        public void setUserScore(Double userScore) { this.userScore = userScore; }
     }
 
 
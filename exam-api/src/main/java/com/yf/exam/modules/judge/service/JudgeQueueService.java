@@ -0,0 +1,36 @@
+package com.yf.exam.modules.judge.service;
+
+import java.util.Map;
+
+/**
+* <p>
+* 简答题排队评判业务类
+* AI服务熔断期间，评判请求进入队列，服务恢复后依次评判，前端凭票据查询结果
+* </p>
+*
+* @author AI Assistant
+* @since 2026-10-19
+*/
+public interface JudgeQueueService {
+
+    /**
+     * 评判请求入队
+     * @param llmRequest 评判参数（与AIProcessingService.judgeShortAnswer一致）
+     * @param maxScore 满分
+     * @return 票据ID，队列已满返回null
+     */
+    String enqueue(Map<String, Object> llmRequest, double maxScore);
+
+    /**
+     * 查询评判结果
+     * @param ticket 票据ID
+     * @return 结果：status为QUEUED/DONE/FAILED，DONE时result为评判结果；票据不存在或已过期返回null
+     */
+    Map<String, Object> getResult(String ticket);
+
+    /**
+     * 当前排队数量
+     * @return 数量
+     */
+    int pendingCount();
+}
@@ -0,0 +1,36 @@
+package com.yf.exam.modules.judge.service;
+
+import java.util.Map;
+
+/**
+* <p>
+* 简答题批量阅卷业务类
+* 收集待阅试卷中的简答题答案，按题目分组后批量提交LLM评分，回写得分并完成阅卷
+* </p>
+*
+* @author AI Assistant
+* @since 2026-10-19
+*/
+public interface SaqGradingService {
+
+    /**
+     * 批量阅卷单张试卷
+     * @param paperId 试卷ID，须为待阅卷状态
+     * @return 阅卷任务ID
+     */
+    String gradePaper(String paperId);
+
+    /**
+     * 批量阅卷考试下所有待阅卷的试卷
+     * @param examId 考试ID
+     * @return 阅卷任务ID
+     */
+    String gradeExam(String examId);
+
+    /**
+     * 查询阅卷任务进度
+     * @param taskId 任务ID
+     * @return 进度数据，status为RUNNING/DONE/FAILED；任务不存在或已过期返回null
+     */
+    Map<String, Object> getTask(String taskId);
+}
@@ -0,0 +1,205 @@
+package com.yf.exam.modules.judge.service.impl;
+
+import com.alibaba.fastjson2.JSONObject;
+import com.baomidou.mybatisplus.core.toolkit.IdWorker;
+import com.yf.exam.ability.ai.breaker.LlmCircuitBreaker;
+import com.yf.exam.ability.ai.cache.JudgeAnswerCache;
+import com.yf.exam.ability.ai.config.AIConfig;
+import com.yf.exam.ability.ai.scheduler.LlmPriority;
+import com.yf.exam.ability.ai.scheduler.LlmScheduler;
+import com.yf.exam.ability.ai.utils.LlmJson;
+import com.yf.exam.modules.ai.service.AIProcessingService;
+import com.yf.exam.modules.judge.service.JudgeQueueService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+* <p>
+* 简答题排队评判业务实现类
+* 队列和结果均保存在内存中，服务重启后未完成的请求需重新提交
+* </p>
+*
+* @author AI Assistant
+* @since 2026-10-19
+*/
+@Service
+public class JudgeQueueServiceImpl implements JudgeQueueService {
+
+    private static final Logger logger = LoggerFactory.getLogger(JudgeQueueServiceImpl.class);
+
+    public static final String STATUS_QUEUED = "QUEUED";
+    public static final String STATUS_DONE = "DONE";
+    public static final String STATUS_FAILED = "FAILED";
+
+    /**
+     * 每轮最多评判的请求数，避免长时间占用调度线程
+     */
+    private static final int DRAIN_BATCH = 20;
+
+    @Autowired
+    private AIProcessingService aiProcessingService;
+
+    @Autowired
+    private LlmCircuitBreaker circuitBreaker;
+
+    @Autowired
+    private JudgeAnswerCache judgeAnswerCache;
+
+    @Autowired
+    private AIConfig aiConfig;
+
+    private final Map<String, Ticket> tickets = new ConcurrentHashMap<>();
+
+    private final ConcurrentLinkedQueue<Ticket> pending = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger pendingSize = new AtomicInteger();
+
+    @Override
+    public String enqueue(Map<String, Object> llmRequest, double maxScore) {
+        if (pendingSize.get() >= aiConfig.getJudgeQueue().getCapacity()) {
+            logger.warn("⚠️ 评判队列已满({})，拒绝入队", pendingSize.get());
+            return null;
+        }
+        Ticket ticket = new Ticket(IdWorker.getIdStr(), llmRequest, maxScore);
+        tickets.put(ticket.id, ticket);
+        pending.offer(ticket);
+        pendingSize.incrementAndGet();
+        logger.info("📥 简答题评判请求已排队: {}, 当前排队 {}", ticket.id, pendingSize.get());
+        return ticket.id;
+    }
+
+    @Override
+    public Map<String, Object> getResult(String ticket) {
+        Ticket item = tickets.get(ticket);
+        if (item == null) {
+            return null;
+        }
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("ticket", item.id);
+        data.put("status", item.status);
+        data.put("attempts", item.attempts);
+        data.put("createTime", new Date(item.createTime));
+        if (item.result != null) {
+            data.put("result", item.result);
+        }
+        if (item.message != null) {
+            data.put("message", item.message);
+        }
+        return data;
+    }
+
+    @Override
+    public int pendingCount() {
+        return pendingSize.get();
+    }
+
+    /**
+     * 定时处理排队请求：熔断器放行时依次评判，失败则放回队尾等待下一轮
+     */
+    @Scheduled(fixedDelay = 5000)
+    public void drain() {
+        purgeExpired();
+
+        int processed = 0;
+        Ticket ticket;
+        while (processed < DRAIN_BATCH && circuitBreaker.isCallPermitted() && (ticket = pending.poll()) != null) {
+            pendingSize.decrementAndGet();
+            processed++;
+            judge(ticket);
+            if (STATUS_QUEUED.equals(ticket.status)) {
+                // 评判未成功，放回队列，本轮不再继续
+                pending.offer(ticket);
+                pendingSize.incrementAndGet();
+                break;
+            }
+        }
+    }
+
+    private void judge(Ticket ticket) {
+        ticket.attempts++;
+        // 排队评判不阻塞页面，让出交互名额
+        String response = LlmScheduler.callAs(LlmPriority.STANDARD,
+                () -> aiProcessingService.judgeShortAnswer(ticket.request));
+        if (response == null) {
+            if (ticket.attempts >= aiConfig.getJudgeQueue().getMaxAttempts()) {
+                finish(ticket, STATUS_FAILED, null, "AI评判服务暂时不可用");
+            }
+            return;
+        }
+        try {
+            JSONObject result = parseJudgeResult(response);
+            result.put("maxScore", ticket.maxScore);
+            judgeAnswerCache.store(JudgeAnswerCache.questionKey((String) ticket.request.get("questionContent"),
+                    (String) ticket.request.get("standardAnswer"), ticket.maxScore),
+                    (String) ticket.request.get("userAnswer"), result);
+            finish(ticket, STATUS_DONE, result, null);
+            logger.info("✅ 排队评判完成: {}, score={}", ticket.id, result.get("score"));
+        } catch (Exception e) {
+            logger.error("❌ 排队评判结果解析失败: {}", ticket.id, e);
+            finish(ticket, STATUS_FAILED, null, "评判结果解析失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 解析评判结果，容忍代码块标记和说明文字，缺少得分视为失败
+     */
+    private static JSONObject parseJudgeResult(String response) {
+        LlmJson.Result<JSONObject> parsed = LlmJson.parseObject(response);
+        JSONObject result = parsed.getValue();
+        if (result == null) {
+            throw new IllegalStateException(parsed.getError());
+        }
+        if (result.get("score") == null) {
+            throw new IllegalStateException("缺少score字段");
+        }
+        return result;
+    }
+
+    private void finish(Ticket ticket, String status, JSONObject result, String message) {
+        ticket.result = result;
+        ticket.message = message;
+        ticket.finishTime = System.currentTimeMillis();
+        ticket.status = status;
+        // 结果已产生，释放原始请求
+        ticket.request = null;
+    }
+
+    /**
+     * 清理过期的已完成票据
+     */
+    private void purgeExpired() {
+        long expireBefore = System.currentTimeMillis() - aiConfig.getJudgeQueue().getResultTtlMinutes() * 60_000L;
+        tickets.values().removeIf(t -> t.finishTime > 0 && t.finishTime < expireBefore);
+    }
+
+    /**
+     * 排队票据
+     */
+    private static class Ticket {
+        private final String id;
+        private final double maxScore;
+        private final long createTime = System.currentTimeMillis();
+        private volatile Map<String, Object> request;
+        private volatile String status = STATUS_QUEUED;
+        private volatile int attempts;
+        private volatile JSONObject result;
+        private volatile String message;
+        private volatile long finishTime;
+
+        Ticket(String id, Map<String, Object> request, double maxScore) {
+            this.id = id;
+            this.request = request;
+            this.maxScore = maxScore;
+        }
+    }
+}
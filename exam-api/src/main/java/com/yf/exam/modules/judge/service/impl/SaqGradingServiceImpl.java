@@ -0,0 +1,626 @@
+package com.yf.exam.modules.judge.service.impl;
+
+import com.alibaba.fastjson2.JSON;
+import com.alibaba.fastjson2.JSONArray;
+import com.alibaba.fastjson2.JSONObject;
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.baomidou.mybatisplus.core.toolkit.IdWorker;
+import com.yf.exam.ability.ai.cache.JudgeAnswerCache;
+import com.yf.exam.ability.ai.config.AIConfig;
+import com.yf.exam.ability.ai.scheduler.LlmPriority;
+import com.yf.exam.ability.ai.scheduler.LlmScheduler;
+import com.yf.exam.ability.ai.usage.LlmUsageRecorder;
+import com.yf.exam.ability.ai.utils.LlmJson;
+import com.yf.exam.core.exception.ServiceException;
+import com.yf.exam.modules.ai.service.AIProcessingService;
+import com.yf.exam.modules.judge.service.SaqGradingService;
+import com.yf.exam.modules.paper.entity.Paper;
+import com.yf.exam.modules.paper.entity.PaperQu;
+import com.yf.exam.modules.paper.enums.PaperState;
+import com.yf.exam.modules.paper.service.PaperQuService;
+import com.yf.exam.modules.paper.service.PaperService;
+import com.yf.exam.modules.qu.entity.Qu;
+import com.yf.exam.modules.qu.entity.QuAnswer;
+import com.yf.exam.modules.qu.enums.QuType;
+import com.yf.exam.modules.qu.service.QuAnswerService;
+import com.yf.exam.modules.qu.service.QuService;
+import com.yf.exam.modules.user.exam.service.UserExamService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+* <p>
+* 简答题批量阅卷业务实现类
+* 任务线程负责收集答案、回写得分和完成阅卷，评分线程池并发调用LLM，两者流水线并行。
+* 同一题目的答案按批次合并为一次LLM调用，批次结果缺失的答案单独重评。
+* 有答案评分失败的试卷保持待阅卷状态，可再次提交。任务进度保存在内存中
+* </p>
+*
+* @author AI Assistant
+* @since 2026-10-19
+*/
+@Service
+public class SaqGradingServiceImpl implements SaqGradingService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SaqGradingServiceImpl.class);
+
+    public static final String STATUS_RUNNING = "RUNNING";
+    public static final String STATUS_DONE = "DONE";
+    public static final String STATUS_FAILED = "FAILED";
+
+    /**
+     * IN查询每批的ID数量
+     */
+    private static final int QUERY_CHUNK = 500;
+
+    @Autowired
+    private PaperService paperService;
+
+    @Autowired
+    private PaperQuService paperQuService;
+
+    @Autowired
+    private QuService quService;
+
+    @Autowired
+    private QuAnswerService quAnswerService;
+
+    @Autowired
+    private UserExamService userExamService;
+
+    @Autowired
+    private AIProcessingService aiProcessingService;
+
+    @Autowired
+    private JudgeAnswerCache judgeAnswerCache;
+
+    @Autowired
+    private AIConfig aiConfig;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    /**
+     * 任务线程：依次执行阅卷任务
+     */
+    private ExecutorService taskExecutor;
+
+    /**
+     * 评分线程：并发数即同时进行的LLM请求数
+     */
+    private ExecutorService llmExecutor;
+
+    private final Map<String, Task> tasks = new ConcurrentHashMap<>();
+
+    /**
+     * 正在阅卷的试卷，避免重复提交
+     */
+    private final Set<String> activePapers = ConcurrentHashMap.newKeySet();
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger index = new AtomicInteger();
+        taskExecutor = Executors.newSingleThreadExecutor(r -> new Thread(r, "saq-grading-task"));
+        llmExecutor = Executors.newFixedThreadPool(Math.max(1, aiConfig.getGrading().getConcurrency()),
+                r -> new Thread(r, "saq-grading-" + index.incrementAndGet()));
+    }
+
+    @PreDestroy
+    public void destroy() {
+        taskExecutor.shutdownNow();
+        llmExecutor.shutdownNow();
+    }
+
+    @Override
+    public String gradePaper(String paperId) {
+        Paper paper = paperService.getById(paperId);
+        if (paper == null) {
+            throw new ServiceException("试卷不存在！");
+        }
+        if (!PaperState.WAIT_OPT.equals(paper.getState())) {
+            throw new ServiceException("试卷不是待阅卷状态！");
+        }
+        return submit("paper", paperId, paper.getExamId(), paper.getUserId(), Collections.singletonList(paperId));
+    }
+
+    @Override
+    public String gradeExam(String examId) {
+        QueryWrapper<Paper> wrapper = new QueryWrapper<>();
+        wrapper.lambda()
+                .select(Paper::getId)
+                .eq(Paper::getExamId, examId)
+                .eq(Paper::getState, PaperState.WAIT_OPT);
+        List<String> paperIds = paperService.list(wrapper).stream()
+                .map(Paper::getId).collect(Collectors.toList());
+        if (paperIds.isEmpty()) {
+            throw new ServiceException("该考试没有待阅卷的试卷！");
+        }
+        return submit("exam", examId, examId, null, paperIds);
+    }
+
+    @Override
+    public Map<String, Object> getTask(String taskId) {
+        Task task = tasks.get(taskId);
+        return task == null ? null : task.toMap();
+    }
+
+    /**
+     * 提交阅卷任务
+     * @param examId 考试ID，用于LLM用量统计
+     * @param userId 考生ID，单份试卷阅卷时用于LLM用量统计
+     */
+    private String submit(String target, String targetId, String examId, String userId, List<String> paperIds) {
+        purgeExpired();
+
+        // 排除正在阅卷的试卷
+        List<String> accepted = new ArrayList<>();
+        for (String id : paperIds) {
+            if (activePapers.add(id)) {
+                accepted.add(id);
+            }
+        }
+        if (accepted.isEmpty()) {
+            throw new ServiceException("试卷正在阅卷中，请勿重复提交！");
+        }
+
+        Task task = new Task(IdWorker.getIdStr(), target, targetId, examId, userId, accepted.size());
+        tasks.put(task.id, task);
+        taskExecutor.execute(() -> {
+            try {
+                run(task, accepted);
+            } catch (Exception e) {
+                logger.error("❌ 简答题阅卷任务失败: {}", task.id, e);
+                task.message = e.getMessage();
+                task.status = STATUS_FAILED;
+            } finally {
+                task.finishTime = System.currentTimeMillis();
+                activePapers.removeAll(accepted);
+            }
+        });
+        logger.info("📥 简答题阅卷任务已提交: {}, {} {}, 试卷 {} 份", task.id, target, targetId, accepted.size());
+        return task.id;
+    }
+
+    /**
+     * 执行阅卷任务：收集答案 → 按题分组分批 → 并发评分 → 回写得分 → 完成阅卷
+     */
+    private void run(Task task, List<String> paperIds) throws Exception {
+
+        // 1. 收集简答题答案，按题目分组
+        List<PaperQu> answers = new ArrayList<>();
+        for (int i = 0; i < paperIds.size(); i += QUERY_CHUNK) {
+            QueryWrapper<PaperQu> wrapper = new QueryWrapper<>();
+            wrapper.lambda()
+                    .in(PaperQu::getPaperId, paperIds.subList(i, Math.min(paperIds.size(), i + QUERY_CHUNK)))
+                    .eq(PaperQu::getQuType, QuType.SAQ);
+            answers.addAll(paperQuService.list(wrapper));
+        }
+        Map<String, List<PaperQu>> groups = answers.stream()
+                .collect(Collectors.groupingBy(PaperQu::getQuId, LinkedHashMap::new, Collectors.toList()));
+        task.totalAnswers = answers.size();
+
+        // 每份试卷待评分的答案数，归零后完成阅卷
+        Map<String, AtomicInteger> remaining = new HashMap<>();
+        for (String paperId : paperIds) {
+            remaining.put(paperId, new AtomicInteger());
+        }
+        for (PaperQu qu : answers) {
+            remaining.get(qu.getPaperId()).incrementAndGet();
+        }
+        Set<String> failedPapers = ConcurrentHashMap.newKeySet();
+
+        // 没有简答题的试卷直接完成阅卷
+        for (String paperId : paperIds) {
+            if (remaining.get(paperId).get() == 0) {
+                finishPaper(task, paperId);
+            }
+        }
+        if (answers.isEmpty()) {
+            task.status = STATUS_DONE;
+            return;
+        }
+
+        // 2. 加载题目和标准答案
+        Map<String, Qu> quMap = new HashMap<>();
+        Map<String, String> standardMap = new HashMap<>();
+        List<String> quIds = new ArrayList<>(groups.keySet());
+        for (int i = 0; i < quIds.size(); i += QUERY_CHUNK) {
+            List<String> chunk = quIds.subList(i, Math.min(quIds.size(), i + QUERY_CHUNK));
+            for (Qu qu : quService.listByIds(chunk)) {
+                quMap.put(qu.getId(), qu);
+            }
+            QueryWrapper<QuAnswer> wrapper = new QueryWrapper<>();
+            wrapper.lambda().in(QuAnswer::getQuId, chunk).eq(QuAnswer::getIsRight, true);
+            for (QuAnswer answer : quAnswerService.list(wrapper)) {
+                standardMap.merge(answer.getQuId(), answer.getContent(), (a, b) -> a + "\n" + b);
+            }
+        }
+
+        // 3. 分批提交评分：空白答案和可复用评分的答案直接记分，相同答案只评一次
+        int batchSize = Math.max(1, aiConfig.getGrading().getBatchSize());
+        CompletionService<Batch> completion = new ExecutorCompletionService<>(llmExecutor);
+        int submitted = 0;
+        List<Batch> local = new ArrayList<>();
+        for (Map.Entry<String, List<PaperQu>> entry : groups.entrySet()) {
+            Qu qu = quMap.get(entry.getKey());
+            String standard = standardMap.get(entry.getKey());
+            if (StringUtils.isEmpty(standard) && qu != null) {
+                standard = qu.getAnalysis();
+            }
+
+            // 题目已被删除，无法评分
+            if (qu == null) {
+                local.add(new Batch(entry.getValue()));
+                continue;
+            }
+
+            double maxScore = maxScoreOf(entry.getValue().get(0));
+            String questionKey = JudgeAnswerCache.questionKey(qu.getContent(), standard, maxScore);
+            Batch reused = new Batch(new ArrayList<>());
+            Map<String, PaperQu> representatives = new LinkedHashMap<>();
+            Map<String, List<PaperQu>> followers = new HashMap<>();
+            for (PaperQu item : entry.getValue()) {
+                if (StringUtils.isEmpty(item.getAnswer()) || item.getAnswer().trim().isEmpty()) {
+                    reused.items.add(item);
+                    reused.scores.put(item.getId(), 0);
+                    continue;
+                }
+                JSONObject hit = judgeAnswerCache.lookup(questionKey, item.getAnswer());
+                if (hit != null && hit.getDouble("score") != null) {
+                    reused.items.add(item);
+                    reused.scores.put(item.getId(), clamp(hit.getDouble("score"), maxScore));
+                    continue;
+                }
+                PaperQu representative = representatives.putIfAbsent(JudgeAnswerCache.normalize(item.getAnswer()), item);
+                if (representative != null) {
+                    followers.computeIfAbsent(representative.getId(), k -> new ArrayList<>()).add(item);
+                }
+            }
+            if (!reused.items.isEmpty()) {
+                local.add(reused);
+            }
+
+            List<PaperQu> toGrade = new ArrayList<>(representatives.values());
+            for (int i = 0; i < toGrade.size(); i += batchSize) {
+                Batch batch = new Batch(toGrade.subList(i, Math.min(toGrade.size(), i + batchSize)));
+                for (PaperQu item : batch.items) {
+                    List<PaperQu> same = followers.get(item.getId());
+                    if (same != null) {
+                        batch.followers.put(item.getId(), same);
+                    }
+                }
+                final String standardAnswer = standard;
+                completion.submit(() -> LlmScheduler.callAs(LlmPriority.BULK,
+                        () -> LlmUsageRecorder.callFor(task.examId, task.userId,
+                                () -> grade(task, qu, standardAnswer, questionKey, batch))));
+                submitted++;
+            }
+        }
+
+        // 4. 回写得分：评分线程继续评下一批的同时，任务线程写库
+        for (Batch batch : local) {
+            apply(task, batch, remaining, failedPapers);
+        }
+        for (int i = 0; i < submitted; i++) {
+            Future<Batch> future = completion.take();
+            apply(task, future.get(), remaining, failedPapers);
+        }
+
+        task.status = STATUS_DONE;
+        task.message = failedPapers.isEmpty() ? null
+                : failedPapers.size() + " 份试卷有答案评分失败，仍为待阅卷状态，可重新提交";
+        logger.info("✅ 简答题阅卷任务完成: {}, 答案 {} 份, 失败 {} 份, LLM调用 {} 次, 耗时 {}ms",
+                task.id, task.totalAnswers, task.failedAnswers.get(), task.llmCalls.get(),
+                System.currentTimeMillis() - task.createTime);
+    }
+
+    /**
+     * 评分一个批次，异常时返回已得到的部分得分
+     */
+    private Batch grade(Task task, Qu qu, String standardAnswer, String questionKey, Batch batch) {
+        try {
+            doGrade(task, qu, standardAnswer, questionKey, batch);
+        } catch (Exception e) {
+            logger.error("❌ 简答题批次评分异常: 题目 {}", qu.getId(), e);
+        }
+        return batch;
+    }
+
+    /**
+     * 批量评分，结果缺失的答案单独重评，评分结果写入答案缓存
+     */
+    private void doGrade(Task task, Qu qu, String standardAnswer, String questionKey, Batch batch) {
+        double maxScore = maxScoreOf(batch.items.get(0));
+        String knowledgePoint = firstKnowledgePoint(qu.getKnowledgePoints());
+        int maxLength = Math.max(50, aiConfig.getGrading().getMaxAnswerLength());
+
+        List<PaperQu> rest = batch.items;
+        if (batch.items.size() > 1) {
+            List<String> answers = batch.items.stream()
+                    .map(item -> truncate(item.getAnswer().trim(), maxLength))
+                    .collect(Collectors.toList());
+            task.llmCalls.incrementAndGet();
+            String response = aiProcessingService.judgeShortAnswerBatch(qu.getContent(), standardAnswer,
+                    knowledgePoint, maxScore, answers);
+            Map<Integer, JSONObject> parsed = parseBatch(response);
+            rest = new ArrayList<>();
+            for (int i = 0; i < batch.items.size(); i++) {
+                PaperQu item = batch.items.get(i);
+                JSONObject result = parsed.get(i + 1);
+                if (result == null) {
+                    rest.add(item);
+                } else {
+                    batch.scores.put(item.getId(), clamp(result.getDouble("score"), maxScore));
+                    judgeAnswerCache.store(questionKey, item.getAnswer(), result);
+                }
+            }
+        }
+
+        for (PaperQu item : rest) {
+            Map<String, Object> request = new HashMap<>();
+            request.put("questionContent", qu.getContent());
+            request.put("standardAnswer", standardAnswer != null ? standardAnswer : "");
+            request.put("userAnswer", truncate(item.getAnswer().trim(), maxLength));
+            request.put("knowledgePoint", knowledgePoint);
+            request.put("maxScore", maxScore);
+            task.llmCalls.incrementAndGet();
+            JSONObject result = parseSingle(aiProcessingService.judgeShortAnswer(request));
+            if (result != null) {
+                batch.scores.put(item.getId(), clamp(result.getDouble("score"), maxScore));
+                judgeAnswerCache.store(questionKey, item.getAnswer(), result);
+            }
+        }
+    }
+
+    /**
+     * 回写一个批次的得分，试卷全部答案评分完成后完成阅卷
+     */
+    private void apply(Task task, Batch batch, Map<String, AtomicInteger> remaining, Set<String> failedPapers) {
+        for (PaperQu item : batch.items) {
+            Integer score = batch.scores.get(item.getId());
+            applyOne(task, item, score, remaining, failedPapers);
+            // 相同答案沿用代表答案的得分
+            for (PaperQu follower : batch.followers.getOrDefault(item.getId(), Collections.emptyList())) {
+                applyOne(task, follower, score, remaining, failedPapers);
+            }
+        }
+    }
+
+    private void applyOne(Task task, PaperQu item, Integer score,
+                          Map<String, AtomicInteger> remaining, Set<String> failedPapers) {
+        if (score == null) {
+            task.failedAnswers.incrementAndGet();
+            failedPapers.add(item.getPaperId());
+        } else {
+            PaperQu update = new PaperQu();
+            update.setId(item.getId());
+            update.setActualScore(score);
+            update.setIsRight(item.getScore() != null && score >= item.getScore());
+            paperQuService.updateById(update);
+            task.gradedAnswers.incrementAndGet();
+        }
+
+        if (remaining.get(item.getPaperId()).decrementAndGet() == 0) {
+            if (failedPapers.contains(item.getPaperId())) {
+                task.failedPapers.incrementAndGet();
+            } else {
+                finishPaper(task, item.getPaperId());
+            }
+        }
+    }
+
+    /**
+     * 完成阅卷：汇总主观分，更新试卷状态和考试成绩
+     */
+    private void finishPaper(Task task, String paperId) {
+        transactionTemplate.execute(status -> {
+            Paper paper = paperService.getById(paperId);
+            if (paper == null || !PaperState.WAIT_OPT.equals(paper.getState())) {
+                return null;
+            }
+            int objScore = paper.getObjScore() == null ? 0 : paper.getObjScore();
+            int subjScore = paperQuService.sumSubjective(paperId);
+            int userScore = objScore + subjScore;
+
+            Paper update = new Paper();
+            update.setId(paperId);
+            update.setSubjScore(subjScore);
+            update.setUserScore(userScore);
+            update.setState(PaperState.FINISHED);
+            update.setUpdateTime(new Date());
+            paperService.updateById(update);
+
+            // 同步保存考试成绩
+            userExamService.joinResult(paper.getUserId(), paper.getExamId(), userScore,
+                    userScore >= paper.getQualifyScore());
+            return null;
+        });
+        task.finishedPapers.incrementAndGet();
+    }
+
+    /**
+     * 解析批量评分结果，返回 答案编号 → 得分；输出被截断时保留已完整的评分，其余答案逐个重评
+     */
+    private Map<Integer, JSONObject> parseBatch(String response) {
+        Map<Integer, JSONObject> result = new HashMap<>();
+        if (response == null) {
+            return result;
+        }
+        LlmJson.Result<JSONArray> parsed = LlmJson.parseArray(response);
+        JSONArray array = parsed.getValue();
+        if (array == null) {
+            logger.warn("⚠️ 批量评分结果解析失败: {}", parsed.getError());
+            return result;
+        }
+        if (parsed.isTruncated()) {
+            logger.warn("⚠️ 批量评分结果被截断: {}", parsed.summary());
+        }
+        for (int i = 0; i < array.size(); i++) {
+            Object element = array.get(i);
+            if (!(element instanceof JSONObject)) {
+                continue;
+            }
+            JSONObject item = (JSONObject) element;
+            try {
+                if (item.getInteger("index") != null && item.getDouble("score") != null) {
+                    result.put(item.getInteger("index"), item);
+                }
+            } catch (Exception e) {
+                logger.warn("⚠️ 批量评分结果第{}项格式错误: {}", i + 1, e.getMessage());
+            }
+        }
+        return result;
+    }
+
+    private JSONObject parseSingle(String response) {
+        if (response == null) {
+            return null;
+        }
+        LlmJson.Result<JSONObject> parsed = LlmJson.parseObject(response);
+        JSONObject result = parsed.getValue();
+        if (result == null) {
+            logger.warn("⚠️ 评分结果解析失败: {}", parsed.getError());
+            return null;
+        }
+        try {
+            return result.getDouble("score") == null ? null : result;
+        } catch (Exception e) {
+            logger.warn("⚠️ 评分结果解析失败: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private static String firstKnowledgePoint(String knowledgePoints) {
+        if (StringUtils.isEmpty(knowledgePoints)) {
+            return "基础知识";
+        }
+        try {
+            JSONArray array = JSON.parseArray(knowledgePoints);
+            if (!array.isEmpty() && array.get(0) != null) {
+                Object first = array.get(0);
+                return first instanceof JSONObject ? ((JSONObject) first).getString("name") : first.toString();
+            }
+        } catch (Exception e) {
+            // 非JSON格式按原文使用
+            return knowledgePoints;
+        }
+        return "基础知识";
+    }
+
+    private static double maxScoreOf(PaperQu item) {
+        return item.getScore() == null ? 0 : item.getScore();
+    }
+
+    private static int clamp(double score, double maxScore) {
+        return (int) Math.round(Math.max(0, Math.min(maxScore, score)));
+    }
+
+    private static String truncate(String text, int maxLength) {
+        return text.length() > maxLength ? text.substring(0, maxLength) : text;
+    }
+
+    /**
+     * 清理过期的已完成任务
+     */
+    private void purgeExpired() {
+        long expireBefore = System.currentTimeMillis() - aiConfig.getGrading().getTaskTtlMinutes() * 60_000L;
+        tasks.values().removeIf(t -> t.finishTime > 0 && t.finishTime < expireBefore);
+    }
+
+    /**
+     * 评分批次：同一题目的若干份答案
+     */
+    private static class Batch {
+        private final List<PaperQu> items;
+        private final Map<String, Integer> scores = new ConcurrentHashMap<>();
+        /**
+         * 代表答案ID → 与其答案相同、沿用其得分的答案
+         */
+        private final Map<String, List<PaperQu>> followers = new HashMap<>();
+
+        Batch(List<PaperQu> items) {
+            this.items = items;
+        }
+    }
+
+    /**
+     * 阅卷任务进度
+     */
+    private static class Task {
+        private final String id;
+        private final String target;
+        private final String targetId;
+        private final String examId;
+        private final String userId;
+        private final int totalPapers;
+        private final long createTime = System.currentTimeMillis();
+        private final AtomicInteger finishedPapers = new AtomicInteger();
+        private final AtomicInteger failedPapers = new AtomicInteger();
+        private final AtomicInteger gradedAnswers = new AtomicInteger();
+        private final AtomicInteger failedAnswers = new AtomicInteger();
+        private final AtomicInteger llmCalls = new AtomicInteger();
+        private volatile int totalAnswers;
+        private volatile String status = STATUS_RUNNING;
+        private volatile String message;
+        private volatile long finishTime;
+
+        Task(String id, String target, String targetId, String examId, String userId, int totalPapers) {
+            this.id = id;
+            this.target = target;
+            this.targetId = targetId;
+            this.examId = examId;
+            this.userId = userId;
+            this.totalPapers = totalPapers;
+        }
+
+        Map<String, Object> toMap() {
+            int done = gradedAnswers.get() + failedAnswers.get();
+            Map<String, Object> data = new LinkedHashMap<>();
+            data.put("taskId", id);
+            data.put("target", target);
+            data.put("targetId", targetId);
+            data.put("status", status);
+            data.put("progress", totalAnswers == 0 ? (STATUS_RUNNING.equals(status) ? 0 : 100)
+                    : done * 100 / totalAnswers);
+            data.put("totalPapers", totalPapers);
+            data.put("finishedPapers", finishedPapers.get());
+            data.put("failedPapers", failedPapers.get());
+            data.put("totalAnswers", totalAnswers);
+            data.put("gradedAnswers", gradedAnswers.get());
+            data.put("failedAnswers", failedAnswers.get());
+            data.put("llmCalls", llmCalls.get());
+            data.put("createTime", new Date(createTime));
+            if (finishTime > 0) {
+                data.put("finishTime", new Date(finishTime));
+                data.put("elapsedMillis", finishTime - createTime);
+            }
+            if (message != null) {
+                data.put("message", message);
+            }
+            return data;
+        }
+    }
+}
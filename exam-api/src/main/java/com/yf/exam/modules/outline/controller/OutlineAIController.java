@@ -1,5 +1,7 @@
 package com.yf.exam.modules.outline.controller;
 
+import com.yf.exam.ability.ai.scheduler.LlmPriority;
+import com.yf.exam.ability.ai.scheduler.LlmScheduler;
 import com.yf.exam.core.api.ApiRest;
 import com.yf.exam.core.api.controller.BaseController;
 import com.yf.exam.modules.ai.service.AIProcessingService;
@@ -87,7 +89,9 @@ public class OutlineAIController extends BaseController {
                 try {
                     Qu question = quService.getById(questionId);
                     if (question != null) {
-                        Map<String, Object> aiResult = callAIForIdentification(question, subject, grade);
+                        // 批量识别按批量优先级排队，由调度器控制请求速率
+                        Map<String, Object> aiResult = LlmScheduler.callAs(LlmPriority.BULK,
+                                () -> callAIForIdentification(question, subject, grade));
                         if (aiResult != null) {
                             batchResult.put(questionId, aiResult);
                             successCount++;
@@ -97,10 +101,6 @@ public class OutlineAIController extends BaseController {
                     } else {
                         failCount++;
                     }
-                    
-                    // 避免请求过快
-                    Thread.sleep(200);
-                    
                 } catch (Exception e) {
                     failCount++;
                     System.err.println("处理题目 " + questionId + " 失败: " + e.getMessage());
@@ -2,11 +2,16 @@ package com.yf.exam.modules.outline.service.impl;
 
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.yf.exam.ability.ai.index.OutlineVectorIndex;
 import com.yf.exam.modules.outline.entity.KnowledgeOutline;
 import com.yf.exam.modules.outline.mapper.KnowledgeOutlineMapper;
 import com.yf.exam.modules.outline.service.KnowledgeOutlineService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
 
+import java.io.Serializable;
+
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -18,6 +23,31 @@ import java.util.stream.Collectors;
 public class KnowledgeOutlineServiceImpl extends ServiceImpl<KnowledgeOutlineMapper, KnowledgeOutline> 
         implements KnowledgeOutlineService {
 
+    @Autowired
+    @Lazy
+    private OutlineVectorIndex outlineVectorIndex;
+
+    @Override
+    public boolean save(KnowledgeOutline entity) {
+        boolean saved = super.save(entity);
+        outlineVectorIndex.changed(entity.getId());
+        return saved;
+    }
+
+    @Override
+    public boolean updateById(KnowledgeOutline entity) {
+        boolean updated = super.updateById(entity);
+        outlineVectorIndex.changed(entity.getId());
+        return updated;
+    }
+
+    @Override
+    public boolean removeById(Serializable id) {
+        boolean removed = super.removeById(id);
+        outlineVectorIndex.changed(String.valueOf(id));
+        return removed;
+    }
+
     @Override
     public List<KnowledgeOutline> getBySubjectAndGrade(String subject, String grade) {
         QueryWrapper<KnowledgeOutline> wrapper = new QueryWrapper<>();
@@ -1,6 +1,10 @@
 package com.yf.exam.modules.outline.service.impl;
 
 import com.alibaba.fastjson2.JSONObject;
+import com.yf.exam.ability.ai.index.OutlineVectorIndex;
+import com.yf.exam.ability.ai.scheduler.LlmPriority;
+import com.yf.exam.ability.ai.scheduler.LlmScheduler;
+import com.yf.exam.ability.ai.utils.LlmJson;
 import com.yf.exam.config.PromptConfig;
 import com.yf.exam.modules.ai.service.AIProcessingService;
 import com.yf.exam.modules.outline.entity.KnowledgeOutline;
@@ -32,6 +36,9 @@ public class OutlineIdentificationService {
     @Autowired
     private QuestionOutlineMappingService questionOutlineMappingService;
 
+    @Autowired
+    private OutlineVectorIndex outlineVectorIndex;
+
     /**
      * 🤖 使用AI识别题目对应的知识大纲
      * @param question 题目对象
@@ -91,13 +98,16 @@ public class OutlineIdentificationService {
                 }
                 
                 // AI识别知识大纲
-                OutlineIdentificationResult identificationResult = identifyOutlineForQuestion(question, subject, grade);
+                // 批量识别按批量优先级排队，由调度器控制请求速率
+                OutlineIdentificationResult identificationResult = LlmScheduler.callAs(LlmPriority.BULK,
+                        () -> identifyOutlineForQuestion(question, subject, grade));
                 
                 if (identificationResult.isSuccess() && identificationResult.getOutlineId() != null) {
                     // 存储映射关系到数据库
                     boolean stored = storeQuestionOutlineMapping(question.getId(), identificationResult);
                     
                     if (stored) {
+                        outlineVectorIndex.addExample(identificationResult.getOutlineId(), question.getContent());
                         result.incrementSuccessCount();
                         System.out.println("✅ 题目 " + question.getId() + " 成功映射到大纲: " + identificationResult.getKnowledgePoint());
                     } else {
@@ -108,10 +118,7 @@ public class OutlineIdentificationService {
                     result.incrementNoMatchCount();
                     System.out.println("⚠️ 题目 " + question.getId() + " 未找到匹配的知识大纲");
                 }
-                
-                // 添加延迟避免API调用过频繁
-                Thread.sleep(100);
-                
+
             } catch (Exception e) {
                 result.incrementFailedCount();
                 System.err.println("❌ 处理题目 " + question.getId() + " 失败: " + e.getMessage());
@@ -179,7 +186,11 @@ public class OutlineIdentificationService {
             String result = aiProcessingService.identifyOutline(requestBody);
             
             if (result != null && !result.trim().isEmpty()) {
-                return JSONObject.parseObject(result);
+                LlmJson.Result<JSONObject> parsed = LlmJson.parseObject(result);
+                if (parsed.getValue() == null) {
+                    throw new RuntimeException("AI大纲识别结果无法解析: " + parsed.getError());
+                }
+                return parsed.getValue();
             } else {
                 throw new RuntimeException("AI大纲识别返回空结果");
             }
@@ -2,6 +2,7 @@ package com.yf.exam.modules.outline.service.impl;
 
 import com.alibaba.fastjson2.JSONArray;
 import com.alibaba.fastjson2.JSONObject;
+import com.yf.exam.ability.ai.utils.LlmJson;
 import com.yf.exam.core.api.ApiRest;
 import com.yf.exam.modules.ai.service.AIProcessingService;
 import com.yf.exam.modules.outline.entity.KnowledgeOutline;
@@ -152,7 +153,14 @@ public class OutlineUploadServiceImpl implements OutlineUploadService {
      */
     private int saveOutlinesToDatabase(String outlineJson, String subject, String grade) {
         try {
-            JSONArray outlines = JSONArray.parseArray(outlineJson);
+            LlmJson.Result<JSONArray> parsed = LlmJson.parseArray(outlineJson);
+            JSONArray outlines = parsed.getValue();
+            if (outlines == null) {
+                throw new RuntimeException("大纲结构无法解析: " + parsed.getError());
+            }
+            if (parsed.isRepaired()) {
+                logger.warn("⚠️ 大纲结构已修复: {}", parsed.summary());
+            }
             int importedCount = 0;
 
             for (Object item : outlines) {
@@ -2,9 +2,12 @@ package com.yf.exam.modules.outline.service.impl;
 
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.yf.exam.ability.ai.index.OutlineVectorIndex;
 import com.yf.exam.modules.outline.entity.QuestionOutlineMapping;
 import com.yf.exam.modules.outline.mapper.QuestionOutlineMappingMapper;
 import com.yf.exam.modules.outline.service.QuestionOutlineMappingService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
 
 import java.util.Date;
@@ -18,6 +21,10 @@ import java.util.List;
 public class QuestionOutlineMappingServiceImpl extends ServiceImpl<QuestionOutlineMappingMapper, QuestionOutlineMapping>
         implements QuestionOutlineMappingService {
 
+    @Autowired
+    @Lazy
+    private OutlineVectorIndex outlineVectorIndex;
+
     @Override
     public QuestionOutlineMapping getByQuestionId(String questionId) {
         QueryWrapper<QuestionOutlineMapping> wrapper = new QueryWrapper<>();
@@ -48,6 +55,14 @@ public class QuestionOutlineMappingServiceImpl extends ServiceImpl<QuestionOutli
 
     @Override
     public boolean saveOrUpdateMapping(String questionId, String outlineId) {
+        // 原大纲和新大纲的题干样例都有变化
+        QueryWrapper<QuestionOutlineMapping> wrapper = new QueryWrapper<>();
+        wrapper.eq("question_id", questionId);
+        for (QuestionOutlineMapping existing : this.list(wrapper)) {
+            outlineVectorIndex.changed(existing.getOutlineId());
+        }
+        outlineVectorIndex.changed(outlineId);
+
         // 先删除现有映射
         deleteByQuestionId(questionId);
         
@@ -0,0 +1,32 @@
+package com.yf.exam.modules.paper.dto.ext;
+
+import io.swagger.annotations.ApiModel;
+import io.swagger.annotations.ApiModelProperty;
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.Date;
+
+/**
+* <p>
+* 题目组卷使用统计
+* </p>
+*
+* @author AI Assistant
+* @since 2026-10-19
+*/
+@Data
+@ApiModel(value="题目组卷使用统计", description="题目组卷使用统计")
+public class PaperQuUsageDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @ApiModelProperty(value = "题目ID", required=true)
+    private String quId;
+
+    @ApiModelProperty(value = "最近一次组卷时间", required=true)
+    private Date lastUsedTime;
+
+    @ApiModelProperty(value = "累计组卷次数", required=true)
+    private Integer usedCount;
+}
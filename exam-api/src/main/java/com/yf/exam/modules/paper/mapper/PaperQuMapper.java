@@ -2,6 +2,7 @@ package com.yf.exam.modules.paper.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.yf.exam.modules.paper.dto.ext.PaperQuDetailDTO;
+import com.yf.exam.modules.paper.dto.ext.PaperQuUsageDTO;
 import com.yf.exam.modules.paper.entity.PaperQu;
 import org.apache.ibatis.annotations.Param;
 
@@ -37,6 +38,13 @@ public interface PaperQuMapper extends BaseMapper<PaperQu> {
      * @return
      */
     List<PaperQuDetailDTO> listByPaper(@Param("paperId") String paperId);
+
+    /**
+     * 统计题目的组卷使用情况
+     * @param quIds
+     * @return
+     */
+    List<PaperQuUsageDTO> listUsage(@Param("quIds") List<String> quIds);
 }
 
 
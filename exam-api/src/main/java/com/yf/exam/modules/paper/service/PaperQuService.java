@@ -5,6 +5,7 @@ import com.baomidou.mybatisplus.extension.service.IService;
 import com.yf.exam.core.api.dto.PagingReqDTO;
 import com.yf.exam.modules.paper.dto.PaperQuDTO;
 import com.yf.exam.modules.paper.dto.ext.PaperQuDetailDTO;
+import com.yf.exam.modules.paper.dto.ext.PaperQuUsageDTO;
 import com.yf.exam.modules.paper.entity.PaperQu;
 
 import java.util.List;
@@ -67,4 +68,11 @@ public interface PaperQuService extends IService<PaperQu> {
      * @return
      */
     List<PaperQuDetailDTO> listForPaperResult(String paperId);
+
+    /**
+     * 统计题目的组卷使用情况（最近使用时间、使用次数）
+     * @param quIds
+     * @return
+     */
+    List<PaperQuUsageDTO> listUsage(List<String> quIds);
 }
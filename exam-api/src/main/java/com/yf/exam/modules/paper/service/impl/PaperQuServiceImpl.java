@@ -10,11 +10,14 @@ import com.yf.exam.core.api.dto.PagingReqDTO;
 import com.yf.exam.core.utils.BeanMapper;
 import com.yf.exam.modules.paper.dto.PaperQuDTO;
 import com.yf.exam.modules.paper.dto.ext.PaperQuDetailDTO;
+import com.yf.exam.modules.paper.dto.ext.PaperQuUsageDTO;
 import com.yf.exam.modules.paper.entity.PaperQu;
 import com.yf.exam.modules.paper.mapper.PaperQuMapper;
 import com.yf.exam.modules.paper.service.PaperQuService;
 import org.springframework.stereotype.Service;
+import org.springframework.util.CollectionUtils;
 
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -91,4 +94,20 @@ public class PaperQuServiceImpl extends ServiceImpl<PaperQuMapper, PaperQu> impl
     public List<PaperQuDetailDTO> listForPaperResult(String paperId) {
         return baseMapper.listByPaper(paperId);
     }
+
+    @Override
+    public List<PaperQuUsageDTO> listUsage(List<String> quIds) {
+
+        List<PaperQuUsageDTO> list = new ArrayList<>();
+        if (CollectionUtils.isEmpty(quIds)) {
+            return list;
+        }
+
+        // 分批查询，避免IN列表过长
+        int batch = 500;
+        for (int i = 0; i < quIds.size(); i += batch) {
+            list.addAll(baseMapper.listUsage(quIds.subList(i, Math.min(i + batch, quIds.size()))));
+        }
+        return list;
+    }
 }
@@ -0,0 +1,48 @@
+package com.yf.exam.modules.qu.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 题库查重配置
+ * 签名长度 = 段数 * 每段行数，相似度s的两道题至少一段相同的概率为 1-(1-s^行数)^段数，
+ * 默认64/16即每段4行，相似度0.5时约66%、0.8时接近100%进入候选，候选再按签名估算相似度与阈值比较
+ * @author AI Assistant
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "conf.qu.dedup")
+public class QuDedupConfig {
+
+    /**
+     * 是否启用，关闭后保存题目不再查重
+     */
+    private boolean enabled = true;
+
+    /**
+     * 片段长度(字符)
+     */
+    private int shingleSize = 3;
+
+    /**
+     * 签名长度(哈希函数个数)
+     */
+    private int numHashes = 64;
+
+    /**
+     * LSH段数，需整除签名长度
+     */
+    private int bands = 16;
+
+    /**
+     * 判定为疑似重复的最低相似度
+     */
+    private double threshold = 0.8;
+
+    /**
+     * 归一化后短于该长度的题目不参与查重，避免"1+1=?"之类短题误报
+     */
+    private int minLength = 10;
+
+}
@@ -18,6 +18,7 @@ import com.yf.exam.modules.qu.dto.export.QuExportDTO;
 import com.yf.exam.modules.qu.dto.ext.QuDetailDTO;
 import com.yf.exam.modules.qu.dto.request.QuQueryReqDTO;
 import com.yf.exam.modules.qu.entity.Qu;
+import com.yf.exam.modules.qu.service.QuImportService;
 import com.yf.exam.modules.qu.service.QuService;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
@@ -35,6 +36,7 @@ import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
 
 import javax.servlet.http.HttpServletResponse;
+import java.io.File;
 import java.io.IOException;
 import java.util.Arrays;
 import java.util.List;
@@ -55,6 +57,9 @@ public class QuController extends BaseController {
     @Autowired
     private QuService baseService;
 
+    @Autowired
+    private QuImportService quImportService;
+
     /**
      * 添加或修改
      *
@@ -127,29 +132,16 @@ public class QuController extends BaseController {
         // 导出文件名
         String fileName = "导出的试题-" + System.currentTimeMillis() + ".xlsx";
 
+        ExportExcel excel = new ExportExcel("试题", QuExportDTO.class);
         try {
-
-            int no = 0;
-            String quId = "";
-            List<QuExportDTO> list = baseService.listForExport(reqDTO);
-            for (QuExportDTO item : list) {
-                if (!quId.equals(item.getQId())) {
-                    quId = item.getQId();
-                    no += 1;
-                } else {
-                    item.setQuType("0");
-                    item.setQContent("");
-                    item.setQAnalysis("");
-                    item.setRepoList(null);
-                    item.setQImage("");
-                    item.setQVideo("");
-                }
-                item.setNo(String.valueOf(no));
-            }
-            new ExportExcel("试题", QuExportDTO.class).setDataList(list).write(response, fileName).dispose();
+            // 游标逐行写入SXSSF窗口，最后从临时文件流式输出
+            baseService.exportExcel(reqDTO, excel::addData);
+            excel.write(response, fileName);
             return super.success();
         } catch (Exception e) {
             return failure(e.getMessage());
+        } finally {
+            excel.dispose();
         }
     }
 
@@ -164,6 +156,22 @@ public class QuController extends BaseController {
     @RequestMapping(value = "/import")
     public ApiRest importFile(@RequestParam("file") MultipartFile file) {
 
+        // XLSX流式导入，内存与行数无关；XLS格式本身最多65536行，仍整表读入
+        if (StringUtils.endsWithIgnoreCase(file.getOriginalFilename(), ".xlsx")) {
+            File tmp = null;
+            try {
+                tmp = File.createTempFile("qu-import-", ".xlsx");
+                file.transferTo(tmp);
+                return super.success(quImportService.importExcel(tmp));
+            } catch (IOException e) {
+                return super.failure("文档格式不正确!");
+            } finally {
+                if (tmp != null && !tmp.delete()) {
+                    tmp.deleteOnExit();
+                }
+            }
+        }
+
         try {
 
             ImportExcel ei = new ImportExcel(file, 1, 0);
@@ -0,0 +1,122 @@
+package com.yf.exam.modules.qu.controller;
+
+import com.baomidou.mybatisplus.core.metadata.IPage;
+import com.yf.exam.core.api.ApiRest;
+import com.yf.exam.core.api.controller.BaseController;
+import com.yf.exam.core.api.dto.BaseIdReqDTO;
+import com.yf.exam.core.api.dto.BaseIdsReqDTO;
+import com.yf.exam.core.api.dto.PagingReqDTO;
+import com.yf.exam.modules.qu.dto.QuAnswerDTO;
+import com.yf.exam.modules.qu.dto.QuDuplicateDTO;
+import com.yf.exam.modules.qu.dto.ext.QuDetailDTO;
+import com.yf.exam.modules.qu.service.QuDuplicateService;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import org.apache.shiro.authz.annotation.RequiresRoles;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.util.CollectionUtils;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+* <p>
+* 试题查重控制器
+* </p>
+*
+* @author AI Assistant
+* @since 2026-10-19
+*/
+@Api(tags={"试题查重"})
+@RestController
+@RequestMapping("/exam/api/qu/duplicate")
+public class QuDuplicateController extends BaseController {
+
+    @Autowired
+    private QuDuplicateService baseService;
+
+    /**
+     * 分页查找疑似重复
+     * @param reqDTO
+     * @return
+     */
+    @RequiresRoles("sa")
+    @ApiOperation(value = "分页查找")
+    @RequestMapping(value = "/paging", method = {RequestMethod.POST})
+    public ApiRest<IPage<QuDuplicateDTO>> paging(@RequestBody PagingReqDTO<QuDuplicateDTO> reqDTO) {
+        return super.success(baseService.paging(reqDTO));
+    }
+
+    /**
+     * 保存前检查是否与已有题目相似
+     * @param reqDTO
+     * @return
+     */
+    @RequiresRoles("sa")
+    @ApiOperation(value = "相似题检查")
+    @RequestMapping(value = "/check", method = {RequestMethod.POST})
+    public ApiRest<List<QuDuplicateService.Candidate>> check(@RequestBody QuDetailDTO reqDTO) {
+        List<String> answers = new ArrayList<>();
+        if (!CollectionUtils.isEmpty(reqDTO.getAnswerList())) {
+            for (QuAnswerDTO answer : reqDTO.getAnswerList()) {
+                answers.add(answer.getContent());
+            }
+        }
+        return super.success(baseService.findSimilar(reqDTO.getContent(), answers, reqDTO.getId()));
+    }
+
+    /**
+     * 合并，保留已有题目
+     * @param reqDTO
+     * @return
+     */
+    @RequiresRoles("sa")
+    @ApiOperation(value = "合并")
+    @RequestMapping(value = "/merge", method = {RequestMethod.POST})
+    public ApiRest merge(@RequestBody BaseIdReqDTO reqDTO) {
+        baseService.merge(reqDTO.getId());
+        return super.success();
+    }
+
+    /**
+     * 忽略
+     * @param reqDTO
+     * @return
+     */
+    @RequiresRoles("sa")
+    @ApiOperation(value = "忽略")
+    @RequestMapping(value = "/ignore", method = {RequestMethod.POST})
+    public ApiRest ignore(@RequestBody BaseIdsReqDTO reqDTO) {
+        baseService.ignore(reqDTO.getIds());
+        return super.success();
+    }
+
+    /**
+     * 启动全库扫描
+     * @return
+     */
+    @RequiresRoles("sa")
+    @ApiOperation(value = "全库扫描")
+    @RequestMapping(value = "/scan", method = {RequestMethod.POST})
+    public ApiRest<QuDuplicateService.ScanStatus> scan() {
+        if (!baseService.startScan()) {
+            return super.failure("已有扫描正在进行！");
+        }
+        return super.success(baseService.scanStatus());
+    }
+
+    /**
+     * 扫描进度
+     * @return
+     */
+    @RequiresRoles("sa")
+    @ApiOperation(value = "扫描进度")
+    @RequestMapping(value = "/scan-status", method = {RequestMethod.POST})
+    public ApiRest<QuDuplicateService.ScanStatus> scanStatus() {
+        return super.success(baseService.scanStatus());
+    }
+}
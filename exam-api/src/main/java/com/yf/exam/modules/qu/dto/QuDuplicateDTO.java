@@ -0,0 +1,50 @@
+package com.yf.exam.modules.qu.dto;
+
+import io.swagger.annotations.ApiModel;
+import io.swagger.annotations.ApiModelProperty;
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.Date;
+
+/**
+* <p>
+* 疑似重复试题数据传输类
+* </p>
+*
+* @author AI Assistant
+* @since 2026-10-19
+*/
+@Data
+@ApiModel(value="疑似重复试题", description="疑似重复试题")
+public class QuDuplicateDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private String id;
+
+    @ApiModelProperty(value = "后录入的题目")
+    private String quId;
+
+    @ApiModelProperty(value = "后录入的题目内容")
+    private String quContent;
+
+    @ApiModelProperty(value = "与之相似的已有题目")
+    private String similarId;
+
+    @ApiModelProperty(value = "已有题目内容")
+    private String similarContent;
+
+    @ApiModelProperty(value = "题目类型")
+    private Integer quType;
+
+    @ApiModelProperty(value = "估算相似度")
+    private Double similarity;
+
+    @ApiModelProperty(value = "状态：0待处理,1已合并,2已忽略")
+    private Integer state;
+
+    @ApiModelProperty(value = "创建时间")
+    private Date createTime;
+
+}
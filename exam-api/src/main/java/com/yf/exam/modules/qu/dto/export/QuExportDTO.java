@@ -20,6 +20,11 @@ public class QuExportDTO {
      */
     private String qId;
 
+    /**
+     * 聚合的题库ID，逗号分隔，仅游标导出时使用
+     */
+    private String repoIds;
+
     @ExcelField(title="题目序号", align=2, sort=1)
     private String no;
     @ExcelField(title="题目类型", align=2, sort=2)
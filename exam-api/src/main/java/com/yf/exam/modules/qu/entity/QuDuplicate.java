@@ -0,0 +1,78 @@
+package com.yf.exam.modules.qu.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import com.baomidou.mybatisplus.extension.activerecord.Model;
+import lombok.Data;
+
+import java.util.Date;
+
+/**
+* <p>
+* 疑似重复试题实体类
+* </p>
+*
+* @author AI Assistant
+* @since 2026-10-19
+*/
+@Data
+@TableName("el_qu_duplicate")
+public class QuDuplicate extends Model<QuDuplicate> {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 待处理
+     */
+    public static final int STATE_PENDING = 0;
+
+    /**
+     * 已合并
+     */
+    public static final int STATE_MERGED = 1;
+
+    /**
+     * 已忽略
+     */
+    public static final int STATE_IGNORED = 2;
+
+    @TableId(value = "id", type = IdType.ASSIGN_ID)
+    private String id;
+
+    /**
+     * 后录入的题目
+     */
+    @TableField("qu_id")
+    private String quId;
+
+    /**
+     * 与之相似的已有题目
+     */
+    @TableField("similar_id")
+    private String similarId;
+
+    /**
+     * 估算相似度
+     */
+    private Double similarity;
+
+    /**
+     * 状态
+     */
+    private Integer state;
+
+    /**
+     * 创建时间
+     */
+    @TableField("create_time")
+    private Date createTime;
+
+    /**
+     * 更新时间
+     */
+    @TableField("update_time")
+    private Date updateTime;
+
+}
@@ -0,0 +1,37 @@
+package com.yf.exam.modules.qu.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.baomidou.mybatisplus.core.metadata.IPage;
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.yf.exam.modules.qu.dto.QuDuplicateDTO;
+import com.yf.exam.modules.qu.entity.QuDuplicate;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
+
+/**
+* <p>
+* 疑似重复试题Mapper
+* </p>
+*
+* @author AI Assistant
+* @since 2026-10-19
+*/
+public interface QuDuplicateMapper extends BaseMapper<QuDuplicate> {
+
+    /**
+     * 分页查询，带出两道题的内容
+     * @param page
+     * @param query
+     * @return
+     */
+    IPage<QuDuplicateDTO> paging(Page page, @Param("query") QuDuplicateDTO query);
+
+    /**
+     * 批量写入，已记录过的题目对（包括已忽略的）保持不变
+     * @param list
+     * @return
+     */
+    int insertIgnore(@Param("list") List<QuDuplicate> list);
+
+}
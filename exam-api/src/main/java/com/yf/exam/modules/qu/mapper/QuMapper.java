@@ -8,6 +8,7 @@ import com.yf.exam.modules.qu.dto.export.QuExportDTO;
 import com.yf.exam.modules.qu.dto.request.QuQueryReqDTO;
 import com.yf.exam.modules.qu.entity.Qu;
 import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.cursor.Cursor;
 
 import java.util.List;
 
@@ -68,6 +69,13 @@ public interface QuMapper extends BaseMapper<Qu> {
      */
     List<QuExportDTO> listForExport(@Param("query") QuQueryReqDTO query);
 
+    /**
+     * 游标方式查找导出列表，题库ID在同一查询中聚合，须在事务内遍历
+     * @param query
+     * @return
+     */
+    Cursor<QuExportDTO> cursorForExport(@Param("query") QuQueryReqDTO query);
+
     /**
      * 分页查找
      * @param page
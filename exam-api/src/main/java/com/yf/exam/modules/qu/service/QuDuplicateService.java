@@ -0,0 +1,118 @@
+package com.yf.exam.modules.qu.service;
+
+import com.baomidou.mybatisplus.core.metadata.IPage;
+import com.baomidou.mybatisplus.extension.service.IService;
+import com.yf.exam.core.api.dto.PagingReqDTO;
+import com.yf.exam.modules.qu.dto.QuDuplicateDTO;
+import com.yf.exam.modules.qu.entity.QuDuplicate;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+* <p>
+* 试题查重服务类
+* 内存中维护全部题目的MinHash签名和LSH分桶，首次使用时加载；
+* 保存题目时只与同桶题目比较，超过阈值的记为疑似重复，由人工合并或忽略
+* </p>
+*
+* @author AI Assistant
+* @since 2026-10-19
+*/
+public interface QuDuplicateService extends IService<QuDuplicate> {
+
+    /**
+     * 查找与给定文本相似的已有题目，不记录
+     * @param content 题目内容
+     * @param answers 选项内容
+     * @param excludeId 排除的题目ID，可为空
+     * @return 按相似度降序
+     */
+    List<Candidate> findSimilar(String content, List<String> answers, String excludeId);
+
+    /**
+     * 题目保存后调用：更新索引并记录疑似重复，在调用方事务中执行，事务回滚时撤销索引变更
+     * @param quId 题目ID
+     * @param content 题目内容
+     * @param answers 选项内容
+     * @return 疑似重复的已有题目
+     */
+    List<Candidate> onSaved(String quId, String content, List<String> answers);
+
+    /**
+     * 题目删除后调用：移出索引并清除相关的待处理记录
+     * @param quIds 题目ID
+     */
+    void onRemoved(List<String> quIds);
+
+    /**
+     * 分页查询疑似重复
+     * @param reqDTO
+     * @return
+     */
+    IPage<QuDuplicateDTO> paging(PagingReqDTO<QuDuplicateDTO> reqDTO);
+
+    /**
+     * 合并：后录入题目的题库关联转到已有题目，再删除后录入的题目
+     * @param id 记录ID
+     */
+    void merge(String id);
+
+    /**
+     * 忽略，此后扫描不再提示这一对
+     * @param ids 记录ID
+     */
+    void ignore(List<String> ids);
+
+    /**
+     * 后台重建索引并扫描全库，每道题只与同桶的更早题目比较，耗时与题目数成线性
+     * @return 是否已启动，已有扫描在运行时返回false
+     */
+    boolean startScan();
+
+    /**
+     * @return 最近一次扫描的状态
+     */
+    ScanStatus scanStatus();
+
+    /**
+     * 相似题目
+     */
+    @Data
+    class Candidate {
+
+        private String quId;
+
+        private double similarity;
+
+        public Candidate(String quId, double similarity) {
+            this.quId = quId;
+            this.similarity = similarity;
+        }
+    }
+
+    /**
+     * 扫描状态
+     */
+    @Data
+    class ScanStatus {
+
+        private boolean running;
+
+        /**
+         * 已扫描题目数
+         */
+        private int scanned;
+
+        /**
+         * 新发现的疑似重复对数
+         */
+        private int found;
+
+        private long startTime;
+
+        private long endTime;
+
+        private String error;
+    }
+}
@@ -0,0 +1,142 @@
+package com.yf.exam.modules.qu.service;
+
+import com.yf.exam.modules.qu.entity.Qu;
+import com.yf.exam.modules.qu.entity.QuAnswer;
+import lombok.Data;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+* <p>
+* 试题批量导入，题目、选项和题库关联按块批量写入
+* </p>
+*
+* @author AI Assistant
+* @since 2026-10-19
+*/
+public interface QuImportService {
+
+    /**
+     * 分块保存，每块一个事务，某块失败时已提交的块保留
+     * @param items 待导入题目
+     * @param chunkSize 每块题目数
+     * @return 导入结果
+     */
+    Result saveAll(List<Item> items, int chunkSize);
+
+    /**
+     * 保存一块，在调用方的事务中执行，没有事务时自行开启
+     * @param items 待导入题目
+     * @return 导入结果
+     */
+    Result saveChunk(List<Item> items);
+
+    /**
+     * 流式导入试题Excel（.xlsx），格式同导入模板：第三行起为数据，相同序号的连续行为同一题的选项。
+     * 先完整校验一遍，有错误时抛出全部错误且不导入；通过后再读一遍，按块批量写入
+     * @param file 导入文件
+     * @return 导入结果
+     * @throws IOException 文件无法解析
+     */
+    Result importExcel(File file) throws IOException;
+
+    /**
+     * 待导入题目
+     */
+    @Data
+    class Item {
+
+        /**
+         * 行号，用于返回校验结果，从1开始
+         */
+        private int row;
+
+        /**
+         * 题目，ID为空时自动分配
+         */
+        private Qu qu;
+
+        /**
+         * 选项
+         */
+        private List<QuAnswer> answers = new ArrayList<>();
+
+        /**
+         * 归属题库
+         */
+        private List<String> repoIds = new ArrayList<>();
+    }
+
+    /**
+     * 单行校验结果
+     */
+    @Data
+    class RowError {
+
+        private int row;
+
+        private String message;
+
+        /**
+         * 是否因此未保存，为false时仅提示
+         */
+        private boolean skipped;
+
+        public RowError(int row, String message, boolean skipped) {
+            this.row = row;
+            this.message = message;
+            this.skipped = skipped;
+        }
+    }
+
+    /**
+     * 导入结果
+     */
+    @Data
+    class Result {
+
+        private int savedCount;
+
+        private int answerCount;
+
+        /**
+         * 疑似与已有题目重复的题目数，仍然保存，待人工处理
+         */
+        private int duplicateCount;
+
+        /**
+         * 已保存的题目ID
+         */
+        private List<String> quIds = new ArrayList<>();
+
+        private List<RowError> errors = new ArrayList<>();
+
+        /**
+         * 合并另一块的结果
+         * @param other 结果
+         */
+        public void merge(Result other) {
+            savedCount += other.savedCount;
+            answerCount += other.answerCount;
+            duplicateCount += other.duplicateCount;
+            quIds.addAll(other.quIds);
+            errors.addAll(other.errors);
+        }
+
+        /**
+         * @return 未保存的行数
+         */
+        public int getSkippedCount() {
+            int count = 0;
+            for (RowError error : errors) {
+                if (error.isSkipped()) {
+                    count++;
+                }
+            }
+            return count;
+        }
+    }
+}
@@ -10,6 +10,7 @@ import com.yf.exam.modules.qu.dto.request.QuQueryReqDTO;
 import com.yf.exam.modules.qu.entity.Qu;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
 * <p>
@@ -91,6 +92,14 @@ public interface QuService extends IService<Qu> {
      */
     List<QuExportDTO> listForExport(QuQueryReqDTO query);
 
+    /**
+     * 流式导出，游标逐行读取并编好题目序号后交给回调，不限条数，内存与题目数无关
+     * @param query
+     * @param handler 行回调
+     * @return 导出的题目数
+     */
+    int exportExcel(QuQueryReqDTO query, Consumer<QuExportDTO> handler);
+
     /**
      * 导入Excel
      * @param dtoList
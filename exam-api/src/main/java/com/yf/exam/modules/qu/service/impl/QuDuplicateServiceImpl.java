@@ -0,0 +1,472 @@
+package com.yf.exam.modules.qu.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.UpdateWrapper;
+import com.baomidou.mybatisplus.core.metadata.IPage;
+import com.baomidou.mybatisplus.core.toolkit.IdWorker;
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.yf.exam.core.api.dto.PagingReqDTO;
+import com.yf.exam.core.exception.ServiceException;
+import com.yf.exam.modules.qu.config.QuDedupConfig;
+import com.yf.exam.modules.qu.dto.QuDuplicateDTO;
+import com.yf.exam.modules.qu.entity.Qu;
+import com.yf.exam.modules.qu.entity.QuAnswer;
+import com.yf.exam.modules.qu.entity.QuDuplicate;
+import com.yf.exam.modules.qu.mapper.QuDuplicateMapper;
+import com.yf.exam.modules.qu.service.QuAnswerService;
+import com.yf.exam.modules.qu.service.QuDuplicateService;
+import com.yf.exam.modules.qu.service.QuRepoService;
+import com.yf.exam.modules.qu.service.QuService;
+import com.yf.exam.modules.qu.utils.MinHash;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.CollectionUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+* <p>
+* 试题查重服务实现类
+* </p>
+*
+* @author AI Assistant
+* @since 2026-10-19
+*/
+@Service
+public class QuDuplicateServiceImpl extends ServiceImpl<QuDuplicateMapper, QuDuplicate> implements QuDuplicateService {
+
+    private static final Logger logger = LoggerFactory.getLogger(QuDuplicateServiceImpl.class);
+
+    private static final int PAGE_SIZE = 500;
+
+    @Autowired
+    private QuDedupConfig dedupConfig;
+
+    @Autowired
+    private QuService quService;
+
+    @Autowired
+    private QuAnswerService quAnswerService;
+
+    @Autowired
+    private QuRepoService quRepoService;
+
+    private volatile LshIndex index;
+
+    private final AtomicBoolean scanning = new AtomicBoolean(false);
+
+    /**
+     * 扫描期间变更的题目，扫描结束换入新索引后重放
+     */
+    private final Set<String> touched = ConcurrentHashMap.newKeySet();
+
+    private volatile ScanStatus status = new ScanStatus();
+
+    @Override
+    public List<Candidate> findSimilar(String content, List<String> answers, String excludeId) {
+        if (!dedupConfig.isEnabled()) {
+            return Collections.emptyList();
+        }
+        int[] sig = this.signature(content, answers);
+        if (sig == null) {
+            return Collections.emptyList();
+        }
+        return this.similar(this.ensureLoaded(), sig, excludeId);
+    }
+
+    @Override
+    public List<Candidate> onSaved(String quId, String content, List<String> answers) {
+        if (!dedupConfig.isEnabled()) {
+            return Collections.emptyList();
+        }
+        LshIndex current = this.ensureLoaded();
+        int[] sig = this.signature(content, answers);
+        int[] old = current.get(quId);
+        if (scanning.get()) {
+            touched.add(quId);
+        }
+
+        // 修改题目时原来的待处理记录可能已不成立，重新判定
+        if (old != null) {
+            this.removePending(Collections.singletonList(quId));
+        }
+        List<Candidate> matches = sig == null ? Collections.emptyList() : this.similar(current, sig, quId);
+        if (sig == null) {
+            current.remove(quId);
+        } else {
+            current.put(quId, sig);
+        }
+        this.restoreOnRollback(current, Collections.singletonMap(quId, old));
+
+        if (!matches.isEmpty()) {
+            List<QuDuplicate> list = new ArrayList<>();
+            Date now = new Date();
+            for (Candidate match : matches) {
+                list.add(this.flag(quId, match, now));
+            }
+            baseMapper.insertIgnore(list);
+            logger.info("🔁 题目 {} 疑似与 {} 道已有题目重复, 最高相似度 {}",
+                    quId, matches.size(), String.format("%.2f", matches.get(0).getSimilarity()));
+        }
+        return matches;
+    }
+
+    @Override
+    public void onRemoved(List<String> quIds) {
+        if (CollectionUtils.isEmpty(quIds)) {
+            return;
+        }
+        LshIndex current = index;
+        if (current != null) {
+            Map<String, int[]> old = new HashMap<>();
+            for (String quId : quIds) {
+                old.put(quId, current.remove(quId));
+            }
+            this.restoreOnRollback(current, old);
+        }
+        if (scanning.get()) {
+            touched.addAll(quIds);
+        }
+        this.removePending(quIds);
+    }
+
+    @Override
+    public IPage<QuDuplicateDTO> paging(PagingReqDTO<QuDuplicateDTO> reqDTO) {
+        return baseMapper.paging(reqDTO.toPage(), reqDTO.getParams());
+    }
+
+    @Transactional(rollbackFor = Exception.class)
+    @Override
+    public void merge(String id) {
+        QuDuplicate dup = this.getById(id);
+        if (dup == null || dup.getState() != QuDuplicate.STATE_PENDING) {
+            throw new ServiceException(1, "记录不存在或已处理！");
+        }
+        Qu keep = quService.getById(dup.getSimilarId());
+        if (keep == null) {
+            throw new ServiceException(1, "保留的题目已被删除！");
+        }
+
+        // 题库关联取并集
+        Set<String> repoIds = new LinkedHashSet<>(quRepoService.listByQu(keep.getId()));
+        repoIds.addAll(quRepoService.listByQu(dup.getQuId()));
+        quRepoService.saveAll(keep.getId(), keep.getQuType(), new ArrayList<>(repoIds));
+
+        // 先标记已合并，删除题目时只清理待处理记录
+        dup.setState(QuDuplicate.STATE_MERGED);
+        dup.setUpdateTime(new Date());
+        this.updateById(dup);
+        quService.delete(Collections.singletonList(dup.getQuId()));
+        logger.info("🔁 重复题目已合并: {} -> {}", dup.getQuId(), keep.getId());
+    }
+
+    @Override
+    public void ignore(List<String> ids) {
+        if (CollectionUtils.isEmpty(ids)) {
+            return;
+        }
+        UpdateWrapper<QuDuplicate> wrapper = new UpdateWrapper<>();
+        wrapper.in("id", ids).eq("state", QuDuplicate.STATE_PENDING)
+                .set("state", QuDuplicate.STATE_IGNORED).set("update_time", new Date());
+        this.update(wrapper);
+    }
+
+    @Override
+    public boolean startScan() {
+        if (!scanning.compareAndSet(false, true)) {
+            return false;
+        }
+        ScanStatus scan = new ScanStatus();
+        scan.setRunning(true);
+        scan.setStartTime(System.currentTimeMillis());
+        status = scan;
+        touched.clear();
+
+        Thread thread = new Thread(() -> this.scan(scan), "qu-dedup-scan");
+        thread.setDaemon(true);
+        thread.start();
+        return true;
+    }
+
+    @Override
+    public ScanStatus scanStatus() {
+        return status;
+    }
+
+    private void scan(ScanStatus scan) {
+        try {
+            LshIndex fresh = this.load(scan);
+            synchronized (this) {
+                index = fresh;
+                this.replayTouched(fresh);
+            }
+            logger.info("🔁 全库查重完成: 题目 {} 道, 新发现疑似重复 {} 对, 耗时 {}ms",
+                    scan.getScanned(), scan.getFound(), System.currentTimeMillis() - scan.getStartTime());
+        } catch (Exception e) {
+            scan.setError(e.getMessage());
+            logger.error("❌ 全库查重失败", e);
+        } finally {
+            scan.setEndTime(System.currentTimeMillis());
+            scan.setRunning(false);
+            scanning.set(false);
+        }
+    }
+
+    private LshIndex ensureLoaded() {
+        LshIndex current = index;
+        if (current == null) {
+            synchronized (this) {
+                if (index == null) {
+                    long start = System.currentTimeMillis();
+                    index = this.load(null);
+                    logger.info("🔁 试题查重索引已建立: 题目 {} 道, 耗时 {}ms",
+                            index.size(), System.currentTimeMillis() - start);
+                }
+                current = index;
+            }
+        }
+        return current;
+    }
+
+    /**
+     * 按创建时间分页读取全部题目建立索引；传入扫描状态时，每道题与已入索引的更早题目比较并记录疑似重复
+     */
+    private LshIndex load(ScanStatus scan) {
+        LshIndex target = new LshIndex(this.bands());
+        for (long current = 1; ; current++) {
+            Page<Qu> page = new Page<>(current, PAGE_SIZE, false);
+            QueryWrapper<Qu> wrapper = new QueryWrapper<>();
+            wrapper.select("id", "content").orderByAsc("create_time", "id");
+            List<Qu> records = quService.page(page, wrapper).getRecords();
+            if (records.isEmpty()) {
+                break;
+            }
+            Map<String, List<String>> answers = this.answersOf(records);
+            List<QuDuplicate> flags = new ArrayList<>();
+            Date now = new Date();
+            for (Qu qu : records) {
+                int[] sig = this.signature(qu.getContent(), answers.get(qu.getId()));
+                if (sig == null) {
+                    continue;
+                }
+                if (scan != null) {
+                    for (Candidate match : this.similar(target, sig, qu.getId())) {
+                        flags.add(this.flag(qu.getId(), match, now));
+                    }
+                }
+                target.put(qu.getId(), sig);
+            }
+            if (scan != null) {
+                scan.setScanned(scan.getScanned() + records.size());
+                if (!flags.isEmpty()) {
+                    scan.setFound(scan.getFound() + baseMapper.insertIgnore(flags));
+                }
+            }
+            if (records.size() < PAGE_SIZE) {
+                break;
+            }
+        }
+        return target;
+    }
+
+    private void replayTouched(LshIndex target) {
+        if (touched.isEmpty()) {
+            return;
+        }
+        List<String> ids = new ArrayList<>(touched);
+        touched.removeAll(ids);
+        Map<String, Qu> qus = new HashMap<>();
+        for (Qu qu : quService.listByIds(ids)) {
+            qus.put(qu.getId(), qu);
+        }
+        Map<String, List<String>> answers = this.answersOf(new ArrayList<>(qus.values()));
+        for (String id : ids) {
+            Qu qu = qus.get(id);
+            int[] sig = qu == null ? null : this.signature(qu.getContent(), answers.get(id));
+            if (sig == null) {
+                target.remove(id);
+            } else {
+                target.put(id, sig);
+            }
+        }
+    }
+
+    private Map<String, List<String>> answersOf(List<Qu> qus) {
+        Map<String, List<String>> result = new HashMap<>();
+        if (qus.isEmpty()) {
+            return result;
+        }
+        List<String> ids = new ArrayList<>();
+        for (Qu qu : qus) {
+            ids.add(qu.getId());
+        }
+        QueryWrapper<QuAnswer> wrapper = new QueryWrapper<>();
+        wrapper.select("qu_id", "content").in("qu_id", ids).orderByAsc("id");
+        for (QuAnswer answer : quAnswerService.list(wrapper)) {
+            result.computeIfAbsent(answer.getQuId(), k -> new ArrayList<>()).add(answer.getContent());
+        }
+        return result;
+    }
+
+    private List<Candidate> similar(LshIndex target, int[] sig, String excludeId) {
+        List<Candidate> matches = new ArrayList<>();
+        for (Map.Entry<String, int[]> entry : target.candidates(sig, excludeId).entrySet()) {
+            double similarity = MinHash.similarity(sig, entry.getValue());
+            if (similarity >= dedupConfig.getThreshold()) {
+                matches.add(new Candidate(entry.getKey(), similarity));
+            }
+        }
+        matches.sort((a, b) -> Double.compare(b.getSimilarity(), a.getSimilarity()));
+        return matches;
+    }
+
+    /**
+     * 题干和选项一起计算签名，题干相同而选项不同的题目不算重复
+     */
+    private int[] signature(String content, List<String> answers) {
+        StringBuilder text = new StringBuilder(content == null ? "" : content);
+        if (answers != null) {
+            for (String answer : answers) {
+                if (answer != null) {
+                    text.append(' ').append(answer);
+                }
+            }
+        }
+        String normalized = MinHash.normalize(text.toString());
+        if (normalized.length() < dedupConfig.getMinLength()) {
+            return null;
+        }
+        int bands = this.bands();
+        int numHashes = Math.max(1, dedupConfig.getNumHashes() / bands) * bands;
+        return MinHash.signature(MinHash.shingles(normalized, dedupConfig.getShingleSize()), numHashes);
+    }
+
+    private int bands() {
+        return Math.max(1, dedupConfig.getBands());
+    }
+
+    private QuDuplicate flag(String quId, Candidate match, Date now) {
+        QuDuplicate dup = new QuDuplicate();
+        dup.setId(IdWorker.getIdStr());
+        dup.setQuId(quId);
+        dup.setSimilarId(match.getQuId());
+        dup.setSimilarity(Math.round(match.getSimilarity() * 10000) / 10000.0);
+        dup.setState(QuDuplicate.STATE_PENDING);
+        dup.setCreateTime(now);
+        dup.setUpdateTime(now);
+        return dup;
+    }
+
+    private void removePending(List<String> quIds) {
+        QueryWrapper<QuDuplicate> wrapper = new QueryWrapper<>();
+        wrapper.eq("state", QuDuplicate.STATE_PENDING)
+                .and(w -> w.in("qu_id", quIds).or().in("similar_id", quIds));
+        this.remove(wrapper);
+    }
+
+    /**
+     * 事务回滚时把索引恢复为变更前的签名，原来不存在的移出
+     */
+    private void restoreOnRollback(LshIndex target, Map<String, int[]> old) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCompletion(int completion) {
+                if (completion != TransactionSynchronization.STATUS_ROLLED_BACK) {
+                    return;
+                }
+                for (Map.Entry<String, int[]> entry : old.entrySet()) {
+                    if (entry.getValue() == null) {
+                        target.remove(entry.getKey());
+                    } else {
+                        target.put(entry.getKey(), entry.getValue());
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * LSH索引：签名按段切分，每段的键对应一个桶，同桶的题目互为候选
+     */
+    private static class LshIndex {
+
+        private final int bands;
+
+        private final Map<String, int[]> signatures = new HashMap<>();
+
+        private final Map<Long, List<String>> buckets = new HashMap<>();
+
+        LshIndex(int bands) {
+            this.bands = bands;
+        }
+
+        synchronized int[] get(String id) {
+            return signatures.get(id);
+        }
+
+        synchronized void put(String id, int[] sig) {
+            this.remove(id);
+            signatures.put(id, sig);
+            for (long key : MinHash.bandKeys(sig, bands)) {
+                buckets.computeIfAbsent(key, k -> new ArrayList<>(2)).add(id);
+            }
+        }
+
+        synchronized int[] remove(String id) {
+            int[] sig = signatures.remove(id);
+            if (sig == null) {
+                return null;
+            }
+            for (long key : MinHash.bandKeys(sig, bands)) {
+                List<String> bucket = buckets.get(key);
+                if (bucket != null) {
+                    bucket.remove(id);
+                    if (bucket.isEmpty()) {
+                        buckets.remove(key);
+                    }
+                }
+            }
+            return sig;
+        }
+
+        synchronized Map<String, int[]> candidates(int[] sig, String excludeId) {
+            Set<String> ids = new HashSet<>();
+            for (long key : MinHash.bandKeys(sig, bands)) {
+                List<String> bucket = buckets.get(key);
+                if (bucket != null) {
+                    ids.addAll(bucket);
+                }
+            }
+            ids.remove(excludeId);
+            Map<String, int[]> result = new HashMap<>();
+            for (String id : ids) {
+                result.put(id, signatures.get(id));
+            }
+            return result;
+        }
+
+        synchronized int size() {
+            return signatures.size();
+        }
+    }
+}
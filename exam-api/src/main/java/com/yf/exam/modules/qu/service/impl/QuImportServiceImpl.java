@@ -0,0 +1,425 @@
+package com.yf.exam.modules.qu.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.baomidou.mybatisplus.core.toolkit.IdWorker;
+import com.yf.exam.core.exception.ServiceException;
+import com.yf.exam.core.utils.excel.StreamingImportExcel;
+import com.yf.exam.modules.qu.dto.export.QuExportDTO;
+import com.yf.exam.modules.qu.entity.Qu;
+import com.yf.exam.modules.qu.entity.QuAnswer;
+import com.yf.exam.modules.qu.entity.QuRepo;
+import com.yf.exam.modules.qu.enums.QuType;
+import com.yf.exam.modules.qu.service.QuAnswerService;
+import com.yf.exam.modules.qu.service.QuDuplicateService;
+import com.yf.exam.modules.qu.service.QuImportService;
+import com.yf.exam.modules.qu.service.QuRepoService;
+import com.yf.exam.modules.qu.service.QuService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.CollectionUtils;
+import org.springframework.util.StringUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+* <p>
+* 试题批量导入服务实现类
+* ID预先分配，一块内的题目、选项和题库关联各用一次批量插入
+* （JDBC连接开启 rewriteBatchedStatements 后合并为多行INSERT），事务数随块数而不是题目数增长
+* </p>
+*
+* @author AI Assistant
+* @since 2026-10-19
+*/
+@Service
+public class QuImportServiceImpl implements QuImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(QuImportServiceImpl.class);
+
+    /**
+     * Excel导入每块题目数
+     */
+    private static final int EXCEL_CHUNK_SIZE = 200;
+
+    /**
+     * Excel校验最多返回的错误条数
+     */
+    private static final int EXCEL_MAX_ERRORS = 100;
+
+    @Autowired
+    private QuService quService;
+
+    @Autowired
+    private QuAnswerService quAnswerService;
+
+    @Autowired
+    private QuRepoService quRepoService;
+
+    @Autowired
+    private QuDuplicateService quDuplicateService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Override
+    public Result saveAll(List<Item> items, int chunkSize) {
+        long start = System.currentTimeMillis();
+        int size = Math.max(1, chunkSize);
+        Result result = new Result();
+        for (int i = 0; i < items.size(); i += size) {
+            List<Item> chunk = items.subList(i, Math.min(items.size(), i + size));
+            result.merge(transactionTemplate.execute(status -> this.saveChunk(chunk)));
+        }
+        logger.info("💾 批量导入完成: 题目 {} 道, 选项 {} 个, 跳过 {} 道, 分 {} 块, 耗时 {}ms",
+                result.getSavedCount(), result.getAnswerCount(), result.getSkippedCount(),
+                (items.size() + size - 1) / size, System.currentTimeMillis() - start);
+        return result;
+    }
+
+    @Transactional(rollbackFor = Exception.class)
+    @Override
+    public Result saveChunk(List<Item> items) {
+        Result result = new Result();
+        List<Qu> qus = new ArrayList<>();
+        List<QuAnswer> answers = new ArrayList<>();
+        List<QuRepo> repos = new ArrayList<>();
+        List<Item> saved = new ArrayList<>();
+        Date now = new Date();
+
+        for (Item item : items) {
+            if (!validate(item, result.getErrors())) {
+                continue;
+            }
+            Qu qu = item.getQu();
+            if (StringUtils.isEmpty(qu.getId())) {
+                qu.setId(IdWorker.getIdStr());
+            }
+            if (qu.getCreateTime() == null) {
+                qu.setCreateTime(now);
+            }
+            if (qu.getUpdateTime() == null) {
+                qu.setUpdateTime(now);
+            }
+            qus.add(qu);
+            saved.add(item);
+
+            for (QuAnswer answer : item.getAnswers()) {
+                answer.setId(IdWorker.getIdStr());
+                answer.setQuId(qu.getId());
+                answers.add(answer);
+            }
+            for (String repoId : new LinkedHashSet<>(item.getRepoIds())) {
+                QuRepo ref = new QuRepo();
+                ref.setId(IdWorker.getIdStr());
+                ref.setQuId(qu.getId());
+                ref.setRepoId(repoId);
+                ref.setQuType(qu.getQuType());
+                repos.add(ref);
+            }
+        }
+
+        if (!qus.isEmpty()) {
+            quService.saveBatch(qus, qus.size());
+        }
+        if (!answers.isEmpty()) {
+            quAnswerService.saveBatch(answers, answers.size());
+        }
+        if (!repos.isEmpty()) {
+            this.assignSort(repos);
+            quRepoService.saveBatch(repos, repos.size());
+        }
+
+        // 逐题查重，同一块内先入索引的题目也参与比较
+        for (Item item : saved) {
+            List<String> texts = new ArrayList<>();
+            for (QuAnswer answer : item.getAnswers()) {
+                texts.add(answer.getContent());
+            }
+            if (!quDuplicateService.onSaved(item.getQu().getId(), item.getQu().getContent(), texts).isEmpty()) {
+                result.setDuplicateCount(result.getDuplicateCount() + 1);
+            }
+        }
+
+        result.setSavedCount(qus.size());
+        result.setAnswerCount(answers.size());
+        for (Qu qu : qus) {
+            result.getQuIds().add(qu.getId());
+        }
+        return result;
+    }
+
+    @Override
+    public Result importExcel(File file) throws IOException {
+        long start = System.currentTimeMillis();
+
+        // 第一遍只校验，与原导入一样有错误时整体不导入
+        ExcelValidator validator = new ExcelValidator();
+        int rows = StreamingImportExcel.read(file, 1, 0, QuExportDTO.class, validator::check);
+        validator.finish();
+        if (validator.questions == 0) {
+            throw new ServiceException(1, "您导入的数据似乎是一个空表格！");
+        }
+        if (validator.errorCount > 0) {
+            if (validator.errorCount > EXCEL_MAX_ERRORS) {
+                validator.errors.append("……共 ").append(validator.errorCount).append(" 处错误<br>");
+            }
+            throw new ServiceException(1, validator.errors.toString());
+        }
+
+        // 第二遍组装题目，攒够一块即写入
+        Result result = new Result();
+        ExcelAssembler assembler = new ExcelAssembler(result);
+        StreamingImportExcel.read(file, 1, 0, QuExportDTO.class, assembler::accept);
+        assembler.finish();
+        logger.info("📥 Excel流式导入完成: {} 行, 题目 {} 道, 选项 {} 个, 疑似重复 {} 道, 耗时 {}ms",
+                rows, result.getSavedCount(), result.getAnswerCount(), result.getDuplicateCount(),
+                System.currentTimeMillis() - start);
+        return result;
+    }
+
+    /**
+     * 逐行校验，规则同导入模板说明，整题规则同 QuServiceImpl.checkData（XLS导入经由它保存），
+     * 两种格式的同一份内容校验结果一致；只保存已出现过的序号，内存与行数无关
+     */
+    private static class ExcelValidator {
+
+        private final StringBuilder errors = new StringBuilder();
+        private final Set<Integer> finished = new HashSet<>();
+        private Integer current;
+        private int questions;
+        private int errorCount;
+
+        /**
+         * 当前题目的首行、题型和正确项数
+         */
+        private int firstLine;
+        private Integer currentType;
+        private int trueCount;
+
+        void check(int line, QuExportDTO item) {
+            Integer no = parseNo(item.getNo());
+            if (no == null) {
+                return;
+            }
+            if (!no.equals(current)) {
+                if (current != null) {
+                    this.closeQuestion();
+                    finished.add(current);
+                }
+                current = no;
+                questions++;
+                firstLine = line;
+                trueCount = 0;
+                currentType = parseNo(item.getQuType());
+                if (finished.contains(no)) {
+                    error(line, "题目序号" + no + "与前面的题目重复，同一题的选项须连续排列");
+                }
+                Integer type = parseNo(item.getQuType());
+                if (type == null) {
+                    error(line, "题目类型不能为空");
+                } else if (type < QuType.RADIO || type > QuType.GAP_FILLING) {
+                    error(line, "题目类型无效");
+                }
+                if (StringUtils.isEmpty(item.getQContent()) || item.getQContent().trim().isEmpty()) {
+                    error(line, "题目内容不能为空");
+                }
+                if (CollectionUtils.isEmpty(item.getRepoList())) {
+                    error(line, "题目必须包含一个题库");
+                }
+            }
+            if (StringUtils.isEmpty(item.getAIsRight()) || item.getAIsRight().trim().isEmpty()) {
+                error(line, "选项是否正确不能为空");
+            }
+            // 导入不处理选项图片，选项内容必须填写
+            if (StringUtils.isEmpty(item.getAContent())) {
+                error(line, "选项内容不能为空");
+            }
+            if ("1".equals(item.getAIsRight())) {
+                trueCount++;
+            }
+        }
+
+        /**
+         * 读完全部行后校验最后一题
+         */
+        void finish() {
+            if (current != null) {
+                this.closeQuestion();
+            }
+        }
+
+        private void closeQuestion() {
+            if (trueCount == 0) {
+                error(firstLine, "题目序号" + current + "至少要包含一个正确项");
+            } else if (QuType.RADIO.equals(currentType) && trueCount > 1) {
+                error(firstLine, "题目序号" + current + "为单选题，不能包含多个正确项");
+            }
+        }
+
+        private void error(int line, String message) {
+            errorCount++;
+            if (errorCount <= EXCEL_MAX_ERRORS) {
+                errors.append("第").append(line).append("行，").append(message).append("<br>");
+            }
+        }
+    }
+
+    /**
+     * 把同一序号的连续行组装成一道题，攒够一块后分块写入
+     */
+    private class ExcelAssembler {
+
+        private final Result result;
+        private final List<Item> chunk = new ArrayList<>();
+        private Integer current;
+        private Item item;
+
+        ExcelAssembler(Result result) {
+            this.result = result;
+        }
+
+        void accept(int line, QuExportDTO row) {
+            Integer no = parseNo(row.getNo());
+            if (no == null) {
+                return;
+            }
+            if (!no.equals(current)) {
+                this.flush();
+                current = no;
+                Qu qu = new Qu();
+                qu.setContent(row.getQContent());
+                qu.setAnalysis(row.getQAnalysis());
+                qu.setQuType(parseNo(row.getQuType()));
+                item = new Item();
+                item.setRow(line);
+                item.setQu(qu);
+                if (row.getRepoList() != null) {
+                    item.setRepoIds(new ArrayList<>(row.getRepoList()));
+                }
+            }
+            QuAnswer answer = new QuAnswer();
+            answer.setIsRight("1".equals(row.getAIsRight()));
+            answer.setContent(row.getAContent());
+            answer.setAnalysis(row.getAAnalysis());
+            item.getAnswers().add(answer);
+        }
+
+        void finish() {
+            this.flush();
+            this.save();
+        }
+
+        private void flush() {
+            if (item == null) {
+                return;
+            }
+            chunk.add(item);
+            item = null;
+            if (chunk.size() >= EXCEL_CHUNK_SIZE) {
+                this.save();
+            }
+        }
+
+        private void save() {
+            if (chunk.isEmpty()) {
+                return;
+            }
+            result.merge(saveAll(new ArrayList<>(chunk), EXCEL_CHUNK_SIZE));
+            chunk.clear();
+        }
+    }
+
+    private static Integer parseNo(String value) {
+        if (StringUtils.isEmpty(value)) {
+            return null;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 新题排在各题库现有题目之后，避免像单题保存那样逐个题库重排
+     */
+    private void assignSort(List<QuRepo> repos) {
+        Set<String> repoIds = new LinkedHashSet<>();
+        for (QuRepo ref : repos) {
+            repoIds.add(ref.getRepoId());
+        }
+        QueryWrapper<QuRepo> wrapper = new QueryWrapper<>();
+        wrapper.select("repo_id", "MAX(sort) AS sort").in("repo_id", repoIds).groupBy("repo_id");
+        Map<String, Integer> maxSort = new HashMap<>();
+        for (QuRepo row : quRepoService.list(wrapper)) {
+            maxSort.put(row.getRepoId(), row.getSort() == null ? 0 : row.getSort());
+        }
+        for (QuRepo ref : repos) {
+            ref.setSort(maxSort.merge(ref.getRepoId(), 1, Integer::sum));
+        }
+    }
+
+    /**
+     * 题目内容为空或题型无效时跳过；客观题选项不完整时照常保存，只返回提示，由人工校对
+     * @return 是否保存
+     */
+    private boolean validate(Item item, List<RowError> errors) {
+        int row = item.getRow();
+        Qu qu = item.getQu();
+        if (qu == null || StringUtils.isEmpty(qu.getContent()) || qu.getContent().trim().isEmpty()) {
+            errors.add(new RowError(row, "题目内容不能为空！", true));
+            return false;
+        }
+        Integer type = qu.getQuType();
+        if (type == null || type < QuType.RADIO || type > QuType.GAP_FILLING) {
+            errors.add(new RowError(row, "题目类型无效：" + type, true));
+            return false;
+        }
+        if (item.getAnswers() == null) {
+            item.setAnswers(new ArrayList<>());
+        }
+        if (item.getRepoIds() == null) {
+            item.setRepoIds(new ArrayList<>());
+        }
+
+        if (!QuType.RADIO.equals(type) && !QuType.MULTI.equals(type) && !QuType.JUDGE.equals(type)) {
+            return true;
+        }
+        List<QuAnswer> answers = item.getAnswers();
+        if (CollectionUtils.isEmpty(answers)) {
+            errors.add(new RowError(row, "客观题至少要包含一个备选答案！", false));
+            return true;
+        }
+        int trueCount = 0;
+        for (QuAnswer answer : answers) {
+            if (answer.getIsRight() == null) {
+                answer.setIsRight(false);
+            }
+            if (answer.getIsRight()) {
+                trueCount++;
+            }
+            if (StringUtils.isEmpty(answer.getContent()) && StringUtils.isEmpty(answer.getImage())) {
+                errors.add(new RowError(row, "选项内容不为空！", false));
+            }
+        }
+        if (trueCount == 0) {
+            errors.add(new RowError(row, "至少要包含一个正确项！", false));
+        } else if (QuType.RADIO.equals(type) && trueCount > 1) {
+            errors.add(new RowError(row, "单选题不能包含多个正确项！", false));
+        }
+        return true;
+    }
+}
@@ -8,6 +8,7 @@ import com.yf.exam.ability.upload.config.UploadConfig;
 import com.yf.exam.core.api.dto.PagingReqDTO;
 import com.yf.exam.core.exception.ServiceException;
 import com.yf.exam.core.utils.BeanMapper;
+import com.yf.exam.core.utils.excel.fieldtype.ListType;
 import com.yf.exam.modules.qu.dto.QuAnswerDTO;
 import com.yf.exam.modules.qu.dto.QuDTO;
 import com.yf.exam.modules.qu.dto.export.QuExportDTO;
@@ -19,17 +20,22 @@ import com.yf.exam.modules.qu.entity.QuRepo;
 import com.yf.exam.modules.qu.enums.QuType;
 import com.yf.exam.modules.qu.mapper.QuMapper;
 import com.yf.exam.modules.qu.service.QuAnswerService;
+import com.yf.exam.modules.qu.service.QuDuplicateService;
 import com.yf.exam.modules.qu.service.QuRepoService;
 import com.yf.exam.modules.qu.service.QuService;
 import com.yf.exam.modules.qu.utils.ImageCheckUtils;
 import com.yf.exam.modules.repo.service.RepoService;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.ibatis.cursor.Cursor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
@@ -37,6 +43,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Consumer;
 
 /**
  * <p>
@@ -58,6 +65,10 @@ public class QuServiceImpl extends ServiceImpl<QuMapper, Qu> implements QuServic
     @Autowired
     private ImageCheckUtils imageCheckUtils;
 
+    @Lazy
+    @Autowired
+    private QuDuplicateService quDuplicateService;
+
     @Override
     public IPage<QuDTO> paging(PagingReqDTO<QuQueryReqDTO> reqDTO) {
 
@@ -84,6 +95,9 @@ public class QuServiceImpl extends ServiceImpl<QuMapper, Qu> implements QuServic
         QueryWrapper<QuRepo> wrapper1 = new QueryWrapper<>();
         wrapper1.lambda().in(QuRepo::getQuId, ids);
         quRepoService.remove(wrapper1);
+
+        // 移出查重索引
+        quDuplicateService.onRemoved(ids);
     }
 
     @Override
@@ -182,6 +196,14 @@ public class QuServiceImpl extends ServiceImpl<QuMapper, Qu> implements QuServic
         // 保存到题库
         quRepoService.saveAll(qu.getId(), qu.getQuType(), reqDTO.getRepoIds());
 
+        // 查重，疑似重复只记录不拦截
+        List<String> answers = new ArrayList<>();
+        if (!CollectionUtils.isEmpty(reqDTO.getAnswerList())) {
+            for (QuAnswerDTO answer : reqDTO.getAnswerList()) {
+                answers.add(answer.getContent());
+            }
+        }
+        quDuplicateService.onSaved(qu.getId(), qu.getContent(), answers);
     }
 
     @Override
@@ -189,6 +211,36 @@ public class QuServiceImpl extends ServiceImpl<QuMapper, Qu> implements QuServic
         return baseMapper.listForExport(query);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    @SuppressWarnings("unchecked")
+    public int exportExcel(QuQueryReqDTO query, Consumer<QuExportDTO> handler) {
+
+        int no = 0;
+        String quId = "";
+        try (Cursor<QuExportDTO> cursor = baseMapper.cursorForExport(query)) {
+            for (QuExportDTO item : cursor) {
+                if (!quId.equals(item.getQId())) {
+                    quId = item.getQId();
+                    no += 1;
+                    item.setRepoList((List<String>) ListType.getValue(item.getRepoIds()));
+                } else {
+                    // 同一题的后续选项行只保留选项列
+                    item.setQuType("0");
+                    item.setQContent("");
+                    item.setQAnalysis("");
+                    item.setQImage("");
+                    item.setQVideo("");
+                }
+                item.setNo(String.valueOf(no));
+                handler.accept(item);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return no;
+    }
+
     @Override
     public int importExcel(List<QuExportDTO> dtoList) {
 
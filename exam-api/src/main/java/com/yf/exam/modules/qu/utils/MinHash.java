@@ -0,0 +1,162 @@
+package com.yf.exam.modules.qu.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+* <p>
+* 题目文本的MinHash签名
+* 文本去掉HTML标签、图片标记和标点后按字符切成定长片段，每个哈希函数取所有片段的最小值组成签名；
+* 两个签名相同位置取值相等的比例即片段集合Jaccard相似度的估计。
+* 签名再按行数切成若干段作为LSH分桶键，任意一段完全相同的题目才作为候选，相似度越高越容易落入同一桶
+* </p>
+*
+* @author AI Assistant
+* @since 2026-10-19
+*/
+public final class MinHash {
+
+    private static final long SEED = 0x9E3779B97F4A7C15L;
+
+    /**
+     * 只匹配真正的HTML标签，x<3且y>2 这类比较符号不算
+     */
+    private static final Pattern HTML_TAG = Pattern.compile("</?[a-zA-Z][^>]*>");
+
+    private MinHash() {
+    }
+
+    /**
+     * 归一化：去掉HTML标签、{{IMG_n}}标记、空白和标点，字母转小写
+     * @param text 原文
+     * @return 归一化文本
+     */
+    public static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String plain = HTML_TAG.matcher(text).replaceAll("")
+                .replaceAll("\\{\\{IMG_\\d+}}", "")
+                .replace("&nbsp;", "");
+        StringBuilder sb = new StringBuilder(plain.length());
+        for (char c : plain.toCharArray()) {
+            if (Character.isLetterOrDigit(c)) {
+                sb.append(Character.toLowerCase(c));
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 按字符切片段并取64位哈希，文本短于片段长度时整体作为一个片段
+     * @param normalized 归一化文本
+     * @param size 片段长度
+     * @return 片段哈希集合
+     */
+    public static Set<Long> shingles(String normalized, int size) {
+        Set<Long> shingles = new HashSet<>();
+        if (normalized.isEmpty()) {
+            return shingles;
+        }
+        int k = Math.max(1, size);
+        if (normalized.length() <= k) {
+            shingles.add(hash(normalized));
+            return shingles;
+        }
+        for (int i = 0; i + k <= normalized.length(); i++) {
+            shingles.add(hash(normalized.substring(i, i + k)));
+        }
+        return shingles;
+    }
+
+    /**
+     * 计算签名，第i个哈希函数为 h1 + i*h2 再混淆，只需对每个片段算一次基础哈希
+     * @param shingles 片段哈希集合
+     * @param numHashes 哈希函数个数
+     * @return 签名，片段为空时返回null
+     */
+    public static int[] signature(Set<Long> shingles, int numHashes) {
+        if (shingles.isEmpty()) {
+            return null;
+        }
+        int[] sig = new int[numHashes];
+        Arrays.fill(sig, Integer.MAX_VALUE);
+        for (long shingle : shingles) {
+            int h1 = (int) shingle;
+            int h2 = (int) (shingle >>> 32) | 1;
+            for (int i = 0; i < numHashes; i++) {
+                int h = mix(h1 + i * h2);
+                if (h < sig[i]) {
+                    sig[i] = h;
+                }
+            }
+        }
+        return sig;
+    }
+
+    /**
+     * 估计Jaccard相似度
+     * @param a 签名
+     * @param b 签名
+     * @return 0~1
+     */
+    public static double similarity(int[] a, int[] b) {
+        int n = Math.min(a.length, b.length);
+        if (n == 0) {
+            return 0;
+        }
+        int same = 0;
+        for (int i = 0; i < n; i++) {
+            if (a[i] == b[i]) {
+                same++;
+            }
+        }
+        return (double) same / n;
+    }
+
+    /**
+     * LSH分桶键，键中带上段序号，不同段之间不会相撞
+     * @param sig 签名
+     * @param bands 段数，签名长度需能被整除
+     * @return 每段一个键
+     */
+    public static long[] bandKeys(int[] sig, int bands) {
+        int rows = sig.length / bands;
+        long[] keys = new long[bands];
+        for (int b = 0; b < bands; b++) {
+            long h = SEED * (b + 1);
+            for (int r = 0; r < rows; r++) {
+                h = (h ^ sig[b * rows + r]) * 0x100000001B3L;
+            }
+            keys[b] = h ^ (h >>> 29);
+        }
+        return keys;
+    }
+
+    /**
+     * 64位FNV-1a
+     */
+    private static long hash(String text) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : text.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b & 0xff;
+            h *= 0x100000001b3L;
+        }
+        return h ^ (h >>> 33) * SEED;
+    }
+
+    /**
+     * murmur3 finalizer，使线性组合后的各位分布均匀
+     */
+    private static int mix(int h) {
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+}
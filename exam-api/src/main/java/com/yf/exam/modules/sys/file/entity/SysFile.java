@@ -0,0 +1,62 @@
+package com.yf.exam.modules.sys.file.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import com.baomidou.mybatisplus.extension.activerecord.Model;
+import lombok.Data;
+
+import java.util.Date;
+
+/**
+* <p>
+* 上传文件实体类，ID即文件内容的SHA-256
+* </p>
+*
+* @author AI Assistant
+* @since 2026-10-19
+*/
+@Data
+@TableName("sys_file")
+public class SysFile extends Model<SysFile> {
+
+    private static final long serialVersionUID = 1L;
+
+    @TableId(value = "id", type = IdType.INPUT)
+    private String id;
+
+    /**
+     * 后缀
+     */
+    private String ext;
+
+    /**
+     * 文件大小(字节)
+     */
+    private Long size;
+
+    /**
+     * 相对上传目录的路径
+     */
+    private String path;
+
+    /**
+     * 引用次数
+     */
+    @TableField("ref_count")
+    private Integer refCount;
+
+    /**
+     * 首次上传时间
+     */
+    @TableField("create_time")
+    private Date createTime;
+
+    /**
+     * 最近上传时间
+     */
+    @TableField("update_time")
+    private Date updateTime;
+
+}
@@ -0,0 +1,35 @@
+package com.yf.exam.modules.sys.file.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.yf.exam.modules.sys.file.entity.SysFile;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.session.ResultHandler;
+
+import java.util.List;
+
+/**
+* <p>
+* 上传文件Mapper
+* </p>
+*
+* @author AI Assistant
+* @since 2026-10-19
+*/
+public interface SysFileMapper extends BaseMapper<SysFile> {
+
+    /**
+     * 登记文件，已存在时只刷新最近上传时间
+     * @param file
+     * @return
+     */
+    int touch(@Param("file") SysFile file);
+
+    /**
+     * 流式读取一张表中可能引用上传文件的字段，表名和字段名只能是代码中的常量
+     * @param table 表名
+     * @param columns 字段名
+     * @param handler 每行一个拼接后的文本
+     */
+    void scanRefs(@Param("table") String table, @Param("columns") List<String> columns, ResultHandler<String> handler);
+
+}
@@ -0,0 +1,36 @@
+package com.yf.exam.modules.sys.file.service;
+
+import com.baomidou.mybatisplus.extension.service.IService;
+import com.yf.exam.modules.sys.file.entity.SysFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+* <p>
+* 上传文件存储服务类
+* 文件按内容SHA-256存放在 blob/前两位/三四位/哈希.后缀，相同内容只存一份；
+* 先写临时文件再原子改名，不会出现写了一半的文件
+* </p>
+*
+* @author AI Assistant
+* @since 2026-10-19
+*/
+public interface SysFileService extends IService<SysFile> {
+
+    /**
+     * 保存文件
+     * @param in 文件内容，由调用方关闭
+     * @param fileName 原始文件名，用于确定后缀，可为null
+     * @return 相对上传目录的路径，相同内容已存储过时返回原有路径
+     * @throws IOException
+     */
+    String store(InputStream in, String fileName) throws IOException;
+
+    /**
+     * 回收：统计各文件被引用的次数，删除无引用且超过保留期的文件
+     * @return 删除的文件数
+     */
+    int gc();
+
+}
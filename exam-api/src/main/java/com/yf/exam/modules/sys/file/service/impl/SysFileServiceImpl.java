@@ -0,0 +1,240 @@
+package com.yf.exam.modules.sys.file.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.yf.exam.ability.upload.config.UploadConfig;
+import com.yf.exam.ability.upload.service.ImageDerivativeService;
+import com.yf.exam.modules.sys.file.entity.SysFile;
+import com.yf.exam.modules.sys.file.mapper.SysFileMapper;
+import com.yf.exam.modules.sys.file.service.SysFileService;
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.io.FilenameUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+* <p>
+* 上传文件存储服务实现类
+* 同一哈希的写入和回收用同一把锁串行，避免回收刚删掉记录时另一次上传命中了即将删除的文件；
+* 锁只在本进程内有效，多实例部署时回收任务只应在一个实例上开启
+* </p>
+*
+* @author AI Assistant
+* @since 2026-10-19
+*/
+@Service
+public class SysFileServiceImpl extends ServiceImpl<SysFileMapper, SysFile> implements SysFileService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SysFileServiceImpl.class);
+
+    private static final String BLOB_DIR = "blob/";
+
+    private static final Pattern BLOB_REF = Pattern.compile("blob/[0-9a-f]{2}/[0-9a-f]{2}/([0-9a-f]{64})\\.");
+
+    private static final int LOCK_STRIPES = 64;
+
+    /**
+     * 可能引用上传文件的表和字段：题目和选项的图片、内容、解析，系统Logo，
+     * 以及AI导入的文档指纹和任务检查点（复用解析结果或恢复任务时仍会用到其中的图片）
+     */
+    static final Map<String, List<String>> REF_SOURCES;
+
+    static {
+        Map<String, List<String>> sources = new LinkedHashMap<>();
+        sources.put("el_qu", Arrays.asList("image", "image_refs", "content", "analysis"));
+        sources.put("el_qu_answer", Arrays.asList("image", "image_refs", "content", "analysis"));
+        sources.put("sys_config", Arrays.asList("front_logo", "back_logo"));
+        sources.put("el_ai_doc_fingerprint", Arrays.asList("extract_result", "questions"));
+        sources.put("el_ai_import_job", Arrays.asList("extract_result", "questions"));
+        REF_SOURCES = Collections.unmodifiableMap(sources);
+    }
+
+    private final Object[] locks = new Object[LOCK_STRIPES];
+
+    @Autowired
+    private UploadConfig conf;
+
+    @Autowired
+    private ImageDerivativeService imageDerivativeService;
+
+    public SysFileServiceImpl() {
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    @Override
+    public String store(InputStream in, String fileName) throws IOException {
+        Path tmpDir = Paths.get(conf.getDir(), BLOB_DIR, ".tmp");
+        Files.createDirectories(tmpDir);
+        Path tmp = Files.createTempFile(tmpDir, "up-", ".tmp");
+        try {
+            MessageDigest digest = sha256();
+            long size;
+            try (DigestInputStream din = new DigestInputStream(in, digest);
+                 OutputStream out = Files.newOutputStream(tmp)) {
+                size = copy(din, out);
+            }
+            String hash = Hex.encodeHexString(digest.digest());
+            String ext = fileName == null ? "" : FilenameUtils.getExtension(fileName).toLowerCase();
+
+            SysFile file = new SysFile();
+            file.setId(hash);
+            file.setExt(ext);
+            file.setSize(size);
+            file.setUpdateTime(new Date());
+
+            String path;
+            synchronized (lock(hash)) {
+                // 相同内容已存储时沿用原路径，扩展名不同（如.jpg/.jpeg）也不再另存一份
+                SysFile exists = baseMapper.selectById(hash);
+                path = exists != null && exists.getPath() != null ? exists.getPath()
+                        : BLOB_DIR + hash.substring(0, 2) + "/" + hash.substring(2, 4) + "/"
+                        + hash + "." + (ext.isEmpty() ? "bin" : ext);
+                file.setPath(path);
+
+                Path target = Paths.get(conf.getDir(), path);
+                if (!Files.exists(target)) {
+                    Files.createDirectories(target.getParent());
+                    try {
+                        Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+                    } catch (AtomicMoveNotSupportedException e) {
+                        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+                    }
+                }
+                baseMapper.touch(file);
+            }
+            return path;
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * 定时回收，默认每天凌晨
+     */
+    @Scheduled(cron = "${conf.upload.gc-cron:0 30 3 * * ?}")
+    public void scheduledGc() {
+        if (conf.isGcEnabled()) {
+            this.gc();
+        }
+    }
+
+    @Override
+    public int gc() {
+        long start = System.currentTimeMillis();
+
+        // 标记：统计引用次数
+        Map<String, Integer> refs = this.countRefs();
+
+        List<SysFile> changed = new ArrayList<>();
+        QueryWrapper<SysFile> all = new QueryWrapper<>();
+        all.select("id", "ref_count");
+        for (SysFile file : this.list(all)) {
+            int count = refs.getOrDefault(file.getId(), 0);
+            if (file.getRefCount() == null || file.getRefCount() != count) {
+                SysFile update = new SysFile();
+                update.setId(file.getId());
+                update.setRefCount(count);
+                changed.add(update);
+            }
+        }
+        if (!changed.isEmpty()) {
+            this.updateBatchById(changed);
+        }
+
+        // 清除：无引用且保留期内没有再次上传
+        Date cutoff = new Date(System.currentTimeMillis() - conf.getGcGraceHours() * 3600_000L);
+        QueryWrapper<SysFile> wrapper = new QueryWrapper<>();
+        wrapper.select("id", "path").eq("ref_count", 0).lt("update_time", cutoff);
+        int removed = 0;
+        for (SysFile file : this.list(wrapper)) {
+            synchronized (lock(file.getId())) {
+                QueryWrapper<SysFile> remove = new QueryWrapper<>();
+                remove.eq("id", file.getId()).eq("ref_count", 0).lt("update_time", cutoff);
+                if (!this.remove(remove)) {
+                    continue;
+                }
+                try {
+                    Files.deleteIfExists(Paths.get(conf.getDir(), file.getPath()));
+                    imageDerivativeService.evict(file.getId());
+                    removed++;
+                } catch (IOException e) {
+                    logger.warn("⚠️ 删除文件失败: {}, {}", file.getPath(), e.getMessage());
+                }
+            }
+        }
+        logger.info("🗑️ 文件回收完成: 引用中 {} 个, 引用数变化 {} 个, 删除 {} 个, 耗时 {}ms",
+                refs.size(), changed.size(), removed, System.currentTimeMillis() - start);
+        return removed;
+    }
+
+    /**
+     * 逐表扫描引用字段，统计各文件哈希的引用次数
+     * @return 哈希 → 引用次数
+     */
+    Map<String, Integer> countRefs() {
+        Map<String, Integer> refs = new HashMap<>();
+        for (Map.Entry<String, List<String>> source : REF_SOURCES.entrySet()) {
+            baseMapper.scanRefs(source.getKey(), source.getValue(), context -> {
+                String text = context.getResultObject();
+                if (text == null) {
+                    return;
+                }
+                Matcher m = BLOB_REF.matcher(text);
+                while (m.find()) {
+                    refs.merge(m.group(1), 1, Integer::sum);
+                }
+            });
+        }
+        return refs;
+    }
+
+    private Object lock(String hash) {
+        return locks[Math.floorMod(hash.hashCode(), LOCK_STRIPES)];
+    }
+
+    private static long copy(InputStream in, OutputStream out) throws IOException {
+        byte[] buffer = new byte[8192];
+        long total = 0;
+        int n;
+        while ((n = in.read(buffer)) != -1) {
+            out.write(buffer, 0, n);
+            total += n;
+        }
+        return total;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+-- Migration: Add AI Import Job
+-- Description: Asynchronous AI document import jobs with per-stage checkpoints for resume after restart
+
+CREATE TABLE `el_ai_import_job` (
+  `id` varchar(64) COLLATE utf8mb4_general_ci NOT NULL COMMENT '任务ID',
+  `user_id` varchar(64) COLLATE utf8mb4_general_ci DEFAULT NULL COMMENT '创建人',
+  `file_name` varchar(255) COLLATE utf8mb4_general_ci DEFAULT NULL COMMENT '原始文件名',
+  `file_path` varchar(500) COLLATE utf8mb4_general_ci DEFAULT NULL COMMENT '已保存的上传文件路径',
+  `subject` varchar(64) COLLATE utf8mb4_general_ci DEFAULT NULL COMMENT '学科',
+  `grade` varchar(64) COLLATE utf8mb4_general_ci DEFAULT NULL COMMENT '年级',
+  `state` int(11) NOT NULL DEFAULT 0 COMMENT '状态:0=排队中,1=处理中,2=已完成,3=失败,4=已取消',
+  `stage` varchar(32) COLLATE utf8mb4_general_ci NOT NULL DEFAULT 'EXTRACT' COMMENT '当前阶段:EXTRACT/SPLIT/IDENTIFY/SAVE/DONE',
+  `stage_total` int(11) NOT NULL DEFAULT 0 COMMENT '当前阶段总量',
+  `stage_done` int(11) NOT NULL DEFAULT 0 COMMENT '当前阶段已完成量',
+  `progress` int(11) NOT NULL DEFAULT 0 COMMENT '总体进度0-100',
+  `total_count` int(11) NOT NULL DEFAULT 0 COMMENT '拆出的题目数',
+  `saved_count` int(11) NOT NULL DEFAULT 0 COMMENT '已入库题目数',
+  `extract_result` longtext COLLATE utf8mb4_general_ci COMMENT '文本/图片抽取结果（阶段检查点）',
+  `questions` longtext COLLATE utf8mb4_general_ci COMMENT '拆题及识别结果JSON（阶段检查点/部分结果）',
+  `message` varchar(1000) COLLATE utf8mb4_general_ci DEFAULT NULL COMMENT '结果或错误信息',
+  `create_time` datetime DEFAULT NULL COMMENT '创建时间',
+  `update_time` datetime DEFAULT NULL COMMENT '更新时间',
+  `finish_time` datetime DEFAULT NULL COMMENT '结束时间',
+  PRIMARY KEY (`id`) USING BTREE,
+  KEY `idx_state` (`state`),
+  KEY `idx_user_id` (`user_id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_general_ci COMMENT='AI文档导入任务';
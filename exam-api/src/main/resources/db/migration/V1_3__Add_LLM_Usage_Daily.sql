@@ -0,0 +1,23 @@
+-- Migration: Add LLM Usage Daily
+-- Description: Daily rollup of LLM token usage and latency per feature, exam and user
+
+CREATE TABLE `el_llm_usage_daily` (
+  `id` varchar(64) COLLATE utf8mb4_general_ci NOT NULL COMMENT 'ID',
+  `stat_date` date NOT NULL COMMENT '统计日期',
+  `feature` varchar(32) COLLATE utf8mb4_general_ci NOT NULL COMMENT '调用功能:extraction/selection/judge/judge_batch/overall_analysis/stem/knowledge/outline/outline_import',
+  `exam_id` varchar(64) COLLATE utf8mb4_general_ci NOT NULL DEFAULT '' COMMENT '考试ID',
+  `user_id` varchar(64) COLLATE utf8mb4_general_ci NOT NULL DEFAULT '' COMMENT '用户ID',
+  `calls` bigint(20) NOT NULL DEFAULT 0 COMMENT '调用次数',
+  `failures` bigint(20) NOT NULL DEFAULT 0 COMMENT '失败次数',
+  `prompt_tokens` bigint(20) NOT NULL DEFAULT 0 COMMENT '输入token数',
+  `completion_tokens` bigint(20) NOT NULL DEFAULT 0 COMMENT '输出token数',
+  `estimated_calls` bigint(20) NOT NULL DEFAULT 0 COMMENT 'token数为估算的调用次数',
+  `prompt_chars` bigint(20) NOT NULL DEFAULT 0 COMMENT '提示词字符数',
+  `latency_millis` bigint(20) NOT NULL DEFAULT 0 COMMENT '累计耗时(毫秒)',
+  `max_latency_millis` bigint(20) NOT NULL DEFAULT 0 COMMENT '最大耗时(毫秒)',
+  `update_time` datetime DEFAULT NULL COMMENT '更新时间',
+  PRIMARY KEY (`id`) USING BTREE,
+  UNIQUE KEY `uk_stat` (`stat_date`,`feature`,`exam_id`,`user_id`),
+  KEY `idx_exam_id` (`exam_id`),
+  KEY `idx_user_id` (`user_id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_general_ci COMMENT='LLM用量日汇总';
@@ -0,0 +1,24 @@
+-- Migration: Add AI Document Fingerprint
+-- Description: Content-hash registry of imported documents; repeat uploads reuse the stored extraction and split results
+
+CREATE TABLE `el_ai_doc_fingerprint` (
+  `id` varchar(64) COLLATE utf8mb4_general_ci NOT NULL COMMENT 'ID',
+  `content_hash` char(64) COLLATE utf8mb4_general_ci NOT NULL COMMENT '文件内容SHA-256',
+  `subject` varchar(64) COLLATE utf8mb4_general_ci NOT NULL DEFAULT '' COMMENT '学科',
+  `grade` varchar(64) COLLATE utf8mb4_general_ci NOT NULL DEFAULT '' COMMENT '年级',
+  `file_name` varchar(255) COLLATE utf8mb4_general_ci DEFAULT NULL COMMENT '首次上传的文件名',
+  `file_size` bigint(20) NOT NULL DEFAULT 0 COMMENT '文件大小(字节)',
+  `extract_result` longtext COLLATE utf8mb4_general_ci COMMENT '文本/图片抽取结果',
+  `questions` longtext COLLATE utf8mb4_general_ci COMMENT '拆题及识别结果JSON',
+  `question_count` int(11) NOT NULL DEFAULT 0 COMMENT '题目数',
+  `hit_count` int(11) NOT NULL DEFAULT 0 COMMENT '复用次数',
+  `last_hit_time` datetime DEFAULT NULL COMMENT '最近复用时间',
+  `create_time` datetime DEFAULT NULL COMMENT '创建时间',
+  `update_time` datetime DEFAULT NULL COMMENT '更新时间',
+  PRIMARY KEY (`id`) USING BTREE,
+  UNIQUE KEY `uk_fingerprint` (`content_hash`,`subject`,`grade`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_general_ci COMMENT='AI导入文档指纹';
+
+ALTER TABLE `el_ai_import_job`
+  ADD COLUMN `content_hash` char(64) COLLATE utf8mb4_general_ci DEFAULT NULL COMMENT '文件内容SHA-256' AFTER `grade`,
+  ADD COLUMN `force_extract` tinyint(1) NOT NULL DEFAULT 0 COMMENT '是否强制重新解析，不复用已解析结果' AFTER `content_hash`;
@@ -0,0 +1,16 @@
+-- Migration: Add Question Duplicate
+-- Description: Near-duplicate question pairs found by MinHash/LSH, pending manual merge or ignore
+
+CREATE TABLE `el_qu_duplicate` (
+  `id` varchar(64) COLLATE utf8mb4_general_ci NOT NULL COMMENT 'ID',
+  `qu_id` varchar(64) COLLATE utf8mb4_general_ci NOT NULL COMMENT '后录入的题目',
+  `similar_id` varchar(64) COLLATE utf8mb4_general_ci NOT NULL COMMENT '与之相似的已有题目',
+  `similarity` decimal(5,4) NOT NULL DEFAULT 0 COMMENT '估算相似度',
+  `state` tinyint(1) NOT NULL DEFAULT 0 COMMENT '状态：0待处理,1已合并,2已忽略',
+  `create_time` datetime DEFAULT NULL COMMENT '创建时间',
+  `update_time` datetime DEFAULT NULL COMMENT '更新时间',
+  PRIMARY KEY (`id`) USING BTREE,
+  UNIQUE KEY `uk_pair` (`qu_id`,`similar_id`),
+  KEY `idx_similar_id` (`similar_id`),
+  KEY `idx_state` (`state`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_general_ci COMMENT='疑似重复试题';
@@ -0,0 +1,14 @@
+-- Migration: Add Content-Addressed File Store
+-- Description: Registry of uploaded files stored by SHA-256; reference counts are recomputed by the garbage-collection job
+
+CREATE TABLE `sys_file` (
+  `id` char(64) COLLATE utf8mb4_general_ci NOT NULL COMMENT '文件内容SHA-256',
+  `ext` varchar(16) COLLATE utf8mb4_general_ci NOT NULL DEFAULT '' COMMENT '后缀',
+  `size` bigint(20) NOT NULL DEFAULT 0 COMMENT '文件大小(字节)',
+  `path` varchar(255) COLLATE utf8mb4_general_ci NOT NULL COMMENT '相对上传目录的路径',
+  `ref_count` int(11) NOT NULL DEFAULT 0 COMMENT '引用次数，由回收任务统计',
+  `create_time` datetime DEFAULT NULL COMMENT '首次上传时间',
+  `update_time` datetime DEFAULT NULL COMMENT '最近上传时间',
+  PRIMARY KEY (`id`) USING BTREE,
+  KEY `idx_ref_count` (`ref_count`,`update_time`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_general_ci COMMENT='上传文件';
@@ -0,0 +1,158 @@
+package com.yf.exam.ability.ai;
+
+import com.yf.exam.ability.ai.breaker.LlmCircuitBreaker;
+import com.yf.exam.ability.ai.config.AIConfig;
+import com.yf.exam.config.PromptConfig;
+import com.yf.exam.modules.ai.service.AIProcessingService;
+import com.yf.exam.modules.paper.service.PaperQuService;
+import com.yf.exam.modules.qu.entity.Qu;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+
+/**
+ * 难度比例组卷的LLM重排测试：LLM只在本地组卷结果的各难度档内保留或替换
+ *
+ * @author AI Assistant
+ * @date 2026-10-19
+ */
+public class AIExamGenerationServiceTest {
+
+    private static final Pattern ID_PATTERN = Pattern.compile("ID: (\\S+)");
+
+    private static final PromptConfig.DifficultyRatio.DifficultyScheme SCHEME =
+            PromptConfig.DifficultyRatio.DifficultyScheme.BALANCED;
+
+    private final List<Qu> questions = new ArrayList<>();
+
+    private final AIConfig aiConfig = new AIConfig();
+
+    private LocalPaperAssembler assembler;
+
+    private AIExamGenerationService service;
+
+    /**
+     * 模拟LLM：参数为轻量级题目列表，返回逗号分隔的题目ID
+     */
+    private Function<String, String> llm;
+
+    @Before
+    public void setUp() throws Exception {
+        for (int i = 0; i < 40; i++) {
+            Qu qu = new Qu();
+            qu.setId("q" + i);
+            qu.setQuType(1);
+            qu.setLevel(i % 4 + 1);
+            qu.setContent("题目" + i);
+            qu.setKnowledgePoints("知识点" + (i % 5));
+            questions.add(qu);
+        }
+        aiConfig.getAssembly().setLlmRerank(true);
+
+        assembler = new LocalPaperAssembler();
+        inject(assembler, "aiConfig", aiConfig);
+
+        QuestionPreRanker preRanker = new QuestionPreRanker();
+        inject(preRanker, "aiConfig", aiConfig);
+        inject(preRanker, "paperQuService", Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class[]{PaperQuService.class}, (proxy, method, args) -> Collections.emptyList()));
+
+        LlmCircuitBreaker breaker = new LlmCircuitBreaker();
+        inject(breaker, "aiConfig", aiConfig);
+
+        service = new AIExamGenerationService();
+        inject(service, "aiConfig", aiConfig);
+        inject(service, "localPaperAssembler", assembler);
+        inject(service, "questionPreRanker", preRanker);
+        inject(service, "circuitBreaker", breaker);
+        inject(service, "aiProcessingService", new AIProcessingService() {
+            @Override
+            public String selectLightweightQuestions(Map<String, Object> request) {
+                return llm.apply((String) request.get("lightweightQuestions"));
+            }
+        });
+    }
+
+    @Test
+    public void rerankSwapsWithinBandsAndKeepsBandCounts() throws Exception {
+        List<Qu> local = assembler.assemble(questions, 8, null, SCHEME);
+        // 每档都换成备选题：返回列表中排在本地结果之后的题目
+        llm = list -> {
+            List<String> ids = ids(list);
+            int required = Integer.parseInt(list.substring(1, list.indexOf('道')));
+            return String.join(",", ids.subList(required, ids.size()));
+        };
+
+        List<Qu> reranked = select(8);
+
+        assertEquals(levels(local), levels(reranked));
+        assertNotEquals(idsOf(local), idsOf(reranked));
+        for (Qu qu : reranked) {
+            assertFalse(idsOf(local).contains(qu.getId()));
+        }
+    }
+
+    @Test
+    public void failedRerankKeepsLocalAssembly() throws Exception {
+        List<Qu> local = assembler.assemble(questions, 8, null, SCHEME);
+        llm = list -> {
+            throw new IllegalStateException("timeout");
+        };
+
+        assertEquals(idsOf(local), idsOf(select(8)));
+    }
+
+    @Test
+    public void unknownIdsAreToppedUpFromLocalAssembly() throws Exception {
+        List<Qu> local = assembler.assemble(questions, 8, null, SCHEME);
+        llm = list -> "x1,x2";
+
+        assertEquals(idsOf(local), idsOf(select(8)));
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Qu> select(int size) throws Exception {
+        Method method = AIExamGenerationService.class.getDeclaredMethod("selectQuestionsWithDifficultyRatio",
+                List.class, Integer.class, Integer.class, List.class, PromptConfig.DifficultyRatio.DifficultyScheme.class);
+        method.setAccessible(true);
+        return (List<Qu>) method.invoke(service, questions, size, 1, null, SCHEME);
+    }
+
+    private static List<String> ids(String list) {
+        List<String> ids = new ArrayList<>();
+        Matcher m = ID_PATTERN.matcher(list);
+        while (m.find()) {
+            ids.add(m.group(1));
+        }
+        return ids;
+    }
+
+    private static List<String> idsOf(List<Qu> list) {
+        return list.stream().map(Qu::getId).collect(Collectors.toList());
+    }
+
+    private static Map<Integer, Long> levels(List<Qu> list) {
+        return list.stream().collect(Collectors.groupingBy(Qu::getLevel, Collectors.counting()));
+    }
+
+    private static void inject(Object target, String name, Object value) throws Exception {
+        Field field = target.getClass().getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+}
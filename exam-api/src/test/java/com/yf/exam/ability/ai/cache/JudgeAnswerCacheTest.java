@@ -0,0 +1,86 @@
+package com.yf.exam.ability.ai.cache;
+
+import com.alibaba.fastjson2.JSONObject;
+import com.yf.exam.ability.ai.config.AIConfig;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.reflect.Field;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+/**
+ * 简答题答案等价缓存测试
+ *
+ * @author AI Assistant
+ * @date 2026-10-19
+ */
+public class JudgeAnswerCacheTest {
+
+    private JudgeAnswerCache cache;
+
+    private final String questionKey = JudgeAnswerCache.questionKey("比较大小", "x>3", 10);
+
+    @Before
+    public void setUp() throws Exception {
+        cache = new JudgeAnswerCache();
+        Field field = JudgeAnswerCache.class.getDeclaredField("aiConfig");
+        field.setAccessible(true);
+        field.set(cache, new AIConfig());
+    }
+
+    @Test
+    public void normalizeKeepsOperatorsAndSigns() {
+        assertNotEquals(JudgeAnswerCache.normalize("x>3"), JudgeAnswerCache.normalize("x<3"));
+        assertNotEquals(JudgeAnswerCache.normalize("a+b"), JudgeAnswerCache.normalize("a-b"));
+        assertNotEquals(JudgeAnswerCache.normalize("-2"), JudgeAnswerCache.normalize("2"));
+        assertNotEquals(JudgeAnswerCache.normalize("1.5"), JudgeAnswerCache.normalize("15"));
+    }
+
+    @Test
+    public void normalizeUnifiesWidthCaseAndWhitespace() {
+        assertEquals("x > 3", JudgeAnswerCache.normalize("  Ｘ　＞  ３\n"));
+        assertEquals(JudgeAnswerCache.normalize("A+B"), JudgeAnswerCache.normalize("ａ＋ｂ"));
+    }
+
+    @Test
+    public void answersDifferingOnlyInOperatorDoNotShareScore() {
+        JSONObject result = new JSONObject();
+        result.put("score", 10);
+        cache.store(questionKey, "x>3", result);
+
+        assertNotNull(cache.lookup(questionKey, " x>3 "));
+        assertNull(cache.lookup(questionKey, "x<3"));
+        assertNull(cache.lookup(questionKey, "-x>3"));
+    }
+
+    @Test
+    public void blankAnswersIgnoreTrailingPunctuationOnly() {
+        assertEquals(JudgeAnswerCache.HIT_BLANK, cache.lookup(questionKey, "不知道。").getString(JudgeAnswerCache.FIELD_CACHE_HIT));
+        assertEquals(JudgeAnswerCache.HIT_BLANK, cache.lookup(questionKey, "   ").getString(JudgeAnswerCache.FIELD_CACHE_HIT));
+        assertNull(cache.lookup(questionKey, ">"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void snapshotReportsHashesInsteadOfAnswerText() {
+        JSONObject result = new JSONObject();
+        result.put("score", 10);
+        cache.store(questionKey, "判别式大于0有两个不等实根", result);
+        cache.lookup(questionKey, " 判别式大于0有两个不等实根 ");
+
+        List<Map<String, Object>> reuses = (List<Map<String, Object>>) cache.snapshot().get("reuses");
+        assertEquals(1, reuses.size());
+        Map<String, Object> item = reuses.get(0);
+        assertFalse(item.containsKey("answer"));
+        assertFalse(item.containsKey("matched"));
+        assertEquals(item.get("answerHash"), item.get("matchedHash"));
+        assertFalse(item.toString().contains("判别式"));
+    }
+}
@@ -0,0 +1,34 @@
+package com.yf.exam.ability.ai.index;
+
+import org.junit.Test;
+
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 文本向量索引的切分测试
+ *
+ * @author AI Assistant
+ * @date 2026-10-19
+ */
+public class TextVectorIndexTest {
+
+    @Test
+    public void comparisonSignsAreNotTreatedAsTags() {
+        Map<String, Float> grams = TextVectorIndex.grams("x<3且y>2", 2, 2);
+
+        assertTrue(grams.containsKey("3且"));
+        assertTrue(grams.containsKey("且y"));
+    }
+
+    @Test
+    public void htmlTagsAreStripped() {
+        Map<String, Float> grams = TextVectorIndex.grams("<p class=\"q\">x<3且y>2<br/></p>", 2, 2);
+
+        assertEquals(TextVectorIndex.grams("x<3且y>2", 2, 2), grams);
+        assertFalse(grams.containsKey("br"));
+    }
+}
@@ -0,0 +1,22 @@
+package com.yf.exam.ability.ai.loadtest;
+
+import com.yf.exam.ExamApplication;
+import org.springframework.boot.SpringApplication;
+
+/**
+ * AI链路压测启动入口，在当前环境之上叠加 loadtest 环境（application-loadtest.yml），
+ * 随应用启动LLM替身服务并在启动完成后执行一轮压测。运行：
+ * mvn -q test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) com.yf.exam.ability.ai.loadtest.AiLoadTestApplication
+ *
+ * @author AI Assistant
+ * @date 2026-10-19
+ */
+public class AiLoadTestApplication {
+
+    public static void main(String[] args) {
+        SpringApplication application = new SpringApplication(ExamApplication.class);
+        application.setAdditionalProfiles("loadtest");
+        application.run(args);
+    }
+}
@@ -0,0 +1,55 @@
+package com.yf.exam.ability.ai.loadtest;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * AI链路压测参数（conf.ai.load-test），启用后应用启动完成即执行一轮压测并输出报告
+ *
+ * @author AI Assistant
+ * @date 2026-10-19
+ */
+@Data
+@ConfigurationProperties(prefix = "conf.ai.load-test")
+public class AiLoadTestProperties {
+
+    /**
+     * 是否启用
+     */
+    private boolean enabled = false;
+
+    /**
+     * 压测场景，逗号分隔：judge（简答题判分）、extract（题目提取）、select（智能选题）
+     */
+    private String scenarios = "judge,extract,select";
+
+    /**
+     * 并发数
+     */
+    private int concurrency = 8;
+
+    /**
+     * 每个场景的请求数
+     */
+    private int requests = 100;
+
+    /**
+     * 每个场景的预热请求数，不计入统计
+     */
+    private int warmup = 5;
+
+    /**
+     * 智能选题场景使用的题库ID，为空时跳过该场景
+     */
+    private String repoId;
+
+    /**
+     * 智能选题场景的题型
+     */
+    private int quType = 1;
+
+    /**
+     * 智能选题场景的题目数量
+     */
+    private int size = 10;
+}
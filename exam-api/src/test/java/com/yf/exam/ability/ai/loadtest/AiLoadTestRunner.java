@@ -0,0 +1,163 @@
+package com.yf.exam.ability.ai.loadtest;
+
+import com.alibaba.fastjson2.JSON;
+import com.yf.exam.ability.ai.AIExamGenerationService;
+import com.yf.exam.ability.ai.breaker.LlmCircuitBreaker;
+import com.yf.exam.ability.ai.stub.LlmStubServer;
+import com.yf.exam.config.PromptConfig;
+import com.yf.exam.modules.ai.service.AIProcessingService;
+import com.yf.exam.modules.qu.entity.Qu;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntPredicate;
+
+/**
+ * AI链路压测
+ * 应用启动完成后按场景并发调用判分、题目提取、智能选题，输出吞吐和延迟分位数。
+ * 通常与LLM替身服务（conf.ai.stub）一起启用，避免依赖真实模型服务，启动方式见 AiLoadTestApplication
+ *
+ * @author AI Assistant
+ * @date 2026-10-19
+ */
+@Component
+@ConditionalOnProperty(prefix = "conf.ai.load-test", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(AiLoadTestProperties.class)
+public class AiLoadTestRunner implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(AiLoadTestRunner.class);
+
+    private static final String SAMPLE_DOCUMENT =
+            "一、选择题\n1. 函数f(x)=x²在x=2处的值是（ ）\nA. 2  B. 4  C. 6  D. 8\n答案：B\n" +
+            "二、简答题\n2. 简述一元二次方程根的判别式的作用。\n" +
+            "答案：判别式大于0有两个不等实根，等于0有两个相等实根，小于0无实根。\n";
+
+    @Autowired
+    private AiLoadTestProperties conf;
+
+    @Autowired
+    private AIProcessingService aiProcessingService;
+
+    @Autowired
+    private AIExamGenerationService aiExamGenerationService;
+
+    @Autowired
+    private LlmCircuitBreaker circuitBreaker;
+
+    @Autowired(required = false)
+    private LlmStubServer llmStubServer;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        logger.info("🏋️ AI链路压测开始: 场景 {}, 并发 {}, 每场景 {} 次请求",
+                conf.getScenarios(), conf.getConcurrency(), conf.getRequests());
+
+        for (String scenario : StringUtils.commaDelimitedListToSet(conf.getScenarios())) {
+            IntPredicate task = taskOf(scenario.trim());
+            if (task == null) {
+                continue;
+            }
+            Map<String, Object> report = runScenario(task, conf);
+            logger.info("📊 压测场景 [{}]: {}", scenario.trim(), JSON.toJSONString(report));
+        }
+
+        logger.info("🏁 AI链路压测结束, 熔断器: {}", JSON.toJSONString(circuitBreaker.snapshot()));
+        if (llmStubServer != null) {
+            logger.info("🧪 LLM替身服务统计: {}", JSON.toJSONString(llmStubServer.stats()));
+        }
+    }
+
+    /**
+     * 场景任务：参数为请求序号，返回是否成功
+     */
+    private IntPredicate taskOf(String scenario) {
+        switch (scenario) {
+            case "judge":
+                return i -> aiProcessingService.judgeShortAnswer(judgeRequest(i)) != null;
+            case "extract":
+                return i -> aiProcessingService.extractQuestions(SAMPLE_DOCUMENT) != null;
+            case "select":
+                if (StringUtils.isEmpty(conf.getRepoId())) {
+                    logger.warn("⚠️ 未配置 conf.ai.load-test.repo-id，跳过智能选题场景");
+                    return null;
+                }
+                return i -> {
+                    List<Qu> list = aiExamGenerationService.intelligentQuestionSelectionWithDifficultyRatio(
+                            conf.getRepoId(), conf.getQuType(), null, conf.getSize(), null, false,
+                            PromptConfig.DifficultyRatio.DifficultyScheme.BALANCED);
+                    return list != null && !list.isEmpty();
+                };
+            default:
+                logger.warn("⚠️ 未知压测场景: {}", scenario);
+                return null;
+        }
+    }
+
+    /**
+     * 按配置的并发数执行一个场景
+     * @param task 场景任务
+     * @param conf 压测参数
+     * @return 延迟与吞吐报告
+     */
+    static Map<String, Object> runScenario(IntPredicate task, AiLoadTestProperties conf) {
+        int concurrency = Math.max(1, conf.getConcurrency());
+        int requests = Math.max(1, conf.getRequests());
+        ExecutorService pool = Executors.newFixedThreadPool(concurrency);
+        try {
+            // 预热，不计入统计
+            for (int i = 0; i < conf.getWarmup(); i++) {
+                safeTest(task, -1 - i);
+            }
+
+            LatencyRecorder recorder = new LatencyRecorder(requests);
+            long start = System.nanoTime();
+            for (int i = 0; i < requests; i++) {
+                final int index = i;
+                pool.execute(() -> {
+                    long begin = System.nanoTime();
+                    boolean success = safeTest(task, index);
+                    recorder.record(System.nanoTime() - begin, success);
+                });
+            }
+            pool.shutdown();
+            pool.awaitTermination(1, TimeUnit.HOURS);
+            return recorder.report(System.nanoTime() - start);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new HashMap<>();
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static boolean safeTest(IntPredicate task, int index) {
+        try {
+            return task.test(index);
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    private Map<String, Object> judgeRequest(int index) {
+        Map<String, Object> request = new HashMap<>();
+        request.put("questionContent", "简述一元二次方程根的判别式的作用。");
+        request.put("standardAnswer", "判别式大于0有两个不等实根，等于0有两个相等实根，小于0无实根。");
+        request.put("userAnswer", "判别式可以判断方程实根的个数（答卷" + index + "）");
+        request.put("knowledgePoint", "一元二次方程");
+        request.put("maxScore", 10);
+        return request;
+    }
+}
@@ -0,0 +1,85 @@
+package com.yf.exam.ability.ai.loadtest;
+
+import com.alibaba.fastjson2.JSON;
+import com.alibaba.fastjson2.JSONObject;
+import com.yf.exam.ability.ai.stub.LlmStubProperties;
+import com.yf.exam.ability.ai.stub.LlmStubServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+/**
+ * 压测冒烟测试：启动LLM替身服务并执行一轮压测
+ *
+ * @author AI Assistant
+ * @date 2026-10-19
+ */
+public class AiLoadTestRunnerTest {
+
+    private LlmStubServer server;
+
+    private final RestTemplate restTemplate = new RestTemplate();
+
+    @Before
+    public void setUp() throws Exception {
+        LlmStubProperties conf = new LlmStubProperties();
+        conf.setPort(0);
+        conf.setThreads(4);
+        conf.getLatency().setDistribution("FIXED");
+        conf.getLatency().setMeanMillis(1);
+        server = new LlmStubServer(conf);
+        server.start();
+    }
+
+    @After
+    public void tearDown() {
+        server.stop();
+    }
+
+    @Test
+    public void stubAnswersChatCompletions() {
+        JSONObject body = complete("请对这道简答题进行评分\n满分：10");
+
+        assertFalse(body.getJSONArray("choices").isEmpty());
+        assertEquals("stop", body.getJSONArray("choices").getJSONObject(0).getString("finish_reason"));
+    }
+
+    @Test
+    public void oneRoundAgainstStubHasNoFailures() {
+        AiLoadTestProperties conf = new AiLoadTestProperties();
+        conf.setConcurrency(4);
+        conf.setRequests(20);
+        conf.setWarmup(2);
+
+        Map<String, Object> report = AiLoadTestRunner.runScenario(
+                i -> !complete("请对这道简答题进行评分\n满分：10\n答卷" + i).getJSONArray("choices").isEmpty(), conf);
+
+        assertEquals(20, report.get("requests"));
+        assertEquals(0, report.get("failures"));
+        assertEquals(22L, server.stats().get("requests"));
+    }
+
+    private JSONObject complete(String prompt) {
+        JSONObject message = new JSONObject();
+        message.put("role", "user");
+        message.put("content", prompt);
+        JSONObject request = new JSONObject();
+        request.put("model", "qwen3_32b");
+        request.put("messages", new Object[]{message});
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        String url = "http://127.0.0.1:" + server.getPort() + "/v1/chat/completions";
+        String response = restTemplate.postForObject(url, new HttpEntity<>(request.toJSONString(), headers), String.class);
+        return JSON.parseObject(response);
+    }
+}
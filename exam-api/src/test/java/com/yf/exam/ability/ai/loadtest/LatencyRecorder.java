@@ -0,0 +1,73 @@
+package com.yf.exam.ability.ai.loadtest;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 压测延迟记录，预分配数组，多线程写入
+ *
+ * @author AI Assistant
+ * @date 2026-10-19
+ */
+public class LatencyRecorder {
+
+    private final long[] samples;
+    private final AtomicInteger cursor = new AtomicInteger();
+    private final AtomicInteger failures = new AtomicInteger();
+
+    public LatencyRecorder(int capacity) {
+        this.samples = new long[Math.max(1, capacity)];
+    }
+
+    /**
+     * 记录一次请求
+     * @param elapsedNanos 耗时（纳秒）
+     * @param success 是否成功
+     */
+    public void record(long elapsedNanos, boolean success) {
+        int index = cursor.getAndIncrement();
+        if (index < samples.length) {
+            samples[index] = elapsedNanos;
+        }
+        if (!success) {
+            failures.incrementAndGet();
+        }
+    }
+
+    /**
+     * 汇总报告
+     * @param wallNanos 整体耗时（纳秒）
+     * @return 请求数、失败数、吞吐（次/秒）、平均及分位数延迟（毫秒）
+     */
+    public Map<String, Object> report(long wallNanos) {
+        int count = Math.min(cursor.get(), samples.length);
+        long[] sorted = Arrays.copyOf(samples, count);
+        Arrays.sort(sorted);
+
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("requests", count);
+        data.put("failures", failures.get());
+        data.put("throughput", wallNanos <= 0 ? 0 : round(count / (wallNanos / 1e9)));
+        data.put("mean", count == 0 ? 0 : round(Arrays.stream(sorted).average().orElse(0) / 1e6));
+        data.put("p50", percentile(sorted, 0.50));
+        data.put("p90", percentile(sorted, 0.90));
+        data.put("p95", percentile(sorted, 0.95));
+        data.put("p99", percentile(sorted, 0.99));
+        data.put("max", count == 0 ? 0 : round(sorted[count - 1] / 1e6));
+        return data;
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return round(sorted[Math.max(0, Math.min(sorted.length - 1, index))] / 1e6);
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+}
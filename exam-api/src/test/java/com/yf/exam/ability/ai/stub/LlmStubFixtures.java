@@ -0,0 +1,151 @@
+package com.yf.exam.ability.ai.stub;
+
+import com.alibaba.fastjson2.JSON;
+import com.alibaba.fastjson2.JSONArray;
+import com.alibaba.fastjson2.JSONObject;
+import org.springframework.util.StreamUtils;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * LLM替身服务的响应样例
+ * 样例文件为JSON数组，每项包含 name、match（匹配提示词的正则）、content（返回内容模板），按顺序匹配第一项。
+ * 模板占位符：
+ * {{ids}}   提示词中“ID: xxx”列出的题目ID，按目标题数截取，逗号分隔
+ * {{score}} 提示词中“满分：N”的60%
+ * {{scores}} 批量评分结果数组，提示词中每个“【答案N】”一项，得分同 {{score}}
+ *
+ * @author AI Assistant
+ * @date 2026-10-19
+ */
+public class LlmStubFixtures {
+
+    private static final String DEFAULT_FIXTURES = "llm-stub/fixtures.json";
+
+    private static final Pattern ID_PATTERN = Pattern.compile("ID: ([0-9A-Za-z_-]+)");
+    private static final Pattern TARGET_PATTERN = Pattern.compile("\"targetCount\":(\\d+)|选择(\\d+)道");
+    private static final Pattern FULL_MARKS_PATTERN = Pattern.compile("满分[：:]\\s*([0-9.]+)");
+    private static final Pattern ANSWER_PATTERN = Pattern.compile("【答案(\\d+)】");
+
+    private final List<Fixture> fixtures = new ArrayList<>();
+
+    /**
+     * 加载样例
+     * @param location 文件路径，为空时加载内置样例
+     * @return 样例集合
+     * @throws IOException 读取失败
+     */
+    public static LlmStubFixtures load(String location) throws IOException {
+        String text;
+        if (StringUtils.isEmpty(location)) {
+            try (InputStream in = LlmStubFixtures.class.getClassLoader().getResourceAsStream(DEFAULT_FIXTURES)) {
+                if (in == null) {
+                    throw new IOException("内置样例文件不存在: " + DEFAULT_FIXTURES);
+                }
+                text = StreamUtils.copyToString(in, StandardCharsets.UTF_8);
+            }
+        } else {
+            text = new String(Files.readAllBytes(Paths.get(location)), StandardCharsets.UTF_8);
+        }
+
+        LlmStubFixtures result = new LlmStubFixtures();
+        JSONArray array = JSON.parseArray(text);
+        for (int i = 0; i < array.size(); i++) {
+            JSONObject item = array.getJSONObject(i);
+            String match = item.getString("match");
+            result.fixtures.add(new Fixture(item.getString("name"),
+                    StringUtils.isEmpty(match) ? null : Pattern.compile(match, Pattern.DOTALL),
+                    item.getString("content")));
+        }
+        return result;
+    }
+
+    /**
+     * 按提示词生成响应内容
+     * @param prompt 提示词
+     * @return 匹配的样例名称和渲染后的内容，无匹配时返回 default
+     */
+    public String[] respond(String prompt) {
+        String text = prompt == null ? "" : prompt;
+        for (Fixture fixture : fixtures) {
+            if (fixture.match == null || fixture.match.matcher(text).find()) {
+                return new String[]{fixture.name, render(fixture.content, text)};
+            }
+        }
+        return new String[]{"default", "OK"};
+    }
+
+    public int size() {
+        return fixtures.size();
+    }
+
+    private String render(String template, String prompt) {
+        if (template == null) {
+            return "";
+        }
+        String content = template;
+        if (content.contains("{{ids}}")) {
+            content = content.replace("{{ids}}", String.join(",", pickIds(prompt)));
+        }
+        if (content.contains("{{scores}}")) {
+            JSONArray scores = new JSONArray();
+            Matcher m = ANSWER_PATTERN.matcher(prompt);
+            while (m.find()) {
+                JSONObject item = new JSONObject();
+                item.put("index", Integer.parseInt(m.group(1)));
+                item.put("score", sampleScore(prompt));
+                item.put("comment", "答案涵盖部分关键知识点，但不够完整。");
+                scores.add(item);
+            }
+            content = content.replace("{{scores}}", scores.toJSONString());
+        }
+        if (content.contains("{{score}}")) {
+            content = content.replace("{{score}}", String.valueOf(sampleScore(prompt)));
+        }
+        return content;
+    }
+
+    private double sampleScore(String prompt) {
+        Matcher m = FULL_MARKS_PATTERN.matcher(prompt);
+        double full = m.find() ? Double.parseDouble(m.group(1)) : 10;
+        return Math.round(full * 6) / 10.0;
+    }
+
+    private List<String> pickIds(String prompt) {
+        Set<String> ids = new LinkedHashSet<>();
+        Matcher m = ID_PATTERN.matcher(prompt);
+        while (m.find()) {
+            ids.add(m.group(1));
+        }
+        int target = ids.size();
+        Matcher t = TARGET_PATTERN.matcher(prompt);
+        if (t.find()) {
+            target = Integer.parseInt(t.group(1) != null ? t.group(1) : t.group(2));
+        }
+        List<String> result = new ArrayList<>(ids);
+        return result.subList(0, Math.min(target, result.size()));
+    }
+
+    private static class Fixture {
+        private final String name;
+        private final Pattern match;
+        private final String content;
+
+        Fixture(String name, Pattern match, String content) {
+            this.name = name;
+            this.match = match;
+            this.content = content;
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.yf.exam.ability.ai.stub;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 本地LLM替身服务参数（conf.ai.stub），兼容 /v1/chat/completions 协议
+ *
+ * @author AI Assistant
+ * @date 2026-10-19
+ */
+@Data
+@ConfigurationProperties(prefix = "conf.ai.stub")
+public class LlmStubProperties {
+
+    /**
+     * 是否随应用启动替身服务
+     */
+    private boolean enabled = false;
+
+    /**
+     * 监听地址
+     */
+    private String host = "127.0.0.1";
+
+    /**
+     * 监听端口，默认与AI服务地址一致
+     */
+    private int port = 10031;
+
+    /**
+     * 启动的实例数，依次监听 port、port+1 ...，用于多节点联调
+     */
+    private int instances = 1;
+
+    /**
+     * 处理线程数，模拟延迟会占用线程，应不小于压测并发数
+     */
+    private int threads = 64;
+
+    /**
+     * 返回的模型名称
+     */
+    private String model = "qwen3_32b";
+
+    /**
+     * 响应样例文件，为空时使用内置的 classpath:llm-stub/fixtures.json
+     */
+    private String fixtures;
+
+    /**
+     * 流式响应每个分片的字符数
+     */
+    private int streamChunkChars = 8;
+
+    /**
+     * 流式响应分片间隔（毫秒）
+     */
+    private long streamChunkDelayMillis = 20;
+
+    /**
+     * 延迟分布
+     */
+    private Latency latency = new Latency();
+
+    /**
+     * 故障注入
+     */
+    private Faults faults = new Faults();
+
+    @Data
+    public static class Latency {
+
+        /**
+         * 分布类型：FIXED/UNIFORM/NORMAL/LOGNORMAL/EXPONENTIAL
+         */
+        private String distribution = "LOGNORMAL";
+
+        /**
+         * 均值（LOGNORMAL为中位数）（毫秒）
+         */
+        private long meanMillis = 800;
+
+        /**
+         * 标准差，NORMAL使用（毫秒）
+         */
+        private long stddevMillis = 200;
+
+        /**
+         * 对数标准差，LOGNORMAL使用，越大长尾越明显
+         */
+        private double sigma = 0.5;
+
+        /**
+         * 延迟下限，UNIFORM为区间下界（毫秒）
+         */
+        private long minMillis = 0;
+
+        /**
+         * 延迟上限，UNIFORM为区间上界（毫秒）
+         */
+        private long maxMillis = 30000;
+
+        /**
+         * 每个输出token额外耗时，模拟解码（毫秒）
+         */
+        private double perOutputTokenMillis = 0;
+    }
+
+    @Data
+    public static class Faults {
+
+        /**
+         * 返回500的比例
+         */
+        private double errorRate = 0;
+
+        /**
+         * 挂起不响应的比例
+         */
+        private double timeoutRate = 0;
+
+        /**
+         * 挂起时长，应大于客户端读超时（毫秒）
+         */
+        private long timeoutMillis = 200000;
+
+        /**
+         * 返回不完整JSON的比例
+         */
+        private double malformedRate = 0;
+
+        /**
+         * 返回空choices的比例
+         */
+        private double emptyRate = 0;
+
+        /**
+         * 直接断开连接的比例
+         */
+        private double resetRate = 0;
+    }
+}
@@ -0,0 +1,448 @@
+package com.yf.exam.ability.ai.stub;
+
+import com.alibaba.fastjson2.JSON;
+import com.alibaba.fastjson2.JSONArray;
+import com.alibaba.fastjson2.JSONObject;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.yf.exam.ability.ai.utils.TokenEstimator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.MapConfigurationPropertySource;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 本地LLM替身服务
+ * 兼容 callQwen3API 使用的 OpenAI /v1/chat/completions 协议（含 stream=true 的SSE流式响应），
+ * 按配置的分布模拟延迟，按提示词匹配样例返回内容，并可按比例注入500、挂起、断连、不完整JSON、空choices等故障。
+ * 仅在测试classpath中，不随生产包发布。既可随 loadtest 环境启动（见 AiLoadTestApplication），也可单独运行：
+ * mvn -q test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) com.yf.exam.ability.ai.stub.LlmStubServer port=10031 latency.distribution=NORMAL faults.error-rate=0.05
+ *
+ * @author AI Assistant
+ * @date 2026-10-19
+ */
+public class LlmStubServer {
+
+    private static final Logger logger = LoggerFactory.getLogger(LlmStubServer.class);
+
+    private static final String COMPLETIONS_PATH = "/v1/chat/completions";
+
+    private final LlmStubProperties conf;
+
+    private final List<HttpServer> servers = new ArrayList<>();
+    private ExecutorService executor;
+    private LlmStubFixtures fixtures;
+
+    private final AtomicLong requestCount = new AtomicLong();
+    private final AtomicLong streamCount = new AtomicLong();
+    private final Map<String, AtomicLong> fixtureHits = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> faultHits = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> portHits = new ConcurrentHashMap<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger threadIndex = new AtomicInteger();
+
+    public LlmStubServer(LlmStubProperties conf) {
+        this.conf = conf;
+    }
+
+    /**
+     * 启动服务
+     * @throws IOException 端口占用或样例加载失败
+     */
+    public synchronized void start() throws IOException {
+        if (!servers.isEmpty()) {
+            return;
+        }
+        fixtures = LlmStubFixtures.load(conf.getFixtures());
+        executor = Executors.newFixedThreadPool(Math.max(1, conf.getThreads()), r -> {
+            Thread t = new Thread(r, "llm-stub-" + threadIndex.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        // 多个实例共用处理线程、样例和统计，端口为0时各自由系统分配
+        for (int i = 0; i < Math.max(1, conf.getInstances()); i++) {
+            int port = conf.getPort() == 0 ? 0 : conf.getPort() + i;
+            HttpServer server = HttpServer.create(new InetSocketAddress(conf.getHost(), port), 256);
+            server.setExecutor(executor);
+            server.createContext(COMPLETIONS_PATH, this::handleCompletions);
+            server.createContext("/v1/models", this::handleModels);
+            server.createContext("/stub/stats", this::handleStats);
+            server.start();
+            servers.add(server);
+            logger.info("🧪 LLM替身服务已启动: http://{}:{}{}, 样例 {} 条, 延迟分布 {}", conf.getHost(),
+                    server.getAddress().getPort(), COMPLETIONS_PATH, fixtures.size(), conf.getLatency().getDistribution());
+        }
+    }
+
+    /**
+     * 停止服务
+     */
+    public synchronized void stop() {
+        if (servers.isEmpty()) {
+            return;
+        }
+        for (HttpServer server : servers) {
+            server.stop(0);
+        }
+        executor.shutdownNow();
+        servers.clear();
+        logger.info("🧪 LLM替身服务已停止");
+    }
+
+    /**
+     * 实际监听端口（配置为0时由系统分配）
+     * @return 端口
+     */
+    public int getPort() {
+        return servers.isEmpty() ? conf.getPort() : servers.get(0).getAddress().getPort();
+    }
+
+    /**
+     * 各实例的实际监听端口
+     * @return 端口列表
+     */
+    public synchronized List<Integer> getPorts() {
+        List<Integer> ports = new ArrayList<>();
+        for (HttpServer server : servers) {
+            ports.add(server.getAddress().getPort());
+        }
+        return ports;
+    }
+
+    /**
+     * 请求统计
+     * @return 统计数据
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("requests", requestCount.get());
+        data.put("streams", streamCount.get());
+        data.put("inFlight", inFlight.get());
+        data.put("fixtures", toPlain(fixtureHits));
+        data.put("faults", toPlain(faultHits));
+        data.put("ports", toPlain(portHits));
+        return data;
+    }
+
+    private void handleCompletions(HttpExchange exchange) throws IOException {
+        inFlight.incrementAndGet();
+        try {
+            if (!"POST".equalsIgnoreCase(exchange.getRequestMethod())) {
+                send(exchange, 405, error("method not allowed"));
+                return;
+            }
+            requestCount.incrementAndGet();
+            portHits.computeIfAbsent(String.valueOf(exchange.getLocalAddress().getPort()), k -> new AtomicLong())
+                    .incrementAndGet();
+
+            JSONObject request;
+            try {
+                request = JSON.parseObject(StreamUtils.copyToString(exchange.getRequestBody(), StandardCharsets.UTF_8));
+            } catch (Exception e) {
+                send(exchange, 400, error("invalid json: " + e.getMessage()));
+                return;
+            }
+            if (request == null) {
+                send(exchange, 400, error("empty body"));
+                return;
+            }
+
+            String prompt = promptOf(request);
+            if (injectFault(exchange)) {
+                return;
+            }
+
+            String[] matched = fixtures.respond(prompt);
+            count(fixtureHits, matched[0]);
+            String content = matched[1];
+            int promptTokens = TokenEstimator.estimate(prompt);
+            int completionTokens = TokenEstimator.estimate(content);
+
+            if (request.getBooleanValue("stream")) {
+                streamCount.incrementAndGet();
+                sleep(sampleLatency());
+                stream(exchange, content, promptTokens, completionTokens);
+                return;
+            }
+
+            sleep(sampleLatency() + (long) (completionTokens * conf.getLatency().getPerOutputTokenMillis()));
+            send(exchange, 200, completion(content, promptTokens, completionTokens).toJSONString());
+        } catch (IOException e) {
+            // 客户端已断开
+            logger.debug("LLM替身服务写响应失败: {}", e.getMessage());
+        } finally {
+            inFlight.decrementAndGet();
+            exchange.close();
+        }
+    }
+
+    private void handleModels(HttpExchange exchange) throws IOException {
+        try {
+            JSONObject model = new JSONObject();
+            model.put("id", conf.getModel());
+            model.put("object", "model");
+            model.put("owned_by", "stub");
+            JSONArray data = new JSONArray();
+            data.add(model);
+            JSONObject body = new JSONObject();
+            body.put("object", "list");
+            body.put("data", data);
+            send(exchange, 200, body.toJSONString());
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void handleStats(HttpExchange exchange) throws IOException {
+        try {
+            send(exchange, 200, JSON.toJSONString(stats()));
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * 按比例注入故障，已处理（无需继续响应）返回true
+     */
+    private boolean injectFault(HttpExchange exchange) throws IOException {
+        LlmStubProperties.Faults faults = conf.getFaults();
+        double r = ThreadLocalRandom.current().nextDouble();
+
+        if ((r -= faults.getResetRate()) < 0) {
+            count(faultHits, "reset");
+            // 不写响应头直接关闭，客户端表现为连接被断开
+            return true;
+        }
+        if ((r -= faults.getTimeoutRate()) < 0) {
+            count(faultHits, "timeout");
+            sleep(faults.getTimeoutMillis());
+            return true;
+        }
+        if ((r -= faults.getErrorRate()) < 0) {
+            count(faultHits, "error");
+            sleep(sampleLatency());
+            send(exchange, 500, error("injected server error"));
+            return true;
+        }
+        if ((r -= faults.getMalformedRate()) < 0) {
+            count(faultHits, "malformed");
+            sleep(sampleLatency());
+            String body = completion("{\"score\": 1", 0, 0).toJSONString();
+            send(exchange, 200, body.substring(0, body.length() / 2));
+            return true;
+        }
+        if ((r -= faults.getEmptyRate()) < 0) {
+            count(faultHits, "empty");
+            sleep(sampleLatency());
+            JSONObject body = completion("", 0, 0);
+            body.put("choices", new JSONArray());
+            send(exchange, 200, body.toJSONString());
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * SSE流式响应：按分片输出 delta，最后输出 [DONE]
+     */
+    private void stream(HttpExchange exchange, String content, int promptTokens, int completionTokens) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "text/event-stream; charset=utf-8");
+        exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+        exchange.sendResponseHeaders(200, 0);
+
+        String id = "chatcmpl-stub-" + requestCount.get();
+        int chunk = Math.max(1, conf.getStreamChunkChars());
+        try (OutputStream out = exchange.getResponseBody()) {
+            for (int i = 0; i < content.length(); i += chunk) {
+                JSONObject delta = new JSONObject();
+                delta.put("content", content.substring(i, Math.min(content.length(), i + chunk)));
+                writeEvent(out, chunkOf(id, delta, null).toJSONString());
+                sleep(conf.getStreamChunkDelayMillis());
+            }
+            JSONObject last = chunkOf(id, new JSONObject(), "stop");
+            last.put("usage", usage(promptTokens, completionTokens));
+            writeEvent(out, last.toJSONString());
+            writeEvent(out, "[DONE]");
+        }
+    }
+
+    private void writeEvent(OutputStream out, String data) throws IOException {
+        out.write(("data: " + data + "\n\n").getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+    private JSONObject chunkOf(String id, JSONObject delta, String finishReason) {
+        JSONObject choice = new JSONObject();
+        choice.put("index", 0);
+        choice.put("delta", delta);
+        choice.put("finish_reason", finishReason);
+        JSONArray choices = new JSONArray();
+        choices.add(choice);
+
+        JSONObject body = new JSONObject();
+        body.put("id", id);
+        body.put("object", "chat.completion.chunk");
+        body.put("created", System.currentTimeMillis() / 1000);
+        body.put("model", conf.getModel());
+        body.put("choices", choices);
+        return body;
+    }
+
+    private JSONObject completion(String content, int promptTokens, int completionTokens) {
+        JSONObject message = new JSONObject();
+        message.put("role", "assistant");
+        message.put("content", content);
+        JSONObject choice = new JSONObject();
+        choice.put("index", 0);
+        choice.put("message", message);
+        choice.put("finish_reason", "stop");
+        JSONArray choices = new JSONArray();
+        choices.add(choice);
+
+        JSONObject body = new JSONObject();
+        body.put("id", "chatcmpl-stub-" + requestCount.get());
+        body.put("object", "chat.completion");
+        body.put("created", System.currentTimeMillis() / 1000);
+        body.put("model", conf.getModel());
+        body.put("choices", choices);
+        body.put("usage", usage(promptTokens, completionTokens));
+        return body;
+    }
+
+    private JSONObject usage(int promptTokens, int completionTokens) {
+        JSONObject usage = new JSONObject();
+        usage.put("prompt_tokens", promptTokens);
+        usage.put("completion_tokens", completionTokens);
+        usage.put("total_tokens", promptTokens + completionTokens);
+        return usage;
+    }
+
+    /**
+     * 取最后一条消息的文本；多模态消息拼接其中的text部分
+     */
+    private String promptOf(JSONObject request) {
+        JSONArray messages = request.getJSONArray("messages");
+        if (messages == null || messages.isEmpty()) {
+            return "";
+        }
+        Object content = messages.getJSONObject(messages.size() - 1).get("content");
+        if (content instanceof JSONArray) {
+            StringBuilder text = new StringBuilder();
+            for (Object part : (JSONArray) content) {
+                if (part instanceof JSONObject && "text".equals(((JSONObject) part).getString("type"))) {
+                    text.append(((JSONObject) part).getString("text"));
+                }
+            }
+            return text.toString();
+        }
+        return content == null ? "" : content.toString();
+    }
+
+    /**
+     * 按配置的分布采样一次延迟
+     */
+    private long sampleLatency() {
+        LlmStubProperties.Latency latency = conf.getLatency();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        double mean = latency.getMeanMillis();
+        double value;
+        switch (latency.getDistribution().toUpperCase()) {
+            case "FIXED":
+                value = mean;
+                break;
+            case "UNIFORM":
+                value = latency.getMinMillis() + random.nextDouble() * Math.max(0, latency.getMaxMillis() - latency.getMinMillis());
+                break;
+            case "NORMAL":
+                value = mean + random.nextGaussian() * latency.getStddevMillis();
+                break;
+            case "EXPONENTIAL":
+                value = -mean * Math.log(1 - random.nextDouble());
+                break;
+            default:
+                // LOGNORMAL：mean为中位数
+                value = mean * Math.exp(latency.getSigma() * random.nextGaussian());
+                break;
+        }
+        long max = latency.getMaxMillis() > 0 ? latency.getMaxMillis() : Long.MAX_VALUE;
+        return Math.min(max, Math.max(latency.getMinMillis(), (long) value));
+    }
+
+    private void send(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private String error(String message) {
+        JSONObject error = new JSONObject();
+        error.put("message", message);
+        error.put("type", "stub_error");
+        JSONObject body = new JSONObject();
+        body.put("error", error);
+        return body.toJSONString();
+    }
+
+    private static void sleep(long millis) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void count(Map<String, AtomicLong> counters, String key) {
+        counters.computeIfAbsent(key, k -> new AtomicLong()).incrementAndGet();
+    }
+
+    private static Map<String, Long> toPlain(Map<String, AtomicLong> counters) {
+        Map<String, Long> plain = new LinkedHashMap<>();
+        counters.forEach((k, v) -> plain.put(k, v.get()));
+        return plain;
+    }
+
+    /**
+     * 单独运行替身服务，参数为 key=value 形式，与 conf.ai.stub 下的配置项一致
+     */
+    public static void main(String[] args) throws Exception {
+        Map<String, String> props = new HashMap<>();
+        for (String arg : args) {
+            int index = arg.indexOf('=');
+            if (index > 0) {
+                props.put(arg.substring(0, index).trim(), arg.substring(index + 1).trim());
+            }
+        }
+        LlmStubProperties conf = new LlmStubProperties();
+        new Binder(new MapConfigurationPropertySource(props)).bind("", Bindable.ofInstance(conf));
+
+        LlmStubServer server = new LlmStubServer(conf);
+        server.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(server::stop));
+        Thread.currentThread().join();
+    }
+}
@@ -0,0 +1,23 @@
+package com.yf.exam.ability.ai.stub;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * LLM替身服务随应用启动，仅在 conf.ai.stub.enabled=true 时生效
+ *
+ * @author AI Assistant
+ * @date 2026-10-19
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "conf.ai.stub", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(LlmStubProperties.class)
+public class LlmStubServerConfig {
+
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public LlmStubServer llmStubServer(LlmStubProperties properties) {
+        return new LlmStubServer(properties);
+    }
+}
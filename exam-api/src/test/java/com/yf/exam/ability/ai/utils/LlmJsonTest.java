@@ -0,0 +1,65 @@
+package com.yf.exam.ability.ai.utils;
+
+import com.alibaba.fastjson2.JSONArray;
+import com.alibaba.fastjson2.JSONObject;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 大模型输出容错解析测试
+ *
+ * @author AI Assistant
+ * @date 2026-10-19
+ */
+public class LlmJsonTest {
+
+    @Test
+    public void completeJsonIsNotRepaired() {
+        LlmJson.Result<JSONObject> result = LlmJson.parseObject("{\"questions\":[{\"id\":1}]}");
+
+        assertFalse(result.isTruncated());
+        assertEquals(1, result.getValue().getJSONArray("questions").size());
+    }
+
+    @Test
+    public void truncatedArrayKeepsCompleteElements() {
+        LlmJson.Result<JSONArray> result = LlmJson.parseArray("```json\n[{\"id\":1},{\"id\":2},{\"id\":3,\"con");
+
+        assertTrue(result.isTruncated());
+        assertEquals(2, result.getKept());
+        assertEquals(2, result.getValue().getJSONObject(1).getIntValue("id"));
+    }
+
+    @Test
+    public void truncatedWrappedArrayKeepsCompleteElements() {
+        LlmJson.Result<JSONObject> result = LlmJson.parseObject(
+                "{\"total\":3,\"questions\":[{\"id\":1,\"options\":[\"A\",\"B\"]},{\"id\":2},{\"id\":3,\"options\":[\"A\"");
+
+        assertTrue(result.isTruncated());
+        assertEquals(3, result.getValue().getIntValue("total"));
+        JSONArray questions = result.getValue().getJSONArray("questions");
+        assertEquals(2, questions.size());
+        assertEquals(2, questions.getJSONObject(0).getJSONArray("options").size());
+        assertEquals(2, questions.getJSONObject(1).getIntValue("id"));
+    }
+
+    @Test
+    public void truncatedObjectWithoutArrayKeepsCompleteFields() {
+        LlmJson.Result<JSONObject> result = LlmJson.parseObject("{\"score\":8,\"comment\":{\"a\":1,\"b\":\"未完");
+
+        assertTrue(result.isTruncated());
+        assertEquals(1, result.getKept());
+        assertEquals(8, result.getValue().getIntValue("score"));
+    }
+
+    @Test
+    public void truncatedBeforeAnyCompleteElementYieldsEmpty() {
+        LlmJson.Result<JSONObject> result = LlmJson.parseObject("{\"questions\":[{\"id\":1");
+
+        assertTrue(result.isTruncated());
+        assertTrue(result.getValue().isEmpty());
+    }
+}
@@ -0,0 +1,44 @@
+package com.yf.exam.core.utils.excel;
+
+import com.yf.exam.modules.qu.dto.export.QuExportDTO;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Excel列绑定测试，取值结果须与原反射方式一致
+ *
+ * @author AI Assistant
+ * @date 2026-10-19
+ */
+public class ExcelBindingTest {
+
+	@Test
+	public void exportValuesMatchLegacyReflection() throws Exception {
+		QuExportDTO row = ExcelBindingBenchmark.sample();
+		ExcelBinding<QuExportDTO> binding = ExcelBinding.forExport(QuExportDTO.class, 1);
+
+		assertEquals(ExcelBindingBenchmark.legacyRow(row, ExcelBindingBenchmark.legacyAnnotations(QuExportDTO.class)),
+				ExcelBindingBenchmark.bindingRow(row, binding));
+	}
+
+	@Test
+	public void bindingsAreCachedPerClassTypeAndGroups() {
+		assertSame(ExcelBinding.forExport(QuExportDTO.class, 1), ExcelBinding.forExport(QuExportDTO.class, 1));
+		assertSame(ExcelBinding.forImport(QuExportDTO.class), ExcelBinding.forImport(QuExportDTO.class));
+	}
+
+	@Test
+	public void importConvertsCellText() {
+		ExcelBinding<QuExportDTO> binding = ExcelBinding.forImport(QuExportDTO.class);
+		QuExportDTO row = binding.newRow();
+		binding.set(row, 0, "3.0");
+		binding.set(row, 6, "r1,r2");
+
+		assertEquals("3", row.getNo());
+		assertEquals(Arrays.asList("r1", "r2"), row.getRepoList());
+	}
+}
@@ -0,0 +1,98 @@
+package com.yf.exam.modules.qu.service.impl;
+
+import com.yf.exam.core.exception.ServiceException;
+import org.apache.poi.xssf.usermodel.XSSFRow;
+import org.apache.poi.xssf.usermodel.XSSFSheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * XLSX流式导入的校验测试，校验不通过时在写库之前抛出，不需要数据库
+ *
+ * @author AI Assistant
+ * @since 2026-10-19
+ */
+public class QuImportServiceImplTest {
+
+    private final QuImportServiceImpl service = new QuImportServiceImpl();
+
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("qu-import-test-", ".xlsx");
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Test
+    public void radioWithSeveralCorrectOptionsIsRejected() throws IOException {
+        write(new String[][]{
+                {"1", "1", "1+1=?", "r1", "1", "2"},
+                {"1", "", "", "", "1", "二"},
+                {"1", "", "", "", "0", "3"},
+        });
+        assertRejected("单选题，不能包含多个正确项");
+    }
+
+    @Test
+    public void questionWithoutCorrectOptionIsRejected() throws IOException {
+        write(new String[][]{
+                {"1", "2", "以下哪些是偶数", "r1", "0", "1"},
+                {"1", "", "", "", "0", "3"},
+                {"2", "1", "1+1=?", "r1", "1", "2"},
+        });
+        assertRejected("题目序号1至少要包含一个正确项");
+    }
+
+    @Test
+    public void optionWithoutContentIsRejected() throws IOException {
+        write(new String[][]{
+                {"1", "1", "1+1=?", "r1", "1", ""},
+        });
+        assertRejected("选项内容不能为空");
+    }
+
+    private void assertRejected(String message) throws IOException {
+        try {
+            service.importExcel(file);
+            fail("应校验不通过");
+        } catch (ServiceException e) {
+            assertTrue(e.getMsg(), e.getMsg().contains(message));
+        }
+    }
+
+    /**
+     * 按导入模板写入：序号、题型、题目内容、题库、是否正确项、选项内容
+     */
+    private void write(String[][] rows) throws IOException {
+        int[] columns = {0, 1, 2, 6, 7, 8};
+        XSSFWorkbook wb = new XSSFWorkbook();
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            XSSFSheet sheet = wb.createSheet();
+            sheet.createRow(0).createCell(0).setCellValue("试题");
+            sheet.createRow(1).createCell(0).setCellValue("题目序号");
+            for (int i = 0; i < rows.length; i++) {
+                XSSFRow row = sheet.createRow(i + 2);
+                for (int j = 0; j < columns.length; j++) {
+                    if (!rows[i][j].isEmpty()) {
+                        row.createCell(columns[j]).setCellValue(rows[i][j]);
+                    }
+                }
+            }
+            wb.write(out);
+        }
+    }
+}
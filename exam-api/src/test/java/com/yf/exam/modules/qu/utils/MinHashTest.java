@@ -0,0 +1,24 @@
+package com.yf.exam.modules.qu.utils;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 题目文本归一化测试
+ *
+ * @author AI Assistant
+ * @since 2026-10-19
+ */
+public class MinHashTest {
+
+    @Test
+    public void normalizeKeepsTextBetweenComparisonSigns() {
+        assertEquals("x3且y2", MinHash.normalize("x<3且y>2"));
+    }
+
+    @Test
+    public void normalizeStripsTagsAndImageMarks() {
+        assertEquals("x3且y2", MinHash.normalize("<p style=\"a\">x<3且{{IMG_1}}y>2&nbsp;<br/></p>"));
+    }
+}
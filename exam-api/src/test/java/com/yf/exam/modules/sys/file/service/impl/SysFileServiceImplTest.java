@@ -0,0 +1,157 @@
+package com.yf.exam.modules.sys.file.service.impl;
+
+import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.yf.exam.ability.upload.config.UploadConfig;
+import com.yf.exam.modules.sys.file.entity.SysFile;
+import com.yf.exam.modules.sys.file.mapper.SysFileMapper;
+import org.apache.ibatis.executor.result.DefaultResultContext;
+import org.apache.ibatis.session.ResultHandler;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 上传文件回收的引用标记测试
+ *
+ * @author AI Assistant
+ * @since 2026-10-19
+ */
+public class SysFileServiceImplTest {
+
+    private static final String HASH = "0123456789abcdef0123456789abcdef0123456789abcdef0123456789abcdef";
+
+    private static final String URL = "http://localhost:8101/upload/file/blob/01/23/" + HASH + ".png";
+
+    /**
+     * 表名 → 扫描返回的行
+     */
+    private final Map<String, List<String>> rows = new HashMap<>();
+
+    private final List<String> scanned = new ArrayList<>();
+
+    /**
+     * sys_file 表，id → 记录
+     */
+    private final Map<String, SysFile> files = new HashMap<>();
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private SysFileServiceImpl service;
+
+    @Before
+    public void setUp() throws Exception {
+        SysFileMapper mapper = (SysFileMapper) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class[]{SysFileMapper.class}, (proxy, method, args) -> {
+                    if ("selectById".equals(method.getName())) {
+                        return files.get(args[0]);
+                    }
+                    if ("touch".equals(method.getName())) {
+                        SysFile file = (SysFile) args[0];
+                        files.putIfAbsent(file.getId(), file);
+                        return 1;
+                    }
+                    if (!"scanRefs".equals(method.getName())) {
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                    String table = (String) args[0];
+                    scanned.add(table);
+                    @SuppressWarnings("unchecked")
+                    ResultHandler<String> handler = (ResultHandler<String>) args[2];
+                    DefaultResultContext<String> context = new DefaultResultContext<>();
+                    for (String row : rows.getOrDefault(table, new ArrayList<>())) {
+                        context.nextResultObject(row);
+                        handler.handleResult(context);
+                    }
+                    return null;
+                });
+        service = new SysFileServiceImpl();
+        Field field = ServiceImpl.class.getDeclaredField("baseMapper");
+        field.setAccessible(true);
+        field.set(service, mapper);
+
+        UploadConfig conf = new UploadConfig();
+        conf.setDir(folder.getRoot().getAbsolutePath());
+        Field confField = SysFileServiceImpl.class.getDeclaredField("conf");
+        confField.setAccessible(true);
+        confField.set(service, conf);
+    }
+
+    @Test
+    public void sameContentWithOtherExtensionReusesStoredBlob() throws Exception {
+        byte[] bytes = "same image bytes".getBytes(StandardCharsets.UTF_8);
+
+        String first = service.store(new ByteArrayInputStream(bytes), "a.jpg");
+        String second = service.store(new ByteArrayInputStream(bytes), "b.JPEG");
+
+        assertEquals(first, second);
+        assertTrue(first.endsWith(".jpg"));
+        try (Stream<Path> blobs = Files.walk(folder.getRoot().toPath().resolve("blob"))) {
+            assertEquals(1, blobs.filter(p -> Files.isRegularFile(p) && !p.toString().endsWith(".tmp")).count());
+        }
+    }
+
+    @Test
+    public void fileNameMayBeNull() throws Exception {
+        String path = service.store(new ByteArrayInputStream(new byte[]{1, 2, 3}), null);
+
+        assertTrue(path.endsWith(".bin"));
+        assertTrue(Files.exists(folder.getRoot().toPath().resolve(path)));
+    }
+
+    @Test
+    public void blobReferencedOnlyByFingerprintIsKept() {
+        List<String> fingerprint = new ArrayList<>();
+        fingerprint.add("[{\"content\":\"如图所示\",\"image\":\"" + URL + "\"}]");
+        rows.put("el_ai_doc_fingerprint", fingerprint);
+
+        Map<String, Integer> refs = service.countRefs();
+
+        assertEquals(Integer.valueOf(1), refs.get(HASH));
+    }
+
+    @Test
+    public void blobReferencedOnlyByImportJobIsKept() {
+        List<String> job = new ArrayList<>();
+        job.add("{\"images\":[\"" + URL + "\"]} " + URL);
+        rows.put("el_ai_import_job", job);
+
+        assertEquals(Integer.valueOf(2), service.countRefs().get(HASH));
+    }
+
+    @Test
+    public void scansEveryReferenceSource() {
+        service.countRefs();
+
+        assertEquals(new ArrayList<>(SysFileServiceImpl.REF_SOURCES.keySet()), scanned);
+        assertTrue(scanned.contains("el_ai_doc_fingerprint"));
+        assertTrue(scanned.contains("el_ai_import_job"));
+    }
+
+    @Test
+    public void unreferencedBlobIsNotCounted() {
+        List<String> qu = new ArrayList<>();
+        qu.add("纯文本题目");
+        qu.add(null);
+        rows.put("el_qu", qu);
+
+        assertFalse(service.countRefs().containsKey(HASH));
+    }
+}